@@ -0,0 +1,75 @@
+package pl.koszela.nowoczesnebud.Config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.koszela.nowoczesnebud.Service.CatalogPurgeService;
+
+import java.time.DayOfWeek;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Fizyczne usuwanie produktów grup oznaczonych jako usunięte (CatalogPurgeService) - poza godzinami pracy
+ *
+ * - app.catalog.purge.enabled - wyłącza czyszczenie (np. w testach na współdzielonej bazie)
+ * - app.catalog.purge.business-hours-start / business-hours-end / zone - godziny pracy (dni robocze)
+ * - app.catalog.purge.max-batches-per-run - limit paczek DELETE w jednym uruchomieniu
+ */
+@Component
+public class CatalogPurgeScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogPurgeScheduler.class);
+
+    private final CatalogPurgeService catalogPurgeService;
+    private final boolean enabled;
+    private final int businessHoursStart;
+    private final int businessHoursEnd;
+    private final ZoneId zone;
+    private final int maxBatchesPerRun;
+
+    public CatalogPurgeScheduler(CatalogPurgeService catalogPurgeService,
+                                 @Value("${app.catalog.purge.enabled:true}") boolean enabled,
+                                 @Value("${app.catalog.purge.business-hours-start:7}") int businessHoursStart,
+                                 @Value("${app.catalog.purge.business-hours-end:18}") int businessHoursEnd,
+                                 @Value("${app.catalog.purge.zone:Europe/Warsaw}") String zone,
+                                 @Value("${app.catalog.purge.max-batches-per-run:200}") int maxBatchesPerRun) {
+        this.catalogPurgeService = catalogPurgeService;
+        this.enabled = enabled;
+        this.businessHoursStart = businessHoursStart;
+        this.businessHoursEnd = businessHoursEnd;
+        this.zone = ZoneId.of(zone);
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    /**
+     * Co 10 minut (poza godzinami pracy) usuń fizycznie produkty grup oznaczonych jako usunięte
+     */
+    @Scheduled(fixedDelayString = "${app.catalog.purge.interval-ms:600000}")
+    public void purgeDeletedGroups() {
+        if (!enabled || isBusinessHours(ZonedDateTime.now(zone))) {
+            return;
+        }
+        try {
+            int purged = catalogPurgeService.purgeDeletedGroups(maxBatchesPerRun);
+            if (purged > 0) {
+                logger.info("🗑️ Czyszczenie katalogu: usunięto {} produktów z usuniętych grup", purged);
+            }
+        } catch (Exception ex) {
+            logger.error("❌ Błąd czyszczenia usuniętych grup katalogu: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Godziny pracy: dni robocze od businessHoursStart do businessHoursEnd (czas lokalny zone)
+     */
+    boolean isBusinessHours(ZonedDateTime now) {
+        DayOfWeek day = now.getDayOfWeek();
+        if (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY) {
+            return false;
+        }
+        return now.getHour() >= businessHoursStart && now.getHour() < businessHoursEnd;
+    }
+}
@@ -0,0 +1,201 @@
+package pl.koszela.nowoczesnebud.Config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ⚡ OPTYMALIZACJA: Kolumnowy format JSON dla dużych list (produkty, porównanie cen projektu)
+ * Włączany przez klienta nagłówkiem: Accept: application/vnd.nowoczesnebud.columnar+json
+ * (bez nagłówka / Accept: application/json - zwykła tablica obiektów jak dotychczas)
+ *
+ * Zamiast powtarzać ~35 nazw pól i null w każdym wierszu:
+ * {
+ *   "rowCount": 3,
+ *   "fields": ["productId", "name", "manufacturer", "currentRetailPrice"],
+ *   "dictionaries": {"name": ["Gąsior", "Dachówka"], "manufacturer": ["CANTUS"]},
+ *   "columns": {"productId": [1, 2, 3], "name": [1, 0, 1], "manufacturer": [0, 0, 0], "currentRetailPrice": [10.5, null, 12.0]}
+ * }
+ * - teksty i enumy: indeksy do słownika kolumny (dictionaries), pozostałe kolumny - wartości
+ * - kolumny, w których wszystkie wiersze mają null, są pomijane (brak pola = null)
+ * - odpowiedź zapisywana strumieniowo (JsonGenerator) - bez budowania drzewa JSON w pamięci
+ *
+ * ⚠️ WAŻNE: Nazwy pól i wartości jak w zwykłym JSON (te same adnotacje Jackson i ObjectMapper aplikacji).
+ * Formaty binarne (Smile, MessagePack) wymagałyby nowych zależności - kompresję zapewnia GZIP (TomcatGzipConfig).
+ */
+public class ColumnarJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String COLUMNAR_JSON_VALUE = "application/vnd.nowoczesnebud.columnar+json";
+    public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType(COLUMNAR_JSON_VALUE);
+
+    private final ObjectMapper objectMapper;
+
+    public ColumnarJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(COLUMNAR_JSON);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Format kolumnowy służy tylko do odpowiedzi", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Format kolumnowy służy tylko do odpowiedzi", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        List<Object> rows = new ArrayList<>((Collection<?>) body);
+        List<Column> columns = columnsOf(rows, type);
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputMessage.getBody(), JsonEncoding.UTF8);
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("rowCount", rows.size());
+
+            generator.writeArrayFieldStart("fields");
+            for (Column column : columns) {
+                generator.writeString(column.name);
+            }
+            generator.writeEndArray();
+
+            generator.writeObjectFieldStart("dictionaries");
+            for (Column column : columns) {
+                if (column.dictionary != null) {
+                    generator.writeArrayFieldStart(column.name);
+                    for (String value : column.dictionary.keySet()) {
+                        generator.writeString(value);
+                    }
+                    generator.writeEndArray();
+                }
+            }
+            generator.writeEndObject();
+
+            generator.writeObjectFieldStart("columns");
+            for (Column column : columns) {
+                generator.writeArrayFieldStart(column.name);
+                for (Object row : rows) {
+                    writeValue(generator, column, column.accessor.getValue(row));
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+
+            generator.writeEndObject();
+            generator.flush();
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotWritableException("Błąd zapisu formatu kolumnowego: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Kolumny = właściwości Jackson typu wiersza; pomija kolumny bez żadnej wartości i buduje słowniki tekstów
+     */
+    private List<Column> columnsOf(List<Object> rows, Type type) {
+        List<Column> columns = new ArrayList<>();
+        Class<?> rowClass = ResolvableType.forType(type).asCollection().resolveGeneric(0);
+        if ((rowClass == null || rowClass == Object.class) && !rows.isEmpty() && rows.get(0) != null) {
+            rowClass = rows.get(0).getClass();
+        }
+        if (rowClass == null || rows.isEmpty()) {
+            return columns;
+        }
+
+        JavaType rowType = objectMapper.constructType(rowClass);
+        for (BeanPropertyDefinition property : objectMapper.getSerializationConfig().introspect(rowType).findProperties()) {
+            AnnotatedMember accessor = property.getAccessor();
+            if (accessor == null) {
+                continue;
+            }
+            accessor.fixAccess(true);
+            Class<?> valueType = accessor.getRawType();
+            boolean dictionaryEncoded = valueType == String.class || valueType.isEnum();
+
+            Map<String, Integer> dictionary = dictionaryEncoded ? new LinkedHashMap<>() : null;
+            boolean hasValue = false;
+            for (Object row : rows) {
+                Object value = accessor.getValue(row);
+                if (value != null) {
+                    hasValue = true;
+                    if (dictionary != null) {
+                        dictionary.putIfAbsent(dictionaryKey(value), dictionary.size());
+                    }
+                }
+            }
+            if (hasValue) {
+                columns.add(new Column(property.getName(), accessor, dictionary));
+            }
+        }
+        return columns;
+    }
+
+    private void writeValue(JsonGenerator generator, Column column, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (column.dictionary != null) {
+            generator.writeNumber(column.dictionary.get(dictionaryKey(value)));
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            // Daty, zagnieżdżone obiekty - jak w zwykłym JSON
+            objectMapper.writeValue(generator, value);
+        }
+    }
+
+    private static String dictionaryKey(Object value) {
+        return value instanceof Enum ? ((Enum<?>) value).name() : (String) value;
+    }
+
+    private static class Column {
+        private final String name;
+        private final AnnotatedMember accessor;
+        private final Map<String, Integer> dictionary;
+
+        private Column(String name, AnnotatedMember accessor, Map<String, Integer> dictionary) {
+            this.name = name;
+            this.accessor = accessor;
+            this.dictionary = dictionary;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package pl.koszela.nowoczesnebud.Config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.koszela.nowoczesnebud.Service.OfferPdfRenderService;
+
+/**
+ * Cykliczne usuwanie wygasłych zadań renderowania PDF (OfferPdfRenderService)
+ */
+@Component
+public class PdfRenderJobScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfRenderJobScheduler.class);
+
+    private final OfferPdfRenderService offerPdfRenderService;
+
+    public PdfRenderJobScheduler(OfferPdfRenderService offerPdfRenderService) {
+        this.offerPdfRenderService = offerPdfRenderService;
+    }
+
+    /**
+     * Co minutę usuń zakończone zadania starsze niż ich czas ważności
+     */
+    @Scheduled(fixedDelay = 60 * 1000)
+    public void purgeExpiredJobs() {
+        try {
+            int purged = offerPdfRenderService.purgeExpiredJobs();
+            if (purged > 0) {
+                logger.debug("🗑️ Usunięto {} wygasłych zadań PDF", purged);
+            }
+        } catch (Exception e) {
+            logger.error("❌ Błąd usuwania wygasłych zadań PDF: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package pl.koszela.nowoczesnebud.Config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.koszela.nowoczesnebud.Service.ProductSearchIndex;
+
+/**
+ * Budowa i odświeżanie indeksu wyszukiwania produktów w pamięci (ProductSearchIndex)
+ *
+ * - app.search.refresh-ms - odstęp między sprawdzeniami zmian w produktach
+ */
+@Component
+public class ProductSearchIndexScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndexScheduler.class);
+
+    private final ProductSearchIndex productSearchIndex;
+
+    public ProductSearchIndexScheduler(ProductSearchIndex productSearchIndex) {
+        this.productSearchIndex = productSearchIndex;
+    }
+
+    /**
+     * Po starcie zbuduj indeks, potem co minutę dociągnij zmiany w produktach
+     */
+    @Scheduled(fixedDelayString = "${app.search.refresh-ms:60000}")
+    public void refreshSearchIndex() {
+        try {
+            productSearchIndex.refresh();
+        } catch (Exception ex) {
+            logger.error("❌ Błąd odświeżania indeksu wyszukiwania produktów: {}", ex.getMessage(), ex);
+        }
+    }
+}
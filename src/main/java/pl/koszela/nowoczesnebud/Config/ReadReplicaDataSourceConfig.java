@@ -0,0 +1,83 @@
+package pl.koszela.nowoczesnebud.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Baza główna + replika do odczytów (ReadWriteRoutingDataSource)
+ * Włączane przez ustawienie app.datasource.replica.url (bez niej - jedna baza jak dotychczas)
+ *
+ * - app.datasource.replica.url / username / password (domyślnie login i hasło bazy głównej)
+ * - app.datasource.replica.hikari.* - pula repliki (jak spring.datasource.hikari.* dla bazy głównej)
+ * - app.datasource.replica.lag-query / lag-column - zapytanie o opóźnienie repliki (MySQL: SHOW REPLICA STATUS)
+ * - app.datasource.replica.max-lag-seconds - powyżej tego opóźnienia odczyty idą na bazę główną
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setReadOnly(true);
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            @Value("${app.datasource.replica.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+            @Value("${app.datasource.replica.lag-column:Seconds_Behind_Source}") String lagColumn,
+            @Value("${app.datasource.replica.max-lag-seconds:1}") long maxLagSeconds) {
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, lagQuery, lagColumn, maxLagSeconds);
+    }
+
+    /**
+     * DataSource aplikacji (JPA, JDBC) - wybór bazy przy pierwszym zapytaniu w transakcji, nie przy jej rozpoczęciu
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    /**
+     * ⚠️ WAŻNE: Połączenie zwalniane po każdej transakcji (domyślnie sesja Hibernate trzyma je do końca żądania -
+     * open-in-view). Inaczej zapis po odczycie readOnly w tym samym żądaniu trafiłby na połączenie repliki.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandlingCustomizer() {
+        return properties -> properties.put("hibernate.connection.handling_mode",
+                                            "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
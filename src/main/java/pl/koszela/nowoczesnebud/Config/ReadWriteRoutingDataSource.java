@@ -0,0 +1,138 @@
+package pl.koszela.nowoczesnebud.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ⚡ OPTYMALIZACJA: Routing połączeń - transakcje @Transactional(readOnly = true) na replikę, reszta na bazę główną
+ * Ciężkie odczyty (lista produktów, eksport, pipeline) nie obciążają bazy głównej, na której rywalizują
+ * zapisy draft changes. Odczyty czytające własne świeże zapisy użytkownika (porównanie cen projektu,
+ * pozycje PDF oferty) zostają na bazie głównej - bez readOnly.
+ *
+ * ⚠️ WAŻNE: Używać przez LazyConnectionDataSourceProxy - menedżer transakcji pobiera połączenie zanim ustawi
+ * flagę readOnly w TransactionSynchronizationManager; proxy wybiera bazę dopiero przy pierwszym zapytaniu.
+ *
+ * Opóźnienie repliki sprawdzane cyklicznie (checkReplicaLag, ReplicaLagScheduler): gdy replika nie odpowiada
+ * albo opóźnienie przekracza maxLagSeconds, odczyty wracają na bazę główną aż do kolejnego poprawnego sprawdzenia.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final Map<Route, DataSource> dataSources = new EnumMap<>(Route.class);
+    private final Map<Route, AtomicLong> routedConnections = new EnumMap<>(Route.class);
+    private final AtomicLong readOnlyFallbacks = new AtomicLong();
+
+    private final String lagQuery;
+    private final String lagColumn;
+    private final long maxLagSeconds;
+
+    private volatile boolean replicaAvailable;
+    private volatile Long replicaLagSeconds;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                                      String lagQuery, String lagColumn, long maxLagSeconds) {
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.maxLagSeconds = maxLagSeconds;
+        dataSources.put(Route.PRIMARY, primary);
+        dataSources.put(Route.REPLICA, replica);
+        for (Route route : Route.values()) {
+            routedConnections.put(route, new AtomicLong());
+        }
+        setTargetDataSources(new LinkedHashMap<>(dataSources));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        // Replika używana dopiero po pierwszym poprawnym sprawdzeniu opóźnienia
+        checkReplicaLag();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Route route = Route.PRIMARY;
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (replicaAvailable) {
+                route = Route.REPLICA;
+            } else {
+                readOnlyFallbacks.incrementAndGet();
+            }
+        }
+        routedConnections.get(route).incrementAndGet();
+        return route;
+    }
+
+    /**
+     * Sprawdź opóźnienie repliki (lagQuery, kolumna lagColumn w sekundach)
+     * Brak wiersza / NULL (replikacja zatrzymana) / błąd połączenia = replika niedostępna
+     */
+    public void checkReplicaLag() {
+        Long lag = null;
+        try (Connection connection = dataSources.get(Route.REPLICA).getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (resultSet.next()) {
+                Object value = resultSet.getObject(lagColumn);
+                lag = value instanceof Number ? ((Number) value).longValue() : null;
+            }
+        } catch (SQLException e) {
+            logger.warn("⚠️ Replika niedostępna - odczyty na bazie głównej: {}", e.getMessage());
+        }
+
+        boolean available = lag != null && lag <= maxLagSeconds;
+        if (available != replicaAvailable) {
+            logger.info("🔀 Replika {} (opóźnienie: {}s, limit: {}s)",
+                       available ? "włączona dla odczytów" : "wyłączona - odczyty na bazie głównej", lag, maxLagSeconds);
+        }
+        replicaLagSeconds = lag;
+        replicaAvailable = available;
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    /**
+     * Statystyki routingu i pul połączeń (HikariCP) dla każdej bazy
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("replicaAvailable", replicaAvailable);
+        stats.put("replicaLagSeconds", replicaLagSeconds);
+        stats.put("maxLagSeconds", maxLagSeconds);
+        stats.put("readOnlyFallbacks", readOnlyFallbacks.get());
+        for (Route route : Route.values()) {
+            Map<String, Object> routeStats = new LinkedHashMap<>();
+            routeStats.put("routedConnections", routedConnections.get(route).get());
+            DataSource dataSource = dataSources.get(route);
+            if (dataSource instanceof HikariDataSource && ((HikariDataSource) dataSource).getHikariPoolMXBean() != null) {
+                HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+                routeStats.put("activeConnections", pool.getActiveConnections());
+                routeStats.put("idleConnections", pool.getIdleConnections());
+                routeStats.put("totalConnections", pool.getTotalConnections());
+                routeStats.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+            }
+            stats.put(route.name().toLowerCase(), routeStats);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,44 @@
+package pl.koszela.nowoczesnebud.Config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ⚡ OPTYMALIZACJA: Cache danych słownikowych w pamięci JVM (Caffeine) - rabaty globalne, statusy klientów, szablony ofert
+ * Dane czytane prawie w każdym żądaniu, zmieniane rzadko - bez zapytania do bazy przy każdym odczycie.
+ *
+ * - odczyt: @Cacheable na metodach serwisów (GlobalDiscountService, ClientWorkflowService, OfferTemplateService)
+ * - zapis: @CacheEvict(allEntries = true) na metodach zapisu tych serwisów
+ * - expireAfterWrite jako zabezpieczenie przed zmianami z pominięciem serwisów (np. ręczny UPDATE w bazie)
+ * - statystyki trafień: GET /api/cache/stats
+ *
+ * ⚠️ WAŻNE: TransactionAwareCacheManagerProxy - zapis i unieważnienie cache dopiero po COMMIT transakcji,
+ * inaczej równoległe żądanie mogłoby wczytać stare dane przed commitem i zostawić je w cache.
+ */
+@Configuration
+@EnableCaching
+public class ReferenceDataCacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCacheConfig.class);
+
+    public static final String GLOBAL_DISCOUNTS = "globalDiscounts";
+    public static final String BUSINESS_STATUSES = "businessStatuses";
+    public static final String OFFER_TEMPLATES = "offerTemplates";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${app.cache.reference-data.spec:maximumSize=1000,expireAfterWrite=10m}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(GLOBAL_DISCOUNTS, BUSINESS_STATUSES, OFFER_TEMPLATES);
+        cacheManager.setCaffeine(Caffeine.from(spec).recordStats());
+        logger.info("✅ Cache danych słownikowych: {} | spec: {}", cacheManager.getCacheNames(), spec);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
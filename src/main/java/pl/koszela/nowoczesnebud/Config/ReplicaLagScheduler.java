@@ -0,0 +1,32 @@
+package pl.koszela.nowoczesnebud.Config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cykliczne sprawdzanie opóźnienia repliki (ReadWriteRoutingDataSource)
+ */
+@Component
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReplicaLagScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagScheduler.class);
+
+    private final ReadWriteRoutingDataSource readWriteRoutingDataSource;
+
+    public ReplicaLagScheduler(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        this.readWriteRoutingDataSource = readWriteRoutingDataSource;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-ms:5000}")
+    public void checkReplicaLag() {
+        try {
+            readWriteRoutingDataSource.checkReplicaLag();
+        } catch (Exception e) {
+            logger.error("❌ Błąd sprawdzania opóźnienia repliki: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -34,6 +34,7 @@ public class TomcatGzipConfig {
                 // 📝 MIME types do kompresji
                 protocol.setCompressibleMimeType(
                     "application/json," +
+                    ColumnarJsonHttpMessageConverter.COLUMNAR_JSON_VALUE + "," +
                     "application/xml," +
                     "text/html," +
                     "text/xml," +
@@ -6,19 +6,26 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Globalna konfiguracja CORS - zastępuje duplikowane @CrossOrigin w kontrolerach
  * + konfiguracja Jackson dla lepszej obsługi deserializacji
+ * + timeout odpowiedzi asynchronicznych (streaming)
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private static final long ASYNC_REQUEST_TIMEOUT_MS = 300000L; // 5 minut
+
     @Value("${app.auth.allowed-origins:http://localhost:4200,https://angular-nowoczesne-af04d5c56981.herokuapp.com}")
     private String allowedOriginsRaw;
 
@@ -33,10 +40,34 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins(allowedOrigins)
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("X-Job-Id") // ID zadania w tle (ponowne podłączenie SSE)
                 .allowCredentials(true)
                 .maxAge(3600); // Cache preflight requests for 1 hour
     }
 
+    /**
+     * Timeout dla odpowiedzi asynchronicznych (StreamingResponseBody - eksport ZIP)
+     * Domyślny timeout kontenera (30s) przerywałby eksport dużych kategorii
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(ASYNC_REQUEST_TIMEOUT_MS);
+    }
+
+    /**
+     * Kolumnowy format odpowiedzi dla list (Accept: application/vnd.nowoczesnebud.columnar+json)
+     * ⚠️ WAŻNE: Dodany NA KOŃCU - przy dowolnym Accept lub application/json nadal wybierany jest zwykły JSON
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Ten sam ObjectMapper co zwykły JSON (nazwy pól, format dat)
+        converters.stream()
+            .filter(MappingJackson2HttpMessageConverter.class::isInstance)
+            .map(converter -> ((MappingJackson2HttpMessageConverter) converter).getObjectMapper())
+            .findFirst()
+            .ifPresent(objectMapper -> converters.add(new ColumnarJsonHttpMessageConverter(objectMapper)));
+    }
+
     /**
      * Konfiguracja Jackson ObjectMapper dla lepszej obsługi deserializacji
      */
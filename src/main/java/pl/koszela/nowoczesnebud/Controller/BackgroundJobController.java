@@ -0,0 +1,93 @@
+package pl.koszela.nowoczesnebud.Controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.koszela.nowoczesnebud.Service.BackgroundJobService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zadania w tle (BackgroundJobService) - status, ponowne podłączenie SSE, anulowanie
+ */
+@RestController
+@RequestMapping("/api/jobs")
+public class BackgroundJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundJobController.class);
+
+    private static final long EVENTS_SSE_TIMEOUT_MS = 300000L; // 5 minut
+
+    private final BackgroundJobService backgroundJobService;
+
+    public BackgroundJobController(BackgroundJobService backgroundJobService) {
+        this.backgroundJobService = backgroundJobService;
+    }
+
+    /**
+     * Lista śledzonych zadań (najnowsze pierwsze)
+     * GET /api/jobs
+     */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> getJobs() {
+        return ResponseEntity.ok(backgroundJobService.listJobs());
+    }
+
+    /**
+     * Metryki puli zadań w tle
+     * GET /api/jobs/metrics
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        return ResponseEntity.ok(backgroundJobService.getMetrics());
+    }
+
+    /**
+     * Status zadania z ostatnim stanem postępu
+     * GET /api/jobs/{jobId}
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        return backgroundJobService.getJob(jobId)
+            .map(job -> ResponseEntity.ok(job.toSnapshot()))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Ponowne podłączenie do zdarzeń zadania (np. po zerwaniu połączenia SSE)
+     * GET /api/jobs/{jobId}/events
+     * Pierwsze zdarzenie to aktualny stan postępu; zakończone zadanie wysyła od razu zdarzenie końcowe
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(@PathVariable String jobId) {
+        return backgroundJobService.getJob(jobId)
+            .map(job -> ResponseEntity.ok(backgroundJobService.subscribe(job, EVENTS_SSE_TIMEOUT_MS)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Anuluj zadanie
+     * DELETE /api/jobs/{jobId}
+     *
+     * @return 202 Accepted - anulowanie zgłoszone (zadanie kończy się przy najbliższym punkcie kontrolnym)
+     * @return 404 Not Found jeśli zadanie nie istnieje
+     * @return 409 Conflict jeśli zadanie jest już zakończone
+     */
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancel(@PathVariable String jobId) {
+        BackgroundJobService.BackgroundJob job = backgroundJobService.getJob(jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!backgroundJobService.cancel(jobId)) {
+            logger.info("ℹ️ Zadanie {} jest już zakończone ({}) - nie można anulować", jobId, job.getStatus());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(job.toSnapshot());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toSnapshot());
+    }
+}
@@ -0,0 +1,54 @@
+package pl.koszela.nowoczesnebud.Controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Statystyki cache danych słownikowych (ReferenceDataCacheConfig)
+ */
+@RestController
+@RequestMapping("/api/cache")
+public class CacheStatsController {
+
+    private final CacheManager cacheManager;
+
+    public CacheStatsController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Trafienia / chybienia / współczynnik trafień dla każdego cache
+     * GET /api/cache/stats
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (String name : new TreeSet<>(cacheManager.getCacheNames())) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache == null || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache)) {
+                continue;
+            }
+            com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache =
+                (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache();
+            CacheStats cacheStats = nativeCache.stats();
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("size", nativeCache.estimatedSize());
+            entry.put("hitCount", cacheStats.hitCount());
+            entry.put("missCount", cacheStats.missCount());
+            entry.put("hitRate", cacheStats.hitRate());
+            entry.put("evictionCount", cacheStats.evictionCount());
+            stats.put(name, entry);
+        }
+        return ResponseEntity.ok(stats);
+    }
+}
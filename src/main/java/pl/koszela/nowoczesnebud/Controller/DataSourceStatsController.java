@@ -0,0 +1,39 @@
+package pl.koszela.nowoczesnebud.Controller;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import pl.koszela.nowoczesnebud.Config.ReadWriteRoutingDataSource;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Statystyki routingu baza główna / replika (ReadReplicaDataSourceConfig)
+ */
+@RestController
+@RequestMapping("/api/datasource")
+public class DataSourceStatsController {
+
+    private final ObjectProvider<ReadWriteRoutingDataSource> readWriteRoutingDataSource;
+
+    public DataSourceStatsController(ObjectProvider<ReadWriteRoutingDataSource> readWriteRoutingDataSource) {
+        this.readWriteRoutingDataSource = readWriteRoutingDataSource;
+    }
+
+    /**
+     * Dostępność i opóźnienie repliki, liczba połączeń na bazę, stan pul połączeń
+     * GET /api/datasource/stats
+     * Bez skonfigurowanej repliki: {"routing": false}
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        ReadWriteRoutingDataSource routing = readWriteRoutingDataSource.getIfAvailable();
+        if (routing == null) {
+            return ResponseEntity.ok(Collections.singletonMap("routing", false));
+        }
+        return ResponseEntity.ok(routing.getStats());
+    }
+}
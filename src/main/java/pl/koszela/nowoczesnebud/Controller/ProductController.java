@@ -9,14 +9,27 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.multipart.MultipartFile;
+import pl.koszela.nowoczesnebud.DTO.AttributeFacetRequest;
+import pl.koszela.nowoczesnebud.DTO.AttributeFacetResponse;
 import pl.koszela.nowoczesnebud.DTO.BulkDiscountRequest;
+import pl.koszela.nowoczesnebud.DTO.CatalogHierarchyResponse;
+import pl.koszela.nowoczesnebud.DTO.CatalogRenameResult;
 import pl.koszela.nowoczesnebud.DTO.DiscountUpdateRequest;
 import pl.koszela.nowoczesnebud.DTO.GroupOptionRequest;
+import pl.koszela.nowoczesnebud.DTO.ImportResponse;
+import pl.koszela.nowoczesnebud.DTO.ProductPageRequest;
+import pl.koszela.nowoczesnebud.DTO.ProductPageResponse;
+import pl.koszela.nowoczesnebud.DTO.ProductSearchHit;
 import pl.koszela.nowoczesnebud.Model.Input;
+import pl.koszela.nowoczesnebud.Model.PriceListImport;
+import pl.koszela.nowoczesnebud.Model.PriceListImportStatus;
 import pl.koszela.nowoczesnebud.Model.Product;
 import pl.koszela.nowoczesnebud.Model.ProductCategory;
+import pl.koszela.nowoczesnebud.Service.BackgroundJobService;
 import pl.koszela.nowoczesnebud.Service.ProductExportService;
+import pl.koszela.nowoczesnebud.Service.ProductSearchIndex;
 import pl.koszela.nowoczesnebud.Service.ProductService;
 
 import javax.validation.Valid;
@@ -25,6 +38,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Kontroler produktów - zastępuje TilesController + GuttersController + AccessoriesController
@@ -37,17 +52,27 @@ public class ProductController {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
     
+    private static final String JOB_ID_HEADER = "X-Job-Id";
+    private static final String JOB_RETRY_AFTER_SECONDS = "5";
+    private static final long BATCH_DELETE_SSE_TIMEOUT_MS = 300000L; // 5 minut
+
     private final ProductService productService;
     private final ProductExportService productExportService;
+    private final BackgroundJobService backgroundJobService;
+    private final ProductSearchIndex productSearchIndex;
 
-    public ProductController(ProductService productService, ProductExportService productExportService) {
+    public ProductController(ProductService productService, ProductExportService productExportService,
+                             BackgroundJobService backgroundJobService, ProductSearchIndex productSearchIndex) {
         this.productService = productService;
         this.productExportService = productExportService;
+        this.backgroundJobService = backgroundJobService;
+        this.productSearchIndex = productSearchIndex;
     }
 
     /**
      * Pobierz produkty według kategorii
      * GET /api/products?category=TILE
+     * Accept: application/vnd.nowoczesnebud.columnar+json - format kolumnowy (ColumnarJsonHttpMessageConverter)
      */
     @GetMapping
     public ResponseEntity<List<Product>> getProducts(
@@ -61,6 +86,59 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    /**
+     * Strona produktów z filtrami po stronie serwera (zamiast całej kategorii)
+     * GET /api/products/page?category=TILE&manufacturer=CANTUS&name=gąsior&limit=100&fields=id,name,retailPrice
+     *
+     * - kolejność: manufacturer, groupName, displayOrder, id
+     * - następna strona: cursor = nextCursor z odpowiedzi (null = ostatnia strona)
+     * - minPrice / maxPrice filtrują cenę katalogową (retailPrice), name - fragment nazwy
+     * - fields: tylko wskazane pola produktu (bez fields - pełne produkty)
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ProductPageResponse> getProductsPage(
+            @RequestParam ProductCategory category,
+            @RequestParam(required = false) String manufacturer,
+            @RequestParam(required = false) String groupName,
+            @RequestParam(required = false) String productType,
+            @RequestParam(required = false) String accessoryType,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) List<String> fields) {
+
+        ProductPageRequest request = new ProductPageRequest();
+        request.setCategory(category);
+        request.setManufacturer(manufacturer);
+        request.setGroupName(groupName);
+        request.setProductType(productType);
+        request.setAccessoryType(accessoryType);
+        request.setMinPrice(minPrice);
+        request.setMaxPrice(maxPrice);
+        request.setName(name);
+        request.setCursor(cursor);
+        request.setLimit(limit);
+        request.setFields(fields);
+        return ResponseEntity.ok(productService.getProductsPage(request));
+    }
+
+    /**
+     * Wyszukiwanie produktów (typeahead) po name, mapperName, producencie i grupie - wszystkie kategorie
+     * GET /api/products/search?q=gasior cer&category=TILE&limit=20
+     *
+     * Odpowiedź z indeksu w pamięci (ProductSearchIndex) - bez zapytania do bazy.
+     * Wielkość liter i polskie znaki nie mają znaczenia; każde słowo musi pasować (prefiks lub fragment).
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductSearchHit>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(required = false) ProductCategory category,
+            @RequestParam(defaultValue = "" + ProductSearchIndex.DEFAULT_LIMIT) int limit) {
+        return ResponseEntity.ok(productSearchIndex.search(q, category, limit));
+    }
+
     /**
      * Pobierz pojedynczy produkt po ID
      * GET /api/products/{id}
@@ -84,6 +162,17 @@ public class ProductController {
         return ResponseEntity.ok(productService.getManufacturers(category));
     }
 
+    /**
+     * Drzewo katalogu: producenci → grupy → liczby produktów (i typów produktów) w jednym żądaniu
+     * GET /api/products/hierarchy?category=TILE
+     * ⚡ OPTYMALIZACJA: Zastępuje osobne wywołania /manufacturers i /groups dla każdego producenta
+     */
+    @GetMapping("/hierarchy")
+    public ResponseEntity<CatalogHierarchyResponse> getHierarchy(
+            @RequestParam ProductCategory category) {
+        return ResponseEntity.ok(productService.getCatalogHierarchy(category));
+    }
+
     /**
      * Pobierz grupy produktowe
      * GET /api/products/groups?category=TILE&manufacturer=CANTUS
@@ -100,8 +189,8 @@ public class ProductController {
      * GET /api/products/attribute-suggestions?category=TILE
      * 
      * Zwraca mapę: {"kolor": ["czerwony","brązowy","czarny"], "kształt": ["płaska","karpiówka"]}
-     * - Parsuje attributes JSON ze wszystkich GRUP PRODUKTOWYCH danej kategorii
-     * - Zbiera unikalne klucze i wartości atrybutów
+     * - Unikalne klucze i wartości atrybutów wszystkich GRUP PRODUKTOWYCH danej kategorii
+     * - Z indeksu atrybutów w pamięci (bez parsowania JSON przy każdym żądaniu)
      */
     @GetMapping("/attribute-suggestions")
     public ResponseEntity<Map<String, List<String>>> getAttributeSuggestions(
@@ -118,6 +207,19 @@ public class ProductController {
         }
     }
 
+    /**
+     * Filtr fasetowy grup produktowych po atrybutach
+     * POST /api/products/attribute-facets
+     * 
+     * Request Body: {"category": "TILE", "filters": {"kolor": ["czerwony"], "kształt": ["płaska"]}}
+     * - różne klucze: AND, wartości jednego klucza: OR
+     * Zwraca pasujące grupy (producent + grupa) i liczby grup dla każdej wartości atrybutu w wyniku
+     */
+    @PostMapping("/attribute-facets")
+    public ResponseEntity<AttributeFacetResponse> filterGroupsByAttributes(@RequestBody @Valid AttributeFacetRequest request) {
+        return ResponseEntity.ok(productService.filterGroupsByAttributes(request.getCategory(), request.getFilters()));
+    }
+
     /**
      * Pobierz atrybuty dla konkretnej grupy produktowej
      * GET /api/products/group-attributes?category=TILE&manufacturer=CANTUS&groupName=Nuance
@@ -230,11 +332,17 @@ public class ProductController {
             List<String> manufacturerList = manufacturers != null ? Arrays.asList(manufacturers) : null;
             List<String> groupNameList = groupNames != null ? Arrays.asList(groupNames) : null;
             
-            List<Product> products = productService.importProductsWithCustomNames(
+            ImportResponse importResponse = productService.importPriceLists(
                 fileList, nameList, manufacturerList, groupNameList, category
             );
+            long unchangedFiles = importResponse.getFileResults().stream()
+                .filter(result -> PriceListImportStatus.UNCHANGED.name().equals(result.getStatus()))
+                .count();
             
-            return ResponseEntity.ok(products);
+            // Pliki pominięte (identyczny SHA-256) - frontend może pokazać komunikat "bez zmian"
+            return ResponseEntity.ok()
+                .header("X-Unchanged-Files", String.valueOf(unchangedFiles))
+                .body(importResponse.getAllProducts());
         } catch (IllegalArgumentException e) {
             logger.error("❌ Błąd podczas importu produktów: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
@@ -250,6 +358,22 @@ public class ProductController {
         }
     }
 
+    /**
+     * Historia importów cenników (SHA-256, status IMPORTED/UNCHANGED/EXPORTED) - od najnowszego
+     * GET /api/products/import-history?category=TILE&manufacturer=CANTUS&groupName=czarna
+     * Bez manufacturer/groupName zwraca historię całej kategorii
+     */
+    @GetMapping("/import-history")
+    public ResponseEntity<List<PriceListImport>> getImportHistory(
+            @RequestParam ProductCategory category,
+            @RequestParam(required = false) String manufacturer,
+            @RequestParam(required = false) String groupName) {
+        if ((manufacturer == null) != (groupName == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.getImportHistory(category, manufacturer, groupName));
+    }
+
     /**
      * Wypełnij ilości na podstawie inputów
      * POST /api/products/fill-quantities?category=TILE
@@ -437,97 +561,80 @@ public class ProductController {
      * POST /api/products/groups/batch-delete
      * Body: { "category": "TILE", "groups": [{"manufacturer": "CANTUS", "groupName": "NUANE"}, ...] }
      * Response: Server-Sent Events (SSE) z statusami postępu
+     *
+     * Usuwanie działa jako zadanie w tle (BackgroundJobService) - nagłówek X-Job-Id pozwala po zerwaniu
+     * połączenia podłączyć się ponownie (GET /api/jobs/{id}/events) lub anulować (DELETE /api/jobs/{id})
+     * @return 503 Service Unavailable gdy kolejka zadań w tle jest pełna
      */
     @PostMapping(value = "/groups/batch-delete", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter deleteMultipleGroupsWithProgress(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<SseEmitter> deleteMultipleGroupsWithProgress(@RequestBody Map<String, Object> request) {
         ProductCategory category = ProductCategory.valueOf((String) request.get("category"));
         @SuppressWarnings("unchecked")
         List<Map<String, String>> groups = (List<Map<String, String>>) request.get("groups");
         
         logger.info("🗑️ Usuwanie wielu grup produktowych z progress tracking: {} grup w kategorii {}", groups.size(), category);
         
-        // Utwórz SseEmitter z timeoutem 5 minut (dla dużej liczby grup)
-        SseEmitter emitter = new SseEmitter(300000L); // 5 minut
+        BackgroundJobService.BackgroundJob job;
+        try {
+            job = backgroundJobService.submit("products-batch-delete",
+                groups.size() + " grup w kategorii " + category,
+                context -> deleteGroupsJob(category, groups, context));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, JOB_RETRY_AFTER_SECONDS)
+                .build();
+        }
         
+        // Timeout 5 minut (dla dużej liczby grup)
+        return ResponseEntity.ok()
+            .header(JOB_ID_HEADER, job.getJobId())
+            .body(backgroundJobService.subscribe(job, BATCH_DELETE_SSE_TIMEOUT_MS));
+    }
+
+    private void deleteGroupsJob(ProductCategory category, List<Map<String, String>> groups,
+                                 BackgroundJobService.JobContext context) {
         final long startTime = System.currentTimeMillis();
-        final int[] totalDeletedProducts = {0}; // Licznik usuniętych produktów
-        
-        // Uruchom usuwanie w osobnym wątku, aby nie blokować
-        new Thread(() -> {
-            try {
-                productService.deleteMultipleGroupsWithProgress(
-                    category, 
-                    groups, 
-                    (progress) -> {
-                        try {
-                            // Aktualizuj licznik usuniętych produktów
-                            // ⚠️ WAŻNE: Używamy maksymalnej wartości, bo callback może być wywoływany wiele razy
-                            // z różnymi wartościami (dla każdej grupy osobno, a potem finalna wartość)
-                            totalDeletedProducts[0] = Math.max(totalDeletedProducts[0], progress.getDeletedProducts());
-                            
-                            // Wyślij status postępu przez SSE
-                            Map<String, Object> status = new HashMap<>();
-                            status.put("processedGroups", progress.getProcessedGroups());
-                            status.put("totalGroups", progress.getTotalGroups());
-                            status.put("percentage", progress.getPercentage());
-                            status.put("currentGroup", progress.getCurrentGroup());
-                            status.put("deletedProducts", progress.getDeletedProducts());
-                            status.put("elapsedTime", progress.getElapsedTime());
-                            status.put("status", progress.getStatus()); // "processing", "completed", "error"
-                            
-                            logger.debug("📊 [SSE] Wysyłam status: {}", status);
-                            
-                            emitter.send(SseEmitter.event()
-                                .name("progress")
-                                .data(status));
-                        } catch (Exception e) {
-                            logger.error("❌ Błąd wysyłania statusu postępu: {}", e.getMessage(), e);
-                        }
-                    }
-                );
-                
-                // Wyślij finalny status z pełnymi danymi
-                long totalElapsed = System.currentTimeMillis() - startTime;
-                Map<String, Object> finalStatus = new HashMap<>();
-                finalStatus.put("status", "completed");
-                finalStatus.put("message", "Wszystkie grupy zostały usunięte");
-                finalStatus.put("processedGroups", groups.size());
-                finalStatus.put("totalGroups", groups.size());
-                finalStatus.put("percentage", 100);
-                finalStatus.put("currentGroup", "");
-                finalStatus.put("deletedProducts", totalDeletedProducts[0]);
-                finalStatus.put("elapsedTime", totalElapsed);
-                
-                logger.info("✅ [SSE] Wysyłam finalny status: {}", finalStatus);
+        // ⚠️ WAŻNE: Używamy maksymalnej wartości, bo callback może być wywoływany wiele razy
+        // z różnymi wartościami (dla każdej grupy osobno, a potem finalna wartość)
+        AtomicInteger totalDeletedProducts = new AtomicInteger();
+        
+        productService.deleteMultipleGroupsWithProgress(
+            category, 
+            groups, 
+            (progress) -> {
+                // Anulowanie w trakcie - wyjątek wycofuje transakcję usuwania
+                context.checkCancelled();
+                totalDeletedProducts.accumulateAndGet(progress.getDeletedProducts(), Math::max);
                 
-                // Wyślij jako event "progress" z statusem completed (frontend sprawdza to)
-                emitter.send(SseEmitter.event()
-                    .name("progress")
-                    .data(finalStatus));
+                // Wyślij status postępu przez SSE
+                Map<String, Object> status = new HashMap<>();
+                status.put("processedGroups", progress.getProcessedGroups());
+                status.put("totalGroups", progress.getTotalGroups());
+                status.put("percentage", progress.getPercentage());
+                status.put("currentGroup", progress.getCurrentGroup());
+                status.put("deletedProducts", progress.getDeletedProducts());
+                status.put("elapsedTime", progress.getElapsedTime());
+                status.put("status", progress.getStatus()); // "processing", "completed", "error"
                 
-                // Dodatkowo wyślij jako event "completed"
-                emitter.send(SseEmitter.event()
-                    .name("completed")
-                    .data(finalStatus));
-                
-                emitter.complete();
-            } catch (Exception e) {
-                logger.error("❌ Błąd podczas usuwania grup: {}", e.getMessage(), e);
-                try {
-                    Map<String, Object> errorStatus = new HashMap<>();
-                    errorStatus.put("status", "error");
-                    errorStatus.put("message", "Błąd podczas usuwania grup: " + e.getMessage());
-                    emitter.send(SseEmitter.event()
-                        .name("error")
-                        .data(errorStatus));
-                    emitter.completeWithError(e);
-                } catch (Exception ex) {
-                    emitter.completeWithError(ex);
-                }
+                logger.debug("📊 [SSE] Wysyłam status: {}", status);
+                context.progress(status);
             }
-        }).start();
+        );
         
-        return emitter;
+        // Finalny status z pełnymi danymi - jako "progress" (frontend sprawdza status completed),
+        // a po zakończeniu zadania dodatkowo jako zdarzenie "completed"
+        Map<String, Object> finalStatus = new HashMap<>();
+        finalStatus.put("status", "completed");
+        finalStatus.put("message", "Wszystkie grupy zostały usunięte");
+        finalStatus.put("processedGroups", groups.size());
+        finalStatus.put("totalGroups", groups.size());
+        finalStatus.put("percentage", 100);
+        finalStatus.put("currentGroup", "");
+        finalStatus.put("deletedProducts", totalDeletedProducts.get());
+        finalStatus.put("elapsedTime", System.currentTimeMillis() - startTime);
+        
+        logger.info("✅ [SSE] Wysyłam finalny status: {}", finalStatus);
+        context.progress(finalStatus);
     }
 
     /**
@@ -589,28 +696,30 @@ public class ProductController {
     /**
      * BULK RENAME MANUFACTURER - zmień nazwę producenta dla wszystkich jego produktów
      * PUT /api/products/rename-manufacturer
+     * Zwraca liczby zmienionych wierszy i nową wersję katalogu (bez listy produktów)
      */
     @PutMapping("/rename-manufacturer")
-    public ResponseEntity<List<Product>> renameManufacturer(
+    public ResponseEntity<CatalogRenameResult> renameManufacturer(
             @RequestParam ProductCategory category,
             @RequestParam String oldManufacturer,
             @RequestParam String newManufacturer) {
         
         logger.info("📝 Bulk rename manufacturer: {} → {}", oldManufacturer, newManufacturer);
         
-        List<Product> updatedProducts = productService.renameManufacturer(
+        CatalogRenameResult result = productService.renameManufacturer(
             category, oldManufacturer, newManufacturer
         );
         
-        return ResponseEntity.ok(updatedProducts);
+        return ResponseEntity.ok(result);
     }
 
     /**
      * BULK RENAME GROUP - zmień nazwę grupy dla wszystkich produktów w tej grupie
      * PUT /api/products/rename-group
+     * Zwraca liczby zmienionych wierszy i nową wersję katalogu (bez listy produktów)
      */
     @PutMapping("/rename-group")
-    public ResponseEntity<List<Product>> renameGroup(
+    public ResponseEntity<CatalogRenameResult> renameGroup(
             @RequestParam ProductCategory category,
             @RequestParam String manufacturer,
             @RequestParam String oldGroupName,
@@ -619,11 +728,11 @@ public class ProductController {
         logger.info("📝 Bulk rename group: {} / {} → {}", 
                    manufacturer, oldGroupName, newGroupName);
         
-        List<Product> updatedProducts = productService.renameGroup(
+        CatalogRenameResult result = productService.renameGroup(
             category, manufacturer, oldGroupName, newGroupName
         );
         
-        return ResponseEntity.ok(updatedProducts);
+        return ResponseEntity.ok(result);
     }
 
     /**
@@ -638,7 +747,7 @@ public class ProductController {
      *   "groupName": "NUANE"
      * }
      * 
-     * Aktualizuje displayOrder dla produktów w podanej kolejności (0, 1, 2, ...)
+     * Aktualizuje displayOrder dla produktów w podanej kolejności (0, 1024, 2048, ... - jeden UPDATE)
      */
     @PutMapping("/reorder")
     public ResponseEntity<?> reorderProducts(@Valid @RequestBody pl.koszela.nowoczesnebud.DTO.ReorderProductsRequest request) {
@@ -673,42 +782,49 @@ public class ProductController {
      * Format zgodny z importem - można zaimportować z powrotem
      */
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportToExcel(@RequestParam ProductCategory category) {
+    public ResponseEntity<StreamingResponseBody> exportToExcel(@RequestParam ProductCategory category) {
         logger.info("📤 Eksport produktów dla kategorii: {}", category);
         
+        // Pobierz wszystkie produkty dla kategorii
+        List<Product> products = productService.getAllProductsByCategory(category);
+        
+        if (products.isEmpty()) {
+            logger.warn("Brak produktów do eksportu dla kategorii: {}", category);
+            return ResponseEntity.noContent().build();
+        }
+        
         try {
-            // Pobierz wszystkie produkty dla kategorii
-            List<Product> products = productService.getAllProductsByCategory(category);
-            
-            if (products.isEmpty()) {
-                logger.warn("Brak produktów do eksportu dla kategorii: {}", category);
-                return ResponseEntity.noContent().build();
-            }
-            
-            logger.info("Eksportowanie {} produktów", products.size());
-            
-            // Eksportuj do ZIP
-            byte[] zipBytes = productExportService.exportToExcelZip(products);
-            
-            // Przygotuj nagłówki HTTP
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            
-            String fileName = "cenniki_" + category.name().toLowerCase() + ".zip";
-            headers.setContentDispositionFormData("attachment", fileName);
-            
-            logger.info("✅ Eksport zakończony: {} bajtów", zipBytes.length);
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(zipBytes);
-                    
-        } catch (IOException e) {
-            logger.error("❌ Błąd eksportu do Excel", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            // Walidacja PRZED streamingiem - po wysłaniu nagłówków nie da się już zwrócić 400
+            productExportService.validateForExport(products);
         } catch (IllegalArgumentException e) {
             logger.error("❌ Błąd walidacji eksportu: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
         }
+        
+        logger.info("Eksportowanie {} produktów", products.size());
+        
+        // ⚡ OPTYMALIZACJA: ZIP zapisywany bezpośrednio do odpowiedzi HTTP (bez byte[] w pamięci)
+        StreamingResponseBody body = outputStream -> {
+            try {
+                productExportService.writeExcelZip(products, outputStream);
+                logger.info("✅ Eksport zakończony: {} produktów", products.size());
+            } catch (IOException e) {
+                // Nagłówki już wysłane - klient dostanie przerwany plik
+                logger.error("❌ Błąd eksportu do Excel (strumień przerwany)", e);
+                throw e;
+            }
+        };
+        
+        // Przygotuj nagłówki HTTP
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        
+        String fileName = "cenniki_" + category.name().toLowerCase() + ".zip";
+        headers.setContentDispositionFormData("attachment", fileName);
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
     }
 
     /**
@@ -7,24 +7,27 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import pl.koszela.nowoczesnebud.CreateOffer.CreateOffer;
+import pl.koszela.nowoczesnebud.DTO.BatchOfferPdfRequest;
 import pl.koszela.nowoczesnebud.DTO.GroupOptionRequest;
+import pl.koszela.nowoczesnebud.DTO.PdfRenderJobResponse;
 import pl.koszela.nowoczesnebud.Model.*;
 import pl.koszela.nowoczesnebud.Repository.InputRepository;
 import pl.koszela.nowoczesnebud.Repository.ProductRepository;
+import pl.koszela.nowoczesnebud.Service.OfferPdfBatchService;
+import pl.koszela.nowoczesnebud.Service.OfferPdfRenderService;
 import pl.koszela.nowoczesnebud.Service.PriceCalculationService;
 import pl.koszela.nowoczesnebud.Service.ProjectService;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -37,25 +40,31 @@ public class ProjectController {
 
     private static final Logger logger = LoggerFactory.getLogger(ProjectController.class);
     
+    // Sugerowany czas ponowienia, gdy kolejka renderowania PDF jest pełna
+    private static final String PDF_RETRY_AFTER_SECONDS = "5";
+    
     private final ProjectService projectService;
     private final CreateOffer createOffer;
     private final PriceCalculationService priceCalculationService;
     private final ProductRepository productRepository;
     private final InputRepository inputRepository;
-    private final pl.koszela.nowoczesnebud.Service.OfferPdfService offerPdfService;
+    private final OfferPdfRenderService offerPdfRenderService;
+    private final OfferPdfBatchService offerPdfBatchService;
 
     public ProjectController(ProjectService projectService, 
                             CreateOffer createOffer,
                             PriceCalculationService priceCalculationService,
                             ProductRepository productRepository,
                             InputRepository inputRepository,
-                            pl.koszela.nowoczesnebud.Service.OfferPdfService offerPdfService) {
+                            OfferPdfRenderService offerPdfRenderService,
+                            OfferPdfBatchService offerPdfBatchService) {
         this.projectService = projectService;
         this.createOffer = createOffer;
         this.priceCalculationService = priceCalculationService;
         this.productRepository = productRepository;
         this.inputRepository = inputRepository;
-        this.offerPdfService = offerPdfService;
+        this.offerPdfRenderService = offerPdfRenderService;
+        this.offerPdfBatchService = offerPdfBatchService;
     }
 
     /**
@@ -170,6 +179,7 @@ public class ProjectController {
      * Porównuje aktualne ceny z cennika z zapisanymi cenami w projekcie
      * GET /api/projects/{id}/products-comparison?category=TILE
      * Zwraca ProductComparisonDTO (Stara vs Nowa cena) dla UI
+     * Accept: application/vnd.nowoczesnebud.columnar+json - format kolumnowy (ColumnarJsonHttpMessageConverter)
      */
     @GetMapping("/{projectId}/products-comparison")
     public ResponseEntity<List<pl.koszela.nowoczesnebud.DTO.ProductComparisonDTO>> getProductComparison(
@@ -1149,11 +1159,14 @@ public class ProjectController {
 
     /**
      * Generuje PDF oferty na podstawie projektu
+     * ⚡ PDF z cache OfferPdfRenderService - z Content-Length; bez cache renderowany prosto do odpowiedzi HTTP
+     * (StreamingResponseBody), bez kopii całego PDF w pamięci
+     * ⚠️ WAŻNE: Przy renderowaniu strumieniowym nagłówki (200) są już wysłane - błąd renderowania = ucięty plik
      * @param id ID projektu
      * @param templateId ID szablonu (opcjonalne - jeśli null, użyje domyślnego lub starego CreateOffer)
      */
     @PostMapping("/{id}/generate-pdf")
-    public ResponseEntity<byte[]> generatePdf(
+    public ResponseEntity<StreamingResponseBody> generatePdf(
             @PathVariable Long id,
             @RequestParam(required = false) Long templateId) {
         try {
@@ -1161,47 +1174,192 @@ public class ProjectController {
             logger.info("Generowanie PDF dla projektu ID: {} (szablon ID: {})", 
                 project.getId(), templateId);
             
-            byte[] pdfBytes;
+            String filename = OfferPdfRenderService.offerFileName(project);
+            OfferPdfRenderService.StreamedPdf pdf;
             
             // Jeśli podano templateId, użyj nowego systemu szablonów
             if (templateId != null) {
-                pdfBytes = offerPdfService.generatePdfFromTemplate(project, templateId);
+                pdf = offerPdfRenderService.startStreaming(project, templateId);
             } else {
                 // Spróbuj użyć domyślnego szablonu
                 try {
                     logger.info("Brak templateId - próba użycia domyślnego szablonu");
-                    pdfBytes = offerPdfService.generatePdfFromTemplate(project, null);
+                    pdf = offerPdfRenderService.startStreaming(project, null);
                 } catch (IllegalStateException e) {
                     // Jeśli nie ma domyślnego szablonu, użyj starego systemu jako fallback
                     logger.warn("Brak domyślnego szablonu - używanie starego systemu (CreateOffer): {}", e.getMessage());
-                    createOffer.createOffer(project);
-                    
-                    // Odczytaj plik PDF
-                    Path pdfPath = Paths.get("src/main/resources/templates/CommercialOffer.pdf");
-                    pdfBytes = Files.readAllBytes(pdfPath);
+                    return streamingPdfResponse(outputStream -> createOffer.writeOffer(project, outputStream),
+                        project.getId(), filename);
                 }
             }
             
-            // Zwróć PDF jako response
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            String filename = "Oferta_" + (project.getClient() != null ? project.getClient().getSurname() : "Projekt") + "_" + 
-                              LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd")) + ".pdf";
-            headers.setContentDispositionFormData("filename", filename);
-            
-            logger.info("PDF wygenerowany pomyślnie dla projektu {}", project.getId());
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(pdfBytes);
+            byte[] cachedPdf = pdf.getCachedPdf();
+            if (cachedPdf != null) {
+                return pdfResponse(cachedPdf, filename);
+            }
+            return streamingPdfResponse(pdf::writeTo, project.getId(), filename);
                     
-        } catch (IOException e) {
+        } catch (RejectedExecutionException e) {
+            logger.warn("Odrzucono generowanie PDF dla projektu {} - pełna kolejka renderowania", id);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, PDF_RETRY_AFTER_SECONDS)
+                    .build();
+        } catch (Exception e) {
             logger.error("Błąd podczas generowania PDF: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Zleca generowanie PDF oferty w tle - zwraca od razu 202 ze statusem zadania
+     * Niezmieniona oferta jest zwracana z cache (status DONE od razu)
+     * @param id ID projektu
+     * @param templateId ID szablonu (opcjonalne - jeśli null, użyje domyślnego)
+     */
+    @PostMapping("/{id}/generate-pdf/async")
+    public ResponseEntity<PdfRenderJobResponse> generatePdfAsync(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long templateId) {
+        try {
+            Project project = projectService.getProjectById(id);
+            OfferPdfRenderService.RenderJob job = offerPdfRenderService.submit(project, templateId, OfferPdfRenderService.offerFileName(project));
+            logger.info("Zadanie PDF {} dla projektu {} - status {}", job.getJobId(), id, job.getStatus());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toResponse());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Odrzucono generowanie PDF dla projektu {} - pełna kolejka renderowania", id);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, PDF_RETRY_AFTER_SECONDS)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            logger.warn("Nie można zlecić PDF dla projektu {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (IllegalStateException e) {
+            // Brak domyślnego szablonu - stary system (CreateOffer) działa tylko synchronicznie
+            logger.warn("Nie można zlecić PDF dla projektu {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
-            logger.error("Błąd podczas generowania PDF: {}", e.getMessage(), e);
+            logger.error("Błąd podczas zlecania PDF: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * Generuje PDF ofert wielu projektów jako ZIP (np. wszystkie projekty z danym statusem pipeline)
+     * ⚡ PDF renderowane równolegle w puli renderowania, ZIP wysyłany strumieniowo w kolejności ukończenia
+     * Błędy pojedynczych projektów nie przerywają wsadu - są w raport.txt w ZIP
+     */
+    @PostMapping("/generate-pdf/batch")
+    public ResponseEntity<StreamingResponseBody> generatePdfBatch(@RequestBody BatchOfferPdfRequest request) {
+        List<Long> projectIds;
+        try {
+            // Walidacja PRZED streamingiem - po wysłaniu nagłówków nie da się już zwrócić 400
+            projectIds = offerPdfBatchService.resolveProjectIds(request.getProjectIds(), request.getStatusId());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Wsad PDF odrzucony: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        
+        logger.info("Wsadowe generowanie PDF dla {} projektów (szablon ID: {})", projectIds.size(), request.getTemplateId());
+        
+        StreamingResponseBody body = outputStream -> {
+            try {
+                offerPdfBatchService.writeOfferZip(projectIds, request.getTemplateId(), outputStream);
+            } catch (IOException e) {
+                // Nagłówki już wysłane - klient dostanie przerwany plik
+                logger.error("❌ Błąd wsadowego generowania PDF (strumień przerwany)", e);
+                throw e;
+            }
+        };
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", "Oferty_" + 
+            LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd")) + ".zip");
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+    /**
+     * Status zadania generowania PDF
+     */
+    @GetMapping("/pdf-jobs/{jobId}")
+    public ResponseEntity<PdfRenderJobResponse> getPdfJobStatus(@PathVariable String jobId) {
+        return offerPdfRenderService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.toResponse()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    /**
+     * Pobranie PDF z zakończonego zadania (z cache renderowania)
+     * 409 gdy PDF jeszcze się renderuje, 500 gdy renderowanie się nie powiodło, 410 gdy PDF wypadł już z cache
+     */
+    @GetMapping("/pdf-jobs/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> downloadPdfJob(@PathVariable String jobId) {
+        Optional<OfferPdfRenderService.RenderJob> jobOpt = offerPdfRenderService.getJob(jobId);
+        if (jobOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        
+        OfferPdfRenderService.RenderJob job = jobOpt.get();
+        if (job.getStatus() == OfferPdfRenderService.JobStatus.FAILED) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+        if (job.getStatus() != OfferPdfRenderService.JobStatus.DONE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return offerPdfRenderService.getPdf(job)
+                .map(pdfBytes -> pdfResponse(pdfBytes, job.getFileName()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.GONE).build());
+    }
+
+    /**
+     * Metryki renderowania PDF (kolejka, czasy renderowania, cache)
+     */
+    @GetMapping("/pdf-jobs/metrics")
+    public ResponseEntity<Map<String, Object>> getPdfRenderMetrics() {
+        return ResponseEntity.ok(offerPdfRenderService.getMetrics());
+    }
+
+    /**
+     * Odpowiedź z gotowym PDF z cache - znany rozmiar, więc z Content-Length
+     * Tablica jest współdzielona z cache i zapisywana do strumienia odpowiedzi bez kopiowania
+     */
+    private ResponseEntity<StreamingResponseBody> pdfResponse(byte[] pdfBytes, String filename) {
+        StreamingResponseBody body = outputStream -> outputStream.write(pdfBytes);
+        return ResponseEntity.ok()
+                .headers(pdfHeaders(filename))
+                .contentLength(pdfBytes.length)
+                .body(body);
+    }
+
+    /**
+     * Odpowiedź z PDF renderowanym prosto do strumienia odpowiedzi - rozmiar nieznany, bez Content-Length
+     */
+    private ResponseEntity<StreamingResponseBody> streamingPdfResponse(StreamingResponseBody renderer,
+                                                                       Long projectId, String filename) {
+        StreamingResponseBody body = outputStream -> {
+            try {
+                renderer.writeTo(outputStream);
+                logger.info("PDF wygenerowany pomyślnie dla projektu {}", projectId);
+            } catch (IOException | RuntimeException e) {
+                // Nagłówki już wysłane - klient dostanie przerwany plik
+                logger.error("❌ Błąd generowania PDF projektu {} (strumień przerwany)", projectId, e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .headers(pdfHeaders(filename))
+                .body(body);
+    }
+
+    private HttpHeaders pdfHeaders(String filename) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("filename", filename);
+        return headers;
+    }
 }
 
 
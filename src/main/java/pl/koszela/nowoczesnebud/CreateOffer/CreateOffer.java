@@ -1,16 +1,18 @@
 package pl.koszela.nowoczesnebud.CreateOffer;
 
 import com.itextpdf.text.*;
-import com.itextpdf.text.pdf.BaseFont;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import pl.koszela.nowoczesnebud.Model.*;
+import pl.koszela.nowoczesnebud.Service.PdfFontRegistry;
 
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
@@ -19,6 +21,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -32,7 +35,15 @@ import java.util.stream.Collectors;
 @Service
 public class CreateOffer {
     
-    public CreateOffer() {
+    private static final Logger logger = LoggerFactory.getLogger(CreateOffer.class);
+    
+    private final PdfFontRegistry pdfFontRegistry;
+    
+    // Style czcionek (rozmiar + grubość + kolor) współdzielone między wątkami
+    private final Map<String, Font> fontStyles = new ConcurrentHashMap<>();
+    
+    public CreateOffer(PdfFontRegistry pdfFontRegistry) {
+        this.pdfFontRegistry = pdfFontRegistry;
     }
     
     // Kolory firmowe
@@ -44,12 +55,27 @@ public class CreateOffer {
 
     /**
      * Generuje elegancką ofertę PDF dla projektu
+     * 
+     * @return PDF jako byte array (renderowany w pamięci - bez wspólnego pliku na dysku)
+     */
+    public byte[] createOffer(Project project) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writeOffer(project, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Generuje elegancką ofertę PDF dla projektu bezpośrednio do strumienia (np. odpowiedzi HTTP)
+     * ⚠️ WAŻNE: Każde wywołanie ma własny Document/PdfWriter - równoczesne oferty nie nadpisują się nawzajem
+     * 
+     * @param outputStream Strumień docelowy - nie jest zamykany
      */
-    public void createOffer(Project project) {
+    public void writeOffer(Project project, OutputStream outputStream) throws IOException {
         Document document = new Document(PageSize.A4, 50, 50, 80, 60);
 
         try {
-            PdfWriter.getInstance(document, new FileOutputStream(new File(StaticValuesForOffer.URL_TO_PDF)));
+            PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+            writer.setCloseStream(false);
             document.open();
 
             // ========== NAGŁÓWEK ==========
@@ -112,7 +138,7 @@ public class CreateOffer {
                                      !mainAccessories.isEmpty() || !optionalAccessories.isEmpty();
             
             if (!hasAnyProducts) {
-                System.err.println("⚠️ BRAK PRODUKTÓW DO PDF! (Wszystkie produkty mają status 'Nie wybrano')");
+                logger.warn("⚠️ BRAK PRODUKTÓW DO PDF projektu {}! (Wszystkie produkty mają status 'Nie wybrano')", project.getId());
                 throw new IllegalStateException("Brak produktów do wygenerowania PDF. Oznacz produkty jako 'Główna' lub 'Opcjonalna'.");
             }
 
@@ -209,11 +235,11 @@ public class CreateOffer {
             addElegantFooter(document);
 
             document.close();
-            System.out.println("✅ PDF utworzony pomyślnie!");
+            logger.info("✅ PDF projektu {} utworzony pomyślnie", project.getId());
 
-        } catch (IOException | DocumentException e) {
-            System.err.println("❌ Błąd podczas tworzenia PDF: " + e.getMessage());
-            e.printStackTrace();
+        } catch (DocumentException e) {
+            logger.error("❌ Błąd podczas tworzenia PDF projektu {}: {}", project.getId(), e.getMessage(), e);
+            throw new IOException("Nie udało się wygenerować PDF: " + e.getMessage(), e);
         }
     }
 
@@ -601,9 +627,11 @@ public class CreateOffer {
      * Tworzy elegancką czcionkę
      */
     private Font createFont(float size, boolean bold, BaseColor color) throws IOException, DocumentException {
-        BaseFont baseFont = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.CP1250, BaseFont.EMBEDDED);
-        int style = bold ? Font.BOLD : Font.NORMAL;
-        return new Font(baseFont, size, style, color);
+        // ⚡ OPTYMALIZACJA: Współdzielony BaseFont z rejestru (DejaVu Sans, Unicode) + style (rozmiar/kolor)
+        // tworzone raz i współdzielone przez wszystkie dokumenty - Font nie jest modyfikowany przy renderowaniu
+        String key = size + (bold ? "B" : "N") + color.getRGB();
+        return fontStyles.computeIfAbsent(key,
+            k -> new Font(pdfFontRegistry.getBaseFont(bold), size, Font.NORMAL, color));
     }
 
     /**
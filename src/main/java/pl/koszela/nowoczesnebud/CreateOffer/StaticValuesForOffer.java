@@ -9,7 +9,6 @@ public class StaticValuesForOffer {
     protected static final String INFORMATION_FOR ="Informacje handlowe przygotowane dla: ";
     protected static final String INFO = "ul. Chemiczna 2\n65-713 Zielona Góra\n" +
             "robert@nowoczesnebudowanie.pl\ntel. 502680330";
-    protected static final String URL_TO_PDF = "src/main/resources/templates/CommercialOffer.pdf";
     protected static final String NELSKAMRUBP = "Dachówki ceramiczne Nelskamrubp produkowane są z najwyższej jakości surowców w nowoczesnej technologii. " +
                     "Sprawdzone na przestrzeni wieków – dachówki ceramiczne zalicza się do najstarszych pokryć dachowych" +
                     "–po dziś dzień stanowią synonim piękna, naturalności i bezpieczeństwa. Dachówki ceramiczne Braas " +
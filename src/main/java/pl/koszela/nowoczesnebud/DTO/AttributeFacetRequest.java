@@ -0,0 +1,26 @@
+package pl.koszela.nowoczesnebud.DTO;
+
+import lombok.Data;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filtr grup produktowych po atrybutach (POST /api/products/attribute-facets)
+ * Przykład: {"category":"TILE","filters":{"kolor":["czerwony"],"kształt":["płaska"]}}
+ * - różne klucze: AND (czerwona I płaska)
+ * - wartości jednego klucza: OR (czerwona LUB brązowa)
+ */
+@Data
+public class AttributeFacetRequest {
+
+    @NotNull(message = "Kategoria jest wymagana")
+    private ProductCategory category;
+
+    /**
+     * Wybrane wartości atrybutów; null lub pusta mapa = wszystkie grupy z atrybutami
+     */
+    private Map<String, List<String>> filters;
+}
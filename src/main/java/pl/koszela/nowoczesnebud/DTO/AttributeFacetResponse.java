@@ -0,0 +1,23 @@
+package pl.koszela.nowoczesnebud.DTO;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wynik filtra atrybutów: pasujące grupy i liczby grup dla każdej wartości atrybutu w wyniku
+ * Przykład facets: {"kolor":{"czerwony":12,"brązowy":3},"kształt":{"płaska":12}}
+ */
+@Data
+public class AttributeFacetResponse {
+    private int groupCount;
+    private List<FacetGroup> groups;
+    private Map<String, Map<String, Integer>> facets;
+
+    @Data
+    public static class FacetGroup {
+        private String manufacturer;
+        private String groupName;
+    }
+}
@@ -0,0 +1,16 @@
+package pl.koszela.nowoczesnebud.DTO;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Żądanie wsadowego generowania PDF ofert (POST /api/projects/generate-pdf/batch)
+ * Projekty: lista ID i/lub wszystkie projekty z aktualnym statusem pipeline (statusId)
+ */
+@Data
+public class BatchOfferPdfRequest {
+    private List<Long> projectIds;
+    private Long statusId;
+    private Long templateId; // null = domyślny szablon
+}
@@ -0,0 +1,36 @@
+package pl.koszela.nowoczesnebud.DTO;
+
+import lombok.Data;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drzewo katalogu kategorii: producent → grupa → liczba produktów (GET /api/products/hierarchy)
+ * ⚠️ WAŻNE: Obiekt jest współdzielony z cache (CatalogHierarchyService) - tylko do odczytu
+ */
+@Data
+public class CatalogHierarchyResponse {
+    private ProductCategory category;
+    private long productCount;
+    private LocalDateTime lastUpdated; // najnowszy updated_at produktów kategorii
+    private List<ManufacturerNode> manufacturers;
+
+    @Data
+    public static class ManufacturerNode {
+        private String manufacturer;
+        private long productCount;
+        private LocalDateTime lastUpdated;
+        private List<GroupNode> groups;
+    }
+
+    @Data
+    public static class GroupNode {
+        private String groupName;
+        private long productCount;
+        private LocalDateTime lastUpdated;
+        private Map<String, Long> productTypes; // productType → liczba produktów (klucz null = bez typu)
+    }
+}
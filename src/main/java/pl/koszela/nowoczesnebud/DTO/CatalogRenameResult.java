@@ -0,0 +1,17 @@
+package pl.koszela.nowoczesnebud.DTO;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Wynik zmiany nazwy producenta / grupy (PUT /api/products/rename-manufacturer, /rename-group)
+ * Zamiast listy zmienionych produktów - liczby zmienionych wierszy w każdej tabeli
+ */
+@Data
+public class CatalogRenameResult {
+    private int renamedProducts;
+    private int renamedProjectGroups; // opcje grup w projektach (project_product_groups)
+    private int renamedGroupAttributes; // atrybuty grup (product_group_attributes)
+    private LocalDateTime catalogVersion; // updated_at zapisany w zmienionych produktach (null = brak zmian)
+}
@@ -15,6 +15,7 @@ public class ImportFileResult {
     private int productsCount;
     private boolean success;
     private String errorMessage;
+    private String status; // "IMPORTED", "UNCHANGED" (PriceListImportStatus)
     private List<Product> products;
 
     public ImportFileResult() {
@@ -87,6 +88,14 @@ public class ImportFileResult {
         this.errorMessage = errorMessage;
     }
 
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
     public List<Product> getProducts() {
         return products;
     }
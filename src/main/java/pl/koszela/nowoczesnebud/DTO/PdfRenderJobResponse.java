@@ -0,0 +1,19 @@
+package pl.koszela.nowoczesnebud.DTO;
+
+import lombok.Data;
+
+/**
+ * Status zadania renderowania PDF oferty (POST /api/projects/{id}/generate-pdf/async)
+ */
+@Data
+public class PdfRenderJobResponse {
+    private String jobId;
+    private Long projectId;
+    private String status; // QUEUED, RUNNING, DONE, FAILED
+    private boolean cached; // PDF z cache (oferta bez zmian)
+    private long queueWaitMs;
+    private long renderMs;
+    private Integer sizeBytes;
+    private String error;
+    private String downloadUrl;
+}
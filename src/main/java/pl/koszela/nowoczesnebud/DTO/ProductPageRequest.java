@@ -0,0 +1,24 @@
+package pl.koszela.nowoczesnebud.DTO;
+
+import lombok.Data;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+
+import java.util.List;
+
+/**
+ * Filtry i stronicowanie listy produktów (GET /api/products/page)
+ */
+@Data
+public class ProductPageRequest {
+    private ProductCategory category;
+    private String manufacturer;
+    private String groupName;
+    private String productType;
+    private String accessoryType;
+    private Double minPrice; // cena katalogowa (retailPrice) od
+    private Double maxPrice; // cena katalogowa (retailPrice) do
+    private String name; // fragment nazwy (bez rozróżniania wielkości liter)
+    private String cursor; // nextCursor z poprzedniej strony (null = pierwsza strona)
+    private Integer limit;
+    private List<String> fields; // projekcja pól (null = pełne produkty)
+}
@@ -0,0 +1,16 @@
+package pl.koszela.nowoczesnebud.DTO;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Strona listy produktów - kolejność (manufacturer, groupName, displayOrder, id)
+ * items: pełne produkty albo mapy z polami z parametru fields
+ */
+@Data
+public class ProductPageResponse {
+    private List<?> items;
+    private String nextCursor; // null = ostatnia strona
+    private int limit;
+}
@@ -0,0 +1,18 @@
+package pl.koszela.nowoczesnebud.DTO;
+
+import lombok.Data;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+
+/**
+ * Wynik wyszukiwania produktów (GET /api/products/search)
+ */
+@Data
+public class ProductSearchHit {
+    private Long id;
+    private ProductCategory category;
+    private String name;
+    private String mapperName;
+    private String manufacturer;
+    private String groupName;
+    private double score; // wyższy = lepsze dopasowanie
+}
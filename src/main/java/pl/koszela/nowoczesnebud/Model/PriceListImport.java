@@ -0,0 +1,86 @@
+package pl.koszela.nowoczesnebud.Model;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Historia importów cenników dla GRUPY produktowej (category + manufacturer + groupName)
+ * Każdy przetworzony plik zapisuje SHA-256 zawartości oraz mapowanie z formularza importu.
+ * Ponowne przesłanie identycznego pliku do niezmienionej grupy jest pomijane (status UNCHANGED).
+ */
+@Data
+@Entity
+@Table(name = "price_list_imports", indexes = {
+    @Index(name = "idx_price_list_import_group", columnList = "category, manufacturer, group_name"),
+    @Index(name = "idx_price_list_import_sha", columnList = "content_sha256")
+})
+public class PriceListImport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ProductCategory category;
+
+    /**
+     * Producent grupy docelowej (po rozwiązaniu mapowania z formularza)
+     */
+    @Column(nullable = false)
+    private String manufacturer;
+
+    /**
+     * Nazwa grupy docelowej (po rozwiązaniu mapowania z formularza)
+     */
+    @Column(name = "group_name", nullable = false)
+    private String groupName;
+
+    /**
+     * SHA-256 zawartości pliku (hex)
+     */
+    @Column(name = "content_sha256", nullable = false, length = 64)
+    private String contentSha256;
+
+    @Column(name = "file_name", length = 500)
+    private String fileName;
+
+    /**
+     * Mapowanie przesłane z formularza: name[] / manufacturer[] / groupName[]
+     */
+    @Column(name = "custom_name", length = 500)
+    private String customName;
+
+    @Column(name = "custom_manufacturer")
+    private String customManufacturer;
+
+    @Column(name = "custom_group_name", length = 500)
+    private String customGroupName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PriceListImportStatus status;
+
+    /**
+     * Liczba nowych produktów zapisanych z tego pliku
+     */
+    @Column(name = "imported_products")
+    private Integer importedProducts;
+
+    /**
+     * Liczba produktów w grupie po przetworzeniu pliku - do wykrywania zmian w grupie po imporcie
+     */
+    @Column(name = "group_product_count")
+    private Long groupProductCount;
+
+    /**
+     * Najnowszy updated_at produktów grupy po przetworzeniu pliku
+     */
+    @Column(name = "group_updated_at")
+    private LocalDateTime groupUpdatedAt;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+}
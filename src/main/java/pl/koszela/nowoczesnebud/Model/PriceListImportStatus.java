@@ -0,0 +1,21 @@
+package pl.koszela.nowoczesnebud.Model;
+
+/**
+ * Enum określający wynik przetworzenia pliku cennika (historia importów)
+ */
+public enum PriceListImportStatus {
+    /**
+     * Plik został sparsowany i zaimportowany
+     */
+    IMPORTED,
+
+    /**
+     * Identyczny plik był już zaimportowany do tej grupy - pominięto parsowanie i zapis
+     */
+    UNCHANGED,
+
+    /**
+     * Plik wygenerowany przez eksport (ProductExportService) - ponowny import tego pliku jest rozpoznawany jako UNCHANGED
+     */
+    EXPORTED
+}
@@ -5,6 +5,8 @@ import com.poiji.annotation.ExcelCellName;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.Where;
+import pl.koszela.nowoczesnebud.Service.ProductCatalogChangeListener;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -12,12 +14,26 @@ import java.time.LocalDateTime;
 /**
  * NOWY UPROSZCZONY MODEL PRODUKTU
  * Zastępuje: Tile + Gutter + Accessory + ProductType
+ *
+ * ⚠️ WAŻNE: Produkty grup usuniętych przez soft delete (ProductGroupTombstone) są pomijane
+ * we wszystkich zapytaniach JPQL/Criteria - do czasu fizycznego usunięcia przez CatalogPurgeScheduler
+ * Soft delete jest domyślnie wyłączony (app.catalog.soft-delete.enabled) - tabela znaczników jest wtedy pusta,
+ * a warunek to jedno sprawdzenie unikalnego indeksu (category, manufacturer, group_name)
  */
 @Data
 @Entity
+@EntityListeners(ProductCatalogChangeListener.class)
+@Where(clause = "NOT EXISTS (SELECT 1 FROM product_group_tombstones t " +
+                "WHERE t.category = category AND t.manufacturer = manufacturer " +
+                "AND t.group_name = group_name AND id <= t.max_product_id)")
 @Table(name = "products", indexes = {
     @Index(name = "idx_product_category", columnList = "category"),
-    @Index(name = "idx_product_mapper_name", columnList = "mapperName")
+    @Index(name = "idx_product_mapper_name", columnList = "mapperName"),
+    @Index(name = "idx_product_category_group", columnList = "category,manufacturer,group_name"),
+    // Stronicowanie keyset (ProductService.getProductsPage): ORDER BY i kursor bez filesort
+    @Index(name = "idx_product_page_key", columnList = "category,manufacturer,group_name,display_order,id"),
+    // Sygnał zmian indeksu wyszukiwania (ProductSearchIndex): MAX(updated_at) bez skanu tabeli
+    @Index(name = "idx_product_updated_at", columnList = "updated_at")
 })
 public class Product {
 
@@ -3,6 +3,7 @@ package pl.koszela.nowoczesnebud.Model;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import pl.koszela.nowoczesnebud.Service.ProductGroupAttributesChangeListener;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -20,6 +21,7 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
+@EntityListeners(ProductGroupAttributesChangeListener.class)
 @Table(name = "product_group_attributes",
        uniqueConstraints = @UniqueConstraint(columnNames = {"category", "manufacturer", "group_name"}))
 public class ProductGroupAttributes {
@@ -0,0 +1,44 @@
+package pl.koszela.nowoczesnebud.Model;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Znacznik usuniętej grupy produktowej (soft delete)
+ * Usunięcie grupy zapisuje jeden wiersz zamiast kasować wszystkie produkty w transakcji żądania.
+ * Produkty grupy o id <= maxProductId są ukryte w odczytach katalogu (@Where na Product),
+ * a fizycznie usuwa je w tle CatalogPurgeScheduler.
+ *
+ * ⚠️ WAŻNE: Produkty zaimportowane ponownie po usunięciu dostają wyższe id - pozostają widoczne
+ */
+@Data
+@Entity
+@Table(name = "product_group_tombstones",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"category", "manufacturer", "group_name"}))
+public class ProductGroupTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ProductCategory category;
+
+    @Column(nullable = false)
+    private String manufacturer;
+
+    @Column(name = "group_name", nullable = false)
+    private String groupName;
+
+    /**
+     * Najwyższe id produktu w chwili usunięcia - produkty grupy o id <= maxProductId są usunięte
+     */
+    @Column(name = "max_product_id", nullable = false)
+    private Long maxProductId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -22,7 +22,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "project_product_groups")
+@Table(name = "project_product_groups", indexes = {
+    @Index(name = "idx_project_product_group_group", columnList = "category,manufacturer,group_name")
+})
 @JsonIgnoreProperties(value = {"hibernateLazyInitializer", "handler"}, ignoreUnknown = true)
 public class ProjectProductGroup {
 
@@ -1,6 +1,8 @@
 package pl.koszela.nowoczesnebud.Repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pl.koszela.nowoczesnebud.Model.ClientStatusHistory;
 
@@ -13,5 +15,14 @@ public interface ClientStatusHistoryRepository extends JpaRepository<ClientStatu
     Optional<ClientStatusHistory> findTopByProjectIdAndToStatusIsNotNullOrderByCreatedAtDescIdDesc(Long projectId);
     List<ClientStatusHistory> findByProjectIdOrderByCreatedAtDescIdDesc(Long projectId);
     boolean existsByToStatusId(Long statusId);
+
+    /**
+     * ID projektów, których AKTUALNY status w pipeline (ostatni wpis z toStatus) to statusId
+     */
+    @Query("SELECT h.project.id FROM ClientStatusHistory h WHERE h.toStatus.id = :statusId " +
+           "AND NOT EXISTS (SELECT h2.id FROM ClientStatusHistory h2 WHERE h2.project = h.project " +
+           "AND h2.toStatus IS NOT NULL " +
+           "AND (h2.createdAt > h.createdAt OR (h2.createdAt = h.createdAt AND h2.id > h.id)))")
+    List<Long> findProjectIdsWithCurrentStatus(@Param("statusId") Long statusId);
 }
 
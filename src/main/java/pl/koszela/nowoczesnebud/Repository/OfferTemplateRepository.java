@@ -1,9 +1,12 @@
 package pl.koszela.nowoczesnebud.Repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pl.koszela.nowoczesnebud.Model.OfferTemplate;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,23 +16,18 @@ public interface OfferTemplateRepository extends JpaRepository<OfferTemplate, Lo
      * Znajdź domyślny szablon
      */
     Optional<OfferTemplate> findByIsDefaultTrue();
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
 
+    /**
+     * Wersja szablonu: [id, updatedAt] - bez ładowania kolumn LOB (HTML, CSS, obrazy)
+     * Używane przez cache skompilowanych szablonów do sprawdzenia aktualności wpisu
+     */
+    @Query("SELECT t.id, t.updatedAt FROM OfferTemplate t WHERE t.id = :id")
+    List<Object[]> findVersionById(@Param("id") Long id);
 
+    /**
+     * Wersje domyślnych szablonów: [id, updatedAt] (od najniższego ID)
+     * Lista, bo findByIsDefaultTrue() rzuca wyjątek gdy jest więcej niż 1 domyślny szablon
+     */
+    @Query("SELECT t.id, t.updatedAt FROM OfferTemplate t WHERE t.isDefault = true ORDER BY t.id")
+    List<Object[]> findDefaultVersions();
+}
@@ -0,0 +1,42 @@
+package pl.koszela.nowoczesnebud.Repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pl.koszela.nowoczesnebud.Model.PriceListImport;
+import pl.koszela.nowoczesnebud.Model.PriceListImportStatus;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PriceListImportRepository extends JpaRepository<PriceListImport, Long> {
+
+    /**
+     * Najnowszy wpis historii dla grupy (dowolny plik)
+     */
+    Optional<PriceListImport> findTopByCategoryAndManufacturerAndGroupNameOrderByProcessedAtDescIdDesc(
+            ProductCategory category, String manufacturer, String groupName);
+
+    /**
+     * Wpisy kategorii z danym SHA-256 pliku - od najnowszego
+     */
+    List<PriceListImport> findByCategoryAndContentSha256OrderByProcessedAtDescIdDesc(
+            ProductCategory category, String contentSha256);
+
+    /**
+     * Wpisy kategorii o danym statusie (np. poprzednie eksporty do zastąpienia)
+     */
+    List<PriceListImport> findByCategoryAndStatus(ProductCategory category, PriceListImportStatus status);
+
+    /**
+     * Historia importów grupy - od najnowszego
+     */
+    List<PriceListImport> findByCategoryAndManufacturerAndGroupNameOrderByProcessedAtDescIdDesc(
+            ProductCategory category, String manufacturer, String groupName);
+
+    /**
+     * Historia importów kategorii - od najnowszego
+     */
+    List<PriceListImport> findByCategoryOrderByProcessedAtDescIdDesc(ProductCategory category);
+}
@@ -0,0 +1,16 @@
+package pl.koszela.nowoczesnebud.Repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pl.koszela.nowoczesnebud.Model.ProductGroupTombstone;
+
+import java.util.List;
+
+@Repository
+public interface ProductGroupTombstoneRepository extends JpaRepository<ProductGroupTombstone, Long> {
+
+    /**
+     * Znaczniki do fizycznego usunięcia - najstarsze pierwsze
+     */
+    List<ProductGroupTombstone> findAllByOrderByDeletedAtAsc();
+}
@@ -37,35 +37,21 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     @Query("SELECT p FROM Product p WHERE p.category = :category ORDER BY p.manufacturer, p.groupName, p.displayOrder")
     List<Product> findByCategoryOrderByDisplayOrder(@Param("category") ProductCategory category);
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
 
+    /**
+     * Stan grupy produktowej: liczba produktów i najnowszy updatedAt (jeden wiersz)
+     * Używane przez historię importów do wykrywania zmian w grupie po imporcie
+     */
+    @Query("SELECT COUNT(p), MAX(p.updatedAt) FROM Product p " +
+           "WHERE p.category = :category AND p.manufacturer = :manufacturer AND p.groupName = :groupName")
+    List<Object[]> findGroupState(@Param("category") ProductCategory category,
+                                  @Param("manufacturer") String manufacturer,
+                                  @Param("groupName") String groupName);
 
+    /**
+     * Stan wszystkich grup kategorii: manufacturer, groupName, liczba produktów, najnowszy updatedAt
+     */
+    @Query("SELECT p.manufacturer, p.groupName, COUNT(p), MAX(p.updatedAt) FROM Product p " +
+           "WHERE p.category = :category GROUP BY p.manufacturer, p.groupName")
+    List<Object[]> findGroupStatesByCategory(@Param("category") ProductCategory category);
+}
@@ -37,6 +37,58 @@ public interface ProjectProductRepository extends JpaRepository<ProjectProduct,
      */
     Optional<ProjectProduct> findByProjectIdAndProductId(Long projectId, Long productId);
     
+    /**
+     * Pozycje oferty projektu (wszystkie kategorie) - jedno zapytanie zamiast getProductComparison() per kategoria
+     *
+     * Zwraca tylko produkty z ilością > 0 (draft lub zapisana), z priorytetami jak w UI:
+     * - ilość: draft_quantity (jeśli > 0) > saved_quantity
+     * - ceny: draft > saved > cennik (dla ACCESSORY brak ceny sprzedaży w cenniku = cena zakupu)
+     * - duplikaty project_products / draft changes: wygrywa wiersz z większym id
+     * - opcja grupy: ostatnia zapisana opcja różna od NONE (surowa wartość - konwersja w serwisie)
+     * - pomija produkty grup usuniętych przez soft delete (jak @Where na Product)
+     *
+     * ⚡ OPTYMALIZACJA: baza czyta tylko pozycje projektu (UNION po indeksach project_id),
+     * zamiast całego cennika każdej kategorii łączonego w pamięci
+     *
+     * Kolumny: [0] id, [1] name, [2] manufacturer, [3] group_name, [4] category, [5] mapper_name, [6] unit,
+     * [7] quantity_converter, [8] quantity, [9] retail_price, [10] purchase_price, [11] selling_price,
+     * [12] draft id (null = brak draftu), [13] draft_is_main_option, [14] zapisana opcja grupy
+     *
+     * Kolejność: kategoria (jak w ProductCategory), manufacturer, group_name, display_order
+     * @param projectId ID projektu
+     */
+    @Query(value = "SELECT p.id, p.name, p.manufacturer, p.group_name, p.category, p.mapper_name, p.unit, p.quantity_converter, " +
+                   "CASE WHEN d.draft_quantity > 0 THEN d.draft_quantity ELSE pp.saved_quantity END, " +
+                   "COALESCE(d.draft_retail_price, pp.saved_retail_price, p.retail_price), " +
+                   "COALESCE(d.draft_purchase_price, pp.saved_purchase_price, p.purchase_price), " +
+                   "COALESCE(d.draft_selling_price, pp.saved_selling_price, p.selling_price, " +
+                   "         CASE WHEN p.category = 'ACCESSORY' THEN p.purchase_price END), " +
+                   "d.id, d.draft_is_main_option, g.is_main_option " +
+                   "FROM (SELECT product_id FROM project_products WHERE project_id = :projectId AND saved_quantity > 0 " +
+                   "      UNION " +
+                   "      SELECT product_id FROM project_draft_changes_ws WHERE project_id = :projectId AND draft_quantity > 0) li " +
+                   "JOIN products p ON p.id = li.product_id " +
+                   "LEFT JOIN project_products pp ON pp.id = (" +
+                   "    SELECT MAX(pp2.id) FROM project_products pp2 " +
+                   "    WHERE pp2.project_id = :projectId AND pp2.product_id = p.id AND pp2.category = p.category) " +
+                   "LEFT JOIN project_draft_changes_ws d ON d.id = (" +
+                   "    SELECT MAX(d2.id) FROM project_draft_changes_ws d2 " +
+                   "    WHERE d2.project_id = :projectId AND d2.product_id = p.id AND d2.category = p.category) " +
+                   "LEFT JOIN project_product_groups g ON g.id = (" +
+                   "    SELECT MAX(g2.id) FROM project_product_groups g2 " +
+                   "    WHERE g2.project_id = :projectId AND g2.category = p.category " +
+                   "      AND g2.manufacturer = p.manufacturer AND g2.group_name = p.group_name " +
+                   "      AND UPPER(TRIM(g2.is_main_option)) IN ('MAIN', 'OPTIONAL', 'TRUE', 'FALSE', '1', '0')) " +
+                   "WHERE (d.draft_quantity > 0 OR pp.saved_quantity > 0) " +
+                   "  AND NOT EXISTS (SELECT 1 FROM product_group_tombstones t " +
+                   "      WHERE t.category = p.category AND t.manufacturer = p.manufacturer " +
+                   "        AND t.group_name = p.group_name AND p.id <= t.max_product_id) " +
+                   "ORDER BY CASE p.category WHEN 'TILE' THEN 0 WHEN 'GUTTER' THEN 1 WHEN 'ACCESSORY' THEN 2 " +
+                   "                         WHEN 'WINDOW' THEN 3 ELSE 4 END, " +
+                   "         p.manufacturer, p.group_name, p.display_order",
+           nativeQuery = true)
+    List<Object[]> findOfferLineItems(@Param("projectId") Long projectId);
+    
     /**
      * Usuń wszystkie produkty projektu
      * Używa natywnego SQL DELETE dla lepszej wydajności przy dużej liczbie rekordów
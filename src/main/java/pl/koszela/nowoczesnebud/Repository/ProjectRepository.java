@@ -6,6 +6,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pl.koszela.nowoczesnebud.Model.Project;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,6 +41,13 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
     @Query("SELECT DISTINCT p FROM Project p JOIN FETCH p.client LEFT JOIN FETCH p.inputs WHERE p.id = :id")
     Optional<Project> findByIdWithClientAndInputs(@Param("id") Long id);
     
+    /**
+     * Znajdź projekty po liście ID z załadowanymi klientami (jedno zapytanie dla wsadu)
+     * JOIN FETCH zapewnia że client jest załadowany (unika lazy proxy)
+     */
+    @Query("SELECT DISTINCT p FROM Project p JOIN FETCH p.client WHERE p.id IN :ids")
+    List<Project> findAllByIdWithClient(@Param("ids") Collection<Long> ids);
+    
     // TODO: Metoda existsBySnapshotDate została usunięta - snapshotDate nie istnieje w nowym modelu
 }
 
@@ -0,0 +1,345 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.koszela.nowoczesnebud.DTO.AttributeFacetResponse;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+import pl.koszela.nowoczesnebud.Model.ProductGroupAttributes;
+import pl.koszela.nowoczesnebud.Repository.ProductGroupAttributesRepository;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ⚡ OPTYMALIZACJA: Indeks odwrócony atrybutów grup produktowych w pamięci JVM (per kategoria)
+ * - JSON atrybutów (product_group_attributes) parsowany raz przy budowie indeksu, nie przy każdym żądaniu
+ * - atrybut → wartość → zbiór grup jako BitSet po numerach porządkowych grup
+ * - słownik sugestii i filtr fasetowy ("czerwone I płaskie") to operacje na BitSet (OR / AND / cardinality)
+ *
+ * Aktualizacja: zapis ORM encji ProductGroupAttributes (saveGroupAttributes) - parsowany jest tylko zapisany wiersz
+ * (ProductGroupAttributesChangeListener); zmiany transakcji są zbierane i trafiają do indeksu po zatwierdzeniu
+ * (afterCommit), po rollbacku są odrzucane. Zapisy JDBC (usuwanie grup, zmiana nazw) unieważniają kategorię
+ * (attributesChanged) - budowa przy następnym odczycie.
+ * ⚠️ WAŻNE: Współdzielony indeks nie zawiera niezatwierdzonych zmian - transakcja z własnymi zmianami kategorii
+ * czyta indeks zbudowany z bazy (bez zapisu do cache).
+ */
+@Service
+public class AttributeFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttributeFacetIndex.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, List<String>>> ATTRIBUTES_TYPE = new TypeReference<Map<String, List<String>>>() {};
+
+    private final ProductGroupAttributesRepository productGroupAttributesRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<ProductCategory, CategoryFacets> indexes = new ConcurrentHashMap<>();
+    private final Map<ProductCategory, AtomicLong> generations = new EnumMap<>(ProductCategory.class);
+
+    public AttributeFacetIndex(ProductGroupAttributesRepository productGroupAttributesRepository) {
+        this.productGroupAttributesRepository = productGroupAttributesRepository;
+        for (ProductCategory category : ProductCategory.values()) {
+            generations.put(category, new AtomicLong());
+        }
+    }
+
+    /**
+     * Słownik sugestii: klucz atrybutu → posortowane unikalne wartości (tylko wartości używane przez jakąś grupę)
+     */
+    public Map<String, List<String>> getSuggestions(ProductCategory category) {
+        CategoryFacets facets = getFacets(category);
+        lock.readLock().lock();
+        try {
+            Map<String, List<String>> suggestions = new LinkedHashMap<>();
+            for (Map.Entry<String, TreeMap<String, BitSet>> attribute : facets.values.entrySet()) {
+                List<String> values = new ArrayList<>();
+                for (Map.Entry<String, BitSet> value : attribute.getValue().entrySet()) {
+                    if (!value.getValue().isEmpty()) {
+                        values.add(value.getKey());
+                    }
+                }
+                if (!values.isEmpty()) {
+                    suggestions.put(attribute.getKey(), values);
+                }
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Filtr fasetowy: grupy pasujące do wszystkich kluczy (AND), w obrębie klucza do dowolnej wartości (OR)
+     * oraz liczba pasujących grup dla każdej wartości atrybutu (przecięcie z wynikiem)
+     */
+    public AttributeFacetResponse filter(ProductCategory category, Map<String, List<String>> filters) {
+        CategoryFacets facets = getFacets(category);
+        lock.readLock().lock();
+        try {
+            BitSet matching = (BitSet) facets.withAttributes.clone();
+            if (filters != null) {
+                for (Map.Entry<String, List<String>> filter : filters.entrySet()) {
+                    if (filter.getValue() == null || filter.getValue().isEmpty()) {
+                        continue;
+                    }
+                    BitSet anyValue = new BitSet();
+                    Map<String, BitSet> values = facets.values.get(filter.getKey());
+                    if (values != null) {
+                        for (String value : filter.getValue()) {
+                            BitSet groups = values.get(value);
+                            if (groups != null) {
+                                anyValue.or(groups);
+                            }
+                        }
+                    }
+                    matching.and(anyValue);
+                }
+            }
+
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (Map.Entry<String, TreeMap<String, BitSet>> attribute : facets.values.entrySet()) {
+                Map<String, Integer> valueCounts = new LinkedHashMap<>();
+                for (Map.Entry<String, BitSet> value : attribute.getValue().entrySet()) {
+                    BitSet intersection = (BitSet) value.getValue().clone();
+                    intersection.and(matching);
+                    int count = intersection.cardinality();
+                    if (count > 0) {
+                        valueCounts.put(value.getKey(), count);
+                    }
+                }
+                if (!valueCounts.isEmpty()) {
+                    counts.put(attribute.getKey(), valueCounts);
+                }
+            }
+
+            List<AttributeFacetResponse.FacetGroup> groups = new ArrayList<>();
+            for (int ordinal = matching.nextSetBit(0); ordinal >= 0; ordinal = matching.nextSetBit(ordinal + 1)) {
+                AttributeFacetResponse.FacetGroup group = new AttributeFacetResponse.FacetGroup();
+                group.setManufacturer(facets.groups.get(ordinal)[0]);
+                group.setGroupName(facets.groups.get(ordinal)[1]);
+                groups.add(group);
+            }
+            groups.sort(Comparator.comparing(AttributeFacetResponse.FacetGroup::getManufacturer)
+                .thenComparing(AttributeFacetResponse.FacetGroup::getGroupName));
+
+            AttributeFacetResponse response = new AttributeFacetResponse();
+            response.setGroupCount(groups.size());
+            response.setGroups(groups);
+            response.setFacets(counts);
+            return response;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Atrybuty grupy zapisane - aktualizacja indeksu bez ponownego parsowania kategorii
+     */
+    public void groupAttributesSaved(ProductGroupAttributes row) {
+        groupAttributesChanged(row.getCategory(), row.getManufacturer(), row.getGroupName(), parse(row));
+    }
+
+    /**
+     * Atrybuty grupy usunięte
+     */
+    public void groupAttributesRemoved(ProductGroupAttributes row) {
+        groupAttributesChanged(row.getCategory(), row.getManufacturer(), row.getGroupName(), null);
+    }
+
+    private void groupAttributesChanged(ProductCategory category, String manufacturer, String groupName,
+                                        Map<String, List<String>> attributes) {
+        List<Object> key = List.of(category, manufacturer, groupName);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyCommitted(Collections.singletonMap(key, attributes));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<List<Object>, Map<String, List<String>>> changedInTransaction =
+            (Map<List<Object>, Map<String, List<String>>>) TransactionSynchronizationManager.getResource(this);
+        if (changedInTransaction != null) {
+            changedInTransaction.put(key, attributes);
+            return;
+        }
+        Map<List<Object>, Map<String, List<String>>> changed = new LinkedHashMap<>();
+        changed.put(key, attributes);
+        TransactionSynchronizationManager.bindResource(this, changed);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyCommitted(changed);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(AttributeFacetIndex.this);
+            }
+        });
+    }
+
+    /**
+     * Zatwierdzone zmiany atrybutów grup (null = usunięte) do zbudowanych indeksów kategorii
+     */
+    private void applyCommitted(Map<List<Object>, Map<String, List<String>>> changed) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<List<Object>, Map<String, List<String>>> change : changed.entrySet()) {
+                ProductCategory category = (ProductCategory) change.getKey().get(0);
+                // Budowa rozpoczęta przed zatwierdzeniem zmiany nie trafi do indeksu
+                generations.get(category).incrementAndGet();
+                CategoryFacets facets = indexes.get(category);
+                if (facets != null) {
+                    facets.put((String) change.getKey().get(1), (String) change.getKey().get(2), change.getValue());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Atrybuty kategorii zmienione poza saveGroupAttributes (JDBC) - unieważnij teraz i po zakończeniu transakcji
+     */
+    public void attributesChanged(ProductCategory category) {
+        invalidate(category);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidate(category);
+            }
+        });
+    }
+
+    private void invalidate(ProductCategory category) {
+        lock.writeLock().lock();
+        try {
+            generations.get(category).incrementAndGet();
+            indexes.remove(category);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private CategoryFacets getFacets(ProductCategory category) {
+        boolean changedInTransaction = hasChangesInTransaction(category);
+        CategoryFacets facets = indexes.get(category);
+        if (facets != null && !changedInTransaction) {
+            return facets;
+        }
+
+        long startTime = System.currentTimeMillis();
+        AtomicLong generation = generations.get(category);
+        long buildGeneration = generation.get();
+        CategoryFacets built = new CategoryFacets();
+        List<ProductGroupAttributes> rows = productGroupAttributesRepository.findByCategory(category);
+        for (ProductGroupAttributes row : rows) {
+            built.put(row.getManufacturer(), row.getGroupName(), parse(row));
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Zmiana atrybutów w trakcie budowy (albo niezatwierdzona w bieżącej transakcji) - bez zapisu do indeksu
+            if (!changedInTransaction && generation.get() == buildGeneration) {
+                indexes.put(category, built);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("⏱️ [PERFORMANCE] Indeks atrybutów {}: {} grup, {} atrybutów w {}ms",
+                   category, built.withAttributes.cardinality(), built.values.size(), System.currentTimeMillis() - startTime);
+        return built;
+    }
+
+    private boolean hasChangesInTransaction(ProductCategory category) {
+        @SuppressWarnings("unchecked")
+        Map<List<Object>, Map<String, List<String>>> changed =
+            (Map<List<Object>, Map<String, List<String>>>) TransactionSynchronizationManager.getResource(this);
+        return changed != null && changed.keySet().stream().anyMatch(key -> key.get(0) == category);
+    }
+
+    private static Map<String, List<String>> parse(ProductGroupAttributes row) {
+        if (row.getAttributes() == null || row.getAttributes().trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.readValue(row.getAttributes(), ATTRIBUTES_TYPE);
+        } catch (Exception e) {
+            logger.warn("Błąd parsowania atrybutów dla grupy {}/{}: {}",
+                row.getManufacturer(), row.getGroupName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Indeks jednej kategorii; numer porządkowy grupy = pozycja w liście groups (nie jest zwalniany po usunięciu atrybutów)
+     */
+    private static class CategoryFacets {
+        private final List<String[]> groups = new ArrayList<>();
+        private final List<Map<String, List<String>>> attributesByOrdinal = new ArrayList<>();
+        private final Map<List<String>, Integer> ordinals = new HashMap<>();
+        private final TreeMap<String, TreeMap<String, BitSet>> values = new TreeMap<>();
+        private final BitSet withAttributes = new BitSet();
+
+        private void put(String manufacturer, String groupName, Map<String, List<String>> attributes) {
+            Integer ordinal = ordinals.get(List.of(manufacturer, groupName));
+            if (ordinal == null) {
+                if (attributes == null || attributes.isEmpty()) {
+                    return;
+                }
+                ordinal = groups.size();
+                ordinals.put(List.of(manufacturer, groupName), ordinal);
+                groups.add(new String[] {manufacturer, groupName});
+                attributesByOrdinal.add(null);
+            }
+
+            Map<String, List<String>> previous = attributesByOrdinal.get(ordinal);
+            if (previous != null) {
+                for (Map.Entry<String, List<String>> attribute : previous.entrySet()) {
+                    for (String value : attribute.getValue()) {
+                        values.get(attribute.getKey()).get(value).clear(ordinal);
+                    }
+                }
+            }
+
+            Map<String, List<String>> current = new HashMap<>();
+            if (attributes != null) {
+                for (Map.Entry<String, List<String>> attribute : attributes.entrySet()) {
+                    if (attribute.getKey() == null || attribute.getValue() == null) {
+                        continue;
+                    }
+                    List<String> attributeValues = new ArrayList<>();
+                    for (String value : attribute.getValue()) {
+                        if (value != null) {
+                            values.computeIfAbsent(attribute.getKey(), key -> new TreeMap<>())
+                                  .computeIfAbsent(value, key -> new BitSet())
+                                  .set(ordinal);
+                            attributeValues.add(value);
+                        }
+                    }
+                    current.put(attribute.getKey(), attributeValues);
+                }
+            }
+            attributesByOrdinal.set(ordinal, current.isEmpty() ? null : current);
+            withAttributes.set(ordinal, !current.isEmpty());
+        }
+    }
+}
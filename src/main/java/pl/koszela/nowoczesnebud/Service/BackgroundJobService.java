@@ -0,0 +1,455 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Zadania w tle (usuwanie wielu grup, importy, eksporty, wsady) we wspólnej, ograniczonej puli wątków
+ *
+ * ⚡ OPTYMALIZACJA:
+ * - Stała liczba wątków "background-job-N" (app.jobs.threads) i kolejka o stałej pojemności
+ *   (app.jobs.queue-capacity) - seria ciężkich żądań nie tworzy nowych wątków; przy pełnej kolejce
+ *   zgłoszenie jest odrzucane (RejectedExecutionException → 503)
+ * - Rejestr zadań po ID z ostatnim stanem postępu - klient SSE po zerwaniu połączenia podłącza się
+ *   ponownie (GET /api/jobs/{id}/events) i od razu dostaje aktualny stan
+ * - Anulowanie: zadanie z kolejki nie wystartuje, trwające kończy się przy najbliższym JobContext.checkCancelled()
+ *
+ * ⚠️ WAŻNE: Przy zamykaniu aplikacji (SmartLifecycle.stop - przed zamknięciem DataSource) nowe zadania są odrzucane,
+ * a trwające mają app.jobs.shutdown-drain-seconds na dokończenie. Dopiero potem są anulowane.
+ */
+@Service
+public class BackgroundJobService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundJobService.class);
+
+    /**
+     * Jak długo zakończone zadanie jest dostępne (status, ponowne podłączenie SSE)
+     */
+    private static final long FINISHED_JOB_TTL_MS = TimeUnit.MINUTES.toMillis(15);
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    /**
+     * Praca wykonywana w tle - raportuje postęp przez {@link JobContext}
+     */
+    @FunctionalInterface
+    public interface JobTask {
+        void run(JobContext context) throws Exception;
+    }
+
+    private final ThreadPoolExecutor jobExecutor;
+    private final int jobThreads;
+    private final int queueCapacity;
+    private final long shutdownDrainSeconds;
+
+    // jobId -> zadanie (także zakończone, do czasu FINISHED_JOB_TTL_MS)
+    private final Map<String, BackgroundJob> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile boolean running;
+
+    public BackgroundJobService(@Value("${app.jobs.threads:2}") int jobThreads,
+                                @Value("${app.jobs.queue-capacity:8}") int queueCapacity,
+                                @Value("${app.jobs.shutdown-drain-seconds:30}") long shutdownDrainSeconds) {
+        this.jobThreads = Math.max(1, jobThreads);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.shutdownDrainSeconds = Math.max(0, shutdownDrainSeconds);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.jobExecutor = new ThreadPoolExecutor(
+            this.jobThreads, this.jobThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(this.queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "background-job-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        logger.info("⏱️ [PERFORMANCE] Pula zadań w tle: {} wątków, kolejka {}", this.jobThreads, this.queueCapacity);
+    }
+
+    /**
+     * Zleć zadanie w tle
+     *
+     * @param type Typ zadania (np. "products-batch-delete")
+     * @param description Opis dla użytkownika / logów
+     * @param task Praca do wykonania
+     * @return Zadanie w stanie QUEUED
+     * @throws RejectedExecutionException gdy kolejka jest pełna lub aplikacja jest zamykana
+     */
+    public BackgroundJob submit(String type, String description, JobTask task) {
+        purgeExpiredJobs();
+
+        BackgroundJob job = new BackgroundJob(type, description);
+        jobs.put(job.getJobId(), job);
+        try {
+            jobExecutor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            rejected.incrementAndGet();
+            logger.warn("⚠️ Kolejka zadań w tle pełna ({} zadań) - odrzucono zadanie {} ({})",
+                       jobExecutor.getQueue().size(), type, description);
+            throw e;
+        }
+
+        logger.info("📥 Zadanie w tle {} ({}): {}", job.getJobId(), type, description);
+        return job;
+    }
+
+    /**
+     * Zadanie po ID (puste, jeśli nie istnieje lub wygasło)
+     */
+    public Optional<BackgroundJob> getJob(String jobId) {
+        BackgroundJob job = jobs.get(jobId);
+        if (job != null && job.isExpired(System.currentTimeMillis())) {
+            jobs.remove(jobId, job);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(job);
+    }
+
+    /**
+     * Wszystkie śledzone zadania (najnowsze pierwsze)
+     */
+    public List<Map<String, Object>> listJobs() {
+        purgeExpiredJobs();
+        return jobs.values().stream()
+            .sorted(Comparator.comparingLong(BackgroundJob::getSubmittedAt).reversed())
+            .map(BackgroundJob::toSnapshot)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Anuluj zadanie
+     * Zadanie z kolejki nie wystartuje, trwające kończy się przy najbliższym JobContext.checkCancelled() (kooperacyjnie,
+     * bez przerywania wątku w trakcie zapytania do bazy)
+     *
+     * @return false gdy zadanie nie istnieje lub jest już zakończone
+     */
+    public boolean cancel(String jobId) {
+        BackgroundJob job = getJob(jobId).orElse(null);
+        if (job == null || job.isFinished()) {
+            return false;
+        }
+        job.cancelRequested = true;
+        logger.info("🛑 Anulowanie zadania w tle {} ({}, status {})", jobId, job.getType(), job.getStatus());
+        return true;
+    }
+
+    /**
+     * Podłącz klienta SSE do zadania - od razu dostaje aktualny stan, potem kolejne zdarzenia
+     * Zdarzenia: "progress" (stan postępu), na końcu "completed", "error" albo "cancelled"
+     */
+    public SseEmitter subscribe(BackgroundJob job, long timeoutMs) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> job.subscribers.remove(emitter));
+        emitter.onTimeout(() -> job.subscribers.remove(emitter));
+        emitter.onError(error -> job.subscribers.remove(emitter));
+
+        synchronized (job) {
+            if (job.progress != null && !job.sendTo(emitter, "progress", job.progressEvent())) {
+                return emitter;
+            }
+            if (job.isFinished()) {
+                job.sendFinalEvent(emitter);
+                emitter.complete();
+            } else {
+                job.subscribers.add(emitter);
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Metryki puli zadań w tle
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("jobThreads", jobThreads);
+        metrics.put("activeJobs", jobExecutor.getActiveCount());
+        metrics.put("queuedJobs", jobExecutor.getQueue().size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("trackedJobs", jobs.size());
+        metrics.put("completed", completed.get());
+        metrics.put("failed", failed.get());
+        metrics.put("cancelled", cancelled.get());
+        metrics.put("rejected", rejected.get());
+        return metrics;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * Łagodne zamknięcie: odrzucaj nowe zadania, daj trwającym czas na dokończenie, potem anuluj resztę
+     */
+    @Override
+    public void stop() {
+        running = false;
+        jobExecutor.shutdown();
+        try {
+            if (!jobExecutor.awaitTermination(shutdownDrainSeconds, TimeUnit.SECONDS)) {
+                logger.warn("⚠️ Zadania w tle nie zakończyły się w {}s - anulowanie", shutdownDrainSeconds);
+                jobs.values().stream().filter(job -> !job.isFinished()).forEach(job -> job.cancelRequested = true);
+                jobExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            jobExecutor.shutdownNow();
+        }
+        // Zadania, które nie zdążyły wystartować
+        jobs.values().stream()
+            .filter(job -> job.getStatus() == JobStatus.QUEUED)
+            .forEach(job -> finish(job, JobStatus.CANCELLED, "Aplikacja jest zamykana"));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run(BackgroundJob job, JobTask task) {
+        if (job.cancelRequested) {
+            finish(job, JobStatus.CANCELLED, "Zadanie anulowane przed rozpoczęciem");
+            return;
+        }
+
+        job.startedAt = System.currentTimeMillis();
+        job.status = JobStatus.RUNNING;
+        try {
+            task.run(new JobContext(job));
+            finish(job, JobStatus.COMPLETED, null);
+            logger.info("⏱️ [PERFORMANCE] Zadanie w tle {} ({}): kolejka {}ms, wykonanie {}ms",
+                       job.getJobId(), job.getType(), job.getQueueWaitMs(), job.getRunMs());
+        } catch (Exception e) {
+            if (e instanceof CancellationException || job.cancelRequested) {
+                // Anulowane (także przerwanie wątku przy zamykaniu aplikacji)
+                finish(job, JobStatus.CANCELLED, "Zadanie anulowane");
+                logger.info("🛑 Zadanie w tle {} ({}) anulowane", job.getJobId(), job.getType());
+                return;
+            }
+            finish(job, JobStatus.FAILED, e.getMessage());
+            logger.error("❌ Błąd zadania w tle {} ({}): {}", job.getJobId(), job.getType(), e.getMessage(), e);
+        }
+    }
+
+    private void finish(BackgroundJob job, JobStatus status, String error) {
+        synchronized (job) {
+            if (job.isFinished()) {
+                return;
+            }
+            job.finishedAt = System.currentTimeMillis();
+            job.error = error;
+            job.status = status;
+            for (SseEmitter emitter : job.subscribers) {
+                job.sendFinalEvent(emitter);
+                emitter.complete();
+            }
+            job.subscribers.clear();
+        }
+        if (status == JobStatus.COMPLETED) {
+            completed.incrementAndGet();
+        } else if (status == JobStatus.FAILED) {
+            failed.incrementAndGet();
+        } else {
+            cancelled.incrementAndGet();
+        }
+    }
+
+    private void purgeExpiredJobs() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.isExpired(now));
+    }
+
+    /**
+     * Dostęp zadania do raportowania postępu i sprawdzania anulowania
+     */
+    public static final class JobContext {
+        private final BackgroundJob job;
+
+        private JobContext(BackgroundJob job) {
+            this.job = job;
+        }
+
+        public String getJobId() {
+            return job.getJobId();
+        }
+
+        public boolean isCancelled() {
+            return job.cancelRequested;
+        }
+
+        /**
+         * Przerwij zadanie, jeśli zostało anulowane (CancellationException wycofuje też transakcję zadania)
+         */
+        public void checkCancelled() {
+            if (job.cancelRequested) {
+                throw new CancellationException("Zadanie anulowane przez użytkownika");
+            }
+        }
+
+        /**
+         * Zapamiętaj stan postępu i wyślij go podłączonym klientom SSE (zdarzenie "progress")
+         */
+        public void progress(Map<String, Object> status) {
+            synchronized (job) {
+                job.progress = Collections.unmodifiableMap(new LinkedHashMap<>(status));
+                Map<String, Object> event = job.progressEvent();
+                job.subscribers.removeIf(emitter -> !job.sendTo(emitter, "progress", event));
+            }
+        }
+    }
+
+    /**
+     * Zadanie w tle - stan, ostatni postęp i podłączeni klienci SSE
+     */
+    public static final class BackgroundJob {
+        private final String jobId = UUID.randomUUID().toString();
+        private final String type;
+        private final String description;
+        private final long submittedAt = System.currentTimeMillis();
+        private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile boolean cancelRequested;
+        private volatile Map<String, Object> progress;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile String error;
+
+        private BackgroundJob(String type, String description) {
+            this.type = type;
+            this.description = description;
+        }
+
+        private boolean isFinished() {
+            return finishedAt > 0;
+        }
+
+        private boolean isExpired(long now) {
+            return finishedAt > 0 && now - finishedAt > FINISHED_JOB_TTL_MS;
+        }
+
+        // Ostatni postęp + ID zadania (do ponownego podłączenia po zerwaniu połączenia)
+        private Map<String, Object> progressEvent() {
+            Map<String, Object> event = new LinkedHashMap<>(progress);
+            event.put("jobId", jobId);
+            return event;
+        }
+
+        private void sendFinalEvent(SseEmitter emitter) {
+            Map<String, Object> event = progress != null ? progressEvent() : new LinkedHashMap<>();
+            event.put("jobId", jobId);
+            if (status == JobStatus.COMPLETED) {
+                sendTo(emitter, "completed", event);
+            } else {
+                event.put("status", status == JobStatus.FAILED ? "error" : "cancelled");
+                event.put("message", error);
+                sendTo(emitter, status == JobStatus.FAILED ? "error" : "cancelled", event);
+            }
+        }
+
+        private boolean sendTo(SseEmitter emitter, String eventName, Map<String, Object> data) {
+            try {
+                emitter.send(SseEmitter.event().name(eventName).data(data));
+                return true;
+            } catch (Exception e) {
+                // Klient rozłączony - zadanie działa dalej, można podłączyć się ponownie
+                logger.debug("Klient SSE zadania {} rozłączony: {}", jobId, e.getMessage());
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+
+        public String getJobId() {
+            return jobId;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public JobStatus getStatus() {
+            return status;
+        }
+
+        public long getSubmittedAt() {
+            return submittedAt;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public Map<String, Object> getProgress() {
+            return progress;
+        }
+
+        public long getQueueWaitMs() {
+            return startedAt > 0 ? startedAt - submittedAt : System.currentTimeMillis() - submittedAt;
+        }
+
+        public long getRunMs() {
+            if (startedAt == 0) {
+                return 0;
+            }
+            return (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+        }
+
+        /**
+         * Stan zadania do GET /api/jobs/{id}
+         */
+        public Map<String, Object> toSnapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("jobId", jobId);
+            snapshot.put("type", type);
+            snapshot.put("description", description);
+            snapshot.put("status", status.name());
+            snapshot.put("cancelRequested", cancelRequested);
+            snapshot.put("queueWaitMs", getQueueWaitMs());
+            snapshot.put("runMs", getRunMs());
+            snapshot.put("progress", progress);
+            snapshot.put("error", error);
+            snapshot.put("eventsUrl", "/api/jobs/" + jobId + "/events");
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.koszela.nowoczesnebud.DTO.CatalogHierarchyResponse;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ⚡ OPTYMALIZACJA: Drzewo katalogu (producent → grupa → liczby produktów) w cache per kategoria
+ * Zastępuje zapytania DISTINCT o producentów i grupy (N+1 z UI) oraz ładowanie całej kategorii w checkExistingGroups.
+ *
+ * Cache unieważniany przy zapisach katalogu (catalogChanged): zapisy JDBC w ProductService
+ * i zapisy ORM encji Product (ProductCatalogChangeListener).
+ * ⚠️ WAŻNE: Transakcja, która zmieniła katalog, nie zapisuje do cache drzewa ze swoich niezatwierdzonych danych;
+ * po jej zakończeniu (commit lub rollback) cache kategorii jest unieważniany ponownie.
+ */
+@Service
+public class CatalogHierarchyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogHierarchyService.class);
+
+    private static final Comparator<String> NAME_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<ProductCategory, CatalogHierarchyResponse> cache = new ConcurrentHashMap<>();
+    private final Map<ProductCategory, AtomicLong> generations = new EnumMap<>(ProductCategory.class);
+
+    public CatalogHierarchyService() {
+        for (ProductCategory category : ProductCategory.values()) {
+            generations.put(category, new AtomicLong());
+        }
+    }
+
+    /**
+     * Drzewo kategorii z cache (jedno zapytanie GROUP BY przy pierwszym odczycie po zmianie)
+     */
+    @Transactional(readOnly = true)
+    public CatalogHierarchyResponse getHierarchy(ProductCategory category) {
+        CatalogHierarchyResponse cached = cache.get(category);
+        if (cached != null) {
+            return cached;
+        }
+
+        AtomicLong generation = generations.get(category);
+        long buildGeneration = generation.get();
+        CatalogHierarchyResponse built = build(category);
+
+        // Zmiana katalogu w trakcie budowania (albo w bieżącej transakcji) - bez zapisu do cache
+        if (!TransactionSynchronizationManager.hasResource(this)) {
+            cache.compute(category, (key, current) -> generation.get() == buildGeneration ? built : current);
+        }
+        return built;
+    }
+
+    /**
+     * Nazwy producentów kategorii (kolejność alfabetyczna)
+     */
+    public List<String> getManufacturers(ProductCategory category) {
+        List<String> manufacturers = new ArrayList<>();
+        for (CatalogHierarchyResponse.ManufacturerNode node : getHierarchy(category).getManufacturers()) {
+            manufacturers.add(node.getManufacturer());
+        }
+        return manufacturers;
+    }
+
+    /**
+     * Nazwy grup producenta (kolejność alfabetyczna, pusta lista dla nieznanego producenta)
+     */
+    public List<String> getGroupNames(ProductCategory category, String manufacturer) {
+        List<String> groupNames = new ArrayList<>();
+        for (CatalogHierarchyResponse.ManufacturerNode node : getHierarchy(category).getManufacturers()) {
+            if (manufacturer != null && manufacturer.equals(node.getManufacturer())) {
+                for (CatalogHierarchyResponse.GroupNode group : node.getGroups()) {
+                    groupNames.add(group.getGroupName());
+                }
+            }
+        }
+        return groupNames;
+    }
+
+    /**
+     * Katalog kategorii zmieniony (null = wszystkie kategorie) - unieważnij cache teraz i po zakończeniu transakcji
+     */
+    public void catalogChanged(ProductCategory category) {
+        Set<ProductCategory> categories = category != null ? EnumSet.of(category) : EnumSet.allOf(ProductCategory.class);
+        invalidate(categories);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<ProductCategory> changedInTransaction = (Set<ProductCategory>) TransactionSynchronizationManager.getResource(this);
+        if (changedInTransaction != null) {
+            changedInTransaction.addAll(categories);
+            return;
+        }
+        Set<ProductCategory> changed = EnumSet.copyOf(categories);
+        TransactionSynchronizationManager.bindResource(this, changed);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CatalogHierarchyService.this);
+                invalidate(changed);
+            }
+        });
+    }
+
+    private void invalidate(Set<ProductCategory> categories) {
+        for (ProductCategory category : categories) {
+            generations.get(category).incrementAndGet();
+            cache.remove(category);
+        }
+    }
+
+    private CatalogHierarchyResponse build(ProductCategory category) {
+        long startTime = System.currentTimeMillis();
+        List<?> rows = entityManager.createQuery(
+                "SELECT p.manufacturer, p.groupName, p.productType, COUNT(p), MAX(p.updatedAt) FROM Product p " +
+                "WHERE p.category = :category GROUP BY p.manufacturer, p.groupName, p.productType")
+            .setParameter("category", category)
+            .getResultList();
+
+        Map<String, Map<String, CatalogHierarchyResponse.GroupNode>> tree = new TreeMap<>(NAME_ORDER);
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            String manufacturer = (String) columns[0];
+            String groupName = (String) columns[1];
+            long count = ((Number) columns[3]).longValue();
+            LocalDateTime updatedAt = (LocalDateTime) columns[4];
+
+            CatalogHierarchyResponse.GroupNode group = tree
+                .computeIfAbsent(manufacturer, key -> new TreeMap<>(NAME_ORDER))
+                .computeIfAbsent(groupName, key -> {
+                    CatalogHierarchyResponse.GroupNode node = new CatalogHierarchyResponse.GroupNode();
+                    node.setGroupName(key);
+                    node.setProductTypes(new LinkedHashMap<>());
+                    return node;
+                });
+            group.setProductCount(group.getProductCount() + count);
+            group.setLastUpdated(latest(group.getLastUpdated(), updatedAt));
+            group.getProductTypes().merge((String) columns[2], count, Long::sum);
+        }
+
+        CatalogHierarchyResponse hierarchy = new CatalogHierarchyResponse();
+        hierarchy.setCategory(category);
+        List<CatalogHierarchyResponse.ManufacturerNode> manufacturers = new ArrayList<>();
+        for (Map.Entry<String, Map<String, CatalogHierarchyResponse.GroupNode>> entry : tree.entrySet()) {
+            CatalogHierarchyResponse.ManufacturerNode manufacturer = new CatalogHierarchyResponse.ManufacturerNode();
+            manufacturer.setManufacturer(entry.getKey());
+            manufacturer.setGroups(Collections.unmodifiableList(new ArrayList<>(entry.getValue().values())));
+            for (CatalogHierarchyResponse.GroupNode group : entry.getValue().values()) {
+                group.setProductTypes(Collections.unmodifiableMap(group.getProductTypes()));
+                manufacturer.setProductCount(manufacturer.getProductCount() + group.getProductCount());
+                manufacturer.setLastUpdated(latest(manufacturer.getLastUpdated(), group.getLastUpdated()));
+            }
+            hierarchy.setProductCount(hierarchy.getProductCount() + manufacturer.getProductCount());
+            hierarchy.setLastUpdated(latest(hierarchy.getLastUpdated(), manufacturer.getLastUpdated()));
+            manufacturers.add(manufacturer);
+        }
+        hierarchy.setManufacturers(Collections.unmodifiableList(manufacturers));
+
+        logger.info("⏱️ [PERFORMANCE] Drzewo katalogu {}: {} producentów, {} produktów w {}ms",
+                   category, manufacturers.size(), hierarchy.getProductCount(), System.currentTimeMillis() - startTime);
+        return hierarchy;
+    }
+
+    private static LocalDateTime latest(LocalDateTime first, LocalDateTime second) {
+        if (first == null) {
+            return second;
+        }
+        return second != null && second.isAfter(first) ? second : first;
+    }
+}
@@ -0,0 +1,195 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.koszela.nowoczesnebud.Model.ProductGroupTombstone;
+import pl.koszela.nowoczesnebud.Repository.ProductGroupTombstoneRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Fizyczne usuwanie grup oznaczonych przez soft delete (ProductGroupTombstone)
+ *
+ * ⚡ OPTYMALIZACJA: Produkty usuwane małymi paczkami (app.catalog.purge.batch-size), każda paczka
+ * w osobnej krótkiej transakcji, z przerwą między paczkami (app.catalog.purge.pause-ms) -
+ * blokady wierszy products trwają milisekundy zamiast całego usuwania grupy
+ */
+@Service
+public class CatalogPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogPurgeService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ProductGroupTombstoneRepository productGroupTombstoneRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long pauseMs;
+
+    public CatalogPurgeService(ProductGroupTombstoneRepository productGroupTombstoneRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.catalog.purge.batch-size:500}") int batchSize,
+                               @Value("${app.catalog.purge.pause-ms:200}") long pauseMs) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("app.catalog.purge.batch-size musi być >= 1");
+        }
+        this.productGroupTombstoneRepository = productGroupTombstoneRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pauseMs = Math.max(0, pauseMs);
+    }
+
+    /**
+     * Usuń fizycznie produkty grup oznaczonych jako usunięte (najstarsze znaczniki pierwsze)
+     * Dla każdej grupy: paczki (zmiany draft → produkty) aż do wyczerpania, potem opcje grup w projektach
+     * i sam znacznik. Przerwane w połowie (limit paczek) - kontynuowane w następnym uruchomieniu.
+     *
+     * @param maxBatches Maksymalna liczba paczek w tym uruchomieniu
+     * @return Liczba usuniętych produktów
+     */
+    public int purgeDeletedGroups(int maxBatches) {
+        long startTime = System.currentTimeMillis();
+        List<ProductGroupTombstone> tombstones = productGroupTombstoneRepository.findAllByOrderByDeletedAtAsc();
+        if (tombstones.isEmpty()) {
+            return 0;
+        }
+
+        int batches = 0;
+        int purgedProducts = 0;
+        int purgedGroups = 0;
+        for (ProductGroupTombstone tombstone : tombstones) {
+            boolean groupPurged = false;
+            while (batches < maxBatches) {
+                Integer deleted = transactionTemplate.execute(status -> purgeBatch(tombstone));
+                batches++;
+                purgedProducts += deleted;
+                if (deleted < batchSize) {
+                    transactionTemplate.executeWithoutResult(status -> finishGroup(tombstone));
+                    groupPurged = true;
+                    break;
+                }
+                if (!pause()) {
+                    return purgedProducts;
+                }
+            }
+            if (!groupPurged) {
+                break;
+            }
+            purgedGroups++;
+        }
+
+        logger.info("⏱️ [PERFORMANCE] purgeDeletedGroups: {} produktów, {}/{} grup zakończonych, {} paczek w {}ms",
+                   purgedProducts, purgedGroups, tombstones.size(), batches, System.currentTimeMillis() - startTime);
+        return purgedProducts;
+    }
+
+    /**
+     * Usuń od razu, w transakcji wywołującego, grupy podanych znaczników (wszystkie paczki, bez przerw)
+     * Używane, gdy nazwa usuniętej grupy jest potrzebna od razu - zmiana nazwy lub ponowny import na tę grupę
+     *
+     * @param tombstoneIds ID znaczników (ProductGroupTombstone)
+     * @return Liczba usuniętych produktów
+     */
+    public int purgeGroupsNow(List<Long> tombstoneIds) {
+        if (tombstoneIds.isEmpty()) {
+            return 0;
+        }
+        long startTime = System.currentTimeMillis();
+        List<ProductGroupTombstone> tombstones = productGroupTombstoneRepository.findAllById(tombstoneIds);
+
+        int purgedProducts = 0;
+        for (ProductGroupTombstone tombstone : tombstones) {
+            int deleted;
+            do {
+                deleted = purgeBatch(tombstone);
+                purgedProducts += deleted;
+            } while (deleted == batchSize);
+            finishGroup(tombstone);
+        }
+
+        logger.info("⏱️ [PERFORMANCE] purgeGroupsNow: {} grup, {} produktów w {}ms",
+                   tombstones.size(), purgedProducts, System.currentTimeMillis() - startTime);
+        return purgedProducts;
+    }
+
+    /**
+     * Jedna paczka: najstarsze produkty grupy objęte znacznikiem i ich zmiany draft
+     *
+     * @return Liczba usuniętych produktów
+     */
+    private int purgeBatch(ProductGroupTombstone tombstone) {
+        List<?> ids = entityManager.createNativeQuery(
+                "SELECT id FROM products WHERE category = :category AND manufacturer = :manufacturer " +
+                "AND group_name = :groupName AND id <= :maxProductId ORDER BY id LIMIT :limit")
+            .setParameter("category", tombstone.getCategory().name())
+            .setParameter("manufacturer", tombstone.getManufacturer())
+            .setParameter("groupName", tombstone.getGroupName())
+            .setParameter("maxProductId", tombstone.getMaxProductId())
+            .setParameter("limit", batchSize)
+            .getResultList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Long> productIds = ids.stream().map(id -> ((Number) id).longValue()).collect(Collectors.toList());
+
+        // Kolejność: draft (odwołuje się do products) → products
+        entityManager.createNativeQuery("DELETE FROM project_draft_changes_ws WHERE product_id IN (:ids)")
+            .setParameter("ids", productIds)
+            .executeUpdate();
+        return entityManager.createNativeQuery("DELETE FROM products WHERE id IN (:ids)")
+            .setParameter("ids", productIds)
+            .executeUpdate();
+    }
+
+    /**
+     * Grupa bez produktów objętych znacznikiem: opcje grup w projektach i znacznik
+     * ⚠️ WAŻNE: Opcje grup zostają, jeśli grupa została w międzyczasie zaimportowana ponownie (nowe produkty)
+     */
+    private void finishGroup(ProductGroupTombstone tombstone) {
+        Number remaining = (Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM products WHERE category = :category AND manufacturer = :manufacturer " +
+                "AND group_name = :groupName")
+            .setParameter("category", tombstone.getCategory().name())
+            .setParameter("manufacturer", tombstone.getManufacturer())
+            .setParameter("groupName", tombstone.getGroupName())
+            .getSingleResult();
+        if (remaining.longValue() == 0) {
+            entityManager.createNativeQuery(
+                    "DELETE FROM project_product_groups WHERE category = :category AND manufacturer = :manufacturer " +
+                    "AND group_name = :groupName")
+                .setParameter("category", tombstone.getCategory().name())
+                .setParameter("manufacturer", tombstone.getManufacturer())
+                .setParameter("groupName", tombstone.getGroupName())
+                .executeUpdate();
+        }
+
+        // Grupa usunięta ponownie w trakcie czyszczenia ma wyższy max_product_id - znacznik zostaje na kolejne uruchomienie
+        entityManager.createNativeQuery(
+                "DELETE FROM product_group_tombstones WHERE id = :id AND max_product_id = :maxProductId")
+            .setParameter("id", tombstone.getId())
+            .setParameter("maxProductId", tombstone.getMaxProductId())
+            .executeUpdate();
+    }
+
+    private boolean pause() {
+        if (pauseMs == 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("⚠️ Czyszczenie usuniętych grup przerwane");
+            return false;
+        }
+    }
+}
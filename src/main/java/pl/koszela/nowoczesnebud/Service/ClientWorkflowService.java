@@ -1,7 +1,10 @@
 package pl.koszela.nowoczesnebud.Service;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pl.koszela.nowoczesnebud.Config.ReferenceDataCacheConfig;
 import pl.koszela.nowoczesnebud.DTO.*;
 import pl.koszela.nowoczesnebud.Model.*;
 import pl.koszela.nowoczesnebud.Repository.*;
@@ -31,6 +34,7 @@ public class ClientWorkflowService {
         this.appUserRepository = appUserRepository;
     }
 
+    @Cacheable(cacheNames = ReferenceDataCacheConfig.BUSINESS_STATUSES, key = "#includeInactive")
     public List<BusinessStatusResponse> getStatusCatalog(boolean includeInactive) {
         List<BusinessStatus> statuses = includeInactive
                 ? businessStatusRepository.findAllByOrderBySortOrderAscIdAsc()
@@ -39,6 +43,7 @@ public class ClientWorkflowService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.BUSINESS_STATUSES, allEntries = true)
     public BusinessStatusResponse createStatus(BusinessStatusRequest request) {
         BusinessStatus status = new BusinessStatus();
         status.setName(request.getName().trim());
@@ -53,6 +58,7 @@ public class ClientWorkflowService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.BUSINESS_STATUSES, allEntries = true)
     public BusinessStatusResponse updateStatus(Long statusId, BusinessStatusRequest request) {
         BusinessStatus status = businessStatusRepository.findById(statusId)
                 .orElseThrow(() -> new IllegalArgumentException("Status nie istnieje"));
@@ -68,6 +74,7 @@ public class ClientWorkflowService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.BUSINESS_STATUSES, allEntries = true)
     public void deleteStatus(Long statusId) {
         BusinessStatus status = businessStatusRepository.findById(statusId)
                 .orElseThrow(() -> new IllegalArgumentException("Status nie istnieje"));
@@ -81,6 +88,7 @@ public class ClientWorkflowService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.BUSINESS_STATUSES, allEntries = true)
     public void reorderStatuses(ReorderBusinessStatusRequest request) {
         List<Long> orderedIds = request.getOrderedStatusIds();
         if (orderedIds == null || orderedIds.isEmpty()) {
@@ -147,6 +155,7 @@ public class ClientWorkflowService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<ClientPipelineItemResponse> getPipeline() {
         List<Project> projects = projectRepository.findAllWithClient();
         List<ClientPipelineItemResponse> response = new ArrayList<>();
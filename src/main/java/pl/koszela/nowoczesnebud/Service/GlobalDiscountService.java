@@ -2,8 +2,11 @@ package pl.koszela.nowoczesnebud.Service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pl.koszela.nowoczesnebud.Config.ReferenceDataCacheConfig;
 import pl.koszela.nowoczesnebud.Model.GlobalDiscount;
 import pl.koszela.nowoczesnebud.Model.GlobalDiscount.DiscountType;
 import pl.koszela.nowoczesnebud.Model.ProductCategory;
@@ -15,6 +18,8 @@ import java.util.Optional;
 
 /**
  * Serwis zarządzający rabatami globalnymi
+ * ⚡ OPTYMALIZACJA: Odczyty w cache (ReferenceDataCacheConfig.GLOBAL_DISCOUNTS) - rabaty są czytane przy każdym
+ * pobraniu produktów; klucz aktualnych rabatów zawiera dzisiejszą datę (zmiana ważności o północy bez unieważniania)
  */
 @Service
 public class GlobalDiscountService {
@@ -30,6 +35,7 @@ public class GlobalDiscountService {
     /**
      * Pobierz wszystkie rabaty dla kategorii
      */
+    @Cacheable(cacheNames = ReferenceDataCacheConfig.GLOBAL_DISCOUNTS, key = "'all:' + #category")
     public List<GlobalDiscount> getDiscountsByCategory(ProductCategory category) {
         return discountRepository.findByCategory(category);
     }
@@ -37,6 +43,7 @@ public class GlobalDiscountService {
     /**
      * Pobierz aktualnie ważne rabaty dla kategorii
      */
+    @Cacheable(cacheNames = ReferenceDataCacheConfig.GLOBAL_DISCOUNTS, key = "'current:' + #category + ':' + T(java.time.LocalDate).now()")
     public List<GlobalDiscount> getCurrentDiscounts(ProductCategory category) {
         return discountRepository.findCurrentlyValidDiscounts(category, LocalDate.now());
     }
@@ -44,6 +51,7 @@ public class GlobalDiscountService {
     /**
      * Pobierz aktualny rabat główny dla kategorii
      */
+    @Cacheable(cacheNames = ReferenceDataCacheConfig.GLOBAL_DISCOUNTS, key = "'main:' + #category + ':' + T(java.time.LocalDate).now()")
     public Optional<GlobalDiscount> getCurrentMainDiscount(ProductCategory category) {
         return discountRepository.findCurrentMainDiscount(category, LocalDate.now());
     }
@@ -51,6 +59,7 @@ public class GlobalDiscountService {
     /**
      * Pobierz aktualny rabat opcjonalny dla kategorii
      */
+    @Cacheable(cacheNames = ReferenceDataCacheConfig.GLOBAL_DISCOUNTS, key = "'optional:' + #category + ':' + T(java.time.LocalDate).now()")
     public Optional<GlobalDiscount> getCurrentOptionalDiscount(ProductCategory category) {
         return discountRepository.findCurrentOptionalDiscount(category, LocalDate.now());
     }
@@ -66,6 +75,7 @@ public class GlobalDiscountService {
      * Utwórz nowy rabat
      */
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.GLOBAL_DISCOUNTS, allEntries = true)
     public GlobalDiscount createDiscount(GlobalDiscount discount) {
         logger.info("Tworzenie rabatu: {} dla {}", discount.getType(), discount.getCategory());
         
@@ -92,6 +102,7 @@ public class GlobalDiscountService {
      * Zaktualizuj rabat
      */
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.GLOBAL_DISCOUNTS, allEntries = true)
     public GlobalDiscount updateDiscount(GlobalDiscount discount) {
         logger.info("Aktualizacja rabatu ID: {}", discount.getId());
         
@@ -106,6 +117,7 @@ public class GlobalDiscountService {
      * Dezaktywuj rabat (soft delete)
      */
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.GLOBAL_DISCOUNTS, allEntries = true)
     public void deactivateDiscount(Long id) {
         logger.info("Dezaktywacja rabatu ID: {}", id);
         
@@ -122,6 +134,7 @@ public class GlobalDiscountService {
      * Aktywuj rabat
      */
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.GLOBAL_DISCOUNTS, allEntries = true)
     public GlobalDiscount activateDiscount(Long id) {
         logger.info("Aktywacja rabatu ID: {}", id);
         
@@ -153,6 +166,7 @@ public class GlobalDiscountService {
      * Usuń rabat (hard delete) - tylko dla admina
      */
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.GLOBAL_DISCOUNTS, allEntries = true)
     public void deleteDiscount(Long id) {
         logger.warn("Usuwanie rabatu ID: {} (hard delete)", id);
         discountRepository.deleteById(id);
@@ -0,0 +1,238 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import pl.koszela.nowoczesnebud.Model.Project;
+import pl.koszela.nowoczesnebud.Repository.ClientStatusHistoryRepository;
+import pl.koszela.nowoczesnebud.Repository.ProjectRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Wsadowe generowanie PDF ofert wielu projektów do jednego ZIP (np. na koniec miesiąca)
+ *
+ * ⚡ OPTYMALIZACJA:
+ * - PDF renderowane równolegle w puli OfferPdfRenderService (ten sam limit CPU i cache co pojedyncze PDF)
+ * - Wsad trzyma w puli najwyżej kilka zadań naraz (okno), żeby nie zająć całej kolejki innym użytkownikom
+ * - Pliki trafiają do ZIP w kolejności ukończenia - klient dostaje dane od pierwszego gotowego PDF
+ *
+ * ⚠️ Błąd jednego projektu nie przerywa wsadu - trafia do pliku raport.txt na końcu ZIP
+ */
+@Service
+public class OfferPdfBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfferPdfBatchService.class);
+
+    /**
+     * Maksymalna liczba projektów w jednym wsadzie
+     */
+    public static final int MAX_BATCH_PROJECTS = 200;
+
+    /**
+     * Jak długo wsad czeka na miejsce w pełnej kolejce renderowania (gdy nie ma własnych zadań w toku)
+     */
+    private static final long QUEUE_FULL_WAIT_MS = 30_000;
+    private static final long QUEUE_FULL_RETRY_MS = 250;
+
+    private static final String REPORT_ENTRY = "raport.txt";
+
+    private final OfferPdfRenderService offerPdfRenderService;
+    private final ProjectRepository projectRepository;
+    private final ClientStatusHistoryRepository clientStatusHistoryRepository;
+
+    public OfferPdfBatchService(OfferPdfRenderService offerPdfRenderService,
+                                ProjectRepository projectRepository,
+                                ClientStatusHistoryRepository clientStatusHistoryRepository) {
+        this.offerPdfRenderService = offerPdfRenderService;
+        this.projectRepository = projectRepository;
+        this.clientStatusHistoryRepository = clientStatusHistoryRepository;
+    }
+
+    /**
+     * Ustal ID projektów wsadu: podana lista ID lub projekty z aktualnym statusem pipeline
+     * Wywoływane PRZED rozpoczęciem streamingu - po wysłaniu nagłówków nie można już zwrócić 400
+     *
+     * @throws IllegalArgumentException gdy brak projektów lub wsad jest za duży
+     */
+    public List<Long> resolveProjectIds(List<Long> projectIds, Long statusId) {
+        LinkedHashSet<Long> ids = new LinkedHashSet<>();
+        if (projectIds != null) {
+            projectIds.stream().filter(id -> id != null).forEach(ids::add);
+        }
+        if (statusId != null) {
+            ids.addAll(clientStatusHistoryRepository.findProjectIdsWithCurrentStatus(statusId));
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("Brak projektów do wygenerowania ofert");
+        }
+        if (ids.size() > MAX_BATCH_PROJECTS) {
+            throw new IllegalArgumentException("Za dużo projektów we wsadzie: " + ids.size() + " (max " + MAX_BATCH_PROJECTS + ")");
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Wygeneruj PDF ofert i zapisz je do ZIP w kolejności ukończenia renderowania
+     *
+     * @param projectIds ID projektów (z {@link #resolveProjectIds(List, Long)})
+     * @param templateId ID szablonu (null = domyślny)
+     * @param outputStream Strumień docelowy (np. odpowiedź HTTP) - nie jest zamykany
+     */
+    public void writeOfferZip(Collection<Long> projectIds, Long templateId, OutputStream outputStream) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        Map<Long, Project> projectsById = new LinkedHashMap<>();
+        for (Project project : projectRepository.findAllByIdWithClient(projectIds)) {
+            projectsById.put(project.getId(), project);
+        }
+
+        // Wyniki per projekt (kolejność jak w żądaniu) - do raportu
+        Map<Long, String> report = new LinkedHashMap<>();
+        for (Long projectId : projectIds) {
+            report.put(projectId, projectsById.containsKey(projectId) ? null : "BŁĄD: projekt nie istnieje");
+        }
+
+        int window = Math.max(1, Math.min(offerPdfRenderService.getRenderThreads() * 2, offerPdfRenderService.getQueueCapacity()));
+        BlockingQueue<BatchItem> finished = new LinkedBlockingQueue<>();
+        Iterator<Project> pending = projectsById.values().iterator();
+        Project retryProject = null;
+        long retrySince = 0;
+        int outstanding = 0;
+        int written = 0;
+        int fromCache = 0;
+        long totalBytes = 0;
+
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        // PDF są już skompresowane - szybka kompresja wystarcza
+        zipOutputStream.setLevel(Deflater.BEST_SPEED);
+
+        try {
+            while (retryProject != null || pending.hasNext() || outstanding > 0) {
+                // Zlecaj kolejne projekty, dopóki okno nie jest pełne
+                while (outstanding < window && (retryProject != null || pending.hasNext())) {
+                    Project project = retryProject != null ? retryProject : pending.next();
+                    try {
+                        String fileName = zipEntryName(project);
+                        OfferPdfRenderService.RenderJob job = offerPdfRenderService.start(project, templateId, fileName);
+                        BatchItem item = new BatchItem(project.getId(), fileName, job);
+                        job.getResult().whenComplete((pdfBytes, error) -> {
+                            item.pdfBytes = pdfBytes;
+                            item.error = error;
+                            finished.add(item);
+                        });
+                        outstanding++;
+                        retryProject = null;
+                    } catch (RejectedExecutionException e) {
+                        // Kolejka pełna (także przez innych użytkowników) - poczekaj na własny wynik lub chwilę
+                        if (retryProject == null) {
+                            retrySince = System.currentTimeMillis();
+                        }
+                        retryProject = project;
+                        break;
+                    } catch (Exception e) {
+                        logger.warn("⚠️ Wsad PDF - projekt {}: {}", project.getId(), e.getMessage());
+                        report.put(project.getId(), "BŁĄD: " + e.getMessage());
+                        retryProject = null;
+                    }
+                }
+
+                if (outstanding == 0) {
+                    if (retryProject == null) {
+                        continue;
+                    }
+                    if (System.currentTimeMillis() - retrySince > QUEUE_FULL_WAIT_MS) {
+                        report.put(retryProject.getId(), "BŁĄD: kolejka renderowania PDF pełna");
+                        retryProject = null;
+                    } else {
+                        Thread.sleep(QUEUE_FULL_RETRY_MS);
+                    }
+                    continue;
+                }
+
+                BatchItem item = finished.take();
+                outstanding--;
+
+                OfferPdfRenderService.RenderJob job = item.job;
+                byte[] pdfBytes = item.pdfBytes;
+                if (pdfBytes == null) {
+                    report.put(item.projectId, "BŁĄD: " + (item.error != null ? item.error.getMessage() : job.getError()));
+                    continue;
+                }
+
+                // Nazwa z wsadu - wspólne zadanie (identyczny XHTML) może mieć nazwę innego projektu
+                zipOutputStream.putNextEntry(new ZipEntry(item.fileName));
+                zipOutputStream.write(pdfBytes);
+                zipOutputStream.closeEntry();
+                // Wypchnij gotowy plik do klienta od razu
+                zipOutputStream.flush();
+
+                written++;
+                totalBytes += pdfBytes.length;
+                if (job.isCached()) {
+                    fromCache++;
+                }
+                report.put(item.projectId, "OK: " + item.fileName + (job.isCached() ? " (cache)" : ""));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Przerwano generowanie wsadu PDF", e);
+        }
+
+        zipOutputStream.putNextEntry(new ZipEntry(REPORT_ENTRY));
+        zipOutputStream.write(buildReport(report).getBytes(StandardCharsets.UTF_8));
+        zipOutputStream.closeEntry();
+        zipOutputStream.finish();
+
+        logger.info("⏱️ [PERFORMANCE] Wsad PDF: {} z {} projektów ({} z cache, {} błędów), {} KB w {}ms",
+                   written, projectIds.size(), fromCache, projectIds.size() - written,
+                   totalBytes / 1024, System.currentTimeMillis() - startTime);
+    }
+
+    private String buildReport(Map<Long, String> report) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<Long, String> entry : report.entrySet()) {
+            String result = entry.getValue() != null ? entry.getValue() : "BŁĄD: nie wygenerowano";
+            text.append("Projekt ").append(entry.getKey()).append(" - ").append(result).append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Nazwa pliku w ZIP - jak przy pojedynczym PDF, z ID projektu (unikalna w obrębie wsadu)
+     */
+    private String zipEntryName(Project project) {
+        String fileName = OfferPdfRenderService.offerFileName(project).replaceAll("[\\\\/:*?\"<>|]", "_");
+        return fileName.substring(0, fileName.length() - ".pdf".length()) + "_" + project.getId() + ".pdf";
+    }
+
+    private static final class BatchItem {
+        private final Long projectId;
+        private final String fileName;
+        private final OfferPdfRenderService.RenderJob job;
+        // Ustawiane przy zakończeniu renderowania, przed dodaniem do kolejki finished
+        private volatile byte[] pdfBytes;
+        private volatile Throwable error;
+
+        private BatchItem(Long projectId, String fileName, OfferPdfRenderService.RenderJob job) {
+            this.projectId = projectId;
+            this.fileName = fileName;
+            this.job = job;
+        }
+    }
+}
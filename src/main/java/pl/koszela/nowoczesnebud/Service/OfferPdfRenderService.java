@@ -0,0 +1,600 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pl.koszela.nowoczesnebud.DTO.PdfRenderJobResponse;
+import pl.koszela.nowoczesnebud.Model.Project;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Renderowanie PDF ofert w osobnej, ograniczonej puli wątków + cache gotowych PDF
+ *
+ * Podział pracy:
+ * - wątek żądania: XHTML oferty (szablon + pozycje z bazy) - szybkie, wymaga bazy
+ * - pula "pdf-render-N": Flying Saucer XHTML → PDF - kosztowne (CPU), bez bazy
+ *
+ * ⚡ OPTYMALIZACJA:
+ * - Liczba równoczesnych renderów jest ograniczona (app.pdf.render.threads), kolejka ma stałą pojemność
+ *   (app.pdf.render.queue-capacity) - przy pełnej kolejce zgłoszenie jest odrzucane (RejectedExecutionException → 503),
+ *   zamiast zajmować CPU potrzebne innym endpointom
+ * - Klucz cache = SHA-256 gotowego XHTML, czyli wszystkich danych widocznych w PDF (wersja szablonu, pozycje,
+ *   dane klienta, data). Niezmieniona oferta = PDF z cache, bez renderowania
+ * - Ten sam XHTML zlecony kilka razy naraz jest renderowany raz (wspólne zadanie)
+ * - Tryb synchroniczny (POST /generate-pdf) przy braku PDF w cache renderuje prosto do strumienia odpowiedzi
+ *   ({@link #startStreaming}) - bez kopii PDF w pamięci. Limit jak dla puli: tyle samo renderów naraz
+ *   i tyle samo oczekujących, ponad to 503. Takie PDF nie trafiają do cache
+ *
+ * ⚠️ WAŻNE: Zadania nie trzymają gotowego PDF - oczekujący (wsad) dostają bajty
+ * w chwili zakończenia renderowania, a pobranie zadania z API (download) czyta PDF z ograniczonego cache.
+ * Rejestrowane (do statusu / pobrania po jobId) są tylko zadania z API asynchronicznego,
+ * wygasłe usuwa cyklicznie PdfRenderJobScheduler.
+ */
+@Service
+public class OfferPdfRenderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfferPdfRenderService.class);
+
+    /**
+     * Jak długo zakończone zadanie jest dostępne do pobrania (status/download)
+     */
+    private static final long FINISHED_JOB_TTL_MS = TimeUnit.MINUTES.toMillis(15);
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private final OfferPdfService offerPdfService;
+    private final ThreadPoolExecutor renderExecutor;
+    private final int renderThreads;
+    private final int queueCapacity;
+    private final long cacheMaxBytes;
+    // Renderowanie strumieniowe: miejsca (render + oczekiwanie) przydzielane w wątku żądania, rendery naraz
+    private final Semaphore streamSlots;
+    private final Semaphore streamRenders;
+
+    // jobId -> zadanie z API asynchronicznego (także zakończone, do czasu FINISHED_JOB_TTL_MS) - bez bajtów PDF
+    private final Map<String, RenderJob> jobs = new ConcurrentHashMap<>();
+    // fingerprint XHTML -> zadanie w toku (deduplikacja równoczesnych renderów)
+    private final Map<String, RenderJob> inFlight = new ConcurrentHashMap<>();
+    // fingerprint XHTML -> PDF (LRU, ograniczony rozmiarem w bajtach)
+    private final LinkedHashMap<String, byte[]> resultCache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cacheBytes;
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong rendered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalQueueWaitMs = new AtomicLong();
+    private final AtomicLong totalRenderMs = new AtomicLong();
+    private final AtomicLong maxRenderMs = new AtomicLong();
+
+    public OfferPdfRenderService(OfferPdfService offerPdfService,
+                                 @Value("${app.pdf.render.threads:0}") int renderThreads,
+                                 @Value("${app.pdf.render.queue-capacity:16}") int queueCapacity,
+                                 @Value("${app.pdf.render.cache-max-mb:64}") long cacheMaxMb) {
+        this.offerPdfService = offerPdfService;
+        // Domyślnie połowa rdzeni - reszta CPU zostaje dla pozostałych endpointów
+        this.renderThreads = renderThreads > 0
+            ? renderThreads
+            : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.cacheMaxBytes = Math.max(0, cacheMaxMb) * 1024 * 1024;
+        this.streamSlots = new Semaphore(this.renderThreads + this.queueCapacity);
+        this.streamRenders = new Semaphore(this.renderThreads);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.renderExecutor = new ThreadPoolExecutor(
+            this.renderThreads, this.renderThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(this.queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "pdf-render-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        logger.info("⏱️ [PERFORMANCE] Pula renderowania PDF: {} wątków, kolejka {}, cache {} MB",
+                   this.renderThreads, this.queueCapacity, cacheMaxMb);
+    }
+
+    /**
+     * Zamknięcie puli - zadania czekające w kolejce kończą się błędem (oczekujący nie czekają do timeoutu)
+     */
+    @PreDestroy
+    public void shutdown() {
+        List<Runnable> queued = renderExecutor.shutdownNow();
+        for (Runnable task : queued) {
+            if (task instanceof RenderTask) {
+                RenderJob job = ((RenderTask) task).job;
+                job.fail(new IOException("Renderowanie PDF przerwane - zamykanie aplikacji"));
+                inFlight.remove(job.getFingerprint(), job);
+            }
+        }
+        if (!queued.isEmpty()) {
+            logger.warn("⚠️ Zamykanie puli renderowania PDF - przerwano {} zadań z kolejki", queued.size());
+        }
+    }
+
+    /**
+     * Zleć wygenerowanie PDF oferty (API asynchroniczne - zadanie dostępne po jobId do statusu i pobrania)
+     * XHTML budowany jest w wątku wywołującym (dostęp do bazy), konwersja do PDF w puli renderowania
+     *
+     * @param project Projekt
+     * @param templateId ID szablonu (null = domyślny)
+     * @param fileName Nazwa pliku do pobrania
+     * @return Zadanie - zakończone od razu, jeśli PDF jest w cache
+     * @throws RejectedExecutionException gdy kolejka renderowania jest pełna
+     */
+    public RenderJob submit(Project project, Long templateId, String fileName) {
+        RenderJob job = start(project, templateId, fileName, true);
+        jobs.putIfAbsent(job.getJobId(), job);
+        return job;
+    }
+
+    /**
+     * Zleć wygenerowanie PDF bez rejestrowania zadania (wsad) - wynik przez {@link RenderJob#getResult()}
+     *
+     * @throws RejectedExecutionException gdy kolejka renderowania jest pełna
+     */
+    public RenderJob start(Project project, Long templateId, String fileName) {
+        return start(project, templateId, fileName, false);
+    }
+
+    private RenderJob start(Project project, Long templateId, String fileName, boolean tracked) {
+        String xhtmlContent = offerPdfService.renderOfferXhtml(project, templateId);
+        String fingerprint = fingerprint(xhtmlContent);
+
+        byte[] cachedPdf = getCached(fingerprint);
+        if (cachedPdf != null) {
+            cacheHits.incrementAndGet();
+            RenderJob job = new RenderJob(project.getId(), fingerprint, fileName, null, this::getCached);
+            // Zadanie z API trzyma tylko klucz cache; niezarejestrowane (krótko żyjące) - bajty dla wywołującego
+            job.completeFromCache(cachedPdf, !tracked);
+            logger.info("⚡ PDF projektu {} z cache ({} bajtów)", project.getId(), cachedPdf.length);
+            return job;
+        }
+
+        RenderJob newJob = new RenderJob(project.getId(), fingerprint, fileName, xhtmlContent, this::getCached);
+        RenderJob existing = inFlight.putIfAbsent(fingerprint, newJob);
+        if (existing != null) {
+            logger.info("PDF projektu {} jest już renderowany - zadanie {}", project.getId(), existing.getJobId());
+            return existing;
+        }
+
+        try {
+            renderExecutor.execute(new RenderTask(newJob));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(fingerprint, newJob);
+            rejected.incrementAndGet();
+            logger.warn("⚠️ Kolejka renderowania PDF pełna ({} zadań) - odrzucono projekt {}",
+                       renderExecutor.getQueue().size(), project.getId());
+            throw e;
+        }
+        cacheMisses.incrementAndGet();
+        return newJob;
+    }
+
+    /**
+     * Przygotuj PDF do wysłania strumieniowo (tryb synchroniczny) - XHTML budowany w wątku wywołującym
+     * PDF z cache jest zwracany od razu ({@link StreamedPdf#getCachedPdf()}), w przeciwnym razie
+     * {@link StreamedPdf#writeTo(OutputStream)} renderuje prosto do strumienia odpowiedzi
+     *
+     * @throws RejectedExecutionException gdy wszystkie miejsca renderowania strumieniowego są zajęte
+     */
+    public StreamedPdf startStreaming(Project project, Long templateId) {
+        String xhtmlContent = offerPdfService.renderOfferXhtml(project, templateId);
+
+        byte[] cachedPdf = getCached(fingerprint(xhtmlContent));
+        if (cachedPdf != null) {
+            cacheHits.incrementAndGet();
+            logger.info("⚡ PDF projektu {} z cache ({} bajtów)", project.getId(), cachedPdf.length);
+            return new StreamedPdf(project.getId(), cachedPdf, null);
+        }
+
+        if (!streamSlots.tryAcquire()) {
+            rejected.incrementAndGet();
+            logger.warn("⚠️ Brak miejsc renderowania strumieniowego PDF - odrzucono projekt {}", project.getId());
+            throw new RejectedExecutionException("Zbyt wiele równoczesnych renderowań PDF");
+        }
+        cacheMisses.incrementAndGet();
+        return new StreamedPdf(project.getId(), null, xhtmlContent);
+    }
+
+    /**
+     * Zadanie po ID (puste, jeśli nie istnieje lub wygasło)
+     */
+    public Optional<RenderJob> getJob(String jobId) {
+        RenderJob job = jobs.get(jobId);
+        if (job != null && job.isExpired(System.currentTimeMillis())) {
+            jobs.remove(jobId, job);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(job);
+    }
+
+    /**
+     * PDF zakończonego zadania - z cache (puste, gdy zadanie nie jest gotowe albo PDF wypadł już z cache)
+     */
+    public Optional<byte[]> getPdf(RenderJob job) {
+        if (job.getStatus() != JobStatus.DONE) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(getCached(job.getFingerprint()));
+    }
+
+    /**
+     * Usuń wygasłe zakończone zadania (wywoływane cyklicznie przez PdfRenderJobScheduler)
+     */
+    public int purgeExpiredJobs() {
+        long now = System.currentTimeMillis();
+        int before = jobs.size();
+        jobs.values().removeIf(job -> job.isExpired(now));
+        return before - jobs.size();
+    }
+
+    /**
+     * Nazwa pliku PDF oferty: Oferta_{nazwisko klienta}_{data}.pdf
+     */
+    public static String offerFileName(Project project) {
+        return "Oferta_" + (project.getClient() != null ? project.getClient().getSurname() : "Projekt") + "_" +
+               LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) + ".pdf";
+    }
+
+    public int getRenderThreads() {
+        return renderThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Metryki puli renderowania i cache
+     */
+    public Map<String, Object> getMetrics() {
+        long renderedCount = rendered.get();
+        long startedCount = renderedCount + failed.get();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("renderThreads", renderThreads);
+        metrics.put("activeRenders", renderExecutor.getActiveCount());
+        metrics.put("queuedRenders", renderExecutor.getQueue().size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("activeStreamedRenders", renderThreads - streamRenders.availablePermits());
+        metrics.put("trackedJobs", jobs.size());
+        metrics.put("rendered", renderedCount);
+        metrics.put("failed", failed.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("cacheHits", cacheHits.get());
+        metrics.put("cacheMisses", cacheMisses.get());
+        synchronized (resultCache) {
+            metrics.put("cacheEntries", resultCache.size());
+            metrics.put("cacheBytes", cacheBytes);
+        }
+        metrics.put("cacheMaxBytes", cacheMaxBytes);
+        metrics.put("avgQueueWaitMs", startedCount > 0 ? totalQueueWaitMs.get() / startedCount : 0);
+        metrics.put("avgRenderMs", startedCount > 0 ? totalRenderMs.get() / startedCount : 0);
+        metrics.put("maxRenderMs", maxRenderMs.get());
+        return metrics;
+    }
+
+    private void render(RenderJob job) {
+        long startTime = System.currentTimeMillis();
+        job.markRunning(startTime);
+        totalQueueWaitMs.addAndGet(job.getQueueWaitMs());
+
+        try {
+            byte[] pdfBytes = offerPdfService.convertXhtmlToPdf(job.takeXhtml());
+            long renderMs = System.currentTimeMillis() - startTime;
+            recordRenderTime(renderMs);
+            putCached(job.getFingerprint(), pdfBytes);
+            rendered.incrementAndGet();
+            job.complete(pdfBytes);
+            logger.info("⏱️ [PERFORMANCE] PDF projektu {}: kolejka {}ms, renderowanie {}ms, {} bajtów",
+                       job.getProjectId(), job.getQueueWaitMs(), renderMs, pdfBytes.length);
+        } catch (Exception e) {
+            recordRenderTime(System.currentTimeMillis() - startTime);
+            failed.incrementAndGet();
+            job.fail(e);
+            logger.error("Błąd renderowania PDF projektu {}: {}", job.getProjectId(), e.getMessage(), e);
+        } finally {
+            inFlight.remove(job.getFingerprint(), job);
+        }
+    }
+
+    private void recordRenderTime(long renderMs) {
+        totalRenderMs.addAndGet(renderMs);
+        maxRenderMs.accumulateAndGet(renderMs, Math::max);
+    }
+
+    private byte[] getCached(String fingerprint) {
+        synchronized (resultCache) {
+            return resultCache.get(fingerprint);
+        }
+    }
+
+    private void putCached(String fingerprint, byte[] pdfBytes) {
+        if (pdfBytes.length > cacheMaxBytes) {
+            return;
+        }
+        synchronized (resultCache) {
+            byte[] previous = resultCache.put(fingerprint, pdfBytes);
+            cacheBytes += pdfBytes.length - (previous != null ? previous.length : 0);
+
+            // Usuń najdawniej używane PDF, aż cache zmieści się w limicie
+            Iterator<byte[]> eldest = resultCache.values().iterator();
+            while (cacheBytes > cacheMaxBytes && eldest.hasNext()) {
+                cacheBytes -= eldest.next().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private static String fingerprint(String xhtmlContent) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(xhtmlContent.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Brak algorytmu SHA-256", e);
+        }
+    }
+
+    private void renderStreamed(StreamedPdf pdf, String xhtmlContent, OutputStream outputStream) throws IOException {
+        try {
+            streamRenders.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Przerwano oczekiwanie na renderowanie PDF", e);
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            offerPdfService.convertXhtmlToPdf(xhtmlContent, outputStream);
+            long renderMs = System.currentTimeMillis() - startTime;
+            recordRenderTime(renderMs);
+            rendered.incrementAndGet();
+            logger.info("⏱️ [PERFORMANCE] PDF projektu {} renderowany do odpowiedzi w {}ms", pdf.projectId, renderMs);
+        } catch (IOException | RuntimeException e) {
+            recordRenderTime(System.currentTimeMillis() - startTime);
+            failed.incrementAndGet();
+            throw e;
+        } finally {
+            streamRenders.release();
+        }
+    }
+
+    /**
+     * Zadanie w kolejce puli - przy zamykaniu puli pozwala zakończyć błędem zadania, które nie wystartowały
+     */
+    private final class RenderTask implements Runnable {
+        private final RenderJob job;
+
+        private RenderTask(RenderJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            render(job);
+        }
+    }
+
+    /**
+     * PDF trybu synchronicznego - gotowy z cache albo do wyrenderowania prosto do strumienia odpowiedzi
+     * ⚠️ WAŻNE: Przy braku cache zajmuje miejsce renderowania - zwalniane po zakończeniu writeTo()
+     */
+    public final class StreamedPdf {
+        private final Long projectId;
+        private final byte[] cachedPdf;
+        private String xhtmlContent;
+
+        private StreamedPdf(Long projectId, byte[] cachedPdf, String xhtmlContent) {
+            this.projectId = projectId;
+            this.cachedPdf = cachedPdf;
+            this.xhtmlContent = xhtmlContent;
+        }
+
+        /**
+         * PDF z cache (null = trzeba renderować przez writeTo)
+         */
+        public byte[] getCachedPdf() {
+            return cachedPdf;
+        }
+
+        /**
+         * Renderuj PDF do strumienia (nie jest zamykany) - najwyżej tyle renderów naraz, ile wątków puli
+         */
+        public void writeTo(OutputStream outputStream) throws IOException {
+            String xhtml = xhtmlContent;
+            xhtmlContent = null;
+            if (xhtml == null) {
+                throw new IllegalStateException("PDF projektu " + projectId + " już wyrenderowany albo z cache");
+            }
+            try {
+                renderStreamed(this, xhtml, outputStream);
+            } finally {
+                streamSlots.release();
+            }
+        }
+    }
+
+    /**
+     * Zadanie renderowania PDF jednej oferty
+     * Gotowy PDF trafia tylko do oczekujących (getResult) - zadanie trzyma klucz cache, nie bajty
+     */
+    public static final class RenderJob {
+        private final String jobId = UUID.randomUUID().toString();
+        private final Long projectId;
+        private final String fingerprint;
+        private final String fileName;
+        private final long submittedAt = System.currentTimeMillis();
+        private final Function<String, byte[]> cacheLookup;
+        private final List<CompletableFuture<byte[]>> waiters = new ArrayList<>();
+        private volatile String xhtmlContent;
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile boolean cached;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile Integer sizeBytes;
+        private volatile String error;
+        private Exception failure;
+        // Tylko dla niezarejestrowanych zadań z cache (żyją tyle, co wywołujący)
+        private byte[] retainedPdf;
+
+        private RenderJob(Long projectId, String fingerprint, String fileName, String xhtmlContent,
+                          Function<String, byte[]> cacheLookup) {
+            this.projectId = projectId;
+            this.fingerprint = fingerprint;
+            this.fileName = fileName;
+            this.xhtmlContent = xhtmlContent;
+            this.cacheLookup = cacheLookup;
+        }
+
+        private void markRunning(long now) {
+            startedAt = now;
+            status = JobStatus.RUNNING;
+        }
+
+        // XHTML potrzebny tylko do renderowania - nie trzymaj go w zakończonym zadaniu
+        private String takeXhtml() {
+            String xhtml = xhtmlContent;
+            xhtmlContent = null;
+            return xhtml;
+        }
+
+        private synchronized void completeFromCache(byte[] pdfBytes, boolean retain) {
+            cached = true;
+            startedAt = submittedAt;
+            retainedPdf = retain ? pdfBytes : null;
+            complete(pdfBytes);
+        }
+
+        private synchronized void complete(byte[] pdfBytes) {
+            finishedAt = System.currentTimeMillis();
+            sizeBytes = pdfBytes.length;
+            status = JobStatus.DONE;
+            waiters.forEach(waiter -> waiter.complete(pdfBytes));
+            waiters.clear();
+        }
+
+        private synchronized void fail(Exception e) {
+            if (status == JobStatus.DONE || status == JobStatus.FAILED) {
+                return;
+            }
+            finishedAt = System.currentTimeMillis();
+            error = e.getMessage();
+            failure = e;
+            status = JobStatus.FAILED;
+            waiters.forEach(waiter -> waiter.completeExceptionally(e));
+            waiters.clear();
+        }
+
+        /**
+         * PDF dla oczekującego (wsad) - każde wywołanie zwraca nowy future
+         * Po zakończeniu zadania bajty pochodzą z cache (zadanie ich nie trzyma)
+         */
+        public synchronized CompletableFuture<byte[]> getResult() {
+            if (status == JobStatus.FAILED) {
+                return CompletableFuture.failedFuture(failure);
+            }
+            if (status == JobStatus.DONE) {
+                byte[] pdfBytes = retainedPdf != null ? retainedPdf : cacheLookup.apply(fingerprint);
+                return pdfBytes != null
+                    ? CompletableFuture.completedFuture(pdfBytes)
+                    : CompletableFuture.failedFuture(new IOException("PDF nie jest już dostępny w cache - wygeneruj ponownie"));
+            }
+            CompletableFuture<byte[]> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+
+        private boolean isExpired(long now) {
+            return finishedAt > 0 && now - finishedAt > FINISHED_JOB_TTL_MS;
+        }
+
+        public String getJobId() {
+            return jobId;
+        }
+
+        public Long getProjectId() {
+            return projectId;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public JobStatus getStatus() {
+            return status;
+        }
+
+        public boolean isCached() {
+            return cached;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public long getQueueWaitMs() {
+            return startedAt > 0 ? startedAt - submittedAt : System.currentTimeMillis() - submittedAt;
+        }
+
+        public long getRenderMs() {
+            return startedAt > 0 && finishedAt > 0 ? finishedAt - startedAt : 0;
+        }
+
+        public PdfRenderJobResponse toResponse() {
+            PdfRenderJobResponse response = new PdfRenderJobResponse();
+            response.setJobId(jobId);
+            response.setProjectId(projectId);
+            response.setStatus(status.name());
+            response.setCached(cached);
+            response.setQueueWaitMs(getQueueWaitMs());
+            response.setRenderMs(getRenderMs());
+            response.setSizeBytes(sizeBytes);
+            response.setError(error);
+            response.setDownloadUrl("/api/projects/pdf-jobs/" + jobId + "/download");
+            return response;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import pl.koszela.nowoczesnebud.Model.OfferTemplate;
+import pl.koszela.nowoczesnebud.Repository.OfferTemplateRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Kompilator i cache szablonów ofert PDF
+ *
+ * Szablon jest kompilowany RAZ na wersję (templateId, updatedAt) do gotowego szkieletu XHTML:
+ * - CSS wyodrębniony / dołączony do <head>, białe tło i fonty z polskimi znakami
+ * - HTML sparsowany przez jsoup do XHTML (bez atrybutów th:*)
+ * - placeholdery {{...}} i [[${...}]] zamienione na indeksowane sloty (PlaceholderEngine)
+ *
+ * Generowanie PDF to wtedy tylko jedno liniowe wypełnienie slotów (CompiledTemplate.render).
+ * Cache jest unieważniany przez OfferTemplateService (save/delete/setDefault) oraz przez zmianę updatedAt.
+ */
+@Component
+public class OfferTemplateCompiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfferTemplateCompiler.class);
+
+    private static final String DEFAULT_FONT_FAMILY = "font-family: Arial, 'Helvetica Neue', Helvetica, sans-serif;";
+    private static final String BODY_STYLE = "body { background-color: #ffffff !important; margin: 0; padding: 20px; " + DEFAULT_FONT_FAMILY + " }";
+    private static final String FONT_STYLE = "* { " + DEFAULT_FONT_FAMILY + " }";
+    private static final String XHTML_PROLOG = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Strict//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd\">\n";
+
+    private static final Pattern STYLE_TAG_PATTERN = Pattern.compile("<style[^>]*>([\\s\\S]*?)</style>", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Placeholdery {{name}} obsługiwane przez szablony (nazwa = klucz slotu)
+     */
+    private static final Set<String> CURLY_PLACEHOLDERS = new HashSet<>(Arrays.asList(
+        "clientName", "clientAddress", "clientPhone", "clientEmail",
+        "projectName", "projectDate", "currentDate",
+        "companyName", "companyAddress", "companyNIP", "companyPhone", "companyEmail", "companyWebsite", "companyLogo",
+        "productsTable", "tilesTable", "guttersTable", "windowsTable", "accessoriesTable",
+        "tilesMainTable", "guttersMainTable", "accessoriesMainTable", "windowsMainTable",
+        "tilesOptionalTable", "guttersOptionalTable", "accessoriesOptionalTable", "windowsOptionalTable",
+        "totalPrice", "tilesPrice", "guttersPrice", "windowsPrice", "accessoriesPrice"
+    ));
+
+    /**
+     * Wyrażenia Thymeleaf [[${...}]] (bez białych znaków) → klucz slotu
+     * Pozostałe wyrażenia (np. [[${product.name}]] w pętlach th:each) zostają w HTML bez zmian
+     */
+    private static final Map<String, String> EXPRESSION_SLOTS = new HashMap<>();
+
+    /**
+     * Sloty z gotowym HTML (tabele, logo) - wstawiane bez escapowania
+     */
+    private static final Set<String> HTML_SLOTS = new HashSet<>(Arrays.asList(
+        "companyLogo",
+        "productsTable", "tilesTable", "guttersTable", "windowsTable", "accessoriesTable",
+        "tilesMainTable", "guttersMainTable", "accessoriesMainTable", "windowsMainTable",
+        "tilesOptionalTable", "guttersOptionalTable", "accessoriesOptionalTable", "windowsOptionalTable"
+    ));
+
+    /**
+     * Token kanoniczny ({{name}} / [[${expr}]]) -> klucz slotu (dla PlaceholderEngine)
+     */
+    private static final Map<String, String> TOKEN_SLOTS = new HashMap<>();
+
+    static {
+        // ⚠️ Zmiana względem poprzedniego podstawiania (replaceThymeleafExpression): wyrażenia imienia i nazwiska
+        // klienta są wypełniane. Wcześniej kropka była escapowana podwójnie i w PDF zostawał dosłowny tekst
+        // [[${project.client.name}]] - także w szablonie domyślnym (linia "Klient:")
+        EXPRESSION_SLOTS.put("project.client.name", "clientFirstName");
+        EXPRESSION_SLOTS.put("project.client.surname", "clientSurname");
+        EXPRESSION_SLOTS.put("client.name", "clientFirstName");
+        EXPRESSION_SLOTS.put("client.surname", "clientSurname");
+        EXPRESSION_SLOTS.put("client.address", "clientAddress");
+        EXPRESSION_SLOTS.put("client.phone", "clientPhone");
+        EXPRESSION_SLOTS.put("client.telephoneNumber", "clientPhone");
+        EXPRESSION_SLOTS.put("client.email", "clientEmail");
+        EXPRESSION_SLOTS.put("project.projectName", "projectName");
+        EXPRESSION_SLOTS.put("formattedDate", "formattedDate");
+        EXPRESSION_SLOTS.put("projectDate", "projectDate");
+        EXPRESSION_SLOTS.put("currentDate", "currentDate");
+        EXPRESSION_SLOTS.put("mainTotal", "mainTotal");
+        EXPRESSION_SLOTS.put("#numbers.formatDecimal(mainTotal,0,2)", "mainTotal");
+        EXPRESSION_SLOTS.put("#numbers.formatDecimal(mainTotal,1,2)", "mainTotal");
+
+        for (String name : CURLY_PLACEHOLDERS) {
+            TOKEN_SLOTS.put("{{" + name + "}}", name);
+        }
+        EXPRESSION_SLOTS.forEach((expression, slot) -> TOKEN_SLOTS.put(PlaceholderEngine.canonicalExpression(expression), slot));
+    }
+
+    /**
+     * Mapa token -> slot (testy równoważności z poprzednią implementacją podstawiania)
+     */
+    static Map<String, String> tokenSlots() {
+        return Collections.unmodifiableMap(TOKEN_SLOTS);
+    }
+
+    /**
+     * Sloty z gotowym HTML (bez escapowania)
+     */
+    static Set<String> htmlSlots() {
+        return Collections.unmodifiableSet(HTML_SLOTS);
+    }
+
+    private final OfferTemplateRepository templateRepository;
+
+    // ⚡ OPTYMALIZACJA: templateId -> skompilowany szablon (wersja sprawdzana po updatedAt)
+    private final Map<Long, CompiledTemplate> cache = new ConcurrentHashMap<>();
+
+    public OfferTemplateCompiler(OfferTemplateRepository templateRepository) {
+        this.templateRepository = templateRepository;
+    }
+
+    /**
+     * Pobierz skompilowany szablon (z cache lub kompilując nową wersję)
+     * ⚡ Sprawdzenie wersji to jedno lekkie zapytanie [id, updatedAt] - bez ładowania HTML/CSS/obrazów
+     *
+     * @param templateId ID szablonu (null = domyślny)
+     */
+    public CompiledTemplate getCompiledTemplate(Long templateId) {
+        Object[] version = resolveVersion(templateId);
+        Long id = (Long) version[0];
+        LocalDateTime updatedAt = (LocalDateTime) version[1];
+
+        CompiledTemplate cached = cache.get(id);
+        if (cached != null && Objects.equals(cached.getVersion(), updatedAt)) {
+            return cached;
+        }
+
+        OfferTemplate template = templateRepository.findById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Szablon o ID " + id + " nie istnieje"));
+        // Wersja z zapytania (nie z encji) - ta sama precyzja co przy kolejnym sprawdzeniu
+        CompiledTemplate compiled = compile(template, updatedAt);
+        cache.put(id, compiled);
+        return compiled;
+    }
+
+    /**
+     * Usuń szablon z cache (wywoływane po zapisie / usunięciu / zmianie domyślnego szablonu)
+     */
+    public void evict(Long templateId) {
+        if (templateId != null && cache.remove(templateId) != null) {
+            logger.debug("Usunięto skompilowany szablon ID {} z cache", templateId);
+        }
+    }
+
+    /**
+     * Skompiluj szablon do szkieletu XHTML z indeksowanymi slotami
+     */
+    public CompiledTemplate compile(OfferTemplate template) {
+        return compile(template, template.getUpdatedAt());
+    }
+
+    private CompiledTemplate compile(OfferTemplate template, LocalDateTime version) {
+        long startTime = System.currentTimeMillis();
+
+        String xhtml = convertHtmlToXhtml(buildFullHtml(template));
+
+        // ⚡ Placeholdery zamienione na sloty jednym przebiegiem (PlaceholderEngine)
+        PlaceholderEngine.ParsedText body = PlaceholderEngine.parse(xhtml, TOKEN_SLOTS, HTML_SLOTS);
+
+        CompiledTemplate compiled = new CompiledTemplate(template.getId(), version, body);
+        logger.info("⏱️ [PERFORMANCE] Skompilowano szablon ID {} ({} znaków XHTML, {} slotów) w {}ms",
+                   template.getId(), xhtml.length(), body.getSlotCount(), System.currentTimeMillis() - startTime);
+        return compiled;
+    }
+
+    private Object[] resolveVersion(Long templateId) {
+        if (templateId != null) {
+            List<Object[]> rows = templateRepository.findVersionById(templateId);
+            if (rows.isEmpty()) {
+                throw new IllegalArgumentException("Szablon o ID " + templateId + " nie istnieje");
+            }
+            return rows.get(0);
+        }
+        List<Object[]> rows = templateRepository.findDefaultVersions();
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("Brak domyślnego szablonu. Utwórz szablon i ustaw jako domyślny.");
+        }
+        if (rows.size() > 1) {
+            logger.warn("⚠️ Znaleziono {} domyślnych szablonów (powinien być tylko 1)! Używam pierwszego.", rows.size());
+        }
+        return rows.get(0);
+    }
+
+    /**
+     * Buduje pełny dokument HTML szablonu (CSS w <head>, białe tło, fonty z polskimi znakami)
+     */
+    private String buildFullHtml(OfferTemplate template) {
+        String html = template.getHtmlContent();
+        if (html == null || html.isEmpty()) {
+            html = "<html><body><p>Szablon nie ma zawartości HTML</p></body></html>";
+        }
+
+        // Pobierz CSS - z cssContent lub wyodrębnij z HTML
+        String css = template.getCssContent();
+        if (css == null || css.trim().isEmpty()) {
+            // Wyodrębnij CSS z HTML jeśli istnieje (TinyMCE może dodać <style> tag)
+            Matcher styleMatcher = STYLE_TAG_PATTERN.matcher(html);
+            if (styleMatcher.find()) {
+                css = styleMatcher.group(1).trim();
+                // Usuń <style> tag z HTML (będzie dodany później do <head>)
+                html = styleMatcher.replaceAll("");
+            }
+        }
+
+        // ⚠️ WAŻNE: TinyMCE używa inline styles - one są już w HTML i będą działać w PDF
+        // Dodatkowy CSS z cssContent będzie dodany do <head> dla globalnych stylów
+        // NIE konwertuj CSS - użyj dokładnie takiego samego CSS jak w podglądzie TinyMCE
+
+        // Sprawdź, czy HTML ma już pełną strukturę (DOCTYPE, html, head, body)
+        boolean hasFullStructure = html.contains("<!DOCTYPE") || html.contains("<!doctype") ||
+                                   (html.contains("<html") && html.contains("<head") && html.contains("<body"));
+
+        if (!hasFullStructure) {
+            // HTML nie ma pełnej struktury - wrap w pełny dokument XHTML
+            StringBuilder htmlBuilder = new StringBuilder();
+            htmlBuilder.append(XHTML_PROLOG);
+            htmlBuilder.append("<html xmlns=\"http://www.w3.org/1999/xhtml\">\n");
+            htmlBuilder.append("<head>\n");
+            htmlBuilder.append("<meta http-equiv=\"Content-Type\" content=\"text/html; charset=UTF-8\" />\n");
+            if (css != null && !css.trim().isEmpty()) {
+                htmlBuilder.append("<style>").append(css).append("</style>\n");
+            }
+            // ⚠️ WAŻNE: Dodaj domyślne style dla białego tła i fontów obsługujących polskie znaki
+            htmlBuilder.append("<style>\n").append(BODY_STYLE).append("\n").append(FONT_STYLE).append("\n</style>\n");
+            htmlBuilder.append("</head>\n");
+            htmlBuilder.append("<body style=\"background-color: #ffffff;\">\n").append(html).append("\n</body>\n");
+            htmlBuilder.append("</html>");
+            return htmlBuilder.toString();
+        }
+
+        // HTML ma już pełną strukturę - dodaj/zastąp CSS w <head>
+        String fullHtml = html;
+
+        // ⚠️ WAŻNE: Zawsze dodaj białe tło do body (inline style)
+        if (fullHtml.contains("<body>")) {
+            fullHtml = fullHtml.replace("<body>", "<body style=\"background-color: #ffffff;\">");
+        } else if (fullHtml.contains("<body ")) {
+            // Jeśli body ma już style, dodaj background-color
+            if (fullHtml.matches(".*<body[^>]*style\\s*=\\s*[\"'][^\"']*[\"'][^>]*>.*")) {
+                // Body ma już style - dodaj background-color jeśli nie ma
+                if (!fullHtml.matches(".*<body[^>]*style\\s*=\\s*[\"'][^\"']*background[^\"']*[\"'][^>]*>.*")) {
+                    fullHtml = fullHtml.replaceFirst("(<body[^>]*style\\s*=\\s*[\"'])([^\"']*)([\"'][^>]*>)", "$1$2; background-color: #ffffff !important;$3");
+                }
+            } else {
+                // Body nie ma style - dodaj
+                fullHtml = fullHtml.replaceFirst("<body([^>]*)>", "<body$1 style=\"background-color: #ffffff;\">");
+            }
+        }
+
+        if (css != null && !css.trim().isEmpty()) {
+            // Dodaj białe tło i fonty jeśli CSS ich nie ma
+            String styleContent = css;
+            if (!css.contains("background-color") && !css.contains("background:")) {
+                styleContent = BODY_STYLE + "\n" + css;
+            }
+            if (!css.contains("font-family")) {
+                styleContent = FONT_STYLE + "\n" + styleContent;
+            }
+            String styleTag = Matcher.quoteReplacement("<style>" + styleContent + "</style>");
+
+            Matcher styleTagMatcher = STYLE_TAG_PATTERN.matcher(fullHtml);
+            if (styleTagMatcher.find()) {
+                // Zastąp istniejący <style>
+                fullHtml = styleTagMatcher.replaceFirst(styleTag);
+            } else if (fullHtml.contains("</head>")) {
+                fullHtml = fullHtml.replace("</head>", "<style>" + styleContent + "</style></head>");
+            } else if (fullHtml.contains("<head>")) {
+                fullHtml = fullHtml.replace("<head>", "<head><style>" + styleContent + "</style>");
+            } else if (fullHtml.contains("<head ")) {
+                // <head> z atrybutami
+                fullHtml = fullHtml.replaceFirst("<head[^>]*>", "$0" + styleTag);
+            }
+        } else if (!fullHtml.contains("body") || !fullHtml.matches(".*<style[^>]*>[\\s\\S]*?body[\\s\\S]*?</style>.*")) {
+            // Brak CSS - dodaj białe tło i fonty
+            if (fullHtml.contains("</head>")) {
+                fullHtml = fullHtml.replace("</head>", "<style>" + BODY_STYLE + " " + FONT_STYLE + "</style></head>");
+            } else if (fullHtml.contains("<head>")) {
+                fullHtml = fullHtml.replace("<head>", "<head><style>" + BODY_STYLE + " " + FONT_STYLE + "</style>");
+            }
+        }
+        return fullHtml;
+    }
+
+    /**
+     * Konwertuje HTML do poprawnego XHTML (wymagane przez Flying Saucer)
+     * Używa jsoup do parsowania i konwersji HTML5 → XHTML
+     * Usuwa również wszystkie atrybuty Thymeleaf (th:*), które nie są obsługiwane przez Flying Saucer
+     */
+    private String convertHtmlToXhtml(String html) {
+        try {
+            // Parsuj HTML używając jsoup (obsługuje HTML5)
+            // Używamy htmlParser() zamiast xmlParser(), bo HTML5 może mieć niepoprawny XML
+            Document doc = Jsoup.parse(html);
+
+            // ⚠️ WAŻNE: Usuń wszystkie atrybuty Thymeleaf (th:*) - Flying Saucer ich nie rozumie
+            doc.select("*").forEach(element -> {
+                // Utwórz listę atrybutów do usunięcia (nie można modyfikować podczas iteracji)
+                List<String> attributesToRemove = new ArrayList<>();
+                for (org.jsoup.nodes.Attribute attr : element.attributes()) {
+                    if (attr.getKey().startsWith("th:")) {
+                        attributesToRemove.add(attr.getKey());
+                    }
+                }
+                for (String attrKey : attributesToRemove) {
+                    element.removeAttr(attrKey);
+                }
+            });
+
+            // Ustaw output settings dla XHTML
+            doc.outputSettings().syntax(Document.OutputSettings.Syntax.xml);
+            doc.outputSettings().escapeMode(org.jsoup.nodes.Entities.EscapeMode.xhtml);
+            doc.outputSettings().prettyPrint(false);
+            doc.outputSettings().charset(StandardCharsets.UTF_8);
+
+            String xhtml = doc.html();
+
+            // Upewnij się, że DOCTYPE jest XHTML (zamień HTML5 DOCTYPE na XHTML)
+            if (xhtml.contains("<!doctype html>") || xhtml.contains("<!DOCTYPE html>")) {
+                xhtml = xhtml.replaceFirst("<!doctype html>", "");
+                xhtml = xhtml.replaceFirst("<!DOCTYPE html>", "");
+                xhtml = XHTML_PROLOG + xhtml;
+            } else if (!xhtml.contains("<!DOCTYPE")) {
+                xhtml = XHTML_PROLOG + xhtml;
+            }
+
+            // Upewnij się, że html ma namespace
+            if (!xhtml.contains("xmlns=")) {
+                xhtml = xhtml.replaceFirst("<html(\\s|>)", "<html xmlns=\"http://www.w3.org/1999/xhtml\"$1");
+            }
+            return xhtml;
+        } catch (Exception e) {
+            logger.warn("Błąd podczas konwersji HTML → XHTML przez jsoup, używam prostego regex: {}", e.getMessage());
+
+            // ⚠️ WAŻNE: Usuń wszystkie atrybuty Thymeleaf (th:*) - Flying Saucer ich nie rozumie
+            html = html.replaceAll("\\s+th:[^\\s=]+(=\"[^\"]*\")?", "");
+
+            // Fallback: prosta konwersja regex - domknij elementy puste
+            for (String tag : new String[]{"meta", "br", "hr", "img", "input", "link", "area", "base", "col", "embed", "source", "track", "wbr"}) {
+                html = html.replaceAll("<" + tag + "([^>]*?)(?<!/)>", "<" + tag + "$1 />");
+            }
+            return html;
+        }
+    }
+
+    /**
+     * Skompilowany szablon: szkielet XHTML z indeksowanymi slotami
+     * Niezmienny - bezpieczny do współdzielenia między wątkami
+     */
+    public static class CompiledTemplate {
+        private final Long templateId;
+        private final LocalDateTime version;
+        private final PlaceholderEngine.ParsedText body;
+
+        CompiledTemplate(Long templateId, LocalDateTime version, PlaceholderEngine.ParsedText body) {
+            this.templateId = templateId;
+            this.version = version;
+            this.body = body;
+        }
+
+        /**
+         * Wypełnij sloty wartościami - jedno przejście do jednego bufora
+         * Wartości tekstowe są escapowane, sloty HTML (tabele, logo) wstawiane bez zmian
+         *
+         * @param resolver klucz slotu -> wartość; wołany leniwie, tylko dla slotów użytych w szablonie
+         */
+        public String render(Function<String, String> resolver) {
+            return body.render(resolver);
+        }
+
+        public String render(Map<String, String> values) {
+            return body.render(values::get);
+        }
+
+        public Long getTemplateId() {
+            return templateId;
+        }
+
+        public LocalDateTime getVersion() {
+            return version;
+        }
+
+        public int getSlotCount() {
+            return body.getSlotCount();
+        }
+    }
+}
@@ -2,11 +2,14 @@ package pl.koszela.nowoczesnebud.Service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 import org.thymeleaf.context.Context;
+import pl.koszela.nowoczesnebud.Config.ReferenceDataCacheConfig;
 import pl.koszela.nowoczesnebud.Model.OfferTemplate;
 import pl.koszela.nowoczesnebud.Model.Project;
 import pl.koszela.nowoczesnebud.Repository.OfferTemplateRepository;
@@ -24,16 +27,20 @@ public class OfferTemplateService {
     
     private final OfferTemplateRepository templateRepository;
     private final SpringTemplateEngine templateEngine;
+    private final OfferTemplateCompiler offerTemplateCompiler;
 
     public OfferTemplateService(OfferTemplateRepository templateRepository,
-                               @Qualifier("stringTemplateEngine") SpringTemplateEngine templateEngine) {
+                               @Qualifier("stringTemplateEngine") SpringTemplateEngine templateEngine,
+                               OfferTemplateCompiler offerTemplateCompiler) {
         this.templateRepository = templateRepository;
         this.templateEngine = templateEngine;
+        this.offerTemplateCompiler = offerTemplateCompiler;
     }
 
     /**
      * Pobierz wszystkie szablony
      */
+    @Cacheable(cacheNames = ReferenceDataCacheConfig.OFFER_TEMPLATES, key = "'all'")
     public List<OfferTemplate> getAllTemplates() {
         logger.info("Pobieranie wszystkich szablonów");
         return templateRepository.findAll();
@@ -51,6 +58,7 @@ public class OfferTemplateService {
      * Pobierz domyślny szablon
      * ⚠️ WAŻNE: Jeśli jest więcej niż jeden domyślny szablon, zwraca pierwszy
      */
+    @Cacheable(cacheNames = ReferenceDataCacheConfig.OFFER_TEMPLATES, key = "'default'")
     public Optional<OfferTemplate> getDefaultTemplate() {
         logger.info("Pobieranie domyślnego szablonu");
         // ⚠️ WAŻNE: Używamy findAll() i filtrujemy, bo findByIsDefaultTrue() rzuca wyjątek gdy jest więcej niż 1 domyślny szablon
@@ -71,6 +79,7 @@ public class OfferTemplateService {
      * Zapisz szablon (tworzy nowy lub aktualizuje istniejący)
      */
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.OFFER_TEMPLATES, allEntries = true)
     public OfferTemplate saveTemplate(OfferTemplate template) {
         logger.info("Zapisywanie szablonu: {}", template.getName());
         
@@ -90,6 +99,8 @@ public class OfferTemplateService {
         }
         
         OfferTemplate saved = templateRepository.save(template);
+        // ⚡ Skompilowany szablon (cache PDF) jest nieaktualny
+        offerTemplateCompiler.evict(saved.getId());
         logger.info("Szablon zapisany: ID={}, name={}", saved.getId(), saved.getName());
         return saved;
     }
@@ -98,6 +109,7 @@ public class OfferTemplateService {
      * Usuń szablon
      */
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.OFFER_TEMPLATES, allEntries = true)
     public void deleteTemplate(Long id) {
         logger.info("Usuwanie szablonu ID: {}", id);
         
@@ -111,6 +123,7 @@ public class OfferTemplateService {
             }
             
             templateRepository.deleteById(id);
+            offerTemplateCompiler.evict(id);
             logger.info("Szablon usunięty: ID={}", id);
         } else {
             throw new IllegalArgumentException("Szablon o ID " + id + " nie istnieje");
@@ -121,6 +134,7 @@ public class OfferTemplateService {
      * Ustaw szablon jako domyślny
      */
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.OFFER_TEMPLATES, allEntries = true)
     public OfferTemplate setDefaultTemplate(Long id) {
         logger.info("Ustawianie szablonu ID {} jako domyślnego", id);
         
@@ -139,6 +153,7 @@ public class OfferTemplateService {
         for (OfferTemplate defaultTemplate : defaultTemplates) {
             defaultTemplate.setIsDefault(false);
             templateRepository.save(defaultTemplate);
+            offerTemplateCompiler.evict(defaultTemplate.getId());
             logger.info("Usunięto domyślny status z szablonu ID: {}", defaultTemplate.getId());
         }
         
@@ -146,6 +161,7 @@ public class OfferTemplateService {
         OfferTemplate template = templateOpt.get();
         template.setIsDefault(true);
         OfferTemplate saved = templateRepository.save(template);
+        offerTemplateCompiler.evict(id);
         
         logger.info("Szablon ID {} ustawiony jako domyślny", id);
         return saved;
@@ -188,6 +204,7 @@ public class OfferTemplateService {
      * Wywoływane przy starcie aplikacji
      */
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.OFFER_TEMPLATES, allEntries = true)
     public void createDefaultTemplateIfNotExists() {
         // Najpierw zaktualizuj istniejące szablony (napraw starą składnię daty)
         updateTemplatesWithOldDateSyntax();
@@ -266,6 +283,7 @@ public class OfferTemplateService {
      * Usuwa również odwołania do nieistniejących pól (np. client.nip)
      */
     @Transactional
+    @CacheEvict(cacheNames = ReferenceDataCacheConfig.OFFER_TEMPLATES, allEntries = true)
     public void updateTemplatesWithOldDateSyntax() {
         List<OfferTemplate> allTemplates = templateRepository.findAll();
         int updatedCount = 0;
@@ -0,0 +1,119 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.pdf.BaseFont;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.xhtmlrenderer.pdf.ITextFontResolver;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rejestr fontów PDF z polskimi znakami - ładowany RAZ przy starcie aplikacji
+ *
+ * Fonty DejaVu Sans (Unicode, z polskimi znakami) są dołączone w resources/fonts,
+ * więc PDF wygląda tak samo na Windows i na Linux (Heroku), bez szukania fontów systemowych.
+ *
+ * - iText 5 (CreateOffer): współdzielone obiekty BaseFont (parsowane raz)
+ * - Flying Saucer (OfferPdfService): fonty wypakowane do plików tymczasowych + rozgrzany cache BaseFont OpenPDF,
+ *   więc rejestracja w ITextFontResolver dla kolejnego PDF nie parsuje już fontu
+ */
+@Component
+@Lazy(false)
+public class PdfFontRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfFontRegistry.class);
+
+    private static final String REGULAR_FONT = "fonts/DejaVuSans.ttf";
+    private static final String BOLD_FONT = "fonts/DejaVuSans-Bold.ttf";
+
+    /**
+     * Nazwy rodzin fontów, pod którymi DejaVu Sans jest widoczny w CSS szablonów ofert
+     * (szablony i domyślne style używają "Arial, 'Helvetica Neue', Helvetica, sans-serif")
+     */
+    private static final String[] HTML_FONT_FAMILIES = {"DejaVu Sans", "Arial", "Helvetica Neue"};
+
+    private BaseFont regularFont;
+    private BaseFont boldFont;
+    private final List<Path> extractedFontFiles = new ArrayList<>();
+    private long loadTimeMs;
+
+    @PostConstruct
+    public void loadFonts() throws IOException, DocumentException, com.lowagie.text.DocumentException {
+        long startTime = System.currentTimeMillis();
+
+        byte[] regularBytes = readClasspathFont(REGULAR_FONT);
+        byte[] boldBytes = readClasspathFont(BOLD_FONT);
+
+        // iText 5 - font osadzany w PDF, kodowanie Identity-H (pełny Unicode)
+        regularFont = BaseFont.createFont(REGULAR_FONT, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, BaseFont.CACHED, regularBytes, null);
+        boldFont = BaseFont.createFont(BOLD_FONT, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, BaseFont.CACHED, boldBytes, null);
+
+        // Flying Saucer przyjmuje tylko ścieżki plików - wypakuj fonty raz i rozgrzej cache BaseFont OpenPDF
+        for (byte[] fontBytes : new byte[][]{regularBytes, boldBytes}) {
+            Path fontFile = Files.createTempFile("pdf-font-", ".ttf");
+            fontFile.toFile().deleteOnExit();
+            Files.write(fontFile, fontBytes);
+            extractedFontFiles.add(fontFile);
+            com.lowagie.text.pdf.BaseFont.createFont(fontFile.toString(), com.lowagie.text.pdf.BaseFont.IDENTITY_H,
+                com.lowagie.text.pdf.BaseFont.EMBEDDED);
+        }
+
+        loadTimeMs = System.currentTimeMillis() - startTime;
+        logger.info("⏱️ [PERFORMANCE] Fonty PDF załadowane: {} plików ({} KB) w {}ms",
+                   extractedFontFiles.size(), (regularBytes.length + boldBytes.length) / 1024, loadTimeMs);
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        for (Path fontFile : extractedFontFiles) {
+            try {
+                Files.deleteIfExists(fontFile);
+            } catch (IOException e) {
+                logger.debug("Nie udało się usunąć pliku fontu {}: {}", fontFile, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Font iText 5 (Identity-H, osadzony) - współdzielony przez wszystkie dokumenty
+     */
+    public BaseFont getBaseFont(boolean bold) {
+        return bold ? boldFont : regularFont;
+    }
+
+    /**
+     * Zarejestruj dołączone fonty w resolverze Flying Saucer (dla jednego ITextRenderer)
+     * ⚡ Font jest już sparsowany (cache BaseFont) - tylko wpis w mapie rodzin fontów resolvera
+     */
+    public void registerFonts(ITextFontResolver fontResolver) throws IOException, com.lowagie.text.DocumentException {
+        for (Path fontFile : extractedFontFiles) {
+            for (String family : HTML_FONT_FAMILIES) {
+                fontResolver.addFont(fontFile.toString(), family, com.lowagie.text.pdf.BaseFont.IDENTITY_H, true, null);
+            }
+        }
+    }
+
+    /**
+     * Czas ładowania fontów przy starcie (ms)
+     */
+    public long getLoadTimeMs() {
+        return loadTimeMs;
+    }
+
+    private byte[] readClasspathFont(String path) throws IOException {
+        try (InputStream inputStream = new ClassPathResource(path).getInputStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+}
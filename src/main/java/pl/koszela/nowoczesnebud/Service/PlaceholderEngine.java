@@ -0,0 +1,221 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Jednoprzebiegowy silnik podstawiania placeholderów w HTML ofert
+ *
+ * Obsługuje obie składnie szablonów naraz:
+ * - {{name}}            (placeholdery z edytora TinyMCE)
+ * - [[${expression}]]   (wyrażenia Thymeleaf, białe znaki w wyrażeniu są ignorowane)
+ *
+ * ⚡ OPTYMALIZACJA:
+ * - parse() skanuje tekst raz (bez regex) i dzieli go na literały + sloty
+ * - render() rozwiązuje każdy slot najwyżej raz (leniwie - tylko sloty użyte w szablonie)
+ *   i zapisuje wynik do jednego bufora o z góry policzonym rozmiarze
+ *
+ * Zamiast ~30 kolejnych replace/replaceAll po całym dokumencie (każdy tworzy nowy String).
+ */
+public final class PlaceholderEngine {
+
+    private static final String CURLY_OPEN = "{{";
+    private static final String CURLY_CLOSE = "}}";
+    private static final String EXPRESSION_OPEN = "[[${";
+    private static final String EXPRESSION_CLOSE = "}]]";
+
+    private PlaceholderEngine() {
+    }
+
+    /**
+     * Postać kanoniczna tokenu używana w mapie token -> slot
+     * {{name}} bez zmian, [[${ expr }]] bez białych znaków w wyrażeniu
+     */
+    public static String canonicalExpression(String expression) {
+        StringBuilder canonical = new StringBuilder(expression.length() + 7).append(EXPRESSION_OPEN);
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                canonical.append(c);
+            }
+        }
+        return canonical.append(EXPRESSION_CLOSE).toString();
+    }
+
+    /**
+     * Podziel tekst na literały i sloty
+     *
+     * @param text Tekst szablonu
+     * @param tokenSlots Token kanoniczny ({{name}} / [[${expr}]]) -> klucz slotu; nieznane tokeny zostają literałem
+     * @param htmlSlots Sloty z gotowym HTML (bez escapowania); pozostałe sloty są escapowane do XHTML
+     *                  (null = bez escapowania żadnego slotu)
+     */
+    public static ParsedText parse(String text, Map<String, String> tokenSlots, Set<String> htmlSlots) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+
+        int literalStart = 0;
+        int position = 0;
+        int length = text.length();
+        while (position < length) {
+            char c = text.charAt(position);
+            int tokenEnd = -1;
+            String slot = null;
+
+            if (c == '{' && text.startsWith(CURLY_OPEN, position)) {
+                int nameEnd = position + CURLY_OPEN.length();
+                while (nameEnd < length && isWordChar(text.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                if (nameEnd > position + CURLY_OPEN.length() && text.startsWith(CURLY_CLOSE, nameEnd)) {
+                    tokenEnd = nameEnd + CURLY_CLOSE.length();
+                    slot = tokenSlots.get(text.substring(position, tokenEnd));
+                }
+            } else if (c == '[' && text.startsWith(EXPRESSION_OPEN, position)) {
+                int expressionStart = position + EXPRESSION_OPEN.length();
+                int close = text.indexOf(EXPRESSION_CLOSE, expressionStart);
+                int bracket = text.indexOf(']', expressionStart);
+                // Wyrażenie nie może zawierać ']' (jak [^\]]*? w dotychczasowych wzorcach)
+                if (close >= 0 && bracket > close) {
+                    tokenEnd = close + EXPRESSION_CLOSE.length();
+                    slot = tokenSlots.get(canonicalExpression(text.substring(expressionStart, close)));
+                }
+            }
+
+            if (slot != null) {
+                literals.add(text.substring(literalStart, position));
+                slots.add(slot);
+                position = tokenEnd;
+                literalStart = tokenEnd;
+            } else {
+                // Nieznany token też jest pomijany w całości - jego wnętrze nie jest skanowane ponownie
+                position = tokenEnd > 0 ? tokenEnd : position + 1;
+            }
+        }
+        literals.add(text.substring(literalStart));
+
+        return new ParsedText(literals.toArray(new String[0]), slots.toArray(new String[0]), htmlSlots);
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /**
+     * Escapowanie tekstu do XHTML (&, <, >, ")
+     */
+    public static String escapeXml(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '&': replacement = "&amp;"; break;
+                case '<': replacement = "&lt;"; break;
+                case '>': replacement = "&gt;"; break;
+                case '"': replacement = "&quot;"; break;
+                default: replacement = null;
+            }
+            if (replacement != null) {
+                if (escaped == null) {
+                    escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+                }
+                escaped.append(replacement);
+            } else if (escaped != null) {
+                escaped.append(c);
+            }
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+
+    /**
+     * Sparsowany tekst: literals[0] slot[0] literals[1] slot[1] ... literals[n]
+     * Niezmienny - bezpieczny do współdzielenia między wątkami
+     */
+    public static final class ParsedText {
+        private final String[] literals;
+        private final String[] distinctSlots;
+        private final int[] slotIndexes;
+        private final boolean[] escapeSlot;
+        private final int literalLength;
+
+        private ParsedText(String[] literals, String[] slots, Set<String> htmlSlots) {
+            this.literals = literals;
+
+            Map<String, Integer> indexBySlot = new HashMap<>();
+            List<String> distinct = new ArrayList<>();
+            this.slotIndexes = new int[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                Integer index = indexBySlot.get(slots[i]);
+                if (index == null) {
+                    index = distinct.size();
+                    indexBySlot.put(slots[i], index);
+                    distinct.add(slots[i]);
+                }
+                slotIndexes[i] = index;
+            }
+            this.distinctSlots = distinct.toArray(new String[0]);
+
+            this.escapeSlot = new boolean[distinctSlots.length];
+            for (int i = 0; i < distinctSlots.length; i++) {
+                escapeSlot[i] = htmlSlots != null && !htmlSlots.contains(distinctSlots[i]);
+            }
+
+            int length = 0;
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        /**
+         * Wypełnij sloty - każdy użyty slot rozwiązywany dokładnie raz, wynik w jednym buforze
+         *
+         * @param resolver klucz slotu -> wartość (null = pusty tekst); wołany tylko dla slotów obecnych w tekście
+         */
+        public String render(Function<String, String> resolver) {
+            String[] values = new String[distinctSlots.length];
+            int capacity = literalLength;
+            for (int i = 0; i < distinctSlots.length; i++) {
+                String value = resolver.apply(distinctSlots[i]);
+                if (value == null) {
+                    value = "";
+                } else if (escapeSlot[i]) {
+                    value = escapeXml(value);
+                }
+                values[i] = value;
+            }
+            for (int index : slotIndexes) {
+                capacity += values[index].length();
+            }
+
+            StringBuilder out = new StringBuilder(capacity);
+            for (int i = 0; i < slotIndexes.length; i++) {
+                out.append(literals[i]).append(values[slotIndexes[i]]);
+            }
+            out.append(literals[slotIndexes.length]);
+            return out.toString();
+        }
+
+        /**
+         * Liczba wystąpień slotów w tekście
+         */
+        public int getSlotCount() {
+            return slotIndexes.length;
+        }
+
+        /**
+         * Klucze slotów użytych w tekście (bez powtórzeń)
+         */
+        public List<String> getSlots() {
+            return List.of(distinctSlots);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.koszela.nowoczesnebud.Model.PriceListImport;
+import pl.koszela.nowoczesnebud.Model.PriceListImportStatus;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+import pl.koszela.nowoczesnebud.Repository.PriceListImportRepository;
+import pl.koszela.nowoczesnebud.Repository.ProductRepository;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Historia importów cenników + deduplikacja po SHA-256 zawartości pliku
+ *
+ * Plik jest traktowany jako "niezmieniony" (UNCHANGED), jeśli:
+ * - ostatni wpis historii grupy docelowej ma ten sam SHA-256 (import lub eksport tego samego pliku),
+ *   albo plik pochodzi z eksportu - wtedy grupa to dokładny producent/grupa zapisane z SHA-256
+ *   (nazwa pliku eksportu ma producenta ze spacjami i myślnikami zamienionymi na "_")
+ * - grupa w bazie ma tę samą liczbę produktów i ten sam najnowszy updatedAt co po tamtym wpisie
+ *   (czyli nikt nie usunął ani nie edytował produktów grupy od tego czasu)
+ *
+ * ⚠️ WAŻNE: Eksport trzyma tylko najnowszy wpis EXPORTED na grupę - kolejne eksporty nie powiększają historii
+ */
+@Service
+public class PriceListImportHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceListImportHistoryService.class);
+
+    private final PriceListImportRepository priceListImportRepository;
+    private final ProductRepository productRepository;
+
+    public PriceListImportHistoryService(PriceListImportRepository priceListImportRepository,
+                                         ProductRepository productRepository) {
+        this.priceListImportRepository = priceListImportRepository;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * SHA-256 zawartości pliku jako hex (64 znaki)
+     */
+    public static String sha256(byte[] content) {
+        return toHex(newSha256Digest().digest(content));
+    }
+
+    /**
+     * Nowy MessageDigest SHA-256 (do liczenia skrótu w locie, np. DigestOutputStream przy eksporcie)
+     */
+    public static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 niedostępne w JVM", e);
+        }
+    }
+
+    /**
+     * Skrót jako hex (małe litery)
+     */
+    public static String toHex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Sprawdź czy identyczny plik był już przetworzony do tej grupy i grupa się od tego czasu nie zmieniła
+     *
+     * Grupa rozwiązana z nazwy pliku eksportu ma producenta w postaci z nazwy pliku ("_" zamiast spacji
+     * i myślników) - wtedy plik jest dopasowywany po SHA-256 do wpisu z dokładnym producentem/grupą,
+     * których nazwa pliku daje tę samą postać
+     *
+     * @return wpis historii, względem którego plik jest niezmieniony (jego producent/grupa to grupa pliku)
+     */
+    public Optional<PriceListImport> findUnchanged(ProductCategory category, String manufacturer,
+                                                   String groupName, String contentSha256) {
+        Optional<PriceListImport> latest = priceListImportRepository
+            .findTopByCategoryAndManufacturerAndGroupNameOrderByProcessedAtDescIdDesc(category, manufacturer, groupName);
+        if (latest.isEmpty() || !contentSha256.equals(latest.get().getContentSha256())) {
+            latest = priceListImportRepository
+                .findByCategoryAndContentSha256OrderByProcessedAtDescIdDesc(category, contentSha256).stream()
+                .filter(entry -> groupName.equals(entry.getGroupName())
+                    && manufacturer.equals(ProductExportService.fileNameManufacturer(entry.getManufacturer())))
+                .findFirst()
+                .filter(this::isLatestForGroup);
+            if (latest.isEmpty()) {
+                return Optional.empty();
+            }
+        }
+
+        PriceListImport previous = latest.get();
+        GroupState current = loadGroupState(category, previous.getManufacturer(), previous.getGroupName());
+        boolean groupUnchanged = previous.getGroupProductCount() != null
+            && previous.getGroupProductCount() == current.productCount
+            && current.productCount > 0
+            && Objects.equals(previous.getGroupUpdatedAt(), current.lastUpdatedAt);
+
+        if (!groupUnchanged) {
+            logger.info("🔁 Plik {} ma ten sam SHA-256, ale grupa {}/{} zmieniła się od ostatniego importu - importuję ponownie",
+                       previous.getFileName(), previous.getManufacturer(), previous.getGroupName());
+            return Optional.empty();
+        }
+        return latest;
+    }
+
+    /**
+     * Czy wpis jest najnowszym wpisem historii swojej grupy (późniejszy import zastępuje eksport)
+     */
+    private boolean isLatestForGroup(PriceListImport entry) {
+        return priceListImportRepository
+            .findTopByCategoryAndManufacturerAndGroupNameOrderByProcessedAtDescIdDesc(
+                entry.getCategory(), entry.getManufacturer(), entry.getGroupName())
+            .map(latest -> latest.getId().equals(entry.getId()))
+            .orElse(false);
+    }
+
+    /**
+     * Zapisz wpis historii dla przetworzonego pliku (stan grupy odczytywany z bazy po zapisie produktów)
+     */
+    @Transactional
+    public PriceListImport record(ProductCategory category,
+                                  String manufacturer,
+                                  String groupName,
+                                  String contentSha256,
+                                  String fileName,
+                                  String customName,
+                                  String customManufacturer,
+                                  String customGroupName,
+                                  PriceListImportStatus status,
+                                  int importedProducts) {
+        GroupState state = loadGroupState(category, manufacturer, groupName);
+
+        PriceListImport entry = new PriceListImport();
+        entry.setCategory(category);
+        entry.setManufacturer(manufacturer);
+        entry.setGroupName(groupName);
+        entry.setContentSha256(contentSha256);
+        entry.setFileName(fileName);
+        entry.setCustomName(customName);
+        entry.setCustomManufacturer(customManufacturer);
+        entry.setCustomGroupName(customGroupName);
+        entry.setStatus(status);
+        entry.setImportedProducts(importedProducts);
+        entry.setGroupProductCount(state.productCount);
+        entry.setGroupUpdatedAt(state.lastUpdatedAt);
+        entry.setProcessedAt(LocalDateTime.now());
+        return priceListImportRepository.save(entry);
+    }
+
+    /**
+     * Zapisz SHA-256 plików wygenerowanych przez eksport (jedno zapytanie o stan wszystkich grup kategorii)
+     * Dzięki temu ponowny import pliku z eksportu (round-trip) jest rozpoznawany jako UNCHANGED.
+     * Poprzednie wpisy EXPORTED eksportowanych grup są usuwane - na grupę zostaje tylko najnowszy eksport.
+     *
+     * @param exportedFiles Lista plików eksportu: manufacturer, groupName, nazwa pliku, SHA-256, liczba produktów w pliku
+     */
+    @Transactional
+    public void recordExport(ProductCategory category, List<ExportedFile> exportedFiles) {
+        if (exportedFiles.isEmpty()) {
+            return;
+        }
+
+        Map<String, GroupState> states = new HashMap<>();
+        for (Object[] row : productRepository.findGroupStatesByCategory(category)) {
+            states.put(row[0] + "|||" + row[1],
+                       new GroupState(((Number) row[2]).longValue(), (LocalDateTime) row[3]));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<PriceListImport> entries = new ArrayList<>();
+        for (ExportedFile file : exportedFiles) {
+            GroupState state = states.get(file.manufacturer + "|||" + file.groupName);
+            // Zapisujemy tylko pliki zgodne ze stanem bazy - inaczej ponowny import mógłby zostać błędnie pominięty
+            if (state == null || state.productCount != file.productCount) {
+                continue;
+            }
+            PriceListImport entry = new PriceListImport();
+            entry.setCategory(category);
+            entry.setManufacturer(file.manufacturer);
+            entry.setGroupName(file.groupName);
+            entry.setContentSha256(file.contentSha256);
+            entry.setFileName(file.fileName);
+            entry.setStatus(PriceListImportStatus.EXPORTED);
+            entry.setImportedProducts(0);
+            entry.setGroupProductCount(state.productCount);
+            entry.setGroupUpdatedAt(state.lastUpdatedAt);
+            entry.setProcessedAt(now);
+            entries.add(entry);
+        }
+
+        // Zastąp poprzednie eksporty tych grup (bez wzrostu historii przy każdym eksporcie)
+        Set<String> exportedGroups = new HashSet<>();
+        for (ExportedFile file : exportedFiles) {
+            exportedGroups.add(file.manufacturer + "|||" + file.groupName);
+        }
+        List<Long> replacedIds = new ArrayList<>();
+        for (PriceListImport previous : priceListImportRepository.findByCategoryAndStatus(category, PriceListImportStatus.EXPORTED)) {
+            if (exportedGroups.contains(previous.getManufacturer() + "|||" + previous.getGroupName())) {
+                replacedIds.add(previous.getId());
+            }
+        }
+        priceListImportRepository.deleteAllByIdInBatch(replacedIds);
+
+        priceListImportRepository.saveAll(entries);
+        logger.info("🧾 Zapisano SHA-256 {} z {} plików eksportu ({}), zastąpiono {} poprzednich",
+                   entries.size(), exportedFiles.size(), category, replacedIds.size());
+    }
+
+    /**
+     * Historia importów grupy produktowej (od najnowszego)
+     */
+    public List<PriceListImport> getHistory(ProductCategory category, String manufacturer, String groupName) {
+        return priceListImportRepository
+            .findByCategoryAndManufacturerAndGroupNameOrderByProcessedAtDescIdDesc(category, manufacturer, groupName);
+    }
+
+    /**
+     * Historia importów całej kategorii (od najnowszego)
+     */
+    public List<PriceListImport> getHistory(ProductCategory category) {
+        return priceListImportRepository.findByCategoryOrderByProcessedAtDescIdDesc(category);
+    }
+
+    private GroupState loadGroupState(ProductCategory category, String manufacturer, String groupName) {
+        List<Object[]> rows = productRepository.findGroupState(category, manufacturer, groupName);
+        if (rows.isEmpty() || rows.get(0)[0] == null) {
+            return new GroupState(0L, null);
+        }
+        Object[] row = rows.get(0);
+        return new GroupState(((Number) row[0]).longValue(), (LocalDateTime) row[1]);
+    }
+
+    private static class GroupState {
+        private final long productCount;
+        private final LocalDateTime lastUpdatedAt;
+
+        GroupState(long productCount, LocalDateTime lastUpdatedAt) {
+            this.productCount = productCount;
+            this.lastUpdatedAt = lastUpdatedAt;
+        }
+    }
+
+    /**
+     * Plik wygenerowany przez eksport
+     */
+    public static class ExportedFile {
+        private final String manufacturer;
+        private final String groupName;
+        private final String fileName;
+        private final String contentSha256;
+        private final long productCount;
+
+        public ExportedFile(String manufacturer, String groupName, String fileName,
+                            String contentSha256, long productCount) {
+            this.manufacturer = manufacturer;
+            this.groupName = groupName;
+            this.fileName = fileName;
+            this.contentSha256 = contentSha256;
+            this.productCount = productCount;
+        }
+    }
+}
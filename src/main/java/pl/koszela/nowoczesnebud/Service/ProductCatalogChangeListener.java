@@ -0,0 +1,29 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import pl.koszela.nowoczesnebud.Model.Product;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Zapisy ORM encji Product (save, saveAll, delete) unieważniają cache drzewa katalogu
+ * Zapisy JDBC w ProductService wywołują CatalogHierarchyService.catalogChanged bezpośrednio
+ *
+ * ⚠️ WAŻNE: Instancję tworzy Hibernate przez kontener beanów Springa (wstrzykiwanie przez konstruktor)
+ */
+public class ProductCatalogChangeListener {
+
+    private final CatalogHierarchyService catalogHierarchyService;
+
+    public ProductCatalogChangeListener(CatalogHierarchyService catalogHierarchyService) {
+        this.catalogHierarchyService = catalogHierarchyService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void productChanged(Product product) {
+        catalogHierarchyService.catalogChanged(product.getCategory());
+    }
+}
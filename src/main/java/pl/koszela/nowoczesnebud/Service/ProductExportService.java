@@ -1,16 +1,23 @@
 package pl.koszela.nowoczesnebud.Service;
 
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import pl.koszela.nowoczesnebud.Model.Product;
 import pl.koszela.nowoczesnebud.Model.ProductCategory;
 
+import javax.annotation.PreDestroy;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
@@ -27,13 +34,48 @@ public class ProductExportService {
     private static final Logger logger = LoggerFactory.getLogger(ProductExportService.class);
 
     /**
-     * Eksportuj produkty do ZIP z plikami Excel
+     * Liczba wierszy trzymanych w pamięci przez SXSSFWorkbook (per grupa)
+     */
+    private static final int ROW_ACCESS_WINDOW = 100;
+
+    /**
+     * Liczba wątków generujących workbooki równolegle
+     */
+    private static final int EXPORT_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    private final PriceListImportHistoryService priceListImportHistoryService;
+    private final ExecutorService workbookExecutor;
+
+    public ProductExportService(PriceListImportHistoryService priceListImportHistoryService) {
+        this.priceListImportHistoryService = priceListImportHistoryService;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.workbookExecutor = Executors.newFixedThreadPool(EXPORT_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "excel-export-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Eksportuj produkty do ZIP z plikami Excel (w pamięci)
      * Każdy plik Excel = jedna grupa produktów (Manufacturer-GroupName.xlsx)
      * 
+     * ⚠️ Dla endpointu HTTP używaj {@link #writeExcelZip(List, OutputStream)} - ta metoda trzyma cały ZIP w pamięci
+     * 
      * @param products Lista produktów do eksportu
      * @return byte[] - plik ZIP z plikami Excel
      */
     public byte[] exportToExcelZip(List<Product> products) throws IOException {
+        ByteArrayOutputStream zipOutputStream = new ByteArrayOutputStream();
+        writeExcelZip(products, zipOutputStream);
+        return zipOutputStream.toByteArray();
+    }
+
+    /**
+     * Sprawdź czy produkty nadają się do eksportu i zwróć ich kategorię
+     * Wywoływane PRZED rozpoczęciem streamingu - po wysłaniu nagłówków nie można już zwrócić 400
+     */
+    public ProductCategory validateForExport(List<Product> products) {
         if (products == null || products.isEmpty()) {
             throw new IllegalArgumentException("Brak produktów do eksportu");
         }
@@ -43,6 +85,20 @@ public class ProductExportService {
         if (category == null) {
             throw new IllegalArgumentException("Produkty muszą mieć przypisaną kategorię");
         }
+        return category;
+    }
+
+    /**
+     * ⚡ OPTYMALIZACJA: Eksport ZIP zapisywany BEZPOŚREDNIO do strumienia (np. odpowiedzi HTTP)
+     * - każda grupa to SXSSFWorkbook z małym oknem wierszy (reszta na dysku w pliku tymczasowym)
+     * - grupy generowane równolegle, w pamięci czeka najwyżej kilka gotowych plików (bez byte[] całego ZIP)
+     * Zużycie pamięci nie zależy od wielkości katalogu (poza samą listą produktów)
+     * 
+     * @param products Lista produktów do eksportu
+     * @param outputStream Strumień docelowy - NIE jest zamykany (zamyka go wywołujący / kontener)
+     */
+    public void writeExcelZip(List<Product> products, OutputStream outputStream) throws IOException {
+        ProductCategory category = validateForExport(products);
 
         logger.info("📊 Eksportowanie {} produktów kategorii {}", products.size(), category);
 
@@ -51,58 +107,114 @@ public class ProductExportService {
 
         logger.info("📁 Utworzono {} grup produktów do eksportu", groupedProducts.size());
 
-        // Utwórz ZIP w pamięci
-        ByteArrayOutputStream zipOutputStream = new ByteArrayOutputStream();
+        long startTime = System.currentTimeMillis();
+        List<Map.Entry<String, List<Product>>> groups = new ArrayList<>(groupedProducts.entrySet());
+        List<PriceListImportHistoryService.ExportedFile> exportedFiles = new ArrayList<>();
+        ExportMetrics metrics = new ExportMetrics();
+        ZipOutputStream zipOut = new ZipOutputStream(outputStream);
+        // Ustaw kodowanie UTF-8 dla nazw plików (obsługa polskich znaków)
+        zipOut.setComment("Eksport produktów - " + category.name());
         
-        int filesAdded = 0;
-        try (ZipOutputStream zipOut = new ZipOutputStream(zipOutputStream)) {
-            // Ustaw kodowanie UTF-8 dla nazw plików (obsługa polskich znaków)
-            zipOut.setComment("Eksport produktów - " + category.name());
-            
-            // Dla każdej grupy utwórz plik Excel
-            for (Map.Entry<String, List<Product>> entry : groupedProducts.entrySet()) {
-                String fileName = entry.getKey() + ".xlsx";
-                // Usuń nieprawidłowe znaki z nazwy pliku (Windows nie lubi niektórych znaków)
-                fileName = sanitizeFileName(fileName);
-                List<Product> groupProducts = entry.getValue();
-                
-                logger.info("📄 Tworzenie pliku Excel: {} ({} produktów)", fileName, groupProducts.size());
+        // ⚡ OPTYMALIZACJA: Workbooki grup generowane równolegle (ograniczona pula wątków),
+        // zapis do ZIP w stałej kolejności (posortowane klucze grup). Najwyżej maxInFlight gotowych
+        // plików czeka w pamięci na zapis - pamięć zależy od liczby wątków, nie od wielkości katalogu.
+        int maxInFlight = EXPORT_THREADS * 2;
+        Deque<Future<GroupWorkbook>> inFlight = new ArrayDeque<>();
+        int nextToSubmit = 0;
+        try {
+            while (nextToSubmit < groups.size() || !inFlight.isEmpty()) {
+                while (nextToSubmit < groups.size() && inFlight.size() < maxInFlight) {
+                    Map.Entry<String, List<Product>> group = groups.get(nextToSubmit++);
+                    inFlight.addLast(workbookExecutor.submit(
+                        () -> createGroupWorkbook(group.getKey(), group.getValue(), category)));
+                }
                 
-                // Utwórz plik Excel dla tej grupy (z kategorią)
-                byte[] excelFile = createExcelFile(groupProducts, category);
-                logger.info("📊 Plik Excel utworzony: {} - {} bajtów", fileName, excelFile.length);
+                GroupWorkbook workbook = awaitWorkbook(inFlight.removeFirst());
+                metrics.add(workbook);
                 
-                // Dodaj do ZIP
-                ZipEntry zipEntry = new ZipEntry(fileName);
                 // ⚠️ NIE ustawiamy setSize() - może powodować problemy z kompresją
-                zipOut.putNextEntry(zipEntry);
-                zipOut.write(excelFile);
+                zipOut.putNextEntry(new ZipEntry(workbook.fileName));
+                zipOut.write(workbook.content);
                 zipOut.closeEntry();
-                // ⚠️ NIE wywołujemy flush() tutaj - może powodować problemy
-                filesAdded++;
                 
-                // Sprawdź rozmiar ZIP po każdym dodaniu
-                long zipSizeAfter = zipOutputStream.size();
-                logger.info("✅ Dodano do ZIP: {} ({} bajtów Excel) | Rozmiar ZIP po dodaniu: {} bajtów", 
-                    fileName, excelFile.length, zipSizeAfter);
+                if (workbook.manufacturer != null && workbook.groupName != null) {
+                    exportedFiles.add(new PriceListImportHistoryService.ExportedFile(
+                        workbook.manufacturer, workbook.groupName, workbook.fileName,
+                        workbook.contentSha256, workbook.productCount));
+                }
             }
-            
-            // ⚠️ NIE wywołujemy finish() - close() w try-with-resources zrobi to automatycznie
-            logger.info("📦 ZipOutputStream - wszystkie wpisy dodane, zamykanie strumienia...");
+        } finally {
+            // Błąd zapisu (np. klient przerwał pobieranie) - nie generuj pozostałych plików
+            inFlight.forEach(future -> future.cancel(true));
         }
-
-        byte[] zipBytes = zipOutputStream.toByteArray();
-        logger.info("✅ ZIP utworzony: {} plików Excel, {} bajtów", filesAdded, zipBytes.length);
         
-        if (filesAdded == 0) {
+        // finish() zamiast close() - strumień docelowy należy do wywołującego
+        zipOut.finish();
+        zipOut.flush();
+
+        priceListImportHistoryService.recordExport(category, exportedFiles);
+
+        if (metrics.files == 0) {
             logger.warn("⚠️ UWAGA: ZIP jest pusty - brak plików Excel! Sprawdź czy produkty mają ustawione manufacturer i groupName");
-        } else if (zipBytes.length == 0) {
-            logger.error("❌ BŁĄD: ZIP ma rozmiar 0 bajtów mimo {} dodanych plików!", filesAdded);
         } else {
-            logger.info("✅ ZIP gotowy do pobrania: {} plików, {} bajtów", filesAdded, zipBytes.length);
+            long wallTime = System.currentTimeMillis() - startTime;
+            logger.info("⏱️ [PERFORMANCE] ZIP zapisany do strumienia: {} plików Excel, {} produktów, {} bajtów w {}ms | " +
+                       "generowanie: suma {}ms, średnio {}ms/plik, najwolniejszy {} ({}ms) | równoległość: {} (wątki: {})",
+                       metrics.files, products.size(), metrics.totalBytes, wallTime,
+                       metrics.totalGenerationMs, metrics.totalGenerationMs / metrics.files,
+                       metrics.slowestFile, metrics.slowestGenerationMs,
+                       String.format("%.1fx", (double) metrics.totalGenerationMs / Math.max(1, wallTime)), EXPORT_THREADS);
         }
+    }
+
+    /**
+     * Wygeneruj plik Excel jednej grupy (wywoływane na wątku puli eksportu)
+     */
+    private GroupWorkbook createGroupWorkbook(String groupKey, List<Product> groupProducts, ProductCategory category) throws IOException {
+        long start = System.currentTimeMillis();
+        // Usuń nieprawidłowe znaki z nazwy pliku (Windows nie lubi niektórych znaków)
+        String fileName = sanitizeFileName(groupKey + ".xlsx");
+        
+        ByteArrayOutputStream excelOutput = new ByteArrayOutputStream();
+        writeExcelFile(groupProducts, category, excelOutput);
+        byte[] content = excelOutput.toByteArray();
+        long generationMs = System.currentTimeMillis() - start;
+        logger.debug("📄 Plik Excel utworzony: {} ({} produktów, {} bajtów, {}ms)",
+                    fileName, groupProducts.size(), content.length, generationMs);
         
-        return zipBytes;
+        // SHA-256 pliku - ponowny import tego pliku (round-trip) zostanie rozpoznany jako niezmieniony
+        Product first = groupProducts.get(0);
+        return new GroupWorkbook(
+            fileName,
+            first.getManufacturer() != null ? first.getManufacturer().trim() : null,
+            first.getGroupName() != null ? first.getGroupName().trim() : null,
+            content,
+            PriceListImportHistoryService.sha256(content),
+            groupProducts.size(),
+            generationMs);
+    }
+
+    private GroupWorkbook awaitWorkbook(Future<GroupWorkbook> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Eksport przerwany", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Błąd generowania pliku Excel", cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workbookExecutor.shutdownNow();
     }
 
     /**
@@ -114,6 +226,7 @@ public class ProductExportService {
         int totalProducts = products.size();
         AtomicInteger productsWithMissingFields = new AtomicInteger(0);
         
+        // TreeMap - stała (alfabetyczna) kolejność plików w ZIP
         Map<String, List<Product>> grouped = products.stream()
             .collect(Collectors.groupingBy(product -> {
                 String manufacturer = product.getManufacturer();
@@ -142,11 +255,9 @@ public class ProductExportService {
                 // 
                 // ⚠️ WAŻNE: Manufacturer nie może zawierać myślnika (bo to jest separator), więc zamień myślniki w manufacturer na podkreślenia
                 // Spacje w manufacturer też zamień na podkreślenia (dla spójności)
-                String sanitizedManufacturer = finalManufacturer.replace(" ", "_").replace("-", "_");
-                
                 // Format: "Manufacturer-GroupName" (z myślnikiem) - DOKŁADNIE taki sam jak importowane pliki
-                return sanitizedManufacturer + "-" + finalGroupName;
-            }));
+                return fileNameManufacturer(finalManufacturer) + "-" + finalGroupName;
+            }, TreeMap::new, Collectors.toList()));
         
         int missingFieldsCount = productsWithMissingFields.get();
         if (missingFieldsCount > 0) {
@@ -159,16 +270,42 @@ public class ProductExportService {
         return grouped;
     }
 
+    /**
+     * Producent w nazwie pliku eksportu - spacje i myślniki (separator nazwy pliku) zamienione na "_"
+     */
+    public static String fileNameManufacturer(String manufacturer) {
+        return manufacturer.replace(" ", "_").replace("-", "_");
+    }
+
+    /**
+     * Numer Lp dla każdej wartości displayOrder w grupie: kolejne różne wartości → 1, 2, 3, ...
+     * Dla grupy 0, 1, 2, ... wynik jest taki sam jak displayOrder + 1
+     */
+    private Map<Integer, Integer> lpByDisplayOrder(List<Product> products) {
+        Map<Integer, Integer> lpByDisplayOrder = new HashMap<>();
+        products.stream()
+            .map(product -> product.getDisplayOrder() != null ? product.getDisplayOrder() : 0)
+            .distinct()
+            .sorted()
+            .forEach(displayOrder -> lpByDisplayOrder.put(displayOrder, lpByDisplayOrder.size() + 1));
+        return lpByDisplayOrder;
+    }
+
     /**
      * Utwórz plik Excel dla grupy produktów
      * Struktura zgodna z @ExcelCellName w Product.java
      * 
      * @param products Lista produktów
      * @param category Kategoria produktów (TILE, GUTTER, ACCESSORY)
+     * @param outputStream Strumień docelowy (wpis ZIP)
      */
-    private byte[] createExcelFile(List<Product> products, ProductCategory category) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Produkty");
+    private void writeExcelFile(List<Product> products, ProductCategory category, OutputStream outputStream) throws IOException {
+        // ⚡ SXSSF: w pamięci tylko ostatnie ROW_ACCESS_WINDOW wierszy, starsze są zrzucane do pliku tymczasowego
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Produkty");
+            // Auto-size liczony przyrostowo przy zrzucaniu wierszy (w SXSSF nie ma dostępu do wszystkich wierszy na końcu)
+            sheet.trackAllColumnsForAutoSizing();
             
             // Styl nagłówka
             CellStyle headerStyle = workbook.createCellStyle();
@@ -244,6 +381,9 @@ public class ProductExportService {
                 cell.setCellStyle(headerStyle);
             }
             
+            // Lp = pozycja produktu w grupie (displayOrder ma odstępy, np. 0, 1024, 2048 → 1, 2, 3)
+            Map<Integer, Integer> lpByDisplayOrder = lpByDisplayOrder(products);
+            
             // Utwórz wiersze z produktami
             // WAŻNE: Kolejność kolumn musi być identyczna jak w nagłówkach!
             int rowNum = 1;
@@ -251,11 +391,11 @@ public class ProductExportService {
                 Row row = sheet.createRow(rowNum++);
                 int colIndex = 0;
                 
-                // Lp (kolumna 0) - displayOrder + 1 (dla użytkownika: 1, 2, 3, ... zamiast 0, 1, 2, ...)
+                // Lp (kolumna 0) - pozycja wg displayOrder (dla użytkownika: 1, 2, 3, ...)
                 // ⚠️ WAŻNE: Używamy integerStyle (format "0") zamiast numberStyle (format "#,##0.00")
                 // aby liczba porządkowa była zawsze wyświetlana jako integer bez przecinka
                 Integer displayOrder = product.getDisplayOrder() != null ? product.getDisplayOrder() : 0;
-                createNumericCell(row, colIndex++, (double)(displayOrder + 1), integerStyle);
+                createNumericCell(row, colIndex++, (double) lpByDisplayOrder.get(displayOrder), integerStyle);
                 
                 // name (kolumna 1)
                 createCell(row, colIndex++, product.getName(), cellStyle);
@@ -297,10 +437,12 @@ public class ProductExportService {
                 sheet.autoSizeColumn(i);
             }
             
-            // Zapisz do byte array
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             workbook.write(outputStream);
-            return outputStream.toByteArray();
+            outputStream.flush();
+        } finally {
+            // Usuń pliki tymczasowe SXSSF
+            workbook.dispose();
+            workbook.close();
         }
     }
 
@@ -371,5 +513,49 @@ public class ProductExportService {
         
         return sanitized;
     }
-}
 
+    /**
+     * Wygenerowany plik Excel grupy (gotowy do zapisu w ZIP)
+     */
+    private static class GroupWorkbook {
+        private final String fileName;
+        private final String manufacturer;
+        private final String groupName;
+        private final byte[] content;
+        private final String contentSha256;
+        private final int productCount;
+        private final long generationMs;
+
+        GroupWorkbook(String fileName, String manufacturer, String groupName, byte[] content,
+                      String contentSha256, int productCount, long generationMs) {
+            this.fileName = fileName;
+            this.manufacturer = manufacturer;
+            this.groupName = groupName;
+            this.content = content;
+            this.contentSha256 = contentSha256;
+            this.productCount = productCount;
+            this.generationMs = generationMs;
+        }
+    }
+
+    /**
+     * Zagregowane metryki eksportu (zamiast logu per plik)
+     */
+    private static class ExportMetrics {
+        private int files;
+        private long totalBytes;
+        private long totalGenerationMs;
+        private long slowestGenerationMs = -1;
+        private String slowestFile;
+
+        void add(GroupWorkbook workbook) {
+            files++;
+            totalBytes += workbook.content.length;
+            totalGenerationMs += workbook.generationMs;
+            if (workbook.generationMs > slowestGenerationMs) {
+                slowestGenerationMs = workbook.generationMs;
+                slowestFile = workbook.fileName;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import pl.koszela.nowoczesnebud.Model.ProductGroupAttributes;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Zapisy ORM encji ProductGroupAttributes aktualizują indeks atrybutów (AttributeFacetIndex) o zmieniony wiersz
+ * Zapisy JDBC w ProductService wywołują AttributeFacetIndex.attributesChanged bezpośrednio
+ *
+ * ⚠️ WAŻNE: Instancję tworzy Hibernate przez kontener beanów Springa (wstrzykiwanie przez konstruktor)
+ */
+public class ProductGroupAttributesChangeListener {
+
+    private final AttributeFacetIndex attributeFacetIndex;
+
+    public ProductGroupAttributesChangeListener(AttributeFacetIndex attributeFacetIndex) {
+        this.attributeFacetIndex = attributeFacetIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void groupAttributesSaved(ProductGroupAttributes groupAttributes) {
+        attributeFacetIndex.groupAttributesSaved(groupAttributes);
+    }
+
+    @PostRemove
+    public void groupAttributesRemoved(ProductGroupAttributes groupAttributes) {
+        attributeFacetIndex.groupAttributesRemoved(groupAttributes);
+    }
+}
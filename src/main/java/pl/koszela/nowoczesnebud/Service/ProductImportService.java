@@ -105,51 +105,9 @@ public class ProductImportService {
                 mappedFile.delete();
             }
 
-            // ⚠️ WAŻNE: Frontend zawsze wysyła wartości (editableManufacturer i editableGroupName)
-            // Frontend dba o walidację - wartości nie mogą być puste
-            // Używamy BEZPOŚREDNIO wartości z frontendu (z sugestii), bez fallbacku do parsowania z nazwy pliku
-            String manufacturer;
-            if (customManufacturer != null && !customManufacturer.trim().isEmpty()) {
-                // Frontend przesłał wartość - użyj jej BEZPOŚREDNIO (z sugestii)
-                manufacturer = customManufacturer.trim();
-            } else {
-                // Frontend nie przesłał wartości - to nie powinno się zdarzyć (walidacja w frontendzie)
-                // Fallback tylko dla bezpieczeństwa
-                logger.warn("⚠️ Frontend nie przesłał producenta dla pliku: {} - używam fallback z nazwy pliku", fileName);
-                manufacturer = getManufacturer(fileName);
-            }
-            
-            // ⚠️ WAŻNE: Frontend zawsze wysyła wartości (editableGroupName)
-            // Frontend dba o walidację - wartości nie mogą być puste
-            // Używamy BEZPOŚREDNIO wartości z frontendu (z sugestii), bez fallbacku do parsowania z nazwy pliku
-            // ⚠️ NOWA LOGIKA: Jeśli groupName[] jest wypełnione, używamy go jako finalGroupName
-            // Jeśli groupName[] jest puste, używamy name[] (customGroupName) jako fallback dla finalGroupName
-            // ⚠️ WAŻNE: Aby "Nazwa produktu w systemie" była częścią identyfikatora, jeśli użytkownik zmieni
-            // tylko "Nazwa produktu w systemie" (a groupName pozostaje takie samo), to utworzy nowy cennik.
-            // Więc jeśli groupName jest wypełnione, ale różne od customGroupName, to używamy kombinacji
-            // manufacturer + groupName + customGroupName jako identyfikatora grupy.
-            String finalGroupName;
-            if (customGroupNameFromParam != null && !customGroupNameFromParam.trim().isEmpty()) {
-                // Frontend przesłał wartość w groupName[] - użyj jej BEZPOŚREDNIO (z sugestii)
-                // ⚠️ WAŻNE: groupName[] jest już poprawnie wyciągnięte z nazwy pliku przez frontend,
-                // więc używamy go bezpośrednio bez dodatkowego parsowania
-                // ⚠️ ZMIANA: NIE tworzymy kombinacji z name[], bo groupName[] jest już poprawne
-                // Kombinacja była potrzebna tylko gdy użytkownik RZECZYWIŚCIE zmienił "Nazwa produktu w systemie"
-                // ale w przypadku importu z pliku, name[] zawiera całą nazwę pliku (z producentem),
-                // więc nie powinniśmy tworzyć kombinacji
-                finalGroupName = customGroupNameFromParam.trim();
-                logger.debug("🔍 Używam groupName[] bezpośrednio: '{}' (bez kombinacji z name[])", finalGroupName);
-            } else if (customGroupName != null && !customGroupName.trim().isEmpty()) {
-                // Frontend przesłał wartość w name[] - wyciągnij z niej tylko część grupy (bez producenta)
-                finalGroupName = extractGroupNameFromCustomName(customGroupName.trim(), manufacturer);
-                logger.debug("🔍 groupName[] puste, używam wyciągniętego z name[]: '{}' → '{}'", 
-                            customGroupName, finalGroupName);
-            } else {
-                // Frontend nie przesłał wartości - to nie powinno się zdarzyć (walidacja w frontendzie)
-                // Fallback tylko dla bezpieczeństwa
-                logger.warn("⚠️ Frontend nie przesłał grupy produktowej dla pliku: {} - używam fallback z nazwy pliku", fileName);
-                finalGroupName = extractGroupNameFromFileName(fileName);
-            }
+            TargetGroup target = resolveTargetGroup(fileName, customGroupName, customManufacturer, customGroupNameFromParam);
+            String manufacturer = target.getManufacturer();
+            String finalGroupName = target.getGroupName();
             
             // 5. Przetwarzanie produktów (ustawianie manufacturer, groupName, kalkulacje cen)
             // Mapowanie produktów do grup dla ustawienia displayOrder
@@ -274,6 +232,84 @@ public class ProductImportService {
         return allProducts;
     }
 
+    /**
+     * Rozwiąż docelową grupę (producent + nazwa grupy) dla pliku - BEZ parsowania zawartości
+     * Na podstawie wartości z formularza (manufacturer[], groupName[], name[]) z fallbackiem do nazwy pliku
+     */
+    public TargetGroup resolveTargetGroup(String fileName,
+                                          String customGroupName,
+                                          String customManufacturer,
+                                          String customGroupNameFromParam) {
+        // ⚠️ WAŻNE: Frontend zawsze wysyła wartości (editableManufacturer i editableGroupName)
+        // Frontend dba o walidację - wartości nie mogą być puste
+        // Używamy BEZPOŚREDNIO wartości z frontendu (z sugestii), bez fallbacku do parsowania z nazwy pliku
+        String manufacturer;
+        if (customManufacturer != null && !customManufacturer.trim().isEmpty()) {
+            // Frontend przesłał wartość - użyj jej BEZPOŚREDNIO (z sugestii)
+            manufacturer = customManufacturer.trim();
+        } else {
+            // Frontend nie przesłał wartości - to nie powinno się zdarzyć (walidacja w frontendzie)
+            // Fallback tylko dla bezpieczeństwa
+            logger.warn("⚠️ Frontend nie przesłał producenta dla pliku: {} - używam fallback z nazwy pliku", fileName);
+            manufacturer = getManufacturer(fileName);
+        }
+        
+        // ⚠️ WAŻNE: Frontend zawsze wysyła wartości (editableGroupName)
+        // Frontend dba o walidację - wartości nie mogą być puste
+        // Używamy BEZPOŚREDNIO wartości z frontendu (z sugestii), bez fallbacku do parsowania z nazwy pliku
+        // ⚠️ NOWA LOGIKA: Jeśli groupName[] jest wypełnione, używamy go jako finalGroupName
+        // Jeśli groupName[] jest puste, używamy name[] (customGroupName) jako fallback dla finalGroupName
+        // ⚠️ WAŻNE: Aby "Nazwa produktu w systemie" była częścią identyfikatora, jeśli użytkownik zmieni
+        // tylko "Nazwa produktu w systemie" (a groupName pozostaje takie samo), to utworzy nowy cennik.
+        // Więc jeśli groupName jest wypełnione, ale różne od customGroupName, to używamy kombinacji
+        // manufacturer + groupName + customGroupName jako identyfikatora grupy.
+        String finalGroupName;
+        if (customGroupNameFromParam != null && !customGroupNameFromParam.trim().isEmpty()) {
+            // Frontend przesłał wartość w groupName[] - użyj jej BEZPOŚREDNIO (z sugestii)
+            // ⚠️ WAŻNE: groupName[] jest już poprawnie wyciągnięte z nazwy pliku przez frontend,
+            // więc używamy go bezpośrednio bez dodatkowego parsowania
+            // ⚠️ ZMIANA: NIE tworzymy kombinacji z name[], bo groupName[] jest już poprawne
+            // Kombinacja była potrzebna tylko gdy użytkownik RZECZYWIŚCIE zmienił "Nazwa produktu w systemie"
+            // ale w przypadku importu z pliku, name[] zawiera całą nazwę pliku (z producentem),
+            // więc nie powinniśmy tworzyć kombinacji
+            finalGroupName = customGroupNameFromParam.trim();
+            logger.debug("🔍 Używam groupName[] bezpośrednio: '{}' (bez kombinacji z name[])", finalGroupName);
+        } else if (customGroupName != null && !customGroupName.trim().isEmpty()) {
+            // Frontend przesłał wartość w name[] - wyciągnij z niej tylko część grupy (bez producenta)
+            finalGroupName = extractGroupNameFromCustomName(customGroupName.trim(), manufacturer);
+            logger.debug("🔍 groupName[] puste, używam wyciągniętego z name[]: '{}' → '{}'", 
+                        customGroupName, finalGroupName);
+        } else {
+            // Frontend nie przesłał wartości - to nie powinno się zdarzyć (walidacja w frontendzie)
+            // Fallback tylko dla bezpieczeństwa
+            logger.warn("⚠️ Frontend nie przesłał grupy produktowej dla pliku: {} - używam fallback z nazwy pliku", fileName);
+            finalGroupName = extractGroupNameFromFileName(fileName);
+        }
+        
+        return new TargetGroup(manufacturer, finalGroupName);
+    }
+
+    /**
+     * Docelowa grupa produktowa pliku importu (manufacturer + groupName)
+     */
+    public static class TargetGroup {
+        private final String manufacturer;
+        private final String groupName;
+
+        public TargetGroup(String manufacturer, String groupName) {
+            this.manufacturer = manufacturer;
+            this.groupName = groupName;
+        }
+
+        public String getManufacturer() {
+            return manufacturer;
+        }
+
+        public String getGroupName() {
+            return groupName;
+        }
+    }
+
     /**
      * Wyciąga producenta z nazwy pliku
      * Producent = TYLKO pierwsze słowo
@@ -0,0 +1,476 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.koszela.nowoczesnebud.DTO.ProductSearchHit;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * ⚡ OPTYMALIZACJA: Indeks wyszukiwania produktów w pamięci JVM (wszystkie kategorie)
+ * - słowa z name, mapperName, manufacturer i groupName, znormalizowane (małe litery, bez polskich znaków)
+ * - wyszukiwanie po prefiksie słowa: posortowana mapa słów (TreeMap.subMap zamiast przeglądania wszystkich)
+ * - wyszukiwanie fragmentu w środku słowa: listy trigramów (przecięcie list, potem weryfikacja)
+ *
+ * Odświeżanie przyrostowe (ProductSearchIndexScheduler):
+ * - sygnał zmian: liczba wierszy i MAX(updated_at) products oraz liczba i MAX(deleted_at) znaczników usunięcia -
+ *   natywnie (bez @Where), MAX(updated_at) z indeksu idx_product_updated_at
+ * - przy zmianie (i jeszcze przez app.search.refresh-overlap-ms po niej): wiersze z updated_at >= ostatniego
+ *   odświeżenia - app.search.refresh-overlap-ms (długa transakcja, np. import, może zapisać updated_at
+ *   wcześniejszy niż zatwierdzone już zmiany)
+ * - przy zmianie liczby wierszy lub znaczników: porównanie id - usunięte/ukryte wypadają z indeksu,
+ *   brakujące (np. wstawione przez transakcję zatwierdzoną po przesunięciu znacznika czasu) są dociągane
+ * Każdy zapis produktów (ORM i JDBC) ustawia updated_at, więc wszystkie ścieżki zapisu są wykrywane.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    // Waga dopasowania w polu: name > mapperName > groupName > manufacturer
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double MAPPER_NAME_WEIGHT = 2.0;
+    private static final double GROUP_NAME_WEIGHT = 1.5;
+    private static final double MANUFACTURER_WEIGHT = 1.0;
+
+    // Dociąganie brakujących produktów paczkami id (limit parametrów IN)
+    private static final int MISSING_IDS_BATCH_SIZE = 1000;
+
+    private static final String PRODUCT_COLUMNS = "SELECT p.id, p.category, p.name, p.mapperName, p.manufacturer, p.groupName FROM Product p";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IndexedProduct> products = new HashMap<>();
+    private final NavigableMap<String, Set<Long>> words = new TreeMap<>();
+    private final Map<String, Set<Long>> trigrams = new HashMap<>();
+
+    private final long refreshOverlapMs;
+
+    private boolean built;
+    private LocalDateTime lastUpdatedAt;
+    private ChangeSignal lastSignal;
+    private long lastChangeMillis;
+
+    public ProductSearchIndex(@Value("${app.search.refresh-overlap-ms:600000}") long refreshOverlapMs) {
+        this.refreshOverlapMs = Math.max(0, refreshOverlapMs);
+    }
+
+    /**
+     * Zbuduj indeks (pierwsze wywołanie) albo dociągnij zmiany od ostatniego odświeżenia
+     * Produkty grup usuniętych (ProductGroupTombstone) są pomijane jak w każdym odczycie Product
+     */
+    @Transactional(readOnly = true)
+    public synchronized void refresh() {
+        long startTime = System.currentTimeMillis();
+        ChangeSignal signal = readChangeSignal();
+        boolean changed = !built || !signal.equals(lastSignal);
+        // Bez zmian sygnału okno overlap jest czytane jeszcze przez refreshOverlapMs od ostatniej zmiany -
+        // zatwierdzona później długa transakcja nie musi przesunąć MAX(updated_at) ani liczby wierszy
+        if (!changed && startTime - lastChangeMillis > refreshOverlapMs) {
+            return;
+        }
+        if (changed) {
+            lastChangeMillis = startTime;
+        }
+
+        List<?> rows;
+        if (!built || lastUpdatedAt == null) {
+            rows = entityManager.createQuery(PRODUCT_COLUMNS).getResultList();
+        } else {
+            rows = entityManager.createQuery(PRODUCT_COLUMNS + " WHERE p.updatedAt >= :since")
+                .setParameter("since", lastUpdatedAt.minusNanos(refreshOverlapMs * 1_000_000L))
+                .getResultList();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                products.clear();
+                words.clear();
+                trigrams.clear();
+            }
+            rows.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        int removed = 0;
+        int added = 0;
+        if (built && (signal.productCount != lastSignal.productCount || !signal.sameTombstones(lastSignal))) {
+            // Usunięte, ukryte lub wstawione produkty - porównanie samych id (bez pozostałych kolumn)
+            Set<Long> currentIds = new HashSet<>(entityManager.createQuery("SELECT p.id FROM Product p", Long.class)
+                .getResultList());
+            List<Long> missingIds = new ArrayList<>();
+            lock.writeLock().lock();
+            try {
+                for (Long id : new ArrayList<>(products.keySet())) {
+                    if (!currentIds.contains(id)) {
+                        unindex(products.get(id));
+                        removed++;
+                    }
+                }
+                for (Long id : currentIds) {
+                    if (!products.containsKey(id)) {
+                        missingIds.add(id);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (int from = 0; from < missingIds.size(); from += MISSING_IDS_BATCH_SIZE) {
+                List<?> missingRows = entityManager.createQuery(PRODUCT_COLUMNS + " WHERE p.id IN (:ids)")
+                    .setParameter("ids", missingIds.subList(from, Math.min(from + MISSING_IDS_BATCH_SIZE, missingIds.size())))
+                    .getResultList();
+                lock.writeLock().lock();
+                try {
+                    missingRows.forEach(this::index);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                added += missingRows.size();
+            }
+        }
+
+        if (changed) {
+            logger.info("⏱️ [PERFORMANCE] Indeks wyszukiwania {}: {} zmienionych, {} dociągniętych, {} usuniętych, {} produktów, {} słów w {}ms",
+                       built ? "odświeżony" : "zbudowany", rows.size(), added, removed, size(), words.size(),
+                       System.currentTimeMillis() - startTime);
+        }
+        built = true;
+        lastSignal = signal;
+        if (signal.maxUpdatedAt != null) {
+            lastUpdatedAt = signal.maxUpdatedAt;
+        }
+    }
+
+    /**
+     * Sygnał zmian: jedno natywne zapytanie (bez @Where Product - bez skorelowanego NOT EXISTS na każdym wierszu)
+     */
+    private ChangeSignal readChangeSignal() {
+        Object[] state = (Object[]) entityManager.createNativeQuery(
+                "SELECT (SELECT COUNT(*) FROM products), (SELECT MAX(updated_at) FROM products), " +
+                "(SELECT COUNT(*) FROM product_group_tombstones), (SELECT MAX(deleted_at) FROM product_group_tombstones)")
+            .getSingleResult();
+        return new ChangeSignal(((Number) state[0]).longValue(), toLocalDateTime(state[1]),
+                                ((Number) state[2]).longValue(), toLocalDateTime(state[3]));
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    private void index(Object row) {
+        Object[] columns = (Object[]) row;
+        index(new IndexedProduct((Long) columns[0], (ProductCategory) columns[1], (String) columns[2],
+                                 (String) columns[3], (String) columns[4], (String) columns[5]));
+    }
+
+    /**
+     * Wyszukaj produkty - każde słowo zapytania musi pasować (prefiks słowa lub fragment) do któregoś pola
+     *
+     * @param category Kategoria (null = wszystkie)
+     * @return Wyniki od najlepszego dopasowania
+     */
+    public List<ProductSearchHit> search(String query, ProductCategory category, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit musi być w zakresie 1-" + MAX_LIMIT);
+        }
+        List<String> queryWords = words(normalize(query));
+        if (queryWords.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<ProductSearchHit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = null;
+            for (String queryWord : queryWords) {
+                Set<Long> matching = candidatesFor(queryWord);
+                if (candidates == null) {
+                    candidates = matching;
+                } else {
+                    candidates.retainAll(matching);
+                }
+                if (candidates.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+
+            for (Long id : candidates) {
+                IndexedProduct product = products.get(id);
+                if (category != null && product.category != category) {
+                    continue;
+                }
+                double score = score(product, queryWords);
+                if (score > 0) {
+                    hits.add(product.toHit(score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(Comparator.comparingDouble(ProductSearchHit::getScore).reversed()
+            .thenComparingInt(hit -> hit.getName() != null ? hit.getName().length() : Integer.MAX_VALUE)
+            .thenComparing(ProductSearchHit::getId));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Małe litery, bez polskich znaków (ą→a, ł→l, ...), znaki inne niż litery i cyfry jako spacja
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('ł', 'l');
+        String withoutDiacritics = DIACRITICS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(withoutDiacritics).replaceAll(" ").trim();
+    }
+
+    private static List<String> words(String normalized) {
+        List<String> result = new ArrayList<>();
+        for (String word : normalized.split(" ")) {
+            if (!word.isEmpty() && !result.contains(word)) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> trigramsOf(String word) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            result.add(word.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    /**
+     * Kandydaci dla słowa zapytania: słowa zaczynające się od niego + (dla 3+ znaków) zawierające wszystkie jego trigramy
+     */
+    private Set<Long> candidatesFor(String queryWord) {
+        Set<Long> result = new HashSet<>();
+        for (Set<Long> ids : words.subMap(queryWord, true, queryWord + Character.MAX_VALUE, true).values()) {
+            result.addAll(ids);
+        }
+        if (queryWord.length() >= 3) {
+            Set<Long> containing = null;
+            for (String trigram : trigramsOf(queryWord)) {
+                Set<Long> posting = trigrams.get(trigram);
+                if (posting == null) {
+                    containing = null;
+                    break;
+                }
+                if (containing == null) {
+                    containing = new HashSet<>(posting);
+                } else {
+                    containing.retainAll(posting);
+                }
+            }
+            if (containing != null) {
+                result.addAll(containing);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Suma po słowach zapytania najlepszego dopasowania w polach (dokładne słowo 3, prefiks 2, fragment 1) × waga pola
+     * 0 = któreś słowo nie pasuje (np. trigramy z różnych słów produktu)
+     */
+    private static double score(IndexedProduct product, List<String> queryWords) {
+        double total = 0;
+        for (String queryWord : queryWords) {
+            double best = Math.max(
+                Math.max(fieldScore(product.name, queryWord) * NAME_WEIGHT,
+                         fieldScore(product.mapperName, queryWord) * MAPPER_NAME_WEIGHT),
+                Math.max(fieldScore(product.groupName, queryWord) * GROUP_NAME_WEIGHT,
+                         fieldScore(product.manufacturer, queryWord) * MANUFACTURER_WEIGHT));
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static int fieldScore(List<String> fieldWords, String queryWord) {
+        int best = 0;
+        for (String word : fieldWords) {
+            if (word.equals(queryWord)) {
+                return 3;
+            }
+            if (word.startsWith(queryWord)) {
+                best = 2;
+            } else if (best == 0 && word.contains(queryWord)) {
+                best = 1;
+            }
+        }
+        return best;
+    }
+
+    private void index(IndexedProduct product) {
+        IndexedProduct previous = products.put(product.id, product);
+        if (previous != null) {
+            removePostings(previous);
+        }
+        for (String word : product.allWords()) {
+            words.computeIfAbsent(word, key -> new HashSet<>()).add(product.id);
+            for (String trigram : trigramsOf(word)) {
+                trigrams.computeIfAbsent(trigram, key -> new HashSet<>()).add(product.id);
+            }
+        }
+    }
+
+    private void unindex(IndexedProduct product) {
+        products.remove(product.id);
+        removePostings(product);
+    }
+
+    private void removePostings(IndexedProduct product) {
+        for (String word : product.allWords()) {
+            removePosting(words, word, product.id);
+            for (String trigram : trigramsOf(word)) {
+                removePosting(trigrams, trigram, product.id);
+            }
+        }
+    }
+
+    private static void removePosting(Map<String, Set<Long>> postings, String key, Long id) {
+        Set<Long> ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Stan tabel products i product_group_tombstones - inny niż przy ostatnim odświeżeniu = są zmiany
+     */
+    private static final class ChangeSignal {
+        private final long productCount;
+        private final LocalDateTime maxUpdatedAt;
+        private final long tombstoneCount;
+        private final LocalDateTime maxDeletedAt;
+
+        ChangeSignal(long productCount, LocalDateTime maxUpdatedAt, long tombstoneCount, LocalDateTime maxDeletedAt) {
+            this.productCount = productCount;
+            this.maxUpdatedAt = maxUpdatedAt;
+            this.tombstoneCount = tombstoneCount;
+            this.maxDeletedAt = maxDeletedAt;
+        }
+
+        boolean sameTombstones(ChangeSignal other) {
+            return tombstoneCount == other.tombstoneCount && Objects.equals(maxDeletedAt, other.maxDeletedAt);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ChangeSignal)) {
+                return false;
+            }
+            ChangeSignal other = (ChangeSignal) o;
+            return productCount == other.productCount && Objects.equals(maxUpdatedAt, other.maxUpdatedAt) && sameTombstones(other);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productCount, maxUpdatedAt, tombstoneCount, maxDeletedAt);
+        }
+    }
+
+    /**
+     * Produkt w indeksie - oryginalne wartości do odpowiedzi i znormalizowane słowa pól
+     */
+    private static final class IndexedProduct {
+        private final Long id;
+        private final ProductCategory category;
+        private final String rawName;
+        private final String rawMapperName;
+        private final String rawManufacturer;
+        private final String rawGroupName;
+        private final List<String> name;
+        private final List<String> mapperName;
+        private final List<String> manufacturer;
+        private final List<String> groupName;
+
+        IndexedProduct(Long id, ProductCategory category, String name, String mapperName,
+                       String manufacturer, String groupName) {
+            this.id = id;
+            this.category = category;
+            this.rawName = name;
+            this.rawMapperName = mapperName;
+            this.rawManufacturer = manufacturer;
+            this.rawGroupName = groupName;
+            this.name = words(normalize(name));
+            this.mapperName = words(normalize(mapperName));
+            this.manufacturer = words(normalize(manufacturer));
+            this.groupName = words(normalize(groupName));
+        }
+
+        Set<String> allWords() {
+            Set<String> result = new HashSet<>(name);
+            result.addAll(mapperName);
+            result.addAll(manufacturer);
+            result.addAll(groupName);
+            return result;
+        }
+
+        ProductSearchHit toHit(double score) {
+            ProductSearchHit hit = new ProductSearchHit();
+            hit.setId(id);
+            hit.setCategory(category);
+            hit.setName(rawName);
+            hit.setMapperName(rawMapperName);
+            hit.setManufacturer(rawManufacturer);
+            hit.setGroupName(rawGroupName);
+            hit.setScore(score);
+            return hit;
+        }
+    }
+}
@@ -1,21 +1,35 @@
 package pl.koszela.nowoczesnebud.Service;
 
 import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.EntityPersister;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import pl.koszela.nowoczesnebud.DTO.CatalogHierarchyResponse;
+import pl.koszela.nowoczesnebud.DTO.CatalogRenameResult;
+import pl.koszela.nowoczesnebud.DTO.ImportFileResult;
+import pl.koszela.nowoczesnebud.DTO.ImportResponse;
+import pl.koszela.nowoczesnebud.DTO.ProductPageRequest;
+import pl.koszela.nowoczesnebud.DTO.ProductPageResponse;
 import pl.koszela.nowoczesnebud.Model.GlobalDiscount;
 import pl.koszela.nowoczesnebud.Model.Input;
 import pl.koszela.nowoczesnebud.Model.GroupOption;
+import pl.koszela.nowoczesnebud.Model.PriceListImport;
+import pl.koszela.nowoczesnebud.Model.PriceListImportStatus;
 import pl.koszela.nowoczesnebud.Model.Product;
 import pl.koszela.nowoczesnebud.Model.ProductCategory;
 import pl.koszela.nowoczesnebud.Repository.ProductRepository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.Attribute;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -23,8 +37,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -39,6 +58,41 @@ import java.util.stream.Collectors;
 public class ProductService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    /**
+     * Odstęp między kolejnymi displayOrder w grupie (0, 1024, 2048, ...)
+     * Przesunięcie produktu wstawia go pomiędzy sąsiadów bez zmiany ich displayOrder
+     */
+    public static final int DISPLAY_ORDER_GAP = 1024;
+
+    /**
+     * Rozmiar strony listy produktów (GET /api/products/page)
+     */
+    public static final int PRODUCT_PAGE_DEFAULT_LIMIT = 100;
+    public static final int PRODUCT_PAGE_MAX_LIMIT = 500;
+
+    /**
+     * Pola wypełniane w serwisie (nie z bazy), dozwolone w projekcji fields=
+     */
+    private static final List<String> PRODUCT_PAGE_GLOBAL_DISCOUNT_FIELDS =
+        List.of("globalMainDiscount", "globalOptionalDiscount", "hasGlobalDiscount");
+
+    private static final String PAGE_CURSOR_SEPARATOR = "\0";
+    private static final String PAGE_CURSOR_VALUE = "=";
+
+    /**
+     * Serializacja atrybutów grup do JSON (ObjectMapper jest bezpieczny wątkowo - jedna instancja)
+     */
+    private static final com.fasterxml.jackson.databind.ObjectMapper ATTRIBUTES_OBJECT_MAPPER =
+        new com.fasterxml.jackson.databind.ObjectMapper();
+
+    private static final com.fasterxml.jackson.core.type.TypeReference<LinkedHashMap<String, List<String>>> GROUP_ATTRIBUTES_TYPE =
+        new com.fasterxml.jackson.core.type.TypeReference<LinkedHashMap<String, List<String>>>() {};
+
+    /**
+     * Długość kolumny product_group_attributes.attributes
+     */
+    private static final int GROUP_ATTRIBUTES_MAX_LENGTH = 4000;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -50,6 +104,16 @@ public class ProductService {
     private final ProductValidationService productValidationService;
     private final pl.koszela.nowoczesnebud.Repository.ProductGroupAttributesRepository productGroupAttributesRepository;
     private final DiscountCalculationService discountCalculationService;
+    private final PriceListImportHistoryService priceListImportHistoryService;
+    private final CatalogHierarchyService catalogHierarchyService;
+    private final AttributeFacetIndex attributeFacetIndex;
+    private final CatalogPurgeService catalogPurgeService;
+
+    /**
+     * Soft delete grup (ProductGroupTombstone) zamiast fizycznego DELETE w transakcji żądania
+     * Domyślnie wyłączony (app.catalog.soft-delete.enabled=true włącza) - bez znaczników tabela jest pusta
+     */
+    private final boolean catalogSoftDeleteEnabled;
 
     public ProductService(ProductRepository productRepository,
                          ProductImportService productImportService,
@@ -57,7 +121,12 @@ public class ProductService {
                          GlobalDiscountService globalDiscountService,
                          ProductValidationService productValidationService,
                          pl.koszela.nowoczesnebud.Repository.ProductGroupAttributesRepository productGroupAttributesRepository,
-                         DiscountCalculationService discountCalculationService) {
+                         DiscountCalculationService discountCalculationService,
+                         PriceListImportHistoryService priceListImportHistoryService,
+                         CatalogHierarchyService catalogHierarchyService,
+                         AttributeFacetIndex attributeFacetIndex,
+                         CatalogPurgeService catalogPurgeService,
+                         @Value("${app.catalog.soft-delete.enabled:false}") boolean catalogSoftDeleteEnabled) {
         this.productRepository = productRepository;
         this.productImportService = productImportService;
         this.priceCalculationService = priceCalculationService;
@@ -65,6 +134,11 @@ public class ProductService {
         this.productValidationService = productValidationService;
         this.productGroupAttributesRepository = productGroupAttributesRepository;
         this.discountCalculationService = discountCalculationService;
+        this.priceListImportHistoryService = priceListImportHistoryService;
+        this.catalogHierarchyService = catalogHierarchyService;
+        this.attributeFacetIndex = attributeFacetIndex;
+        this.catalogPurgeService = catalogPurgeService;
+        this.catalogSoftDeleteEnabled = catalogSoftDeleteEnabled;
     }
 
     /**
@@ -78,6 +152,124 @@ public class ProductService {
             List<String> manufacturers,
             List<String> groupNames,
             ProductCategory category) throws IOException {
+        return importPriceLists(files, customNames, manufacturers, groupNames, category).getAllProducts();
+    }
+
+    /**
+     * IMPORT CENNIKÓW z deduplikacją po SHA-256 zawartości pliku
+     * ⚡ OPTYMALIZACJA: Plik identyczny z ostatnio zaimportowanym/wyeksportowanym dla tej samej grupy
+     * (i grupa nie zmieniła się od tego czasu) jest pomijany BEZ parsowania Excela - status UNCHANGED
+     * 
+     * @return Wynik per plik (status IMPORTED/UNCHANGED) + zapisane nowe produkty w allProducts
+     */
+    @Transactional
+    public ImportResponse importPriceLists(
+            List<MultipartFile> files,
+            List<String> customNames,
+            List<String> manufacturers,
+            List<String> groupNames,
+            ProductCategory category) throws IOException {
+
+        if (files.size() != customNames.size()) {
+            throw new IllegalArgumentException("Liczba plików musi być równa liczbie nazw");
+        }
+
+        // 1. Policz SHA-256 i rozwiąż grupę docelową każdego pliku - pomiń pliki niezmienione
+        List<ImportFileResult> fileResults = new ArrayList<>();
+        List<MultipartFile> changedFiles = new ArrayList<>();
+        List<String> changedNames = new ArrayList<>();
+        List<String> changedManufacturers = manufacturers != null ? new ArrayList<>() : null;
+        List<String> changedGroupNames = groupNames != null ? new ArrayList<>() : null;
+        List<String> changedHashes = new ArrayList<>();
+        List<ImportFileResult> changedResults = new ArrayList<>();
+
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            String customName = customNames.get(i);
+            String customManufacturer = (manufacturers != null && i < manufacturers.size()) ? manufacturers.get(i) : null;
+            String customGroupName = (groupNames != null && i < groupNames.size()) ? groupNames.get(i) : null;
+
+            String sha256 = PriceListImportHistoryService.sha256(file.getBytes());
+            ProductImportService.TargetGroup target = productImportService.resolveTargetGroup(
+                file.getOriginalFilename(), customName, customManufacturer, customGroupName);
+
+            ImportFileResult result = new ImportFileResult(file.getOriginalFilename(), customName,
+                target.getManufacturer(), target.getGroupName(), 0, true);
+            fileResults.add(result);
+
+            Optional<PriceListImport> unchanged = priceListImportHistoryService.findUnchanged(
+                category, target.getManufacturer(), target.getGroupName(), sha256);
+            if (unchanged.isPresent()) {
+                logger.info("⏭️ Plik {} niezmieniony (SHA-256 {}…, ostatnio {} {}) - pomijam parsowanie",
+                           file.getOriginalFilename(), sha256.substring(0, 12),
+                           unchanged.get().getStatus(), unchanged.get().getProcessedAt());
+                // Grupa z historii (dla pliku z eksportu - dokładny producent, nie postać z nazwy pliku)
+                result.setManufacturer(unchanged.get().getManufacturer());
+                result.setGroupName(unchanged.get().getGroupName());
+                result.setStatus(PriceListImportStatus.UNCHANGED.name());
+                priceListImportHistoryService.record(category, result.getManufacturer(), result.getGroupName(),
+                    sha256, file.getOriginalFilename(), customName, customManufacturer, customGroupName,
+                    PriceListImportStatus.UNCHANGED, 0);
+                continue;
+            }
+
+            result.setStatus(PriceListImportStatus.IMPORTED.name());
+            changedFiles.add(file);
+            changedNames.add(customName);
+            if (changedManufacturers != null) {
+                changedManufacturers.add(customManufacturer);
+            }
+            if (changedGroupNames != null) {
+                changedGroupNames.add(customGroupName);
+            }
+            changedHashes.add(sha256);
+            changedResults.add(result);
+        }
+
+        List<Product> savedProducts = changedFiles.isEmpty()
+            ? new ArrayList<>()
+            : saveNewProducts(changedFiles, changedNames, changedManufacturers, changedGroupNames, category);
+
+        // 2. Zapisz historię importu zmienionych plików (stan grupy odczytany po zapisie produktów)
+        Map<String, Integer> savedPerGroup = new HashMap<>();
+        for (Product product : savedProducts) {
+            savedPerGroup.merge(product.getManufacturer() + "|" + product.getGroupName(), 1, Integer::sum);
+        }
+        for (int i = 0; i < changedFiles.size(); i++) {
+            ImportFileResult result = changedResults.get(i);
+            int savedCount = savedPerGroup.getOrDefault(result.getManufacturer() + "|" + result.getGroupName(), 0);
+            result.setProductsCount(savedCount);
+            priceListImportHistoryService.record(category, result.getManufacturer(), result.getGroupName(),
+                changedHashes.get(i), result.getFileName(), changedNames.get(i),
+                changedManufacturers != null ? changedManufacturers.get(i) : null,
+                changedGroupNames != null ? changedGroupNames.get(i) : null,
+                PriceListImportStatus.IMPORTED, savedCount);
+        }
+
+        ImportResponse response = new ImportResponse(files.size(), files.size(), 0, fileResults);
+        response.setAllProducts(savedProducts);
+        return response;
+    }
+
+    /**
+     * Historia importów cenników grupy (lub całej kategorii gdy manufacturer/groupName == null)
+     */
+    public List<PriceListImport> getImportHistory(ProductCategory category, String manufacturer, String groupName) {
+        if (manufacturer == null || groupName == null) {
+            return priceListImportHistoryService.getHistory(category);
+        }
+        return priceListImportHistoryService.getHistory(category, manufacturer, groupName);
+    }
+
+    /**
+     * Parsuj pliki i zapisz tylko produkty, których jeszcze nie ma w bazie
+     */
+    private List<Product> saveNewProducts(
+            List<MultipartFile> files,
+            List<String> customNames,
+            List<String> manufacturers,
+            List<String> groupNames,
+            ProductCategory category) throws IOException {
 
         // 1. Pobierz istniejące produkty tej kategorii (do sprawdzenia duplikatów)
         List<Product> existingProducts = productRepository.findByCategory(category);
@@ -86,6 +278,9 @@ public class ProductService {
         List<Product> importedProducts = productImportService.importProductsWithCustomNames(
             files, customNames, manufacturers, groupNames, category);
 
+        // Grupy czekające na usunięcie (soft delete) importowane ponownie - wyczyść je od razu
+        purgeDeletedImportedGroups(category, importedProducts);
+
         // 3. Sprawdź duplikaty i filtruj tylko nowe produkty
         List<Product> newProducts = new ArrayList<>();
         
@@ -129,6 +324,61 @@ public class ProductService {
         }
     }
 
+    /**
+     * Wyczyść od razu znaczniki usunięcia (i ukryte produkty) grup, do których trafia import
+     * Zwykle brak znaczników w kategorii - jedno zapytanie
+     */
+    private void purgeDeletedImportedGroups(ProductCategory category, List<Product> importedProducts) {
+        List<?> tombstones = entityManager.createNativeQuery(
+                "SELECT id, manufacturer, group_name FROM product_group_tombstones WHERE category = :category")
+            .setParameter("category", category.name())
+            .getResultList();
+        if (tombstones.isEmpty()) {
+            return;
+        }
+
+        Set<String> importedGroups = new HashSet<>();
+        for (Product product : importedProducts) {
+            importedGroups.add(product.getManufacturer() + "|" + product.getGroupName());
+        }
+        List<Long> tombstoneIds = new ArrayList<>();
+        for (Object row : tombstones) {
+            Object[] columns = (Object[]) row;
+            if (importedGroups.contains(columns[1] + "|" + columns[2])) {
+                tombstoneIds.add(((Number) columns[0]).longValue());
+            }
+        }
+        if (!tombstoneIds.isEmpty()) {
+            int purged = catalogPurgeService.purgeGroupsNow(tombstoneIds);
+            logger.info("🗑️ Import: wyczyszczono {} grup czekających na usunięcie ({} produktów)",
+                       tombstoneIds.size(), purged);
+        }
+    }
+
+    /**
+     * Rzuć IllegalArgumentException jeśli walidacja wsadowa znalazła błędy, zaloguj ostrzeżenia
+     * ⚠️ WAŻNE: Import cenników nie jest walidowany - cenniki producentów importują się tak jak są
+     */
+    private void throwIfInvalid(ProductValidationService.BatchValidationResult validation) {
+        if (!validation.isAllValid()) {
+            List<String> errors = validation.getAllErrors();
+            logger.error("❌ Walidacja nie powiodła się ({} produktów z błędami{}):", validation.getErrorCount(),
+                        validation.isAborted() ? ", przerwano po limicie błędów" : "");
+            errors.forEach(error -> logger.error("  - {}", error));
+            throw new IllegalArgumentException(
+                "Walidacja nie powiodła się: " + String.join("; ", errors)
+            );
+        }
+        
+        // Loguj ostrzeżenia (jeśli są)
+        if (validation.getWarningCount() > 0) {
+            logger.warn("⚠️ Ostrzeżenia walidacji: {} produktów", validation.getWarningCount());
+            if (logger.isDebugEnabled()) {
+                validation.getAllWarnings().forEach(warning -> logger.debug("  - {}", warning));
+            }
+        }
+    }
+
     /**
      * ⚡ OPTYMALIZACJA: Batch insert produktów (JDBC batch insert zamiast Hibernate ORM)
      * Znacznie szybsze niż Hibernate ORM dla dużej liczby produktów (100+)
@@ -140,6 +390,7 @@ public class ProductService {
         long startTime = System.currentTimeMillis();
         int totalProducts = products.size();
         logger.info("⏱️ [PERFORMANCE] BATCH INSERT PRODUCTS - START | rekordów: {}", totalProducts);
+        catalogHierarchyService.catalogChanged(null);
         
         String sql = "INSERT INTO products " +
                     "(name, manufacturer, category, group_name, retail_price, purchase_price, " +
@@ -250,12 +501,200 @@ public class ProductService {
      * Pobierz wszystkie produkty danej kategorii
      * UWAGA: Wypełnia rabaty globalne!
      */
+    @Transactional(readOnly = true)
     public List<Product> getAllProductsByCategory(ProductCategory category) {
         List<Product> products = productRepository.findByCategory(category);
         fillGlobalDiscounts(products, category);
         return products;
     }
 
+    /**
+     * ⚡ OPTYMALIZACJA: Strona produktów kategorii z filtrami po stronie serwera
+     * - keyset (manufacturer, groupName, displayOrder, id) zamiast OFFSET - koszt strony nie rośnie z jej numerem
+     * - sortowanie i warunek kursora na surowych kolumnach indeksu idx_product_page_key (bez COALESCE),
+     *   NULL jak najmniejsza wartość (kolejność NULL w ORDER BY w MySQL i H2) - obsługiwany przez IS NULL
+     * - fields= pobiera z bazy tylko wskazane kolumny (bez hydracji encji)
+     *
+     * @return Strona z nextCursor (null = ostatnia strona)
+     */
+    @Transactional(readOnly = true)
+    public ProductPageResponse getProductsPage(ProductPageRequest request) {
+        if (request.getCategory() == null) {
+            throw new IllegalArgumentException("Kategoria jest wymagana");
+        }
+        int limit = request.getLimit() != null ? request.getLimit() : PRODUCT_PAGE_DEFAULT_LIMIT;
+        if (limit < 1 || limit > PRODUCT_PAGE_MAX_LIMIT) {
+            throw new IllegalArgumentException("limit musi być w zakresie 1-" + PRODUCT_PAGE_MAX_LIMIT);
+        }
+        List<String> fields = validatePageFields(request.getFields());
+
+        Map<String, Object> parameters = new HashMap<>();
+        StringBuilder where = new StringBuilder(" FROM Product p WHERE p.category = :category");
+        parameters.put("category", request.getCategory());
+        appendPageFilter(where, parameters, "p.manufacturer = :manufacturer", "manufacturer", request.getManufacturer());
+        appendPageFilter(where, parameters, "p.groupName = :groupName", "groupName", request.getGroupName());
+        appendPageFilter(where, parameters, "p.productType = :productType", "productType", request.getProductType());
+        appendPageFilter(where, parameters, "p.accessoryType = :accessoryType", "accessoryType", request.getAccessoryType());
+        appendPageFilter(where, parameters, "p.retailPrice >= :minPrice", "minPrice", request.getMinPrice());
+        appendPageFilter(where, parameters, "p.retailPrice <= :maxPrice", "maxPrice", request.getMaxPrice());
+        if (request.getName() != null && !request.getName().trim().isEmpty()) {
+            String escaped = request.getName().trim().toLowerCase()
+                .replace("!", "!!").replace("%", "!%").replace("_", "!_");
+            appendPageFilter(where, parameters, "LOWER(p.name) LIKE :name ESCAPE '!'", "name", "%" + escaped + "%");
+        }
+        if (request.getCursor() != null && !request.getCursor().isEmpty()) {
+            Object[] cursor = decodePageCursor(request.getCursor());
+            parameters.put("cId", cursor[3]);
+            String seek = "p.id > :cId";
+            String[] keyColumns = {"p.manufacturer", "p.groupName", "p.displayOrder"};
+            String[] keyParameters = {"cManufacturer", "cGroup", "cOrder"};
+            for (int i = keyColumns.length - 1; i >= 0; i--) {
+                if (cursor[i] == null) {
+                    seek = keyColumns[i] + " IS NOT NULL OR (" + keyColumns[i] + " IS NULL AND (" + seek + "))";
+                } else {
+                    seek = keyColumns[i] + " > :" + keyParameters[i] + " OR (" + keyColumns[i] + " = :" + keyParameters[i] +
+                           " AND (" + seek + "))";
+                    parameters.put(keyParameters[i], cursor[i]);
+                }
+            }
+            where.append(" AND (").append(seek).append(")");
+            // Zakres na pierwszej kolumnie klucza - początek skanu indeksu zamiast całej kategorii
+            if (cursor[0] != null) {
+                where.append(" AND p.manufacturer >= :cManufacturer");
+            }
+        }
+        String orderBy = " ORDER BY p.manufacturer, p.groupName, p.displayOrder, p.id";
+
+        List<Object> items = new ArrayList<>();
+        Object[] lastKey = null;
+        boolean hasMore;
+
+        if (fields == null) {
+            TypedQuery<Product> query = entityManager.createQuery("SELECT p" + where + orderBy, Product.class);
+            parameters.forEach(query::setParameter);
+            List<Product> products = query.setMaxResults(limit + 1).getResultList();
+            hasMore = products.size() > limit;
+            List<Product> page = hasMore ? products.subList(0, limit) : products;
+            fillGlobalDiscounts(page, request.getCategory());
+            items.addAll(page);
+            if (!page.isEmpty()) {
+                Product last = page.get(page.size() - 1);
+                lastKey = new Object[] {last.getManufacturer(), last.getGroupName(), last.getDisplayOrder(), last.getId()};
+            }
+        } else {
+            // Kolumny klucza zawsze pobierane (kursor), w odpowiedzi tylko pola z fields
+            List<String> columns = fields.stream()
+                .filter(field -> !PRODUCT_PAGE_GLOBAL_DISCOUNT_FIELDS.contains(field))
+                .collect(Collectors.toList());
+            StringBuilder select = new StringBuilder("SELECT p.manufacturer, p.groupName, p.displayOrder, p.id");
+            columns.forEach(column -> select.append(", p.").append(column));
+            Query query = entityManager.createQuery(select + where.toString() + orderBy);
+            parameters.forEach(query::setParameter);
+            List<?> rows = query.setMaxResults(limit + 1).getResultList();
+            hasMore = rows.size() > limit;
+            Double mainPercent = null;
+            Double optionalPercent = null;
+            if (fields.stream().anyMatch(PRODUCT_PAGE_GLOBAL_DISCOUNT_FIELDS::contains)) {
+                mainPercent = globalDiscountService.getCurrentMainDiscount(request.getCategory())
+                    .map(GlobalDiscount::getDiscountPercent).orElse(null);
+                optionalPercent = globalDiscountService.getCurrentOptionalDiscount(request.getCategory())
+                    .map(GlobalDiscount::getDiscountPercent).orElse(null);
+            }
+            for (int i = 0; i < Math.min(rows.size(), limit); i++) {
+                Object[] row = (Object[]) rows.get(i);
+                Map<String, Object> item = new LinkedHashMap<>();
+                for (String field : fields) {
+                    switch (field) {
+                        case "globalMainDiscount": item.put(field, mainPercent); break;
+                        case "globalOptionalDiscount": item.put(field, optionalPercent); break;
+                        case "hasGlobalDiscount": item.put(field, mainPercent != null || optionalPercent != null); break;
+                        default: item.put(field, row[4 + columns.indexOf(field)]);
+                    }
+                }
+                items.add(item);
+                lastKey = row;
+            }
+        }
+
+        ProductPageResponse response = new ProductPageResponse();
+        response.setItems(items);
+        response.setLimit(limit);
+        response.setNextCursor(hasMore && lastKey != null ? encodePageCursor(lastKey) : null);
+        return response;
+    }
+
+    private static void appendPageFilter(StringBuilder where, Map<String, Object> parameters,
+                                         String condition, String name, Object value) {
+        if (value == null || (value instanceof String && ((String) value).isEmpty())) {
+            return;
+        }
+        where.append(" AND ").append(condition);
+        parameters.put(name, value);
+    }
+
+    /**
+     * fields= może zawierać tylko pola zapisywane w bazie i rabaty globalne (bez pól projektu)
+     */
+    private List<String> validatePageFields(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        Set<String> persistent = entityManager.getMetamodel().entity(Product.class).getSingularAttributes().stream()
+            .map(Attribute::getName)
+            .collect(Collectors.toSet());
+        List<String> result = new ArrayList<>();
+        for (String field : fields) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty() || result.contains(trimmed)) {
+                continue;
+            }
+            if (!persistent.contains(trimmed) && !PRODUCT_PAGE_GLOBAL_DISCOUNT_FIELDS.contains(trimmed)) {
+                throw new IllegalArgumentException("Nieznane pole: " + trimmed);
+            }
+            result.add(trimmed);
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    /**
+     * Kursor: Base64URL z klucza ostatniego wiersza strony (manufacturer, groupName, displayOrder, id)
+     * rozdzielonego PAGE_CURSOR_SEPARATOR; wartości poprzedzone PAGE_CURSOR_VALUE, pusta część = NULL
+     */
+    private static String encodePageCursor(Object[] key) {
+        String raw = encodeCursorPart(key[0]) + PAGE_CURSOR_SEPARATOR + encodeCursorPart(key[1]) +
+                     PAGE_CURSOR_SEPARATOR + encodeCursorPart(key[2]) + PAGE_CURSOR_SEPARATOR + key[3];
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encodeCursorPart(Object value) {
+        return value != null ? PAGE_CURSOR_VALUE + value : "";
+    }
+
+    private static String decodeCursorPart(String part) {
+        if (part.isEmpty()) {
+            return null;
+        }
+        if (!part.startsWith(PAGE_CURSOR_VALUE)) {
+            throw new IllegalArgumentException("Nieprawidłowy kursor strony");
+        }
+        return part.substring(PAGE_CURSOR_VALUE.length());
+    }
+
+    private static Object[] decodePageCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(PAGE_CURSOR_SEPARATOR, -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Nieprawidłowy kursor strony");
+            }
+            String displayOrder = decodeCursorPart(parts[2]);
+            return new Object[] {decodeCursorPart(parts[0]), decodeCursorPart(parts[1]),
+                                 displayOrder != null ? Integer.valueOf(displayOrder) : null, Long.valueOf(parts[3])};
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException i błędy Base64 to też IllegalArgumentException
+            throw new IllegalArgumentException("Nieprawidłowy kursor strony", e);
+        }
+    }
+
     /**
      * Wypełnia produkty informacjami o rabatach globalnych
      */
@@ -280,16 +719,25 @@ public class ProductService {
 
     /**
      * Pobierz producentów dla kategorii
+     * ⚡ OPTYMALIZACJA: Z drzewa katalogu w cache (CatalogHierarchyService) zamiast SELECT DISTINCT
      */
     public List<String> getManufacturers(ProductCategory category) {
-        return productRepository.findDistinctManufacturersByCategory(category);
+        return catalogHierarchyService.getManufacturers(category);
     }
 
     /**
      * Pobierz grupy dla producenta i kategorii
+     * ⚡ OPTYMALIZACJA: Z drzewa katalogu w cache (CatalogHierarchyService) zamiast SELECT DISTINCT
      */
     public List<String> getGroupNames(ProductCategory category, String manufacturer) {
-        return productRepository.findDistinctGroupNamesByCategoryAndManufacturer(category, manufacturer);
+        return catalogHierarchyService.getGroupNames(category, manufacturer);
+    }
+
+    /**
+     * Drzewo katalogu kategorii: producent → grupa → liczby produktów (z cache)
+     */
+    public CatalogHierarchyResponse getCatalogHierarchy(ProductCategory category) {
+        return catalogHierarchyService.getHierarchy(category);
     }
 
     /**
@@ -310,18 +758,22 @@ public class ProductService {
         logger.info("⏱️ [PERFORMANCE] checkExistingGroups - START | kategoria: {} | sprawdzanych par: {}", 
                    category, manufacturerGroupPairs.size());
         
-        // ⚡ OPTYMALIZACJA: Zamiast 367 zapytań (po jednym dla każdej pary), wykonujemy 1 zapytanie SQL
-        // Pobierz wszystkie unikalne kombinacje (manufacturer, groupName) z bazy dla danej kategorii
-        List<Product> allProductsInCategory = productRepository.findByCategory(category);
-        
-        // Utwórz Set z istniejących kombinacji (manufacturer, groupName) dla szybkiego wyszukiwania O(1)
-        Set<String> existingCombinations = allProductsInCategory.stream()
-                .filter(p -> p.getManufacturer() != null && p.getGroupName() != null)
-                .map(p -> p.getManufacturer() + "|||" + p.getGroupName()) // Separator ||| aby uniknąć kolizji
-                .collect(Collectors.toSet());
+        // ⚡ OPTYMALIZACJA: Kombinacje (manufacturer, groupName) z drzewa katalogu w cache
+        // zamiast ładowania wszystkich produktów kategorii (findByCategory)
+        Set<String> existingCombinations = new HashSet<>();
+        for (CatalogHierarchyResponse.ManufacturerNode manufacturer : catalogHierarchyService.getHierarchy(category).getManufacturers()) {
+            if (manufacturer.getManufacturer() == null) {
+                continue;
+            }
+            for (CatalogHierarchyResponse.GroupNode group : manufacturer.getGroups()) {
+                if (group.getGroupName() != null) {
+                    existingCombinations.add(manufacturer.getManufacturer() + "|||" + group.getGroupName()); // Separator ||| aby uniknąć kolizji
+                }
+            }
+        }
         
         long queryTime = System.currentTimeMillis() - startTime;
-        logger.info("⏱️ [PERFORMANCE] checkExistingGroups - zapytanie SQL: {}ms | znaleziono {} unikalnych kombinacji w bazie", 
+        logger.info("⏱️ [PERFORMANCE] checkExistingGroups - drzewo katalogu: {}ms | znaleziono {} unikalnych kombinacji w bazie", 
                    queryTime, existingCombinations.size());
         
         // Sprawdź które pary z requestu istnieją w bazie
@@ -367,68 +819,24 @@ public class ProductService {
 
     /**
      * Pobierz słownik sugestii atrybutów dla autouzupełniania
-     * Parsuje attributes JSON ze wszystkich GRUP PRODUKTOWYCH danej kategorii
-     * i zbiera unikalne klucze i wartości
+     * Unikalne klucze i wartości z atrybutów wszystkich GRUP PRODUKTOWYCH danej kategorii
+     * ⚡ OPTYMALIZACJA: Z indeksu atrybutów w pamięci (AttributeFacetIndex) - JSON nie jest parsowany przy każdym żądaniu
      * 
      * @param category Kategoria produktu (TILE, GUTTER, ACCESSORY)
      * @return Mapa: {"kolor": ["czerwony","brązowy"], "kształt": ["płaska","karpiówka"]}
      */
     public Map<String, List<String>> getAttributeSuggestions(ProductCategory category) {
         logger.debug("Pobieranie słownika atrybutów dla kategorii: {}", category);
-        
-        // Mapa wynikowa: klucz atrybutu -> lista unikalnych wartości
-        Map<String, Set<String>> attributeMap = new HashMap<>();
-        
-        // Pobierz wszystkie atrybuty GRUP produktowych dla danej kategorii
-        List<pl.koszela.nowoczesnebud.Model.ProductGroupAttributes> groupAttributes = 
-            productGroupAttributesRepository.findByCategory(category);
-        logger.debug("Znaleziono {} grup z atrybutami w kategorii {}", groupAttributes.size(), category);
-        
-        // Parsuj atrybuty JSON dla każdej grupy
-        for (pl.koszela.nowoczesnebud.Model.ProductGroupAttributes group : groupAttributes) {
-            String attributesJson = group.getAttributes();
-            
-            // Pomiń grupy bez atrybutów
-            if (attributesJson == null || attributesJson.trim().isEmpty()) {
-                continue;
-            }
-            
-            try {
-                // Parsuj JSON do mapy
-                // Przykład: {"kolor":["czerwony","brązowy"],"kształt":["płaska"]}
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                @SuppressWarnings("unchecked")
-                Map<String, List<String>> groupAttributesMap = mapper.readValue(
-                    attributesJson,
-                    new com.fasterxml.jackson.core.type.TypeReference<Map<String, List<String>>>() {}
-                );
-                
-                // Dodaj wszystkie klucze i wartości do attributeMap
-                for (Map.Entry<String, List<String>> entry : groupAttributesMap.entrySet()) {
-                    String attributeKey = entry.getKey();
-                    List<String> attributeValues = entry.getValue();
-                    
-                    // Dodaj wartości do zbioru (automatycznie usuwa duplikaty)
-                    attributeMap.computeIfAbsent(attributeKey, k -> new java.util.HashSet<>())
-                               .addAll(attributeValues);
-                }
-            } catch (Exception e) {
-                logger.warn("Błąd parsowania atrybutów dla grupy {}/{}: {}", 
-                    group.getManufacturer(), group.getGroupName(), e.getMessage());
-            }
-        }
-        
-        // Konwertuj Set<String> na List<String> i posortuj alfabetycznie
-        Map<String, List<String>> result = new HashMap<>();
-        for (Map.Entry<String, Set<String>> entry : attributeMap.entrySet()) {
-            List<String> sortedValues = entry.getValue().stream()
-                .sorted()
-                .collect(Collectors.toList());
-            result.put(entry.getKey(), sortedValues);
-        }
-        
-        logger.debug("Zwracam słownik z {} atrybutami", result.size());
-        return result;
+        return attributeFacetIndex.getSuggestions(category);
+    }
+
+    /**
+     * Filtr grup produktowych po atrybutach z liczbami grup dla każdej wartości (fasety)
+     * Różne klucze łączone przez AND, wartości jednego klucza przez OR
+     */
+    public pl.koszela.nowoczesnebud.DTO.AttributeFacetResponse filterGroupsByAttributes(
+            ProductCategory category, Map<String, List<String>> filters) {
+        return attributeFacetIndex.filter(category, filters);
     }
 
     /**
@@ -483,8 +891,7 @@ public class ProductService {
         // Konwertuj Map<String, List<String>> do JSON String
         if (request.getAttributes() != null && !request.getAttributes().isEmpty()) {
             try {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                String attributesJson = mapper.writeValueAsString(request.getAttributes());
+                String attributesJson = ATTRIBUTES_OBJECT_MAPPER.writeValueAsString(request.getAttributes());
                 groupAttributes.setAttributes(attributesJson);
                 
                 logger.debug("Zapisano atrybuty JSON: {}", attributesJson);
@@ -861,64 +1268,53 @@ public class ProductService {
 
     /**
      * Zmień kolejność produktów (drag & drop)
-     * Aktualizuje displayOrder dla produktów w podanej kolejności (0, 1, 2, ...)
-     * 
+     * Nadaje displayOrder co DISPLAY_ORDER_GAP w podanej kolejności (0, 1024, 2048, ...)
+     *
+     * ⚡ OPTYMALIZACJA: jedno zapytanie o kolejność grupy + jeden UPDATE ... CASE dla zmienionych wierszy
+     * (zamiast findById + save dla każdego produktu)
+     *
      * @param productIds Lista ID produktów w nowej kolejności
      * @param category Kategoria produktów
      * @param manufacturer Producent
      * @param groupName Nazwa grupy produktowej
      */
     @Transactional
-    public void reorderProducts(List<Long> productIds, ProductCategory category, 
+    public void reorderProducts(List<Long> productIds, ProductCategory category,
                                String manufacturer, String groupName) {
-        logger.info("🔄 Zmiana kolejności produktów: {} / {} / {} ({} produktów)", 
-                   category, manufacturer, groupName, productIds.size());
-        
         if (productIds == null || productIds.isEmpty()) {
             throw new IllegalArgumentException("Lista ID produktów nie może być pusta");
         }
-        
-        // Pobierz wszystkie produkty z grupy, aby sprawdzić czy wszystkie ID są poprawne
-        List<Product> groupProducts = productRepository.findByCategoryAndManufacturer(category, manufacturer)
-            .stream()
-            .filter(p -> p.getGroupName() != null && p.getGroupName().equals(groupName))
-            .collect(Collectors.toList());
-        
-        // Sprawdź czy wszystkie ID z requestu istnieją w grupie
-        Set<Long> groupProductIds = groupProducts.stream()
-            .map(Product::getId)
-            .collect(Collectors.toSet());
-        
-        for (Long productId : productIds) {
-            if (!groupProductIds.contains(productId)) {
-                throw new IllegalArgumentException(
-                    String.format("Produkt o ID %d nie istnieje w grupie %s / %s / %s", 
-                                productId, category, manufacturer, groupName));
-            }
+
+        logger.info("🔄 Zmiana kolejności produktów: {} / {} / {} ({} produktów)",
+                   category, manufacturer, groupName, productIds.size());
+
+        entityManager.flush();
+
+        // Aktualna kolejność grupy (id → displayOrder) - sprawdza też czy wszystkie ID należą do grupy
+        Map<Long, Integer> currentOrders = new HashMap<>();
+        for (Object[] row : findGroupOrder(category, manufacturer, groupName)) {
+            currentOrders.put((Long) row[0], ((Number) row[1]).intValue());
         }
-        
-        // Aktualizuj displayOrder dla każdego produktu w podanej kolejności
+
+        Map<Long, Integer> newOrders = new LinkedHashMap<>();
         for (int i = 0; i < productIds.size(); i++) {
             Long productId = productIds.get(i);
-            Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Produkt o ID " + productId + " nie został znaleziony"));
-            
-            // Sprawdź czy produkt należy do właściwej grupy
-            if (!product.getCategory().equals(category) || 
-                !product.getManufacturer().equals(manufacturer) || 
-                !product.getGroupName().equals(groupName)) {
+            if (!currentOrders.containsKey(productId)) {
                 throw new IllegalArgumentException(
-                    String.format("Produkt o ID %d nie należy do grupy %s / %s / %s", 
+                    String.format("Produkt o ID %d nie istnieje w grupie %s / %s / %s",
                                 productId, category, manufacturer, groupName));
             }
-            
-            product.setDisplayOrder(i);
-            productRepository.save(product);
-            
-            logger.debug("  Produkt ID {} → displayOrder = {}", productId, i);
+            if (newOrders.containsKey(productId)) {
+                throw new IllegalArgumentException("Produkt o ID " + productId + " występuje na liście więcej niż raz");
+            }
+            newOrders.put(productId, i * DISPLAY_ORDER_GAP);
         }
-        
-        logger.info("✅ Kolejność produktów zaktualizowana pomyślnie");
+
+        // Zapisz tylko produkty, których displayOrder faktycznie się zmienia
+        newOrders.entrySet().removeIf(entry -> entry.getValue().equals(currentOrders.get(entry.getKey())));
+        applyDisplayOrders(newOrders);
+
+        logger.info("✅ Kolejność produktów zaktualizowana pomyślnie ({} zmienionych wierszy)", newOrders.size());
     }
 
     /**
@@ -930,29 +1326,27 @@ public class ProductService {
 
     /**
      * Pobierz wszystkie produkty z danej grupy posortowane po displayOrder
-     * 
+     *
      * ⚠️ WAŻNE: Wymuszamy flush() przed zapytaniem, aby mieć pewność że wszystkie zmiany są zapisane,
      * a następnie pobieramy dane z bazy (nie z cache), aby zawsze zwracać aktualne wartości displayOrder.
      */
     public List<Product> getProductsByGroup(ProductCategory category, String manufacturer, String groupName) {
         // Wymuś zapis wszystkich oczekujących zmian
         entityManager.flush();
-        
+
         // Pobierz produkty z bazy (zaktualizowane)
+        // Kolejność jak w findGroupOrder: displayOrder, przy remisie ID
         return productRepository.findByCategoryAndManufacturer(category, manufacturer)
             .stream()
             .filter(p -> p.getGroupName() != null && p.getGroupName().equals(groupName))
-            .sorted((p1, p2) -> {
-                Integer order1 = p1.getDisplayOrder() != null ? p1.getDisplayOrder() : 0;
-                Integer order2 = p2.getDisplayOrder() != null ? p2.getDisplayOrder() : 0;
-                return order1.compareTo(order2);
-            })
+            .sorted(Comparator.comparing((Product p) -> p.getDisplayOrder() != null ? p.getDisplayOrder() : 0)
+                .thenComparing(Product::getId, Comparator.nullsLast(Comparator.naturalOrder())))
             .collect(Collectors.toList());
     }
 
     /**
-     * Przesuń produkt o jedną pozycję w górę (zmniejsz displayOrder)
-     * 
+     * Przesuń produkt o jedną pozycję w górę
+     *
      * @param productId ID produktu do przesunięcia
      * @return true jeśli przesunięcie się powiodło, false jeśli produkt jest już na pierwszej pozycji
      */
@@ -960,107 +1354,38 @@ public class ProductService {
     public boolean moveProductUp(Long productId) {
         Product product = productRepository.findById(productId)
             .orElseThrow(() -> new IllegalArgumentException("Produkt o ID " + productId + " nie został znaleziony"));
-        
+
         return moveProductUp(product);
     }
 
     /**
-     * Przesuń produkt o jedną pozycję w górę (zmniejsz displayOrder)
-     * 
-     * ⚠️ NOWE PODEJŚCIE: 
-     * 1. Używamy natywnego SQL do pobrania aktualnego displayOrder (omija cache Hibernate)
-     * 2. Używamy natywnego SQL UPDATE do zapisania zmian (omija cache Hibernate)
-     * 3. To zapewnia, że zawsze mamy aktualne dane z bazy i możemy bezpiecznie używać tej metody w pętlach
-     * 
+     * Przesuń produkt o jedną pozycję w górę
+     *
+     * ⚡ OPTYMALIZACJA: zmienia displayOrder tylko przesuwanego produktu (patrz {@link #moveWithinGroup})
+     *
      * 💡 IDEALNE DO FRONTENDU: Ta metoda może być wywoływana wielokrotnie w pętli (np. "przesuń na górę" 5 razy)
-     * i zawsze będzie działać poprawnie, bo każdy wywołanie pobiera aktualne dane z bazy.
+     * i zawsze będzie działać poprawnie, bo każde wywołanie pobiera aktualną kolejność z bazy.
      */
     @Transactional
     public boolean moveProductUp(Product product) {
-        if (product.getCategory() == null || product.getManufacturer() == null || product.getGroupName() == null) {
-            throw new IllegalArgumentException("Produkt musi mieć ustawione: category, manufacturer, groupName");
-        }
+        validateGroupFields(product);
 
-        // Wymuś zapis wszystkich oczekujących zmian przed sprawdzeniem
-        entityManager.flush();
+        List<Object[]> groupOrder = findGroupOrder(product.getCategory(), product.getManufacturer(), product.getGroupName());
+        int currentPosition = positionInGroup(groupOrder, product.getId());
 
-        // ⚠️ KROK 1: Pobierz aktualny displayOrder produktu bezpośrednio z bazy używając natywnego SQL
-        // To omija cache Hibernate i zawsze zwraca aktualne dane z bazy
-        Integer currentOrder = ((Number) entityManager.createNativeQuery(
-            "SELECT COALESCE(display_order, 0) FROM products WHERE id = :id")
-            .setParameter("id", product.getId())
-            .getSingleResult()).intValue();
-        
-        logger.debug("🔍 moveProductUp: Produkt ID {} ma currentOrder = {}", product.getId(), currentOrder);
-        
-        // ⚠️ KROK 2: Jeśli produkt jest już na pierwszej pozycji (0), nie można go przesunąć wyżej
-        if (currentOrder == 0) {
+        if (currentPosition <= 0) {
             logger.debug("🔍 moveProductUp: Produkt ID {} jest już na pierwszej pozycji - zwracam false", product.getId());
             return false;
         }
-        
-        // ⚠️ KROK 3: Znajdź produkt z największym displayOrder, który jest mniejszy niż currentOrder
-        // Używamy JPQL, ale z flush() przed zapytaniem, aby mieć aktualne dane
-        @SuppressWarnings("unchecked")
-        List<Object[]> results = entityManager.createQuery(
-            "SELECT p.id, COALESCE(p.displayOrder, 0) FROM Product p " +
-            "WHERE p.category = :category AND p.manufacturer = :manufacturer AND p.groupName = :groupName " +
-            "AND COALESCE(p.displayOrder, 0) < :currentOrder " +
-            "AND COALESCE(p.displayOrder, 0) >= 0 " +
-            "AND p.id != :productId " +
-            "ORDER BY COALESCE(p.displayOrder, 0) DESC")
-            .setParameter("category", product.getCategory())
-            .setParameter("manufacturer", product.getManufacturer())
-            .setParameter("groupName", product.getGroupName())
-            .setParameter("currentOrder", currentOrder)
-            .setParameter("productId", product.getId())
-            .setMaxResults(1)
-            .getResultList();
-        
-        if (results.isEmpty()) {
-            logger.debug("🔍 moveProductUp: Produkt ID {} jest już na pierwszej pozycji (brak produktu powyżej) - zwracam false", product.getId());
-            return false;
-        }
-        
-        // ⚠️ KROK 4: Znajdź produkt powyżej
-        Long aboveProductId = (Long) results.get(0)[0];
-        Integer aboveOrder = ((Number) results.get(0)[1]).intValue();
-        
-        logger.debug("🔍 moveProductUp: Znaleziono produkt powyżej: ID = {}, displayOrder = {}", aboveProductId, aboveOrder);
-        
-        // ⚠️ KROK 5: Zamień miejscami displayOrder używając natywnego SQL UPDATE
-        // To zapewnia, że zmiany są zapisywane bezpośrednio do bazy, omijając cache Hibernate
-        int updated1 = entityManager.createNativeQuery(
-            "UPDATE products SET display_order = :newOrder WHERE id = :id")
-            .setParameter("newOrder", aboveOrder)
-            .setParameter("id", product.getId())
-            .executeUpdate();
-        
-        int updated2 = entityManager.createNativeQuery(
-            "UPDATE products SET display_order = :newOrder WHERE id = :id")
-            .setParameter("newOrder", currentOrder)
-            .setParameter("id", aboveProductId)
-            .executeUpdate();
-        
-        if (updated1 != 1 || updated2 != 1) {
-            logger.error("⚠️ BŁĄD: Nie udało się zaktualizować displayOrder. updated1={}, updated2={}", updated1, updated2);
-            throw new IllegalStateException("Nie udało się zaktualizować displayOrder produktów");
-        }
-        
-        // Wymuś zapis do bazy
-        entityManager.flush();
-        
-        // ⚠️ WAŻNE: Wyczyść cache Hibernate, aby następne zapytania zwróciły aktualne dane z bazy
-        // To jest kluczowe, bo zapisaliśmy zmiany przez natywny SQL UPDATE, który omija cache
-        entityManager.clear();
-        
-        logger.info("✅ Produkt ID {} przesunięty w górę: {} → {}", product.getId(), currentOrder, aboveOrder);
+
+        moveWithinGroup(groupOrder, currentPosition, currentPosition - 1);
+        logger.info("✅ Produkt ID {} przesunięty w górę: pozycja {} → {}", product.getId(), currentPosition, currentPosition - 1);
         return true;
     }
 
     /**
-     * Przesuń produkt o jedną pozycję w dół (zwiększ displayOrder)
-     * 
+     * Przesuń produkt o jedną pozycję w dół
+     *
      * @param productId ID produktu do przesunięcia
      * @return true jeśli przesunięcie się powiodło, false jeśli produkt jest już na ostatniej pozycji
      */
@@ -1068,120 +1393,38 @@ public class ProductService {
     public boolean moveProductDown(Long productId) {
         Product product = productRepository.findById(productId)
             .orElseThrow(() -> new IllegalArgumentException("Produkt o ID " + productId + " nie został znaleziony"));
-        
+
         return moveProductDown(product);
     }
 
     /**
-     * Przesuń produkt o jedną pozycję w dół (zwiększ displayOrder)
-     * 
-     * ⚠️ NOWE PODEJŚCIE: 
-     * 1. Używamy natywnego SQL do pobrania aktualnego displayOrder (omija cache Hibernate)
-     * 2. Używamy natywnego SQL UPDATE do zapisania zmian (omija cache Hibernate)
-     * 3. To zapewnia, że zawsze mamy aktualne dane z bazy i możemy bezpiecznie używać tej metody w pętlach
-     * 
+     * Przesuń produkt o jedną pozycję w dół
+     *
+     * ⚡ OPTYMALIZACJA: zmienia displayOrder tylko przesuwanego produktu (patrz {@link #moveWithinGroup})
+     *
      * 💡 IDEALNE DO FRONTENDU: Ta metoda może być wywoływana wielokrotnie w pętli (np. "przesuń na dół" 5 razy)
-     * i zawsze będzie działać poprawnie, bo każdy wywołanie pobiera aktualne dane z bazy.
+     * i zawsze będzie działać poprawnie, bo każde wywołanie pobiera aktualną kolejność z bazy.
      */
     @Transactional
     public boolean moveProductDown(Product product) {
-        if (product.getCategory() == null || product.getManufacturer() == null || product.getGroupName() == null) {
-            throw new IllegalArgumentException("Produkt musi mieć ustawione: category, manufacturer, groupName");
-        }
+        validateGroupFields(product);
 
-        // Wymuś zapis wszystkich oczekujących zmian przed sprawdzeniem
-        entityManager.flush();
+        List<Object[]> groupOrder = findGroupOrder(product.getCategory(), product.getManufacturer(), product.getGroupName());
+        int currentPosition = positionInGroup(groupOrder, product.getId());
 
-        // ⚠️ KROK 1: Pobierz aktualny displayOrder produktu bezpośrednio z bazy używając natywnego SQL
-        Integer currentOrder = ((Number) entityManager.createNativeQuery(
-            "SELECT COALESCE(display_order, 0) FROM products WHERE id = :id")
-            .setParameter("id", product.getId())
-            .getSingleResult()).intValue();
-        
-        logger.debug("🔍 moveProductDown: Produkt ID {} ma currentOrder = {}", product.getId(), currentOrder);
-        
-        // ⚠️ KROK 2: Sprawdź ile produktów jest w grupie
-        Long groupSize = (Long) entityManager.createQuery(
-            "SELECT COUNT(p) FROM Product p " +
-            "WHERE p.category = :category AND p.manufacturer = :manufacturer AND p.groupName = :groupName")
-            .setParameter("category", product.getCategory())
-            .setParameter("manufacturer", product.getManufacturer())
-            .setParameter("groupName", product.getGroupName())
-            .getSingleResult();
-        
-        if (groupSize <= 1) {
-            logger.debug("🔍 moveProductDown: Grupa ma tylko jeden produkt - zwracam false");
-            return false;
-        }
-        
-        int lastPosition = groupSize.intValue() - 1;
-        
-        // ⚠️ KROK 3: Jeśli produkt jest już na ostatniej pozycji, nie można go przesunąć niżej
-        if (currentOrder >= lastPosition) {
-            logger.debug("🔍 moveProductDown: Produkt ID {} jest już na ostatniej pozycji ({}) - zwracam false", product.getId(), currentOrder);
-            return false;
-        }
-        
-        // ⚠️ KROK 4: Znajdź produkt z najmniejszym displayOrder, który jest większy niż currentOrder
-        // Używamy JPQL, ale z flush() przed zapytaniem, aby mieć aktualne dane
-        @SuppressWarnings("unchecked")
-        List<Object[]> results = entityManager.createQuery(
-            "SELECT p.id, COALESCE(p.displayOrder, 0) FROM Product p " +
-            "WHERE p.category = :category AND p.manufacturer = :manufacturer AND p.groupName = :groupName " +
-            "AND COALESCE(p.displayOrder, 0) > :currentOrder " +
-            "AND p.id != :productId " +
-            "ORDER BY COALESCE(p.displayOrder, 0) ASC")
-            .setParameter("category", product.getCategory())
-            .setParameter("manufacturer", product.getManufacturer())
-            .setParameter("groupName", product.getGroupName())
-            .setParameter("currentOrder", currentOrder)
-            .setParameter("productId", product.getId())
-            .setMaxResults(1)
-            .getResultList();
-        
-        if (results.isEmpty()) {
-            logger.debug("🔍 moveProductDown: Produkt ID {} jest już na ostatniej pozycji (brak produktu poniżej) - zwracam false", product.getId());
+        if (currentPosition < 0 || currentPosition >= groupOrder.size() - 1) {
+            logger.debug("🔍 moveProductDown: Produkt ID {} jest już na ostatniej pozycji - zwracam false", product.getId());
             return false;
         }
-        
-        // ⚠️ KROK 5: Znajdź produkt poniżej
-        Long belowProductId = (Long) results.get(0)[0];
-        Integer belowOrder = ((Number) results.get(0)[1]).intValue();
-        
-        logger.debug("🔍 moveProductDown: Znaleziono produkt poniżej: ID = {}, displayOrder = {}", belowProductId, belowOrder);
-        
-        // ⚠️ KROK 6: Zamień miejscami displayOrder używając natywnego SQL UPDATE
-        int updated1 = entityManager.createNativeQuery(
-            "UPDATE products SET display_order = :newOrder WHERE id = :id")
-            .setParameter("newOrder", belowOrder)
-            .setParameter("id", product.getId())
-            .executeUpdate();
-        
-        int updated2 = entityManager.createNativeQuery(
-            "UPDATE products SET display_order = :newOrder WHERE id = :id")
-            .setParameter("newOrder", currentOrder)
-            .setParameter("id", belowProductId)
-            .executeUpdate();
-        
-        if (updated1 != 1 || updated2 != 1) {
-            logger.error("⚠️ BŁĄD: Nie udało się zaktualizować displayOrder. updated1={}, updated2={}", updated1, updated2);
-            throw new IllegalStateException("Nie udało się zaktualizować displayOrder produktów");
-        }
-        
-        // Wymuś zapis do bazy
-        entityManager.flush();
-        
-        // ⚠️ WAŻNE: Wyczyść cache Hibernate, aby następne zapytania zwróciły aktualne dane z bazy
-        // To jest kluczowe, bo zapisaliśmy zmiany przez natywny SQL UPDATE, który omija cache
-        entityManager.clear();
-        
-        logger.info("✅ Produkt ID {} przesunięty w dół: {} → {}", product.getId(), currentOrder, belowOrder);
+
+        moveWithinGroup(groupOrder, currentPosition, currentPosition + 1);
+        logger.info("✅ Produkt ID {} przesunięty w dół: pozycja {} → {}", product.getId(), currentPosition, currentPosition + 1);
         return true;
     }
 
     /**
      * Przesuń produkt na konkretną pozycję (0 = pierwsza pozycja)
-     * 
+     *
      * @param productId ID produktu do przesunięcia
      * @param targetPosition Docelowa pozycja (0-based)
      * @return true jeśli przesunięcie się powiodło
@@ -1190,55 +1433,47 @@ public class ProductService {
     public boolean moveProductToPosition(Long productId, int targetPosition) {
         Product product = productRepository.findById(productId)
             .orElseThrow(() -> new IllegalArgumentException("Produkt o ID " + productId + " nie został znaleziony"));
-        
+
         return moveProductToPosition(product, targetPosition);
     }
 
     /**
      * Przesuń produkt na konkretną pozycję (0 = pierwsza pozycja)
+     *
+     * ⚡ OPTYMALIZACJA: zmienia displayOrder tylko przesuwanego produktu (patrz {@link #moveWithinGroup})
      */
     @Transactional
     public boolean moveProductToPosition(Product product, int targetPosition) {
-        if (product.getCategory() == null || product.getManufacturer() == null || product.getGroupName() == null) {
-            throw new IllegalArgumentException("Produkt musi mieć ustawione: category, manufacturer, groupName");
-        }
+        validateGroupFields(product);
 
         if (targetPosition < 0) {
             throw new IllegalArgumentException("Pozycja nie może być ujemna: " + targetPosition);
         }
 
-        List<Product> groupProducts = getProductsByGroup(
-            product.getCategory(), 
-            product.getManufacturer(), 
-            product.getGroupName()
-        );
+        List<Object[]> groupOrder = findGroupOrder(product.getCategory(), product.getManufacturer(), product.getGroupName());
 
-        if (targetPosition >= groupProducts.size()) {
+        if (targetPosition >= groupOrder.size()) {
             throw new IllegalArgumentException(
-                String.format("Pozycja %d jest poza zakresem (grupa ma %d produktów)", 
-                            targetPosition, groupProducts.size()));
+                String.format("Pozycja %d jest poza zakresem (grupa ma %d produktów)",
+                            targetPosition, groupOrder.size()));
         }
 
-        // Usuń produkt z listy
-        groupProducts.remove(product);
-        
-        // Wstaw produkt na docelową pozycję
-        groupProducts.add(targetPosition, product);
-        
-        // Zaktualizuj displayOrder dla wszystkich produktów w grupie
-        for (int i = 0; i < groupProducts.size(); i++) {
-            Product p = groupProducts.get(i);
-            p.setDisplayOrder(i);
-            productRepository.save(p);
+        int currentPosition = positionInGroup(groupOrder, product.getId());
+        if (currentPosition < 0) {
+            throw new IllegalArgumentException("Produkt o ID " + product.getId() + " nie należy do swojej grupy w bazie");
         }
-        
+
+        if (currentPosition != targetPosition) {
+            moveWithinGroup(groupOrder, currentPosition, targetPosition);
+        }
+
         logger.info("✅ Produkt ID {} przesunięty na pozycję {}", product.getId(), targetPosition);
         return true;
     }
 
     /**
      * Zamień miejscami dwa produkty w tej samej grupie
-     * 
+     *
      * @param productId1 ID pierwszego produktu
      * @param productId2 ID drugiego produktu
      * @return true jeśli zamiana się powiodła
@@ -1249,12 +1484,14 @@ public class ProductService {
             .orElseThrow(() -> new IllegalArgumentException("Produkt o ID " + productId1 + " nie został znaleziony"));
         Product product2 = productRepository.findById(productId2)
             .orElseThrow(() -> new IllegalArgumentException("Produkt o ID " + productId2 + " nie został znaleziony"));
-        
+
         return swapProducts(product1, product2);
     }
 
     /**
      * Zamień miejscami dwa produkty w tej samej grupie
+     *
+     * ⚡ OPTYMALIZACJA: oba wiersze zmieniane jednym UPDATE ... CASE
      */
     @Transactional
     public boolean swapProducts(Product product1, Product product2) {
@@ -1271,18 +1508,142 @@ public class ProductService {
         // Zamień miejscami displayOrder
         Integer order1 = product1.getDisplayOrder() != null ? product1.getDisplayOrder() : 0;
         Integer order2 = product2.getDisplayOrder() != null ? product2.getDisplayOrder() : 0;
-        
-        product1.setDisplayOrder(order2);
-        product2.setDisplayOrder(order1);
-        
-        productRepository.save(product1);
-        productRepository.save(product2);
-        
-        logger.info("✅ Zamieniono miejscami produkty ID {} i {} ({} ↔ {})", 
+
+        Map<Long, Integer> newOrders = new LinkedHashMap<>();
+        newOrders.put(product1.getId(), order2);
+        newOrders.put(product2.getId(), order1);
+
+        entityManager.flush();
+        applyDisplayOrders(newOrders);
+
+        logger.info("✅ Zamieniono miejscami produkty ID {} i {} ({} ↔ {})",
                    product1.getId(), product2.getId(), order1, order2);
         return true;
     }
 
+    private void validateGroupFields(Product product) {
+        if (product.getCategory() == null || product.getManufacturer() == null || product.getGroupName() == null) {
+            throw new IllegalArgumentException("Produkt musi mieć ustawione: category, manufacturer, groupName");
+        }
+    }
+
+    /**
+     * Aktualna kolejność grupy: [id, displayOrder] posortowane po displayOrder (przy remisie po ID)
+     * Jedno lekkie zapytanie (bez ładowania encji) - po flush(), więc widzi niezapisane zmiany
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object[]> findGroupOrder(ProductCategory category, String manufacturer, String groupName) {
+        entityManager.flush();
+        return entityManager.createQuery(
+            "SELECT p.id, COALESCE(p.displayOrder, 0) FROM Product p " +
+            "WHERE p.category = :category AND p.manufacturer = :manufacturer AND p.groupName = :groupName " +
+            "ORDER BY COALESCE(p.displayOrder, 0) ASC, p.id ASC")
+            .setParameter("category", category)
+            .setParameter("manufacturer", manufacturer)
+            .setParameter("groupName", groupName)
+            .getResultList();
+    }
+
+    private static int positionInGroup(List<Object[]> groupOrder, Long productId) {
+        for (int i = 0; i < groupOrder.size(); i++) {
+            if (groupOrder.get(i)[0].equals(productId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Przenieś produkt z pozycji from na pozycję to
+     *
+     * ⚡ OPTYMALIZACJA: displayOrder są rozłożone co DISPLAY_ORDER_GAP, więc przesuwany produkt dostaje
+     * wartość pomiędzy nowymi sąsiadami - UPDATE tylko jednego wiersza, sąsiedzi bez zmian.
+     * Gdy między sąsiadami nie ma wolnej wartości (np. grupa po imporcie ma 0, 1, 2, ...),
+     * cała grupa jest jednorazowo rozkładana na nowo (0, 1024, 2048, ...) jednym UPDATE ... CASE
+     * i kolejne przesunięcia znów zmieniają pojedynczy wiersz.
+     * Przeniesienie na początek dostaje wartość o GAP mniejszą od pierwszego produktu (także ujemną).
+     */
+    private void moveWithinGroup(List<Object[]> groupOrder, int from, int to) {
+        List<Object[]> reordered = new ArrayList<>(groupOrder);
+        Object[] moved = reordered.remove(from);
+        reordered.add(to, moved);
+        Long movedId = (Long) moved[0];
+
+        // Granice (wyłączne): poprzedni i następny sąsiad; na początku grupy następny - 2 × GAP
+        // (displayOrder może być ujemny), na końcu poprzedni + 2 × GAP - nowa wartość w połowie
+        boolean hasPrevious = to > 0;
+        boolean hasNext = to < reordered.size() - 1;
+        long lower = hasPrevious
+            ? ((Number) reordered.get(to - 1)[1]).longValue()
+            : (hasNext ? ((Number) reordered.get(to + 1)[1]).longValue() - 2L * DISPLAY_ORDER_GAP : -DISPLAY_ORDER_GAP);
+        long upper = hasNext
+            ? ((Number) reordered.get(to + 1)[1]).longValue()
+            : lower + 2L * DISPLAY_ORDER_GAP;
+        long newOrder = lower + (upper - lower) / 2;
+
+        Map<Long, Integer> newOrders = new LinkedHashMap<>();
+        if (newOrder > lower && newOrder < upper
+            && newOrder >= Integer.MIN_VALUE && newOrder <= Integer.MAX_VALUE) {
+            newOrders.put(movedId, (int) newOrder);
+        } else {
+            // Brak wolnej wartości między sąsiadami - rozłóż grupę na nowo (tylko zmienione wiersze)
+            for (int i = 0; i < reordered.size(); i++) {
+                int spreadOrder = i * DISPLAY_ORDER_GAP;
+                if (((Number) reordered.get(i)[1]).intValue() != spreadOrder) {
+                    newOrders.put((Long) reordered.get(i)[0], spreadOrder);
+                }
+            }
+            logger.debug("🔢 Brak odstępu w displayOrder - grupa rozłożona na nowo ({} wierszy)", newOrders.size());
+        }
+
+        applyDisplayOrders(newOrders);
+    }
+
+    /**
+     * Zapisz displayOrder wielu produktów jednym zapytaniem:
+     * UPDATE products SET display_order = CASE id WHEN ?1 THEN ?2 ... END WHERE id IN (...)
+     *
+     * ⚠️ WAŻNE: natywny UPDATE omija Hibernate - po zapisie zmienione produkty są odłączane
+     * od persistence context (tylko one), aby następne odczyty zwróciły aktualne displayOrder z bazy.
+     * Instancje tych produktów trzymane przez wywołującego są po tym odłączone (detached).
+     */
+    private void applyDisplayOrders(Map<Long, Integer> newOrders) {
+        if (newOrders.isEmpty()) {
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE products SET display_order = CASE id");
+        int parameterIndex = 1;
+        for (int i = 0; i < newOrders.size(); i++) {
+            sql.append(" WHEN ?").append(parameterIndex++).append(" THEN ?").append(parameterIndex++);
+        }
+        sql.append(" ELSE display_order END WHERE id IN (?").append(parameterIndex).append(")");
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        parameterIndex = 1;
+        for (Map.Entry<Long, Integer> entry : newOrders.entrySet()) {
+            query.setParameter(parameterIndex++, entry.getKey());
+            query.setParameter(parameterIndex++, entry.getValue());
+        }
+        query.setParameter(parameterIndex, newOrders.keySet());
+
+        int updated = query.executeUpdate();
+        if (updated != newOrders.size()) {
+            logger.error("⚠️ BŁĄD: Nie udało się zaktualizować displayOrder. Oczekiwano {}, zaktualizowano {}",
+                        newOrders.size(), updated);
+            throw new IllegalStateException("Nie udało się zaktualizować displayOrder produktów");
+        }
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Product.class);
+        for (Long productId : newOrders.keySet()) {
+            Object managed = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(productId, persister));
+            if (managed != null) {
+                entityManager.detach(managed);
+            }
+        }
+    }
+
     /**
      * BATCH UPDATE - aktualizuj wiele produktów naraz (PERFORMANCE!)
      */
@@ -1290,23 +1651,10 @@ public class ProductService {
     public List<Product> updateProductsBatch(List<Product> products) {
         logger.info("📦 Batch update: {} produktów", products.size());
         
-        // Walidacja wszystkich przed zapisem
+        // Walidacja wszystkich przed zapisem (fail fast po DEFAULT_MAX_ERRORS błędach)
         ProductValidationService.BatchValidationResult validation = 
-            productValidationService.validateBatch(products);
-        
-        if (!validation.isAllValid()) {
-            logger.error("❌ Walidacja nie powiodła się:");
-            validation.getAllErrors().forEach(error -> logger.error("  - {}", error));
-            throw new IllegalArgumentException(
-                "Walidacja nie powiodła się: " + String.join("; ", validation.getAllErrors())
-            );
-        }
-        
-        // Loguj ostrzeżenia (jeśli są)
-        if (validation.getWarningCount() > 0) {
-            logger.warn("⚠️ Ostrzeżenia walidacji:");
-            validation.getAllWarnings().forEach(warning -> logger.warn("  - {}", warning));
-        }
+            productValidationService.validateBatch(products, ProductValidationService.DEFAULT_MAX_ERRORS);
+        throwIfInvalid(validation);
         
         // ⚠️ WAŻNE: Loguj ID przed zapisem
         logger.info("📋 Produkty przed zapisem:");
@@ -1580,11 +1928,20 @@ public class ProductService {
 
     /**
      * Usuń wszystkie produkty danej kategorii
-     * ⚡ OPTYMALIZACJA: Zawsze używa JDBC batch DELETE (znacznie szybsze niż Hibernate ORM, nawet dla małej liczby produktów)
+     * ⚡ OPTYMALIZACJA: Soft delete - znacznik na każdą grupę kategorii, produkty usuwa w tle CatalogPurgeScheduler
+     * Gdy soft delete jest wyłączony - JDBC batch DELETE (znacznie szybsze niż Hibernate ORM, nawet dla małej liczby produktów)
      */
     @Transactional
     public void deleteAllByCategory(ProductCategory category) {
         logger.warn("🗑️ Usuwanie WSZYSTKICH produktów kategorii: {}", category);
+
+        if (catalogSoftDeleteEnabled) {
+            int hiddenProducts = markGroupsDeleted(category, findVisibleGroupTuples(category, null), (group, hidden) -> { });
+            int ungroupedProducts = deleteUngroupedProducts(category, null);
+            logger.info("✅ Oznaczono jako usunięte {} produktów kategorii {} (usunięto {} produktów bez grupy)",
+                       hiddenProducts, category, ungroupedProducts);
+            return;
+        }
         
         List<Product> products = productRepository.findByCategory(category);
         
@@ -1603,11 +1960,20 @@ public class ProductService {
 
     /**
      * Usuń wszystkie produkty danej kategorii i producenta (całkowity reset cennika)
-     * ⚡ OPTYMALIZACJA: Zawsze używa JDBC batch DELETE (znacznie szybsze niż Hibernate ORM, nawet dla małej liczby produktów)
+     * ⚡ OPTYMALIZACJA: Soft delete - znacznik na każdą grupę producenta, produkty usuwa w tle CatalogPurgeScheduler
+     * Gdy soft delete jest wyłączony - JDBC batch DELETE (znacznie szybsze niż Hibernate ORM, nawet dla małej liczby produktów)
      */
     @Transactional
     public void deleteAllByManufacturer(ProductCategory category, String manufacturer) {
         logger.warn("🗑️ Usuwanie wszystkich produktów: {} / {}", category, manufacturer);
+
+        if (catalogSoftDeleteEnabled) {
+            int hiddenProducts = markGroupsDeleted(category, findVisibleGroupTuples(category, manufacturer), (group, hidden) -> { });
+            int ungroupedProducts = deleteUngroupedProducts(category, manufacturer);
+            logger.info("✅ Oznaczono jako usunięte {} produktów producenta {} (usunięto {} produktów bez grupy)",
+                       hiddenProducts, manufacturer, ungroupedProducts);
+            return;
+        }
         
         List<Product> products = productRepository.findByCategory(category).stream()
                 .filter(p -> manufacturer.equals(p.getManufacturer()))
@@ -1628,11 +1994,20 @@ public class ProductService {
 
     /**
      * Usuń wszystkie produkty danej grupy produktowej
-     * ⚡ OPTYMALIZACJA: Zawsze używa JDBC batch DELETE (znacznie szybsze niż Hibernate ORM, nawet dla małej liczby produktów)
+     * ⚡ OPTYMALIZACJA: Soft delete - jeden znacznik grupy, produkty usuwa w tle CatalogPurgeScheduler
+     * Gdy soft delete jest wyłączony - JDBC batch DELETE (znacznie szybsze niż Hibernate ORM, nawet dla małej liczby produktów)
      */
     @Transactional
     public void deleteAllByGroup(ProductCategory category, String manufacturer, String groupName) {
         logger.warn("🗑️ Usuwanie wszystkich produktów grupy: {} / {} / {}", category, manufacturer, groupName);
+
+        if (catalogSoftDeleteEnabled) {
+            List<String[]> group = new ArrayList<>();
+            group.add(new String[] {manufacturer, groupName});
+            int hiddenProducts = markGroupsDeleted(category, group, (deletedGroup, hidden) -> { });
+            logger.info("✅ Oznaczono jako usunięte {} produktów z grupy", hiddenProducts);
+            return;
+        }
         
         List<Product> products = productRepository.findByCategory(category).stream()
                 .filter(p -> manufacturer.equals(p.getManufacturer()) && groupName.equals(p.getGroupName()))
@@ -1652,9 +2027,9 @@ public class ProductService {
     }
 
     /**
-     * ⚡ OPTYMALIZACJA: Usuń wiele grup produktowych jednocześnie używając JDBC batch DELETE
+     * ⚡ OPTYMALIZACJA: Usuń wiele grup produktowych jednocześnie (soft delete lub JDBC batch DELETE)
      * Znacznie szybsze niż usuwanie każdej grupy osobno (oszczędza transakcje i zapytania HTTP)
-     * 
+     *
      * @param category Kategoria produktów
      * @param groups Lista grup do usunięcia (manufacturer + groupName)
      * @return Liczba usuniętych produktów
@@ -1662,153 +2037,353 @@ public class ProductService {
     @Transactional
     public int deleteMultipleGroups(ProductCategory category, List<Map<String, String>> groups) {
         logger.warn("🗑️ Usuwanie wielu grup produktowych jednocześnie: {} grup w kategorii {}", groups.size(), category);
-        
+
         if (groups.isEmpty()) {
             logger.info("ℹ️ Brak grup do usunięcia");
             return 0;
         }
-        
-        // Zbierz wszystkie produkty ze wszystkich grup
-        List<Product> allProducts = productRepository.findByCategory(category).stream()
-                .filter(product -> {
-                    return groups.stream().anyMatch(group -> 
-                        group.get("manufacturer").equals(product.getManufacturer()) && 
-                        group.get("groupName").equals(product.getGroupName())
-                    );
-                })
-                .collect(Collectors.toList());
-        
-        if (allProducts.isEmpty()) {
-            logger.info("ℹ️ Brak produktów w wybranych grupach do usunięcia");
-            return 0;
-        }
-        
-        logger.info("⏱️ [PERFORMANCE] deleteMultipleGroups: {} grup, {} produktów - używam JDBC batch DELETE", 
-                   groups.size(), allProducts.size());
-        
-        // ⚡ Użyj JDBC batch DELETE dla wszystkich produktów naraz (znacznie szybsze!)
-        List<Long> productIds = allProducts.stream().map(Product::getId).collect(Collectors.toList());
-        batchDeleteProductsByIds(productIds);
-        
-        logger.info("✅ Usunięto {} produktów z {} grup", allProducts.size(), groups.size());
-        return allProducts.size();
+
+        int deletedProducts = removeGroups(category, groups, (group, deletedInGroup) -> { });
+
+        logger.info("✅ Usunięto {} produktów z {} grup", deletedProducts, groups.size());
+        return deletedProducts;
     }
 
     /**
      * ⚡ OPTYMALIZACJA: Usuń wiele grup produktowych jednocześnie z progress tracking (dla SSE)
-     * Usuwa grupy w batchach i wywołuje callback z postępem
-     * 
+     * Usuwa grupy paczkami (po krotkach manufacturer + groupName) i wywołuje callback z postępem każdej grupy
+     * W trybie soft delete deletedProducts to liczba produktów ukrytych (fizycznie usuwa je CatalogPurgeScheduler)
+     *
      * @param category Kategoria produktów
      * @param groups Lista grup do usunięcia (manufacturer + groupName)
      * @param progressCallback Callback wywoływany z postępem usuwania
      */
     @Transactional
     public void deleteMultipleGroupsWithProgress(
-            ProductCategory category, 
+            ProductCategory category,
             List<Map<String, String>> groups,
             java.util.function.Consumer<DeleteProgress> progressCallback) {
-        
+
         logger.warn("🗑️ Usuwanie wielu grup produktowych z progress tracking: {} grup w kategorii {}", groups.size(), category);
-        
+
         if (groups.isEmpty()) {
             logger.info("ℹ️ Brak grup do usunięcia");
             return;
         }
-        
+
         long startTime = System.currentTimeMillis();
         int totalGroups = groups.size();
-        int processedGroups = 0;
-        int totalDeletedProducts = 0;
-        
-        // ⚡ OPTYMALIZACJA: Zbierz wszystkie produkty ze wszystkich grup i usuń w jednym batchu JDBC
-        // To jest znacznie szybsze niż usuwanie każdej grupy osobno
-        List<Product> allProducts = productRepository.findByCategory(category).stream()
-                .filter(product -> {
-                    return groups.stream().anyMatch(group -> 
-                        group.get("manufacturer").equals(product.getManufacturer()) && 
-                        group.get("groupName").equals(product.getGroupName())
-                    );
-                })
-                .collect(Collectors.toList());
-        
-        if (allProducts.isEmpty()) {
-            logger.info("ℹ️ Brak produktów w wybranych grupach do usunięcia");
-            progressCallback.accept(new DeleteProgress(0, totalGroups, 0, "", 0, "completed", 0));
-            return;
-        }
-        
-        logger.info("⏱️ [PERFORMANCE] deleteMultipleGroupsWithProgress: {} grup, {} produktów - używam JDBC batch DELETE", 
-                   totalGroups, allProducts.size());
-        
-        // ⚡ OPTYMALIZACJA: Usuń wszystkie produkty w jednym dużym batchu JDBC DELETE
-        // To jest znacznie szybsze niż wiele małych batchy (216 grup × 15 produktów = wolne)
-        // Zamiast tego: 1 duży batch × 3240 produktów = szybkie!
-        
-        if (allProducts.size() > 0) {
-            // Wyślij status przed rozpoczęciem usuwania
+        int[] processedGroups = {0};
+        int[] totalDeletedProducts = {0};
+
+        // Wyślij status przed rozpoczęciem usuwania
+        progressCallback.accept(new DeleteProgress(0, totalGroups, 0, "Przygotowywanie...", 0, "processing", 0));
+
+        removeGroups(category, groups, (group, deletedInGroup) -> {
+            processedGroups[0]++;
+            totalDeletedProducts[0] += deletedInGroup;
             progressCallback.accept(new DeleteProgress(
-                0, 
-                totalGroups, 
-                0,
-                "Przygotowywanie...",
-                0,
+                processedGroups[0],
+                totalGroups,
+                (int) Math.round((processedGroups[0] * 100.0) / totalGroups),
+                group[0] + " / " + group[1],
+                totalDeletedProducts[0],
                 "processing",
-                0
+                System.currentTimeMillis() - startTime
             ));
-            
-            // ⚡ JEDEN DUŻY BATCH DELETE dla wszystkich produktów naraz
-            List<Long> allProductIds = allProducts.stream().map(Product::getId).collect(Collectors.toList());
-            
-            // Usuń wszystkie produkty w jednym batchu (znacznie szybsze niż wiele małych batchy!)
-            batchDeleteProductsByIds(allProductIds);
-            totalDeletedProducts = allProducts.size();
-            
-            // Wyślij statusy postępu dla każdej grupy (dla lepszego UX)
-            Map<String, List<Product>> productsByGroup = allProducts.stream()
-                    .collect(Collectors.groupingBy(p -> p.getManufacturer() + "|" + p.getGroupName()));
-            
-            for (Map<String, String> group : groups) {
-                String groupKey = group.get("manufacturer") + "|" + group.get("groupName");
-                List<Product> groupProducts = productsByGroup.getOrDefault(groupKey, new ArrayList<>());
-                
-                if (!groupProducts.isEmpty()) {
-                    processedGroups++;
-                    
-                    // Wyślij status postępu dla tej grupy
-                    long elapsed = System.currentTimeMillis() - startTime;
-                    progressCallback.accept(new DeleteProgress(
-                        processedGroups, 
-                        totalGroups, 
-                        (int) Math.round((processedGroups * 100.0) / totalGroups),
-                        group.get("manufacturer") + " / " + group.get("groupName"),
-                        totalDeletedProducts,
-                        "processing",
-                        elapsed
-                    ));
-                } else {
-                    processedGroups++;
-                }
-            }
-        } else {
-            // Brak produktów do usunięcia
-            processedGroups = totalGroups;
-        }
-        
+        });
+
         long totalElapsed = System.currentTimeMillis() - startTime;
-        logger.info("✅ Usunięto {} produktów z {} grup w {}ms", totalDeletedProducts, totalGroups, totalElapsed);
-        
+        logger.info("✅ Usunięto {} produktów z {} grup w {}ms", totalDeletedProducts[0], totalGroups, totalElapsed);
+
         // Wyślij finalny status
         progressCallback.accept(new DeleteProgress(
-            processedGroups, 
-            totalGroups, 
+            totalGroups,
+            totalGroups,
             100,
             "",
-            totalDeletedProducts,
+            totalDeletedProducts[0],
             "completed",
             totalElapsed
         ));
     }
-    
+
+    /**
+     * Liczba grup usuwanych jednym executeBatch (każda tabela osobno)
+     */
+    private static final int GROUP_DELETE_BATCH_SIZE = 100;
+
+    /**
+     * Callback po usunięciu grupy: {manufacturer, groupName} i liczba usuniętych produktów
+     */
+    @FunctionalInterface
+    private interface GroupDeletedCallback {
+        void accept(String[] group, int deletedProducts);
+    }
+
+    /**
+     * Unikalne krotki {manufacturer, groupName} w kolejności z żądania (pomija niepełne)
+     */
+    private static List<String[]> uniqueGroupTuples(List<Map<String, String>> groups) {
+        Map<String, String[]> uniqueGroups = new LinkedHashMap<>();
+        for (Map<String, String> group : groups) {
+            String manufacturer = group.get("manufacturer");
+            String groupName = group.get("groupName");
+            if (manufacturer != null && groupName != null) {
+                uniqueGroups.putIfAbsent(manufacturer + "|" + groupName, new String[] {manufacturer, groupName});
+            }
+        }
+        return new ArrayList<>(uniqueGroups.values());
+    }
+
+    private int removeGroups(ProductCategory category, List<Map<String, String>> groups,
+                             GroupDeletedCallback groupDeleted) {
+        List<String[]> groupTuples = uniqueGroupTuples(groups);
+        return catalogSoftDeleteEnabled
+            ? markGroupsDeleted(category, groupTuples, groupDeleted)
+            : deleteGroupsByTuples(category, groupTuples, groupDeleted);
+    }
+
+    /**
+     * ⚡ OPTYMALIZACJA: Soft delete grup - jeden wiersz product_group_tombstones na grupę zamiast DELETE produktów
+     * - koszt O(grupy), niezależny od liczby produktów; blokowane są tylko wiersze znaczników
+     * - produkty grupy o id <= max_product_id znikają od razu ze wszystkich odczytów (@Where na Product)
+     * - atrybuty grupy (jeden wiersz na grupę) usuwane od razu, żeby nie trafiały do słownika sugestii
+     * - produkty, zmiany draft i opcje grup w projektach usuwa w tle CatalogPurgeService
+     *
+     * ⚠️ WAŻNE: Ponowne usunięcie grupy przesuwa max_product_id - UPDATE istniejących znaczników, INSERT nowych
+     * (bez składni specyficznej dla MySQL - działa też na H2 i PostgreSQL)
+     *
+     * @return Liczba ukrytych produktów
+     */
+    private int markGroupsDeleted(ProductCategory category, List<String[]> groupTuples,
+                                  GroupDeletedCallback groupDeleted) {
+        long startTime = System.currentTimeMillis();
+
+        // Zmiany w kontekście Hibernate muszą trafić do bazy przed odczytem max(id) i znacznikami
+        entityManager.flush();
+        catalogHierarchyService.catalogChanged(category);
+        attributeFacetIndex.attributesChanged(category);
+
+        // Liczba widocznych produktów w grupach kategorii - jedno zapytanie GROUP BY po indeksie
+        Map<String, Long> visibleCounts = new HashMap<>();
+        List<?> countRows = entityManager.createQuery(
+                "SELECT p.manufacturer, p.groupName, COUNT(p) FROM Product p " +
+                "WHERE p.category = :category GROUP BY p.manufacturer, p.groupName")
+            .setParameter("category", category)
+            .getResultList();
+        for (Object row : countRows) {
+            Object[] columns = (Object[]) row;
+            visibleCounts.put(columns[0] + "|" + columns[1], ((Number) columns[2]).longValue());
+        }
+
+        Number maxId = (Number) entityManager.createNativeQuery("SELECT MAX(id) FROM products").getSingleResult();
+        long maxProductId = maxId != null ? maxId.longValue() : 0L;
+        Timestamp deletedAt = Timestamp.valueOf(LocalDateTime.now());
+
+        // Istniejące znaczniki kategorii (grupy usunięte wcześniej, jeszcze niewyczyszczone)
+        Set<String> existingTombstones = new HashSet<>();
+        List<?> tombstoneRows = entityManager.createNativeQuery(
+                "SELECT manufacturer, group_name FROM product_group_tombstones WHERE category = :category")
+            .setParameter("category", category.name())
+            .getResultList();
+        for (Object row : tombstoneRows) {
+            Object[] columns = (Object[]) row;
+            existingTombstones.add(columns[0] + "|" + columns[1]);
+        }
+
+        int[] totalHidden = {0};
+        Session session = entityManager.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (PreparedStatement updateTombstones = connection.prepareStatement(
+                     "UPDATE product_group_tombstones SET max_product_id = ?, deleted_at = ? " +
+                     "WHERE category = ? AND manufacturer = ? AND group_name = ?");
+                 PreparedStatement insertTombstones = connection.prepareStatement(
+                     "INSERT INTO product_group_tombstones (category, manufacturer, group_name, max_product_id, deleted_at) " +
+                     "VALUES (?, ?, ?, ?, ?)");
+                 PreparedStatement deleteAttributes = connection.prepareStatement(
+                     "DELETE FROM product_group_attributes WHERE category = ? AND manufacturer = ? AND group_name = ?")) {
+
+                for (int start = 0; start < groupTuples.size(); start += GROUP_DELETE_BATCH_SIZE) {
+                    List<String[]> chunk = groupTuples.subList(start, Math.min(start + GROUP_DELETE_BATCH_SIZE, groupTuples.size()));
+
+                    boolean updates = false;
+                    boolean inserts = false;
+                    for (String[] group : chunk) {
+                        if (existingTombstones.contains(group[0] + "|" + group[1])) {
+                            updateTombstones.setLong(1, maxProductId);
+                            updateTombstones.setTimestamp(2, deletedAt);
+                            updateTombstones.setString(3, category.name());
+                            updateTombstones.setString(4, group[0]);
+                            updateTombstones.setString(5, group[1]);
+                            updateTombstones.addBatch();
+                            updates = true;
+                        } else {
+                            insertTombstones.setString(1, category.name());
+                            insertTombstones.setString(2, group[0]);
+                            insertTombstones.setString(3, group[1]);
+                            insertTombstones.setLong(4, maxProductId);
+                            insertTombstones.setTimestamp(5, deletedAt);
+                            insertTombstones.addBatch();
+                            inserts = true;
+                        }
+                    }
+                    if (updates) {
+                        updateTombstones.executeBatch();
+                    }
+                    if (inserts) {
+                        insertTombstones.executeBatch();
+                    }
+                    executeGroupBatch(deleteAttributes, category, chunk);
+
+                    for (String[] group : chunk) {
+                        int hiddenInGroup = visibleCounts.getOrDefault(group[0] + "|" + group[1], 0L).intValue();
+                        totalHidden[0] += hiddenInGroup;
+                        groupDeleted.accept(group, hiddenInGroup);
+                    }
+                }
+            } catch (SQLException e) {
+                logger.error("❌ [PERFORMANCE] Błąd podczas oznaczania grup jako usunięte: {}", e.getMessage(), e);
+                throw new RuntimeException("Błąd podczas usuwania grup produktowych", e);
+            }
+        });
+
+        // Ukryte produkty mogą być jeszcze w kontekście Hibernate
+        entityManager.clear();
+
+        logger.info("⏱️ [PERFORMANCE] markGroupsDeleted: {} grup, {} produktów ukrytych (max id {}) w {}ms",
+                   groupTuples.size(), totalHidden[0], maxProductId, System.currentTimeMillis() - startTime);
+        return totalHidden[0];
+    }
+
+    /**
+     * Widoczne grupy kategorii (opcjonalnie tylko producenta) jako krotki {manufacturer, groupName}
+     */
+    private List<String[]> findVisibleGroupTuples(ProductCategory category, String manufacturer) {
+        List<?> rows = entityManager.createQuery(
+                "SELECT DISTINCT p.manufacturer, p.groupName FROM Product p " +
+                "WHERE p.category = :category AND p.manufacturer IS NOT NULL AND p.groupName IS NOT NULL " +
+                "AND (:manufacturer IS NULL OR p.manufacturer = :manufacturer)")
+            .setParameter("category", category)
+            .setParameter("manufacturer", manufacturer)
+            .getResultList();
+        List<String[]> groupTuples = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            groupTuples.add(new String[] {(String) columns[0], (String) columns[1]});
+        }
+        return groupTuples;
+    }
+
+    /**
+     * Produkty bez producenta lub grupy nie mają znacznika grupy - usuwane od razu (JDBC batch DELETE)
+     *
+     * @return Liczba usuniętych produktów
+     */
+    private int deleteUngroupedProducts(ProductCategory category, String manufacturer) {
+        List<?> ids = entityManager.createQuery(
+                "SELECT p.id FROM Product p WHERE p.category = :category " +
+                "AND (:manufacturer IS NULL OR p.manufacturer = :manufacturer) " +
+                "AND (p.manufacturer IS NULL OR p.groupName IS NULL)")
+            .setParameter("category", category)
+            .setParameter("manufacturer", manufacturer)
+            .getResultList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Long> productIds = ids.stream().map(id -> (Long) id).collect(Collectors.toList());
+        batchDeleteProductsByIds(productIds);
+        return productIds.size();
+    }
+
+    /**
+     * ⚡ OPTYMALIZACJA: Usuń grupy bezpośrednio po krotkach (category, manufacturer, group_name)
+     * - bez ładowania produktów kategorii do pamięci i bez filtrowania O(produkty × grupy)
+     * - jeden DELETE na grupę i tabelę, wysyłane paczkami JDBC batch (GROUP_DELETE_BATCH_SIZE grup)
+     * - w tej samej transakcji usuwane są dane zależne od grupy: zmiany draft projektów
+     *   (project_draft_changes_ws), opcje grup w projektach (project_product_groups)
+     *   i atrybuty grupy (product_group_attributes)
+     *
+     * ⚠️ WAŻNE: Zapisane pozycje projektów (project_products) zostają - są historią oferty
+     * Używane gdy soft delete jest wyłączony (domyślnie, app.catalog.soft-delete.enabled=false)
+     *
+     * @return Liczba usuniętych produktów
+     */
+    private int deleteGroupsByTuples(ProductCategory category, List<String[]> groupTuples,
+                                     GroupDeletedCallback groupDeleted) {
+        long startTime = System.currentTimeMillis();
+
+        // Zmiany w kontekście Hibernate muszą trafić do bazy przed DELETE przez JDBC
+        entityManager.flush();
+        catalogHierarchyService.catalogChanged(category);
+        attributeFacetIndex.attributesChanged(category);
+
+        int[] totalDeleted = {0};
+        Session session = entityManager.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (PreparedStatement deleteDrafts = connection.prepareStatement(
+                     "DELETE FROM project_draft_changes_ws WHERE product_id IN " +
+                     "(SELECT id FROM products WHERE category = ? AND manufacturer = ? AND group_name = ?)");
+                 PreparedStatement deleteProducts = connection.prepareStatement(
+                     "DELETE FROM products WHERE category = ? AND manufacturer = ? AND group_name = ?");
+                 PreparedStatement deleteProjectGroups = connection.prepareStatement(
+                     "DELETE FROM project_product_groups WHERE category = ? AND manufacturer = ? AND group_name = ?");
+                 PreparedStatement deleteAttributes = connection.prepareStatement(
+                     "DELETE FROM product_group_attributes WHERE category = ? AND manufacturer = ? AND group_name = ?")) {
+
+                for (int start = 0; start < groupTuples.size(); start += GROUP_DELETE_BATCH_SIZE) {
+                    List<String[]> chunk = groupTuples.subList(start, Math.min(start + GROUP_DELETE_BATCH_SIZE, groupTuples.size()));
+                    long chunkStart = System.currentTimeMillis();
+
+                    // Kolejność: draft (odwołuje się do products) → products → opcje grup → atrybuty
+                    int deletedDrafts = sum(executeGroupBatch(deleteDrafts, category, chunk));
+                    int[] deletedProducts = executeGroupBatch(deleteProducts, category, chunk);
+                    int deletedProjectGroups = sum(executeGroupBatch(deleteProjectGroups, category, chunk));
+                    int deletedAttributes = sum(executeGroupBatch(deleteAttributes, category, chunk));
+
+                    logger.info("⏱️ [PERFORMANCE] Usunięto paczkę {} grup: {} produktów, {} draft, {} opcji grup, {} atrybutów w {}ms",
+                               chunk.size(), sum(deletedProducts), deletedDrafts, deletedProjectGroups, deletedAttributes,
+                               System.currentTimeMillis() - chunkStart);
+
+                    for (int i = 0; i < chunk.size(); i++) {
+                        int deletedInGroup = Math.max(0, deletedProducts[i]);
+                        totalDeleted[0] += deletedInGroup;
+                        groupDeleted.accept(chunk.get(i), deletedInGroup);
+                    }
+                }
+            } catch (SQLException e) {
+                logger.error("❌ [PERFORMANCE] Błąd podczas usuwania grup: {}", e.getMessage(), e);
+                throw new RuntimeException("Błąd podczas usuwania grup produktowych", e);
+            }
+        });
+
+        // Usunięte wiersze mogą być jeszcze w kontekście Hibernate
+        entityManager.clear();
+
+        logger.info("⏱️ [PERFORMANCE] deleteGroupsByTuples: {} grup, {} produktów w {}ms",
+                   groupTuples.size(), totalDeleted[0], System.currentTimeMillis() - startTime);
+        return totalDeleted[0];
+    }
+
+    private static int[] executeGroupBatch(PreparedStatement statement, ProductCategory category,
+                                           List<String[]> groups) throws SQLException {
+        for (String[] group : groups) {
+            statement.setString(1, category.name());
+            statement.setString(2, group[0]);
+            statement.setString(3, group[1]);
+            statement.addBatch();
+        }
+        return statement.executeBatch();
+    }
+
+    private static int sum(int[] updateCounts) {
+        int total = 0;
+        for (int count : updateCounts) {
+            total += Math.max(0, count);
+        }
+        return total;
+    }
+
     /**
      * Klasa pomocnicza do przekazywania statusu postępu usuwania
      */
@@ -1936,6 +2511,7 @@ public class ProductService {
         long startTime = System.currentTimeMillis();
         int totalProducts = productIds.size();
         logger.info("⏱️ [PERFORMANCE] BATCH DELETE PRODUCTS - START | rekordów: {}", totalProducts);
+        catalogHierarchyService.catalogChanged(null);
         
         String sql = "DELETE FROM products WHERE id = ?";
         
@@ -1989,9 +2565,11 @@ public class ProductService {
 
     /**
      * BULK RENAME MANUFACTURER - zmień nazwę producenta dla wszystkich jego produktów
+     * ⚡ OPTYMALIZACJA: Jeden UPDATE na tabelę (products, project_product_groups, product_group_attributes)
+     * zawężony do (category, manufacturer) - bez ładowania produktów do pamięci
      */
     @Transactional
-    public List<Product> renameManufacturer(
+    public CatalogRenameResult renameManufacturer(
             ProductCategory category,
             String oldManufacturer,
             String newManufacturer) {
@@ -2000,45 +2578,17 @@ public class ProductService {
         logger.info("  Kategoria: {}", category);
         logger.info("  Stara nazwa: '{}'", oldManufacturer);
         logger.info("  Nowa nazwa: '{}'", newManufacturer);
-        
-        List<Product> products = productRepository.findByCategory(category).stream()
-                .filter(p -> oldManufacturer.equals(p.getManufacturer()))
-                .toList();
-        
-        if (products.isEmpty()) {
-            logger.warn("⚠️ Nie znaleziono produktów dla producenta: {}", oldManufacturer);
-            return products;
-        }
-        
-        logger.info("📦 Znaleziono {} produktów", products.size());
-        
-        // ⚡ OPTYMALIZACJA: Użyj JDBC batch UPDATE dla dużej liczby produktów (znacznie szybsze niż Hibernate ORM)
-        if (products.size() > 50) {
-            logger.info("⏱️ [PERFORMANCE] Bulk rename manufacturer: {} produktów - używam JDBC batch UPDATE", products.size());
-            batchUpdateManufacturer(products, newManufacturer);
-            // Pobierz zaktualizowane produkty z bazy
-            List<Long> productIds = products.stream().map(Product::getId).collect(Collectors.toList());
-            List<Product> saved = productRepository.findAllById(productIds);
-            logger.info("✅ Zmieniono nazwę producenta dla {} produktów (JDBC batch UPDATE)", saved.size());
-            return saved;
-        } else {
-            // Dla małej liczby produktów użyj standardowego saveAll
-            for (Product product : products) {
-                product.setManufacturer(newManufacturer);
-                logger.debug("  ✓ {} - producent: {} → {}", 
-                            product.getName(), oldManufacturer, newManufacturer);
-            }
-            List<Product> saved = productRepository.saveAll(products);
-            logger.info("✅ Zmieniono nazwę producenta dla {} produktów", saved.size());
-            return saved;
-        }
+
+        return renameInCatalog(category, "manufacturer", oldManufacturer, null, newManufacturer);
     }
 
     /**
      * BULK RENAME GROUP - zmień nazwę grupy dla wszystkich produktów w tej grupie
+     * ⚡ OPTYMALIZACJA: Jeden UPDATE na tabelę (products, project_product_groups, product_group_attributes)
+     * zawężony do (category, manufacturer, group_name) - bez ładowania produktów do pamięci
      */
     @Transactional
-    public List<Product> renameGroup(
+    public CatalogRenameResult renameGroup(
             ProductCategory category,
             String manufacturer,
             String oldGroupName,
@@ -2049,173 +2599,178 @@ public class ProductService {
         logger.info("  Producent: {}", manufacturer);
         logger.info("  Stara nazwa grupy: '{}'", oldGroupName);
         logger.info("  Nowa nazwa grupy: '{}'", newGroupName);
-        
-        List<Product> products = productRepository.findByCategory(category).stream()
-                .filter(p -> manufacturer.equals(p.getManufacturer()))
-                .filter(p -> oldGroupName.equals(p.getGroupName()))
-                .toList();
-        
-        if (products.isEmpty()) {
-            logger.warn("⚠️ Nie znaleziono produktów dla grupy: {} / {}", manufacturer, oldGroupName);
-            return products;
-        }
-        
-        logger.info("📦 Znaleziono {} produktów", products.size());
-        
-        // ⚡ OPTYMALIZACJA: Użyj JDBC batch UPDATE dla dużej liczby produktów (znacznie szybsze niż Hibernate ORM)
-        if (products.size() > 50) {
-            logger.info("⏱️ [PERFORMANCE] Bulk rename group: {} produktów - używam JDBC batch UPDATE", products.size());
-            batchUpdateGroupName(products, newGroupName);
-            // Pobierz zaktualizowane produkty z bazy
-            List<Long> productIds = products.stream().map(Product::getId).collect(Collectors.toList());
-            List<Product> saved = productRepository.findAllById(productIds);
-            logger.info("✅ Zmieniono nazwę grupy dla {} produktów (JDBC batch UPDATE)", saved.size());
-            return saved;
-        } else {
-            // Dla małej liczby produktów użyj standardowego saveAll
-            for (Product product : products) {
-                product.setGroupName(newGroupName);
-                logger.debug("  ✓ {} - grupa: {} → {}", 
-                            product.getName(), oldGroupName, newGroupName);
-            }
-            List<Product> saved = productRepository.saveAll(products);
-            logger.info("✅ Zmieniono nazwę grupy dla {} produktów", saved.size());
-            return saved;
-        }
+
+        return renameInCatalog(category, "group_name", manufacturer, oldGroupName, newGroupName);
     }
 
     /**
-     * ⚡ OPTYMALIZACJA: Batch UPDATE manufacturer (JDBC batch update zamiast Hibernate ORM)
-     * Znacznie szybsze niż Hibernate ORM dla dużej liczby produktów (50+)
-     * 
-     * @param products Lista produktów do aktualizacji (muszą mieć ID)
-     * @param newManufacturer Nowa nazwa producenta
+     * Zmiana nazwy w kolumnie column ("manufacturer" lub "group_name") dla wierszy
+     * (category, manufacturer[, group_name]) we wszystkich tabelach z nazwą grupy
+     *
+     * ⚠️ WAŻNE:
+     * - produkty ukryte przez soft delete (ProductGroupTombstone) zachowują starą nazwę - nadal czekają na usunięcie
+     * - grupa docelowa czekająca na usunięcie jest najpierw czyszczona od razu (CatalogPurgeService) -
+     *   inaczej jej znacznik ukryłby przeniesione produkty z niższym id
+     * - atrybuty: przy kolizji z istniejącą grupą docelową wartości są łączone (najpierw wartości grupy docelowej)
      */
-    private void batchUpdateManufacturer(List<Product> products, String newManufacturer) {
+    private CatalogRenameResult renameInCatalog(ProductCategory category, String column,
+                                                String manufacturer, String groupName, String newValue) {
         long startTime = System.currentTimeMillis();
-        int totalProducts = products.size();
-        logger.info("⏱️ [PERFORMANCE] BATCH UPDATE MANUFACTURER - START | rekordów: {}", totalProducts);
-        
-        String sql = "UPDATE products SET manufacturer = ?, updated_at = ? WHERE id = ?";
-        
-        int batchSize = 1000;
-        int totalBatches = (int) Math.ceil((double) totalProducts / batchSize);
-        
-        Session session = entityManager.unwrap(Session.class);
-        
-        session.doWork(new Work() {
-            @Override
-            public void execute(Connection connection) throws SQLException {
-                try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                    for (int batchIndex = 0; batchIndex < totalBatches; batchIndex++) {
-                        int startIndex = batchIndex * batchSize;
-                        int endIndex = Math.min(startIndex + batchSize, totalProducts);
-                        int recordsInBatch = endIndex - startIndex;
-                        
-                        long batchPrepareStart = System.currentTimeMillis();
-                        
-                        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
-                        
-                        for (int i = startIndex; i < endIndex; i++) {
-                            Product product = products.get(i);
-                            
-                            int paramIndex = 1;
-                            pstmt.setString(paramIndex++, newManufacturer);
-                            pstmt.setTimestamp(paramIndex++, now);
-                            pstmt.setLong(paramIndex++, product.getId());
-                            
-                            pstmt.addBatch();
-                        }
-                        
-                        long batchPrepareEnd = System.currentTimeMillis();
-                        logger.info("⏱️ [PERFORMANCE] Batch {}/{} przygotowany | rekordów: {} | czas przygotowania: {}ms",
-                                   batchIndex + 1, totalBatches, recordsInBatch, batchPrepareEnd - batchPrepareStart);
-                        
-                        long batchUpdateStart = System.currentTimeMillis();
-                        pstmt.executeBatch();
-                        long batchUpdateEnd = System.currentTimeMillis();
-                        logger.info("⏱️ [PERFORMANCE] Batch {}/{} zaktualizowany (UPDATE manufacturer) | rekordów: {} | czas aktualizacji: {}ms",
-                                   batchIndex + 1, totalBatches, recordsInBatch, batchUpdateEnd - batchUpdateStart);
-                    }
-                } catch (SQLException e) {
-                    logger.error("❌ [PERFORMANCE] Błąd podczas batch update manufacturer: {}", e.getMessage(), e);
-                    throw new RuntimeException("Błąd podczas batch update manufacturer", e);
-                }
-            }
-        });
-        
+        String oldValue = groupName != null ? groupName : manufacturer;
+        if (oldValue == null || newValue == null || newValue.trim().isEmpty()) {
+            throw new IllegalArgumentException("Stara i nowa nazwa nie mogą być puste");
+        }
+
+        CatalogRenameResult result = new CatalogRenameResult();
+        if (oldValue.equals(newValue)) {
+            return result;
+        }
+
+        // Zmiany w kontekście Hibernate muszą trafić do bazy przed UPDATE
         entityManager.flush();
-        
-        long duration = System.currentTimeMillis() - startTime;
-        logger.info("⏱️ [PERFORMANCE] BATCH UPDATE MANUFACTURER - END | rekordów: {} | batchy: {} | czas całkowity: {}ms",
-                   totalProducts, totalBatches, duration);
+        purgeDeletedTargetGroups(category, column, manufacturer, groupName, newValue);
+        catalogHierarchyService.catalogChanged(category);
+        attributeFacetIndex.attributesChanged(category);
+
+        String scope = " WHERE category = :category AND manufacturer = :manufacturer" +
+                       (groupName != null ? " AND group_name = :groupName" : "");
+        LocalDateTime now = LocalDateTime.now();
+
+        Query renameProducts = entityManager.createNativeQuery(
+            "UPDATE products SET " + column + " = :newValue, updated_at = :now" + scope +
+            " AND NOT EXISTS (SELECT 1 FROM product_group_tombstones t WHERE t.category = products.category" +
+            " AND t.manufacturer = products.manufacturer AND t.group_name = products.group_name" +
+            " AND products.id <= t.max_product_id)");
+        renameProducts.setParameter("now", Timestamp.valueOf(now));
+        result.setRenamedProducts(bindRenameScope(renameProducts, category, manufacturer, groupName, newValue).executeUpdate());
+
+        Query renameProjectGroups = entityManager.createNativeQuery(
+            "UPDATE project_product_groups SET " + column + " = :newValue" + scope);
+        result.setRenamedProjectGroups(bindRenameScope(renameProjectGroups, category, manufacturer, groupName, newValue).executeUpdate());
+
+        // Unikalny klucz (category, manufacturer, group_name): wiersze kolidujące z grupą docelową
+        // są łączone z nią i usuwane, pozostałe przenosi zwykły UPDATE
+        int mergedAttributes = mergeCollidingGroupAttributes(category, column, manufacturer, groupName, newValue, now);
+        Query renameAttributes = entityManager.createNativeQuery(
+            "UPDATE product_group_attributes SET " + column + " = :newValue, updated_at = :now" + scope);
+        renameAttributes.setParameter("now", Timestamp.valueOf(now));
+        result.setRenamedGroupAttributes(mergedAttributes +
+            bindRenameScope(renameAttributes, category, manufacturer, groupName, newValue).executeUpdate());
+
+        // Zmienione wiersze mogą być jeszcze w kontekście Hibernate ze starą nazwą
+        entityManager.clear();
+
+        if (result.getRenamedProducts() > 0) {
+            result.setCatalogVersion(now);
+        }
+        logger.info("⏱️ [PERFORMANCE] rename {} '{}' → '{}': {} produktów, {} opcji grup, {} atrybutów ({} połączonych) w {}ms",
+                   column, oldValue, newValue, result.getRenamedProducts(), result.getRenamedProjectGroups(),
+                   result.getRenamedGroupAttributes(), mergedAttributes, System.currentTimeMillis() - startTime);
+        return result;
     }
 
     /**
-     * ⚡ OPTYMALIZACJA: Batch UPDATE group_name (JDBC batch update zamiast Hibernate ORM)
-     * Znacznie szybsze niż Hibernate ORM dla dużej liczby produktów (50+)
-     * 
-     * @param products Lista produktów do aktualizacji (muszą mieć ID)
-     * @param newGroupName Nowa nazwa grupy
+     * Wyczyść od razu grupy docelowe zmiany nazwy, które czekają na usunięcie (mają znacznik)
+     * Zwykle brak znaczników - jedno zapytanie; fizyczny DELETE tylko dla kolidujących grup
      */
-    private void batchUpdateGroupName(List<Product> products, String newGroupName) {
-        long startTime = System.currentTimeMillis();
-        int totalProducts = products.size();
-        logger.info("⏱️ [PERFORMANCE] BATCH UPDATE GROUP_NAME - START | rekordów: {}", totalProducts);
-        
-        String sql = "UPDATE products SET group_name = ?, updated_at = ? WHERE id = ?";
-        
-        int batchSize = 1000;
-        int totalBatches = (int) Math.ceil((double) totalProducts / batchSize);
-        
-        Session session = entityManager.unwrap(Session.class);
-        
-        session.doWork(new Work() {
-            @Override
-            public void execute(Connection connection) throws SQLException {
-                try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                    for (int batchIndex = 0; batchIndex < totalBatches; batchIndex++) {
-                        int startIndex = batchIndex * batchSize;
-                        int endIndex = Math.min(startIndex + batchSize, totalProducts);
-                        int recordsInBatch = endIndex - startIndex;
-                        
-                        long batchPrepareStart = System.currentTimeMillis();
-                        
-                        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
-                        
-                        for (int i = startIndex; i < endIndex; i++) {
-                            Product product = products.get(i);
-                            
-                            int paramIndex = 1;
-                            pstmt.setString(paramIndex++, newGroupName);
-                            pstmt.setTimestamp(paramIndex++, now);
-                            pstmt.setLong(paramIndex++, product.getId());
-                            
-                            pstmt.addBatch();
-                        }
-                        
-                        long batchPrepareEnd = System.currentTimeMillis();
-                        logger.info("⏱️ [PERFORMANCE] Batch {}/{} przygotowany | rekordów: {} | czas przygotowania: {}ms",
-                                   batchIndex + 1, totalBatches, recordsInBatch, batchPrepareEnd - batchPrepareStart);
-                        
-                        long batchUpdateStart = System.currentTimeMillis();
-                        pstmt.executeBatch();
-                        long batchUpdateEnd = System.currentTimeMillis();
-                        logger.info("⏱️ [PERFORMANCE] Batch {}/{} zaktualizowany (UPDATE group_name) | rekordów: {} | czas aktualizacji: {}ms",
-                                   batchIndex + 1, totalBatches, recordsInBatch, batchUpdateEnd - batchUpdateStart);
+    private void purgeDeletedTargetGroups(ProductCategory category, String column,
+                                          String manufacturer, String groupName, String newValue) {
+        String otherColumn = "manufacturer".equals(column) ? "group_name" : "manufacturer";
+        Query collidingTombstones = entityManager.createNativeQuery(
+            "SELECT DISTINCT t.id FROM product_group_tombstones t" +
+            " JOIN products p ON p.category = t.category AND p." + otherColumn + " = t." + otherColumn +
+            " WHERE t.category = :category AND t." + column + " = :newValue" +
+            " AND p.category = :category AND p.manufacturer = :manufacturer" +
+            (groupName != null ? " AND p.group_name = :groupName" : ""));
+        List<?> ids = bindRenameScope(collidingTombstones, category, manufacturer, groupName, newValue).getResultList();
+        if (!ids.isEmpty()) {
+            int purged = catalogPurgeService.purgeGroupsNow(
+                ids.stream().map(id -> ((Number) id).longValue()).collect(Collectors.toList()));
+            logger.info("🗑️ Zmiana nazwy na '{}': wyczyszczono {} grup czekających na usunięcie ({} produktów)",
+                       newValue, ids.size(), purged);
+        }
+    }
+
+    /**
+     * Połącz atrybuty grup, których nowy klucz jest już zajęty, z atrybutami grupy docelowej
+     * Wartości grupy docelowej zostają na początku, brakujące wartości przenoszonej grupy są dopisywane.
+     * Usuwane są tylko połączone wiersze starej nazwy.
+     *
+     * @return Liczba połączonych wierszy
+     */
+    private int mergeCollidingGroupAttributes(ProductCategory category, String column, String manufacturer,
+                                              String groupName, String newValue, LocalDateTime now) {
+        String otherColumn = "manufacturer".equals(column) ? "group_name" : "manufacturer";
+        Query colliding = entityManager.createNativeQuery(
+            "SELECT s.id, s.attributes, t.id, t.attributes FROM product_group_attributes s" +
+            " JOIN product_group_attributes t ON t.category = s.category AND t." + column + " = :newValue" +
+            " AND t." + otherColumn + " = s." + otherColumn +
+            " WHERE s.category = :category AND s.manufacturer = :manufacturer" +
+            (groupName != null ? " AND s.group_name = :groupName" : ""));
+        List<?> rows = bindRenameScope(colliding, category, manufacturer, groupName, newValue).getResultList();
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> mergedSourceIds = new ArrayList<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            Map<String, List<String>> merged = readGroupAttributes((String) columns[3]);
+            readGroupAttributes((String) columns[1]).forEach((name, values) -> {
+                List<String> target = merged.computeIfAbsent(name, key -> new ArrayList<>());
+                for (String value : values) {
+                    if (!target.contains(value)) {
+                        target.add(value);
                     }
-                } catch (SQLException e) {
-                    logger.error("❌ [PERFORMANCE] Błąd podczas batch update group_name: {}", e.getMessage(), e);
-                    throw new RuntimeException("Błąd podczas batch update group_name", e);
                 }
+            });
+            String mergedJson;
+            try {
+                mergedJson = merged.isEmpty() ? null : ATTRIBUTES_OBJECT_MAPPER.writeValueAsString(merged);
+            } catch (Exception e) {
+                throw new IllegalStateException("Błąd konwersji atrybutów do JSON", e);
             }
-        });
-        
-        entityManager.flush();
-        
-        long duration = System.currentTimeMillis() - startTime;
-        logger.info("⏱️ [PERFORMANCE] BATCH UPDATE GROUP_NAME - END | rekordów: {} | batchy: {} | czas całkowity: {}ms",
-                   totalProducts, totalBatches, duration);
+            if (mergedJson != null && mergedJson.length() > GROUP_ATTRIBUTES_MAX_LENGTH) {
+                throw new IllegalArgumentException("Połączone atrybuty grupy docelowej przekraczają " +
+                                                   GROUP_ATTRIBUTES_MAX_LENGTH + " znaków - zmiana nazwy odrzucona");
+            }
+            entityManager.createNativeQuery(
+                    "UPDATE product_group_attributes SET attributes = :attributes, updated_at = :now WHERE id = :id")
+                .setParameter("attributes", mergedJson)
+                .setParameter("now", Timestamp.valueOf(now))
+                .setParameter("id", ((Number) columns[2]).longValue())
+                .executeUpdate();
+            mergedSourceIds.add(((Number) columns[0]).longValue());
+        }
+
+        entityManager.createNativeQuery("DELETE FROM product_group_attributes WHERE id IN (:ids)")
+            .setParameter("ids", mergedSourceIds)
+            .executeUpdate();
+        return mergedSourceIds.size();
+    }
+
+    private static Map<String, List<String>> readGroupAttributes(String json) {
+        if (json == null || json.trim().isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return ATTRIBUTES_OBJECT_MAPPER.readValue(json, GROUP_ATTRIBUTES_TYPE);
+        } catch (Exception e) {
+            throw new IllegalStateException("Nieprawidłowy JSON atrybutów grupy: " + json, e);
+        }
+    }
+
+    private static Query bindRenameScope(Query query, ProductCategory category, String manufacturer,
+                                         String groupName, String newValue) {
+        query.setParameter("category", category.name());
+        query.setParameter("manufacturer", manufacturer);
+        if (groupName != null) {
+            query.setParameter("groupName", groupName);
+        }
+        if (newValue != null) {
+            query.setParameter("newValue", newValue);
+        }
+        return query;
     }
 
     /**
@@ -2240,6 +2795,7 @@ public class ProductService {
         long startTime = System.currentTimeMillis();
         int totalProducts = products.size();
         logger.info("⏱️ [PERFORMANCE] BATCH UPDATE GROUP DISCOUNTS - START | rekordów: {}", totalProducts);
+        catalogHierarchyService.catalogChanged(null);
         
         String sql = "UPDATE products SET " +
                     "basic_discount = ?, " +
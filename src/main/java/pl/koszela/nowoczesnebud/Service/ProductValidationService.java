@@ -4,21 +4,134 @@ import org.springframework.stereotype.Service;
 import pl.koszela.nowoczesnebud.Model.Product;
 import pl.koszela.nowoczesnebud.Model.ProductCategory;
 
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Serwis walidacji produktów - logika biznesowa
+ *
+ * ⚡ OPTYMALIZACJA: Walidacja wsadowa liczy tylko flagi reguł (short per produkt),
+ * komunikaty tekstowe są formatowane dopiero gdy ktoś o nie poprosi.
  */
 @Service
 public class ProductValidationService {
 
+    /**
+     * Domyślny limit zbieranych błędów - po jego przekroczeniu walidacja wsadowa przerywa pracę
+     */
+    public static final int DEFAULT_MAX_ERRORS = 50;
+
+    /**
+     * Od tej liczby produktów walidacja wsadowa działa równolegle (na wszystkich rdzeniach)
+     */
+    static final int PARALLEL_THRESHOLD = 2000;
+
+    // Flagi reguł - błędy
+    static final short ERR_SELLING_BELOW_PURCHASE = 1;
+    static final short ERR_DISCOUNT_SUM_OVER_100 = 1 << 1;
+    static final short ERR_NEGATIVE_RETAIL_PRICE = 1 << 2;
+    static final short ERR_NEGATIVE_PURCHASE_PRICE = 1 << 3;
+    static final short ERR_NEGATIVE_SELLING_PRICE = 1 << 4;
+    static final short ERR_BASIC_DISCOUNT_RANGE = 1 << 5;
+    // Flagi reguł - ostrzeżenia
+    static final short WARN_HIGH_DISCOUNT = 1 << 6;
+    static final short WARN_MISSING_RETAIL_PRICE = 1 << 7;
+    // Produkt pominięty (walidacja przerwana po przekroczeniu limitu błędów)
+    static final short NOT_VALIDATED = 1 << 8;
+
+    static final short ERROR_MASK = ERR_SELLING_BELOW_PURCHASE | ERR_DISCOUNT_SUM_OVER_100
+            | ERR_NEGATIVE_RETAIL_PRICE | ERR_NEGATIVE_PURCHASE_PRICE
+            | ERR_NEGATIVE_SELLING_PRICE | ERR_BASIC_DISCOUNT_RANGE;
+    static final short WARNING_MASK = WARN_HIGH_DISCOUNT | WARN_MISSING_RETAIL_PRICE;
+
+    /**
+     * Własna pula walidacji (zamiast wspólnej ForkJoinPool.commonPool()) - walidacja dużych zapisów
+     * nie zajmuje wątków innych parallel streams i CompletableFuture w aplikacji
+     */
+    private final ForkJoinPool validationPool;
+
+    public ProductValidationService() {
+        this.validationPool = new ForkJoinPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors()),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("product-validation-" + thread.getPoolIndex());
+                return thread;
+            },
+            null,
+            false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validationPool.shutdownNow();
+    }
+
     /**
      * Waliduj produkt przed zapisem
      */
     public ValidationResult validate(Product product) {
+        short flags = computeFlags(product);
         List<String> errors = new ArrayList<>();
         List<String> warnings = new ArrayList<>();
+        describe(product, flags, errors, warnings);
+        return new ValidationResult(errors.isEmpty(), errors, warnings);
+    }
+
+    /**
+     * Waliduj wiele produktów (bez limitu błędów)
+     */
+    public BatchValidationResult validateBatch(List<Product> products) {
+        return validateBatch(products, 0);
+    }
+
+    /**
+     * Waliduj wiele produktów z limitem błędów (fail fast)
+     * - dla dużych list walidacja działa równolegle (parallel stream po indeksach w validationPool)
+     * - po znalezieniu maxErrors produktów z błędami pozostałe są pomijane
+     * - wynik trzymany jest w tablicy flag (short per produkt), bez obiektów per produkt
+     *
+     * @param products Produkty do walidacji
+     * @param maxErrors Limit produktów z błędami (0 = bez limitu)
+     */
+    public BatchValidationResult validateBatch(List<Product> products, int maxErrors) {
+        int size = products.size();
+        short[] flags = new short[size];
+        AtomicInteger errorCounter = new AtomicInteger();
+
+        IntConsumer validateProduct = i -> {
+            if (maxErrors > 0 && errorCounter.get() >= maxErrors) {
+                flags[i] = NOT_VALIDATED;
+                return;
+            }
+            short productFlags = computeFlags(products.get(i));
+            flags[i] = productFlags;
+            if ((productFlags & ERROR_MASK) != 0) {
+                errorCounter.incrementAndGet();
+            }
+        };
+
+        if (size >= PARALLEL_THRESHOLD) {
+            // Parallel stream uruchomiony z zadania puli działa na wątkach tej puli (nie commonPool)
+            validationPool.submit(() -> IntStream.range(0, size).parallel().forEach(validateProduct)).join();
+        } else {
+            IntStream.range(0, size).forEach(validateProduct);
+        }
+
+        return new BatchValidationResult(products, flags);
+    }
+
+    /**
+     * Oblicz flagi reguł dla produktu - bez alokacji komunikatów
+     */
+    short computeFlags(Product product) {
+        short flags = 0;
 
         // === WALIDACJA KRYTYCZNA (błędy) ===
 
@@ -26,117 +139,106 @@ public class ProductValidationService {
         // ⚠️ UWAGA: Dla akcesoriów (ACCESSORY) nie sprawdzamy tej walidacji - akcesoria mają tylko cenę zakupu
         if (product.getCategory() != null && product.getCategory() != ProductCategory.ACCESSORY) {
             if (product.getSellingPrice() != null && product.getPurchasePrice() != null &&
-                product.getSellingPrice() > 0 && product.getPurchasePrice() > 0) {
-                
-                if (product.getSellingPrice() < product.getPurchasePrice()) {
-                    errors.add(String.format(
-                        "Produkt '%s': Cena sprzedaży (%.2f PLN) jest niższa niż cena zakupu (%.2f PLN) - STRATA!",
-                        product.getName(),
-                        product.getSellingPrice(),
-                        product.getPurchasePrice()
-                    ));
-                }
+                product.getSellingPrice() > 0 && product.getPurchasePrice() > 0 &&
+                product.getSellingPrice() < product.getPurchasePrice()) {
+                flags |= ERR_SELLING_BELOW_PURCHASE;
             }
         }
 
         // 2. Suma rabatów nie może przekraczać 100%
-        int totalDiscount = (product.getBasicDiscount() != null ? product.getBasicDiscount() : 0) +
-                           (product.getAdditionalDiscount() != null ? product.getAdditionalDiscount() : 0) +
-                           (product.getPromotionDiscount() != null ? product.getPromotionDiscount() : 0) +
-                           (product.getSkontoDiscount() != null ? product.getSkontoDiscount() : 0);
-
+        int totalDiscount = totalDiscount(product);
         if (totalDiscount > 100) {
-            errors.add(String.format(
-                "Produkt '%s': Suma rabatów wynosi %d%% (przekracza 100%%)",
-                product.getName(),
-                totalDiscount
-            ));
+            flags |= ERR_DISCOUNT_SUM_OVER_100;
         }
 
         // 3. Ceny nie mogą być ujemne
         if (product.getRetailPrice() != null && product.getRetailPrice() < 0) {
-            errors.add(String.format(
-                "Produkt '%s': Cena katalogowa nie może być ujemna",
-                product.getName()
-            ));
+            flags |= ERR_NEGATIVE_RETAIL_PRICE;
         }
-
         if (product.getPurchasePrice() != null && product.getPurchasePrice() < 0) {
-            errors.add(String.format(
-                "Produkt '%s': Cena zakupu nie może być ujemna",
-                product.getName()
-            ));
+            flags |= ERR_NEGATIVE_PURCHASE_PRICE;
         }
-
         if (product.getSellingPrice() != null && product.getSellingPrice() < 0) {
-            errors.add(String.format(
-                "Produkt '%s': Cena sprzedaży nie może być ujemna",
-                product.getName()
-            ));
+            flags |= ERR_NEGATIVE_SELLING_PRICE;
         }
 
         // 4. Rabaty muszą być w zakresie 0-100%
-        if (product.getBasicDiscount() != null && 
+        if (product.getBasicDiscount() != null &&
             (product.getBasicDiscount() < 0 || product.getBasicDiscount() > 100)) {
-            errors.add(String.format(
-                "Produkt '%s': Rabat podstawowy musi być w zakresie 0-100%%",
-                product.getName()
-            ));
+            flags |= ERR_BASIC_DISCOUNT_RANGE;
         }
 
         // === WALIDACJA OSTRZEGAWCZA (warnings) ===
 
         // 1. Bardzo wysokie rabaty (suma > 50%)
         if (totalDiscount > 50 && totalDiscount <= 100) {
-            warnings.add(String.format(
-                "Produkt '%s': Suma rabatów wynosi %d%% (bardzo wysokie rabaty)",
-                product.getName(),
-                totalDiscount
-            ));
+            flags |= WARN_HIGH_DISCOUNT;
         }
 
         // 2. Brak ceny katalogowej
         if (product.getRetailPrice() == null || product.getRetailPrice() == 0) {
-            warnings.add(String.format(
-                "Produkt '%s': Brak ceny katalogowej",
-                product.getName()
-            ));
+            flags |= WARN_MISSING_RETAIL_PRICE;
         }
 
-        return new ValidationResult(errors.isEmpty(), errors, warnings);
+        return flags;
+    }
+
+    private static int totalDiscount(Product product) {
+        return (product.getBasicDiscount() != null ? product.getBasicDiscount() : 0) +
+               (product.getAdditionalDiscount() != null ? product.getAdditionalDiscount() : 0) +
+               (product.getPromotionDiscount() != null ? product.getPromotionDiscount() : 0) +
+               (product.getSkontoDiscount() != null ? product.getSkontoDiscount() : 0);
     }
 
     /**
-     * Waliduj wiele produktów
+     * Zamień flagi reguł na komunikaty (formatowane tylko na żądanie)
      */
-    public BatchValidationResult validateBatch(List<Product> products) {
-        List<ValidationResult> results = new ArrayList<>();
-        int validCount = 0;
-        int errorCount = 0;
-        int warningCount = 0;
-
-        for (Product product : products) {
-            ValidationResult result = validate(product);
-            results.add(result);
-
-            if (result.isValid()) {
-                validCount++;
-            } else {
-                errorCount++;
+    static void describe(Product product, short flags, List<String> errors, List<String> warnings) {
+        if (errors != null && (flags & ERROR_MASK) != 0) {
+            if ((flags & ERR_SELLING_BELOW_PURCHASE) != 0) {
+                errors.add(String.format(
+                    "Produkt '%s': Cena sprzedaży (%.2f PLN) jest niższa niż cena zakupu (%.2f PLN) - STRATA!",
+                    product.getName(),
+                    product.getSellingPrice(),
+                    product.getPurchasePrice()
+                ));
             }
-
-            if (!result.getWarnings().isEmpty()) {
-                warningCount++;
+            if ((flags & ERR_DISCOUNT_SUM_OVER_100) != 0) {
+                errors.add(String.format(
+                    "Produkt '%s': Suma rabatów wynosi %d%% (przekracza 100%%)",
+                    product.getName(),
+                    totalDiscount(product)
+                ));
+            }
+            if ((flags & ERR_NEGATIVE_RETAIL_PRICE) != 0) {
+                errors.add(String.format("Produkt '%s': Cena katalogowa nie może być ujemna", product.getName()));
+            }
+            if ((flags & ERR_NEGATIVE_PURCHASE_PRICE) != 0) {
+                errors.add(String.format("Produkt '%s': Cena zakupu nie może być ujemna", product.getName()));
+            }
+            if ((flags & ERR_NEGATIVE_SELLING_PRICE) != 0) {
+                errors.add(String.format("Produkt '%s': Cena sprzedaży nie może być ujemna", product.getName()));
+            }
+            if ((flags & ERR_BASIC_DISCOUNT_RANGE) != 0) {
+                errors.add(String.format(
+                    "Produkt '%s': Rabat podstawowy musi być w zakresie 0-100%%",
+                    product.getName()
+                ));
             }
         }
 
-        return new BatchValidationResult(
-            errorCount == 0,
-            validCount,
-            errorCount,
-            warningCount,
-            results
-        );
+        if (warnings != null && (flags & WARNING_MASK) != 0) {
+            if ((flags & WARN_HIGH_DISCOUNT) != 0) {
+                warnings.add(String.format(
+                    "Produkt '%s': Suma rabatów wynosi %d%% (bardzo wysokie rabaty)",
+                    product.getName(),
+                    totalDiscount(product)
+                ));
+            }
+            if ((flags & WARN_MISSING_RETAIL_PRICE) != 0) {
+                warnings.add(String.format("Produkt '%s': Brak ceny katalogowej", product.getName()));
+            }
+        }
     }
 
     /**
@@ -168,23 +270,59 @@ public class ProductValidationService {
 
     /**
      * Wynik walidacji wielu produktów
+     * Przechowuje flagi reguł (short per produkt) - obiekty ValidationResult i komunikaty
+     * są tworzone dopiero przy wywołaniu getResults() / getAllErrors() / getAllWarnings()
      */
     public static class BatchValidationResult {
         private final boolean allValid;
         private final int validCount;
         private final int errorCount;
         private final int warningCount;
-        private final List<ValidationResult> results;
+        private final int skippedCount;
+        private final List<Product> products;
+        private final short[] flags;
+        private List<ValidationResult> results;
 
-        public BatchValidationResult(boolean allValid, int validCount, int errorCount, 
+        public BatchValidationResult(boolean allValid, int validCount, int errorCount,
                                      int warningCount, List<ValidationResult> results) {
             this.allValid = allValid;
             this.validCount = validCount;
             this.errorCount = errorCount;
             this.warningCount = warningCount;
+            this.skippedCount = 0;
+            this.products = null;
+            this.flags = null;
             this.results = results;
         }
 
+        BatchValidationResult(List<Product> products, short[] flags) {
+            int valid = 0;
+            int withErrors = 0;
+            int withWarnings = 0;
+            int skipped = 0;
+            for (short productFlags : flags) {
+                if ((productFlags & NOT_VALIDATED) != 0) {
+                    skipped++;
+                    continue;
+                }
+                if ((productFlags & ERROR_MASK) != 0) {
+                    withErrors++;
+                } else {
+                    valid++;
+                }
+                if ((productFlags & WARNING_MASK) != 0) {
+                    withWarnings++;
+                }
+            }
+            this.allValid = withErrors == 0;
+            this.validCount = valid;
+            this.errorCount = withErrors;
+            this.warningCount = withWarnings;
+            this.skippedCount = skipped;
+            this.products = products;
+            this.flags = flags;
+        }
+
         public boolean isAllValid() {
             return allValid;
         }
@@ -201,12 +339,47 @@ public class ProductValidationService {
             return warningCount;
         }
 
+        /**
+         * Liczba produktów pominiętych po przekroczeniu limitu błędów
+         */
+        public int getSkippedCount() {
+            return skippedCount;
+        }
+
+        /**
+         * Czy walidacja została przerwana po przekroczeniu limitu błędów
+         */
+        public boolean isAborted() {
+            return skippedCount > 0;
+        }
+
         public List<ValidationResult> getResults() {
+            if (results == null) {
+                List<ValidationResult> materialized = new ArrayList<>(flags.length);
+                for (int i = 0; i < flags.length; i++) {
+                    if ((flags[i] & NOT_VALIDATED) != 0) {
+                        continue;
+                    }
+                    List<String> errors = new ArrayList<>();
+                    List<String> warnings = new ArrayList<>();
+                    describe(products.get(i), flags[i], errors, warnings);
+                    materialized.add(new ValidationResult(errors.isEmpty(), errors, warnings));
+                }
+                results = materialized;
+            }
             return results;
         }
 
         public List<String> getAllErrors() {
             List<String> allErrors = new ArrayList<>();
+            if (results == null) {
+                for (int i = 0; i < flags.length; i++) {
+                    if ((flags[i] & ERROR_MASK) != 0) {
+                        describe(products.get(i), flags[i], allErrors, null);
+                    }
+                }
+                return allErrors;
+            }
             for (ValidationResult result : results) {
                 allErrors.addAll(result.getErrors());
             }
@@ -215,6 +388,14 @@ public class ProductValidationService {
 
         public List<String> getAllWarnings() {
             List<String> allWarnings = new ArrayList<>();
+            if (results == null) {
+                for (int i = 0; i < flags.length; i++) {
+                    if ((flags[i] & WARNING_MASK) != 0) {
+                        describe(products.get(i), flags[i], null, allWarnings);
+                    }
+                }
+                return allWarnings;
+            }
             for (ValidationResult result : results) {
                 allWarnings.addAll(result.getWarnings());
             }
@@ -222,4 +403,3 @@ public class ProductValidationService {
         }
     }
 }
-
@@ -56,6 +56,9 @@ public class ProjectService {
      * - No cleanup needed: typical usage has < 100 active projects
      */
     private final Map<Long, ReentrantLock> projectDraftChangesLocks = new ConcurrentHashMap<>();
+    
+    // Konwersja surowych wartości opcji grupy z natywnych zapytań (obsługuje stare TRUE/FALSE)
+    private static final GroupOptionConverter GROUP_OPTION_CONVERTER = new GroupOptionConverter();
 
     private final ProjectRepository projectRepository;
     private final UserRepository userRepository;
@@ -985,6 +988,9 @@ public class ProjectService {
      * LOGIKA:
      * - "Stara cena" = zapisane dane z ProjectProduct (ostatni stan po "Zapisz projekt")
      * - "Nowa cena" = draft changes (jeśli istnieją) lub aktualne ceny z cennika
+     *
+     * ⚠️ WAŻNE: Bez readOnly - odczyt z bazy głównej, nie z repliki: porównanie jest przeładowywane zaraz po
+     * zapisie draft changes / projektu i musi zawierać własne zmiany użytkownika
      */
     public List<ProductComparisonDTO> getProductComparison(Long projectId, ProductCategory category) {
         // ⚠️ WAŻNE: KOLEJNOŚĆ ŁADOWANIA DANYCH (wymagana):
@@ -1183,6 +1189,57 @@ public class ProjectService {
         return comparison;
     }
     
+    /**
+     * Pozycje oferty projektu (produkty z ilością > 0 we wszystkich kategoriach) do generowania PDF
+     *
+     * Te same priorytety co getProductComparison() (draft > saved > cennik, opcja grupy draft > zapisana > NONE),
+     * ale ⚡ jedno zapytanie SQL zamiast pełnego porównania cennika dla każdej kategorii
+     *
+     * ⚠️ WAŻNE: Bez readOnly - odczyt z bazy głównej, nie z repliki: PDF generowany zaraz po zapisie projektu
+     * (i zapisywany w cache PDF) nie może zawierać nieaktualnych pozycji
+     *
+     * @return Produkty (niezarządzane przez JPA) z ilością, cenami i isMainOption ustawionymi wg priorytetów
+     */
+    public List<Product> getOfferLineItems(Long projectId) {
+        List<Object[]> rows = projectProductRepository.findOfferLineItems(projectId);
+        List<Product> lineItems = new ArrayList<>(rows.size());
+        
+        for (Object[] row : rows) {
+            Product product = new Product();
+            product.setId(((Number) row[0]).longValue());
+            product.setName((String) row[1]);
+            product.setManufacturer((String) row[2]);
+            product.setGroupName((String) row[3]);
+            product.setCategory(row[4] != null ? ProductCategory.valueOf((String) row[4]) : null);
+            product.setMapperName((String) row[5]);
+            product.setUnit((String) row[6]);
+            Double quantityConverter = toDouble(row[7]);
+            product.setQuantityConverter(quantityConverter != null ? quantityConverter : 1.0);
+            product.setQuantity(toDouble(row[8]));
+            product.setRetailPrice(toDouble(row[9]));
+            product.setPurchasePrice(toDouble(row[10]));
+            product.setSellingPrice(toDouble(row[11]));
+            
+            // ⚠️ WAŻNE: Draft (nawet z NONE) nadpisuje zapisaną opcję grupy - jak w getProductComparison()
+            GroupOption isMainOption = GroupOption.NONE;
+            if (row[12] != null) {
+                isMainOption = GROUP_OPTION_CONVERTER.convertToEntityAttribute((String) row[13]);
+            } else if (row[14] != null) {
+                isMainOption = GROUP_OPTION_CONVERTER.convertToEntityAttribute((String) row[14]);
+            }
+            product.setIsMainOption(isMainOption);
+            
+            lineItems.add(product);
+        }
+        
+        logger.info("📦 Pozycje oferty projektu ID {}: {} produktów z ilością > 0", projectId, lineItems.size());
+        return lineItems;
+    }
+    
+    private static Double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : null;
+    }
+    
     /**
      * Pomocnicza metoda - porównuje ceny z tolerancją na błędy zaokrągleń
      */
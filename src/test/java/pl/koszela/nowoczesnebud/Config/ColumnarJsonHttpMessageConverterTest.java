@@ -0,0 +1,80 @@
+package pl.koszela.nowoczesnebud.Config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import pl.koszela.nowoczesnebud.DTO.ProductComparisonDTO;
+import pl.koszela.nowoczesnebud.Model.GroupOption;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy kolumnowego formatu odpowiedzi (ColumnarJsonHttpMessageConverter) - bez kontekstu Spring
+ */
+public class ColumnarJsonHttpMessageConverterTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarJsonHttpMessageConverterTest.class);
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ColumnarJsonHttpMessageConverter converter = new ColumnarJsonHttpMessageConverter(objectMapper);
+
+    /**
+     * ✅ TEST: Kolumny ze słownikami tekstów, pominięte kolumny bez wartości, mniejszy rozmiar niż zwykły JSON
+     */
+    @Test
+    void testWrite_DictionaryEncodedColumns_SkipsAllNullFields() throws Exception {
+        logger.info("🧪 TEST: Format kolumnowy - słowniki, kolumny liczbowe, pominięte puste pola");
+
+        List<ProductComparisonDTO> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ProductComparisonDTO row = new ProductComparisonDTO();
+            row.setProductId((long) i);
+            row.setName("Dachówka " + (i % 10));
+            row.setManufacturer("CANTUS");
+            row.setCategory(ProductCategory.TILE);
+            row.setCurrentRetailPrice(i % 2 == 0 ? 10.5 + i : null);
+            row.setIsMainOption(GroupOption.NONE);
+            rows.add(row);
+        }
+        Type type = new ParameterizedTypeReference<List<ProductComparisonDTO>>() {}.getType();
+
+        assertTrue(converter.canWrite(type, ArrayList.class, ColumnarJsonHttpMessageConverter.COLUMNAR_JSON));
+        assertFalse(converter.canWrite(type, ArrayList.class, MediaType.APPLICATION_JSON),
+            "Zwykły JSON nie może trafić do formatu kolumnowego");
+
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(rows, type, ColumnarJsonHttpMessageConverter.COLUMNAR_JSON, output);
+        byte[] columnar = output.getBodyAsBytes();
+        JsonNode body = objectMapper.readTree(columnar);
+
+        assertEquals(1000, body.get("rowCount").asInt());
+        List<String> fields = new ArrayList<>();
+        body.get("fields").forEach(field -> fields.add(field.asText()));
+        assertEquals(List.of("productId", "name", "manufacturer", "category", "currentRetailPrice", "isMainOption"), fields,
+            "Kolumny bez żadnej wartości (draft*, saved*) powinny być pominięte");
+
+        JsonNode columns = body.get("columns");
+        JsonNode names = body.get("dictionaries").get("name");
+        assertEquals(10, names.size());
+        assertEquals("Dachówka 7", names.get(columns.get("name").get(17).asInt()).asText());
+        assertEquals("TILE", body.get("dictionaries").get("category").get(0).asText());
+        assertEquals(17L, columns.get("productId").get(17).asLong());
+        assertEquals(12.5, columns.get("currentRetailPrice").get(2).asDouble());
+        assertTrue(columns.get("currentRetailPrice").get(1).isNull());
+
+        byte[] json = objectMapper.writeValueAsBytes(rows);
+        logger.info("⏱️ [PERFORMANCE] Rozmiar: JSON {} B, kolumnowy {} B", json.length, columnar.length);
+        assertTrue(columnar.length * 4 < json.length, "Format kolumnowy powinien być kilkukrotnie mniejszy");
+    }
+}
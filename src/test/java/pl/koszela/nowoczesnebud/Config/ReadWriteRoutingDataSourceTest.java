@@ -0,0 +1,94 @@
+package pl.koszela.nowoczesnebud.Config;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy routingu baza główna / replika (ReadWriteRoutingDataSource) na dwóch bazach H2 w pamięci - bez kontekstu Spring
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSourceTest.class);
+
+    /**
+     * ✅ TEST: readOnly na replikę, zapis na bazę główną, powrót na bazę główną przy zbyt dużym opóźnieniu repliki
+     */
+    @Test
+    void testReadOnlyTransactions_RouteToReplica_AndFallBackOnLag() {
+        logger.info("🧪 TEST: Routing readOnly → replika, zapis → baza główna, opóźnienie repliki");
+
+        DataSource primary = h2("routing_primary", "primary");
+        DataSource replica = h2("routing_replica", "replica");
+
+        // Opóźnienie repliki ustawiane w tabeli replica_lag (zamiast SHOW REPLICA STATUS z MySQL)
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica,
+            "SELECT seconds AS Seconds_Behind_Source FROM replica_lag", "Seconds_Behind_Source", 1);
+        routing.afterPropertiesSet();
+        assertTrue(routing.isReplicaAvailable(), "Replika z opóźnieniem 0s powinna obsługiwać odczyty");
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        assertEquals("replica", readOnly.execute(status -> marker(jdbcTemplate)));
+        assertEquals("primary", readWrite.execute(status -> marker(jdbcTemplate)));
+        assertEquals("primary", marker(jdbcTemplate), "Bez transakcji - baza główna");
+
+        // Zapis w transakcji read-write trafia na bazę główną
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE marker SET name = 'primary-updated'"));
+        assertEquals("primary-updated", new JdbcTemplate(primary).queryForObject("SELECT name FROM marker", String.class));
+        assertEquals("replica", new JdbcTemplate(replica).queryForObject("SELECT name FROM marker", String.class));
+
+        // Opóźnienie powyżej limitu - odczyty readOnly wracają na bazę główną
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = 30");
+        routing.checkReplicaLag();
+        assertFalse(routing.isReplicaAvailable());
+        assertEquals("primary-updated", readOnly.execute(status -> marker(jdbcTemplate)));
+
+        // Replikacja zatrzymana (NULL) - nadal baza główna
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = NULL");
+        routing.checkReplicaLag();
+        assertFalse(routing.isReplicaAvailable());
+
+        // Replika nadrobiła - odczyty znów z repliki
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = 1");
+        routing.checkReplicaLag();
+        assertTrue(routing.isReplicaAvailable());
+        assertEquals("replica", readOnly.execute(status -> marker(jdbcTemplate)));
+
+        Map<String, Object> stats = routing.getStats();
+        logger.info("✅ Statystyki routingu: {}", stats);
+        assertEquals(1L, stats.get("readOnlyFallbacks"));
+        assertEquals(2L, ((Map<?, ?>) stats.get("replica")).get("routedConnections"));
+    }
+
+    private static DataSource h2(String name, String marker) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS marker");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS replica_lag");
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE replica_lag (seconds BIGINT)");
+        jdbcTemplate.update("INSERT INTO marker (name) VALUES (?)", marker);
+        jdbcTemplate.update("INSERT INTO replica_lag (seconds) VALUES (0)");
+        return dataSource;
+    }
+
+    private static String marker(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+}
@@ -0,0 +1,166 @@
+package pl.koszela.nowoczesnebud.Config;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.koszela.nowoczesnebud.Controller.CacheStatsController;
+import pl.koszela.nowoczesnebud.Model.GlobalDiscount;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+import pl.koszela.nowoczesnebud.Repository.GlobalDiscountRepository;
+import pl.koszela.nowoczesnebud.Service.GlobalDiscountService;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy cache danych słownikowych (ReferenceDataCacheConfig) na GlobalDiscountService - bez bazy danych
+ * Repozytorium zastąpione liczącym wywołania proxy, transakcje - menedżerem bez zasobów (same synchronizacje)
+ */
+public class ReferenceDataCacheConfigTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCacheConfigTest.class);
+
+    private static final AtomicInteger MAIN_DISCOUNT_QUERIES = new AtomicInteger();
+
+    /**
+     * ✅ TEST: Odczyt z cache, @CacheEvict zapisu działa dopiero po COMMIT, /api/cache/stats liczy trafienia i chybienia
+     */
+    @Test
+    void testCacheEvict_AppliedAfterCommit_AndStatsReportHitsAndMisses() {
+        logger.info("🧪 TEST: Cache rabatów globalnych - unieważnienie po commit, statystyki trafień");
+
+        MAIN_DISCOUNT_QUERIES.set(0);
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(TestConfig.class)) {
+            GlobalDiscountService discountService = context.getBean(GlobalDiscountService.class);
+            Cache cache = context.getBean(CacheManager.class).getCache(ReferenceDataCacheConfig.GLOBAL_DISCOUNTS);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+            discountService.getCurrentMainDiscount(ProductCategory.TILE);
+            discountService.getCurrentMainDiscount(ProductCategory.TILE);
+            assertEquals(1, MAIN_DISCOUNT_QUERIES.get(), "Drugi odczyt powinien pochodzić z cache");
+
+            transactionTemplate.executeWithoutResult(status -> {
+                discountService.updateDiscount(discount());
+                assertEquals(1, nativeSize(cache), "Przed COMMIT cache nie powinien być jeszcze unieważniony");
+            });
+            assertEquals(0, nativeSize(cache), "Po COMMIT cache powinien być unieważniony");
+
+            discountService.getCurrentMainDiscount(ProductCategory.TILE);
+            assertEquals(2, MAIN_DISCOUNT_QUERIES.get(), "Po unieważnieniu odczyt powinien trafić do repozytorium");
+
+            Map<String, Object> stats = context.getBean(CacheStatsController.class).getStats().getBody()
+                .get(ReferenceDataCacheConfig.GLOBAL_DISCOUNTS);
+            logger.info("📊 Statystyki cache {}: {}", ReferenceDataCacheConfig.GLOBAL_DISCOUNTS, stats);
+            assertEquals(1L, stats.get("hitCount"));
+            assertEquals(2L, stats.get("missCount"));
+            assertEquals(1.0 / 3, (Double) stats.get("hitRate"), 0.0001);
+            assertEquals(1L, stats.get("size"));
+        }
+    }
+
+    private static long nativeSize(Cache cache) {
+        return ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache()).estimatedSize();
+    }
+
+    private static GlobalDiscount discount() {
+        GlobalDiscount discount = new GlobalDiscount();
+        discount.setId(1L);
+        discount.setCategory(ProductCategory.TILE);
+        discount.setType(GlobalDiscount.DiscountType.MAIN);
+        discount.setDiscountPercent(10.0);
+        return discount;
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import(ReferenceDataCacheConfig.class)
+    static class TestConfig {
+
+        @Bean
+        GlobalDiscountRepository globalDiscountRepository() {
+            return (GlobalDiscountRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {GlobalDiscountRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findCurrentMainDiscount":
+                            MAIN_DISCOUNT_QUERIES.incrementAndGet();
+                            return Optional.of(discount());
+                        case "existsById":
+                            return true;
+                        case "save":
+                            return args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "GlobalDiscountRepository (test)";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        }
+
+        @Bean
+        GlobalDiscountService globalDiscountService(GlobalDiscountRepository globalDiscountRepository) {
+            return new GlobalDiscountService(globalDiscountRepository);
+        }
+
+        @Bean
+        CacheStatsController cacheStatsController(CacheManager cacheManager) {
+            return new CacheStatsController(cacheManager);
+        }
+
+        /**
+         * Transakcje bez zasobów - udział w istniejącej transakcji i synchronizacje (afterCommit) jak w JpaTransactionManager
+         */
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new AbstractPlatformTransactionManager() {
+                private final ThreadLocal<Boolean> active = new ThreadLocal<>();
+
+                @Override
+                protected Object doGetTransaction() {
+                    return active;
+                }
+
+                @Override
+                protected boolean isExistingTransaction(Object transaction) {
+                    return active.get() != null;
+                }
+
+                @Override
+                protected void doBegin(Object transaction, org.springframework.transaction.TransactionDefinition definition) {
+                    active.set(Boolean.TRUE);
+                }
+
+                @Override
+                protected void doCommit(DefaultTransactionStatus status) {
+                }
+
+                @Override
+                protected void doRollback(DefaultTransactionStatus status) {
+                }
+
+                @Override
+                protected void doCleanupAfterCompletion(Object transaction) {
+                    active.remove();
+                }
+            };
+        }
+    }
+}
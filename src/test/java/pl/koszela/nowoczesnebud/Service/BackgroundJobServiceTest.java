@@ -0,0 +1,93 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy puli zadań w tle (BackgroundJobService) - bez kontekstu Spring
+ */
+public class BackgroundJobServiceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundJobServiceTest.class);
+
+    private BackgroundJobService backgroundJobService;
+
+    @BeforeEach
+    void setUp() {
+        // 1 wątek, kolejka na 1 zadanie, 1s na dokończenie przy zamykaniu
+        backgroundJobService = new BackgroundJobService(1, 1, 1);
+        backgroundJobService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        backgroundJobService.stop();
+    }
+
+    /**
+     * ✅ TEST: Pełna pula odrzuca zadania, anulowanie działa w kolejce i w trakcie, postęp zostaje zapamiętany
+     */
+    @Test
+    void testBoundedPool_RejectsWhenFull_AndCancelsQueuedAndRunningJobs() throws Exception {
+        logger.info("🧪 TEST: Ograniczona pula zadań w tle - odrzucanie i anulowanie");
+
+        CountDownLatch started = new CountDownLatch(1);
+        BackgroundJobService.BackgroundJob running = backgroundJobService.submit("test", "trwające", context -> {
+            context.progress(Collections.singletonMap("step", 1));
+            started.countDown();
+            while (true) {
+                context.checkCancelled();
+                Thread.sleep(10);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS), "Zadanie powinno wystartować");
+
+        BackgroundJobService.BackgroundJob queued = backgroundJobService.submit("test", "w kolejce", context -> {
+            fail("Anulowane zadanie z kolejki nie powinno wystartować");
+        });
+        assertThrows(RejectedExecutionException.class,
+            () -> backgroundJobService.submit("test", "nadmiarowe", context -> { }),
+            "Przy pełnej kolejce zadanie powinno zostać odrzucone");
+
+        // Ostatni postęp dostępny dla klienta, który podłączy się ponownie
+        assertEquals(1, running.getProgress().get("step"));
+        assertEquals(BackgroundJobService.JobStatus.RUNNING, running.getStatus());
+
+        assertTrue(backgroundJobService.cancel(queued.getJobId()));
+        assertTrue(backgroundJobService.cancel(running.getJobId()));
+
+        waitForFinish(running);
+        waitForFinish(queued);
+        assertEquals(BackgroundJobService.JobStatus.CANCELLED, running.getStatus());
+        assertEquals(BackgroundJobService.JobStatus.CANCELLED, queued.getStatus());
+        assertFalse(backgroundJobService.cancel(running.getJobId()), "Zakończonego zadania nie można anulować");
+
+        BackgroundJobService.BackgroundJob failing = backgroundJobService.submit("test", "błąd", context -> {
+            throw new IllegalStateException("błąd testowy");
+        });
+        waitForFinish(failing);
+        assertEquals(BackgroundJobService.JobStatus.FAILED, failing.getStatus());
+        assertEquals("błąd testowy", failing.getError());
+
+        logger.info("✅ Metryki: {}", backgroundJobService.getMetrics());
+    }
+
+    private void waitForFinish(BackgroundJobService.BackgroundJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline &&
+               (job.getStatus() == BackgroundJobService.JobStatus.QUEUED ||
+                job.getStatus() == BackgroundJobService.JobStatus.RUNNING)) {
+            Thread.sleep(10);
+        }
+    }
+}
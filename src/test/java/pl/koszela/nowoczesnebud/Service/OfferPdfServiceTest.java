@@ -8,12 +8,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
+import pl.koszela.nowoczesnebud.DTO.ProductComparisonDTO;
 import pl.koszela.nowoczesnebud.Model.*;
 import pl.koszela.nowoczesnebud.Repository.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,6 +55,21 @@ public class OfferPdfServiceTest extends BaseProjectServiceTest {
     @Autowired
     private ProjectProductRepository projectProductRepository;
 
+    @Autowired
+    private OfferTemplateCompiler offerTemplateCompiler;
+
+    @Autowired
+    private OfferTemplateService offerTemplateService;
+
+    @Autowired
+    private ProjectProductGroupRepository projectProductGroupRepository;
+
+    @Autowired
+    private OfferPdfRenderService offerPdfRenderService;
+
+    @Autowired
+    private OfferPdfBatchService offerPdfBatchService;
+
     @BeforeEach
     void setUp() {
         setUpBase();
@@ -119,6 +142,177 @@ public class OfferPdfServiceTest extends BaseProjectServiceTest {
         }, "Powinno rzucić IllegalArgumentException dla nieistniejącego szablonu");
     }
 
+    // ==========================================
+    // TESTY POZYCJI OFERTY - getOfferLineItems()
+    // ==========================================
+
+    @Test
+    void testOfferLineItems_SameAsProductComparison() {
+        logger.info("🧪 TEST: getOfferLineItems - te same pozycje co getProductComparison() (draft > saved > cennik)");
+        
+        Product savedTile = createProduct("Dachówka zapisana", ProductCategory.TILE, "Grupa A", 1, 50.0);
+        Product draftTile = createProduct("Dachówka draft", ProductCategory.TILE, "Grupa A", 2, 60.0);
+        Product noneDraftTile = createProduct("Dachówka draft NONE", ProductCategory.TILE, "Grupa B", 1, 70.0);
+        Product gutter = createProduct("Rynna", ProductCategory.GUTTER, "Grupa R", 1, 30.0);
+        Product accessory = createProduct("Akcesorium", ProductCategory.ACCESSORY, "Grupa X", 1, null);
+        Product notInOffer = createProduct("Bez ilości", ProductCategory.TILE, "Grupa A", 3, 40.0);
+        entityManager.flush();
+        
+        // Zapisane dane projektu
+        projectProductRepository.saveAll(List.of(
+            createSavedProduct(savedTile, 10.0, 55.0),
+            createSavedProduct(draftTile, 5.0, 65.0),
+            createSavedProduct(noneDraftTile, 4.0, null),
+            createSavedProduct(gutter, 3.0, null),
+            createSavedProduct(accessory, 2.0, null),
+            createSavedProduct(notInOffer, 0.0, 45.0)
+        ));
+        
+        // Draft changes: nowa ilość/cena, draft z ilością 0 (zostaje zapisana ilość), draft z NONE
+        projectDraftChangeRepository.saveAll(List.of(
+            createDraft(draftTile, 8.0, 66.0, GroupOption.OPTIONAL),
+            createDraft(gutter, 0.0, 33.0, null),
+            createDraft(noneDraftTile, null, null, GroupOption.NONE)
+        ));
+        
+        // Zapisane opcje grup - draft NONE nadpisuje MAIN dla "Grupa B"
+        projectProductGroupRepository.saveAll(List.of(
+            createGroup(ProductCategory.TILE, "Grupa A", GroupOption.MAIN),
+            createGroup(ProductCategory.TILE, "Grupa B", GroupOption.MAIN),
+            createGroup(ProductCategory.GUTTER, "Grupa R", GroupOption.OPTIONAL)
+        ));
+        entityManager.flush();
+        entityManager.clear();
+        
+        List<Product> expected = getLineItemsFromProductComparison();
+        List<Product> lineItems = projectService.getOfferLineItems(testProject.getId());
+        
+        assertEquals(5, lineItems.size(), "Produkt bez ilości nie powinien trafić do oferty");
+        assertEquals(describe(expected), describe(lineItems), 
+                    "Pozycje oferty powinny być takie same jak z getProductComparison()");
+        
+        Product draftLine = lineItems.stream().filter(p -> p.getId().equals(draftTile.getId())).findFirst().orElseThrow();
+        assertEquals(8.0, draftLine.getQuantity(), 0.001, "Ilość z draftu ma priorytet");
+        assertEquals(66.0, draftLine.getSellingPrice(), 0.001, "Cena z draftu ma priorytet");
+        assertEquals(GroupOption.OPTIONAL, draftLine.getIsMainOption(), "Opcja z draftu ma priorytet");
+        
+        Product accessoryLine = lineItems.stream().filter(p -> p.getId().equals(accessory.getId())).findFirst().orElseThrow();
+        assertEquals(accessory.getPurchasePrice(), accessoryLine.getSellingPrice(), 0.001, 
+                    "Akcesorium bez ceny sprzedaży - cena zakupu");
+        
+        logger.info("✅ TEST ZAKOŃCZONY POMYŚLNIE: {} pozycji oferty zgodnych z getProductComparison()", lineItems.size());
+    }
+
+    // ==========================================
+    // TESTY PULI RENDEROWANIA - OfferPdfRenderService
+    // ==========================================
+
+    @Test
+    void testRenderService_UnchangedOfferServedFromCache() throws Exception {
+        logger.info("🧪 TEST: OfferPdfRenderService - niezmieniona oferta z cache, zmiana danych = nowy render");
+        
+        projectProductRepository.saveAll(createProjectProducts(5));
+        entityManager.flush();
+        
+        OfferPdfRenderService.RenderJob first = offerPdfRenderService.submit(testProject, null, "oferta.pdf");
+        byte[] firstPdf = first.getResult().get();
+        assertEquals(OfferPdfRenderService.JobStatus.DONE, first.getStatus());
+        
+        long startTime = System.currentTimeMillis();
+        OfferPdfRenderService.RenderJob second = offerPdfRenderService.submit(testProject, null, "oferta.pdf");
+        long cachedTime = System.currentTimeMillis() - startTime;
+        logger.info("⏱️ [PERFORMANCE] PDF z cache: {}ms (render: {}ms)", cachedTime, first.getRenderMs());
+        
+        assertTrue(second.isCached(), "Niezmieniona oferta powinna być zwrócona z cache");
+        assertEquals(OfferPdfRenderService.JobStatus.DONE, second.getStatus());
+        assertArrayEquals(firstPdf, offerPdfRenderService.getPdf(second).orElse(null), "PDF z cache powinien być identyczny");
+        assertArrayEquals(firstPdf, second.getResult().get(), "Oczekujący dostaje PDF z cache");
+        assertTrue(offerPdfRenderService.getJob(second.getJobId()).isPresent(), "Zadanie powinno być dostępne po ID");
+        
+        // Zmiana danych klienta zmienia XHTML → nowy render
+        testProject.getClient().setName("Zmienione imię");
+        OfferPdfRenderService.RenderJob third = offerPdfRenderService.submit(testProject, null, "oferta.pdf");
+        third.getResult().get();
+        assertFalse(third.isCached(), "Zmieniona oferta nie powinna pochodzić z cache");
+        assertNotEquals(first.getFingerprint(), third.getFingerprint());
+        
+        logger.info("✅ TEST ZAKOŃCZONY POMYŚLNIE: metryki {}", offerPdfRenderService.getMetrics());
+    }
+
+    @Test
+    void testBatchOfferZip_FailuresReportedWithoutAbortingBatch() throws Exception {
+        logger.info("🧪 TEST: Wsad PDF - ZIP z ofertami + raport, błąd projektu nie przerywa wsadu");
+        
+        projectProductRepository.saveAll(createProjectProducts(3));
+        entityManager.flush();
+        
+        List<Long> projectIds = offerPdfBatchService.resolveProjectIds(List.of(testProject.getId(), 999999L), null);
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        offerPdfBatchService.writeOfferZip(projectIds, null, zipBytes);
+        
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zipBytes.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                entries.put(entry.getName(), zipInputStream.readAllBytes());
+            }
+        }
+        
+        assertEquals(2, entries.size(), "ZIP powinien zawierać 1 PDF i raport");
+        String report = new String(entries.get("raport.txt"), StandardCharsets.UTF_8);
+        assertTrue(report.contains("Projekt " + testProject.getId() + " - OK"), "Raport: " + report);
+        assertTrue(report.contains("Projekt 999999 - BŁĄD"), "Raport: " + report);
+        assertTrue(entries.keySet().stream().anyMatch(name -> name.endsWith("_" + testProject.getId() + ".pdf")));
+        
+        assertThrows(IllegalArgumentException.class, () -> offerPdfBatchService.resolveProjectIds(List.of(), null),
+                    "Pusty wsad powinien być odrzucony przed streamingiem");
+    }
+
+    // ==========================================
+    // TESTY CACHE SKOMPILOWANYCH SZABLONÓW
+    // ==========================================
+
+    @Test
+    void testCompiledTemplate_ReusedUntilTemplateSaved() {
+        logger.info("🧪 TEST: Skompilowany szablon z cache - ponowna kompilacja dopiero po zapisie szablonu");
+        
+        OfferTemplate template = new OfferTemplate();
+        template.setName("Szablon cache");
+        template.setHtmlContent("<p>{{clientName}}</p>");
+        template = offerTemplateService.saveTemplate(template);
+        
+        OfferTemplateCompiler.CompiledTemplate first = offerTemplateCompiler.getCompiledTemplate(template.getId());
+        OfferTemplateCompiler.CompiledTemplate second = offerTemplateCompiler.getCompiledTemplate(template.getId());
+        assertSame(first, second, "Niezmieniony szablon powinien być brany z cache");
+        
+        template.setHtmlContent("<p>{{clientName}} - {{clientEmail}}</p>");
+        offerTemplateService.saveTemplate(template);
+        
+        OfferTemplateCompiler.CompiledTemplate afterSave = offerTemplateCompiler.getCompiledTemplate(template.getId());
+        assertNotSame(first, afterSave, "Zapis szablonu powinien unieważnić cache");
+        assertEquals(2, afterSave.getSlotCount());
+    }
+
+    @Test
+    void testCompiledTemplate_SlotsFilledAndEscaped() {
+        logger.info("🧪 TEST: Wypełnianie slotów - tekst escapowany, tabele jako HTML, nieznane placeholdery bez zmian");
+        
+        OfferTemplate template = new OfferTemplate();
+        template.setId(-1L);
+        template.setHtmlContent("<p>[[${project.client.name}]] [[${client.surname}]]</p><div>{{tilesTable}}</div><p>{{unknownPlaceholder}}</p>");
+        
+        Map<String, String> values = new HashMap<>();
+        values.put("clientFirstName", "Jan & Syn");
+        values.put("clientSurname", "Kowalski");
+        values.put("tilesTable", "<table><tr><td>Gąsior</td></tr></table>");
+        
+        String xhtml = offerTemplateCompiler.compile(template).render(values);
+        
+        assertTrue(xhtml.contains("<p>Jan &amp; Syn Kowalski</p>"), xhtml);
+        assertTrue(xhtml.contains("<div><table><tr><td>Gąsior</td></tr></table></div>"), xhtml);
+        assertTrue(xhtml.contains("{{unknownPlaceholder}}"), xhtml);
+    }
+
     // ==========================================
     // TESTY WYDAJNOŚCIOWE - generatePdfFromTemplate()
     // ==========================================
@@ -202,6 +396,94 @@ public class OfferPdfServiceTest extends BaseProjectServiceTest {
     // FUNKCJE POMOCNICZE
     // ==========================================
 
+    /**
+     * Pozycje oferty liczone z getProductComparison() (dotychczasowy mechanizm PDF) - wzorzec dla getOfferLineItems()
+     */
+    private List<Product> getLineItemsFromProductComparison() {
+        List<Product> lineItems = new ArrayList<>();
+        for (ProductCategory category : ProductCategory.values()) {
+            for (ProductComparisonDTO dto : projectService.getProductComparison(testProject.getId(), category)) {
+                Double quantity = dto.getDraftQuantity() != null && dto.getDraftQuantity() > 0
+                    ? dto.getDraftQuantity()
+                    : dto.getSavedQuantity();
+                if (quantity == null || quantity <= 0) {
+                    continue;
+                }
+                Product product = new Product();
+                product.setId(dto.getProductId());
+                product.setName(dto.getName());
+                product.setCategory(dto.getCategory());
+                product.setQuantity(quantity);
+                product.setRetailPrice(firstNonNull(dto.getDraftRetailPrice(), dto.getSavedRetailPrice(), dto.getCurrentRetailPrice()));
+                product.setPurchasePrice(firstNonNull(dto.getDraftPurchasePrice(), dto.getSavedPurchasePrice(), dto.getCurrentPurchasePrice()));
+                product.setSellingPrice(firstNonNull(dto.getDraftSellingPrice(), dto.getSavedSellingPrice(), dto.getCurrentSellingPrice()));
+                product.setIsMainOption(dto.getIsMainOption());
+                lineItems.add(product);
+            }
+        }
+        return lineItems;
+    }
+
+    private Double firstNonNull(Double draft, Double saved, Double current) {
+        return draft != null ? draft : (saved != null ? saved : current);
+    }
+
+    private List<String> describe(List<Product> products) {
+        List<String> lines = new ArrayList<>();
+        for (Product p : products) {
+            lines.add(p.getId() + "|" + p.getName() + "|" + p.getCategory() + "|" + p.getQuantity() + "|" 
+                + p.getRetailPrice() + "|" + p.getPurchasePrice() + "|" + p.getSellingPrice() + "|" + p.getIsMainOption());
+        }
+        return lines;
+    }
+
+    private Product createProduct(String name, ProductCategory category, String groupName, int displayOrder, Double sellingPrice) {
+        Product product = new Product();
+        product.setName(name);
+        product.setCategory(category);
+        product.setManufacturer("Producent Oferty");
+        product.setGroupName(groupName);
+        product.setDisplayOrder(displayOrder);
+        product.setRetailPrice(100.0);
+        product.setPurchasePrice(40.0);
+        product.setSellingPrice(sellingPrice);
+        return productRepository.save(product);
+    }
+
+    private ProjectProduct createSavedProduct(Product product, Double quantity, Double sellingPrice) {
+        ProjectProduct projectProduct = new ProjectProduct();
+        projectProduct.setProject(testProject);
+        projectProduct.setProductId(product.getId());
+        projectProduct.setCategory(product.getCategory());
+        projectProduct.setSavedRetailPrice(product.getRetailPrice());
+        projectProduct.setSavedPurchasePrice(product.getPurchasePrice());
+        projectProduct.setSavedSellingPrice(sellingPrice);
+        projectProduct.setSavedQuantity(quantity);
+        projectProduct.setPriceChangeSource(PriceChangeSource.MANUAL);
+        return projectProduct;
+    }
+
+    private ProjectDraftChange createDraft(Product product, Double quantity, Double sellingPrice, GroupOption option) {
+        ProjectDraftChange draft = new ProjectDraftChange();
+        draft.setProjectId(testProject.getId());
+        draft.setProductId(product.getId());
+        draft.setCategory(product.getCategory().name());
+        draft.setDraftQuantity(quantity);
+        draft.setDraftSellingPrice(sellingPrice);
+        draft.setDraftIsMainOption(option);
+        return draft;
+    }
+
+    private ProjectProductGroup createGroup(ProductCategory category, String groupName, GroupOption option) {
+        ProjectProductGroup group = new ProjectProductGroup();
+        group.setProject(testProject);
+        group.setCategory(category);
+        group.setManufacturer("Producent Oferty");
+        group.setGroupName(groupName);
+        group.setIsMainOption(option);
+        return group;
+    }
+
     /**
      * Utwórz produkty w projekcie (ProjectProduct)
      */
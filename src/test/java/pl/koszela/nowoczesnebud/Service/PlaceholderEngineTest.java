@@ -0,0 +1,250 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy jednoprzebiegowego silnika placeholderów (PlaceholderEngine)
+ *
+ * - równoważność (bajt w bajt) z poprzednim łańcuchem replace/replaceAll z OfferPdfService
+ *   na szablonie domyślnym (używanym przez OfferPdfServiceTest) i szablonie TinyMCE ze wszystkimi placeholderami
+ * - mikro-benchmark (opcjonalny):
+ *   mvn test -Dtest=PlaceholderEngineTest -Dbenchmark.placeholders=true [-Dbenchmark.placeholders.rows=1000]
+ */
+public class PlaceholderEngineTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlaceholderEngineTest.class);
+
+    /**
+     * Szablon domyślny (OfferTemplateService.createDefaultTemplateIfNotExists)
+     */
+    private static final String DEFAULT_TEMPLATE = "<div style=\"font-family: Arial, sans-serif; padding: 20px;\">" +
+        "<h1 style=\"color: #333; border-bottom: 2px solid #4CAF50; padding-bottom: 10px;\">Oferta handlowa</h1>" +
+        "<div style=\"margin-top: 30px;\">" +
+        "<h2>Dane projektu</h2>" +
+        "<p><strong>Klient:</strong> [[${project.client.name}]] [[${project.client.surname}]]</p>" +
+        "<p><strong>Data:</strong> [[${formattedDate}]]</p>" +
+        "</div>" +
+        "<div style=\"margin-top: 30px;\">" +
+        "<h2>Dane klienta</h2>" +
+        "<p th:if=\"${client != null}\"><strong>Imię i nazwisko:</strong> <span th:text=\"${client.name + ' ' + client.surname}\"></span></p>" +
+        "<p th:if=\"${client != null && client.phone != null}\"><strong>Telefon:</strong> [[${client.phone}]]</p>" +
+        "<p th:if=\"${client != null && client.email != null}\"><strong>Email:</strong> [[${client.email}]]</p>" +
+        "</div>" +
+        "<div style=\"margin-top: 30px;\">" +
+        "<h2>Produkty</h2>" +
+        "<div th:if=\"${allProducts != null && !allProducts.isEmpty()}\">" +
+        "<table style=\"width: 100%; border-collapse: collapse; margin-top: 10px;\">" +
+        "<tbody>" +
+        "<tr th:each=\"product : ${allProducts}\" style=\"border-bottom: 1px solid #ddd;\">" +
+        "<td style=\"padding: 8px; border: 1px solid #ddd;\">[[${product.name}]]</td>" +
+        "<td style=\"padding: 8px; text-align: right; border: 1px solid #ddd;\">[[${#numbers.formatDecimal(product.quantity, 0, 2)}]]</td>" +
+        "</tr>" +
+        "</tbody>" +
+        "</table>" +
+        "<div style=\"margin-top: 20px; text-align: right;\">" +
+        "<p style=\"font-size: 18px; font-weight: bold;\"><strong>Suma:</strong> [[${#numbers.formatDecimal(mainTotal, 0, 2)}]] PLN</p>" +
+        "</div>" +
+        "</div>" +
+        "</div>" +
+        "</div>";
+
+    private static final String[] CURLY_NAMES = {
+        "clientName", "clientAddress", "clientPhone", "clientEmail", "projectName", "projectDate", "currentDate",
+        "companyName", "companyAddress", "companyNIP", "companyPhone", "companyEmail", "companyWebsite", "companyLogo",
+        "productsTable", "tilesTable", "guttersTable", "windowsTable", "accessoriesTable",
+        "tilesMainTable", "guttersMainTable", "accessoriesMainTable", "windowsMainTable",
+        "tilesOptionalTable", "guttersOptionalTable", "accessoriesOptionalTable", "windowsOptionalTable",
+        "totalPrice", "tilesPrice", "guttersPrice", "windowsPrice", "accessoriesPrice"
+    };
+
+    @Test
+    void testDefaultTemplate_ByteIdenticalWithLegacyReplacement() {
+        logger.info("🧪 TEST: PlaceholderEngine vs poprzednie podstawianie - szablon domyślny");
+
+        Map<String, String> values = createValues(20);
+
+        assertEquals(legacyReplace(DEFAULT_TEMPLATE, values), render(DEFAULT_TEMPLATE, values));
+    }
+
+    @Test
+    void testTinyMceTemplate_ByteIdenticalWithLegacyReplacement() {
+        logger.info("🧪 TEST: PlaceholderEngine vs poprzednie podstawianie - wszystkie placeholdery {{...}}");
+
+        String template = createTinyMceTemplate();
+        Map<String, String> values = createValues(50);
+
+        assertEquals(legacyReplace(template, values), render(template, values));
+    }
+
+    @Test
+    void testClientNameExpressions_FilledUnlikeLegacyReplacement() {
+        logger.info("🧪 TEST: Imię i nazwisko klienta [[${...}]] - wypełniane (poprzednio zostawał dosłowny tekst)");
+
+        String template = "<p>[[${project.client.name}]] [[${project.client.surname}]] / [[${client.name}]] [[${client.surname}]]</p>";
+        Map<String, String> values = createValues(0);
+
+        assertEquals("<p>Jan Kowalski / Jan Kowalski</p>", render(template, values));
+        // Poprzednia implementacja (podwójnie escapowana kropka) nie dopasowywała tych wyrażeń
+        assertEquals(template, replaceThymeleafExpression(template,
+            "project\\.client\\.name", values.get("clientFirstName")));
+    }
+
+    @Test
+    void testResolverCalledOncePerUsedSlot_UnknownTokensUntouched() {
+        logger.info("🧪 TEST: Leniwe rozwiązywanie slotów - raz na slot, tylko sloty użyte w tekście");
+
+        PlaceholderEngine.ParsedText parsed = PlaceholderEngine.parse(
+            "<p>{{clientName}} {{clientName}} [[${ client.email }]] {{notAPlaceholder}} [[${product.name}]] {{ clientName}}</p>",
+            OfferTemplateCompiler.tokenSlots(), OfferTemplateCompiler.htmlSlots());
+
+        List<String> resolved = new ArrayList<>();
+        String result = parsed.render(slot -> {
+            resolved.add(slot);
+            return "clientName".equals(slot) ? "Jan & Syn" : "a@b.pl";
+        });
+
+        assertEquals("<p>Jan &amp; Syn Jan &amp; Syn a@b.pl {{notAPlaceholder}} [[${product.name}]] {{ clientName}}</p>", result);
+        assertEquals(List.of("clientName", "clientEmail"), resolved);
+        assertEquals(3, parsed.getSlotCount());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.placeholders", matches = "true")
+    void benchmarkPlaceholderSubstitution() {
+        int rows = Integer.parseInt(System.getProperty("benchmark.placeholders.rows", "1000"));
+        int iterations = Integer.parseInt(System.getProperty("benchmark.placeholders.iterations", "200"));
+        String template = createTinyMceTemplate();
+        Map<String, String> values = createValues(rows);
+
+        PlaceholderEngine.ParsedText parsed = PlaceholderEngine.parse(template, OfferTemplateCompiler.tokenSlots(), null);
+        String expected = legacyReplace(template, values);
+
+        // Rozgrzewka JIT
+        for (int i = 0; i < iterations; i++) {
+            assertEquals(expected.length(), legacyReplace(template, values).length());
+            assertEquals(expected.length(), parsed.render(values::get).length());
+        }
+
+        long legacyStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            legacyReplace(template, values);
+        }
+        double legacyMicros = (System.nanoTime() - legacyStart) / 1000.0 / iterations;
+
+        long engineStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            parsed.render(values::get);
+        }
+        double engineMicros = (System.nanoTime() - engineStart) / 1000.0 / iterations;
+
+        logger.info("⏱️ [PERFORMANCE] Placeholdery ({} wierszy tabel, {} znaków wyniku): poprzednio {} µs/op, PlaceholderEngine {} µs/op (x{})",
+                   rows, expected.length(), String.format("%.1f", legacyMicros), String.format("%.1f", engineMicros),
+                   String.format("%.1f", legacyMicros / engineMicros));
+    }
+
+    private String render(String template, Map<String, String> values) {
+        // htmlSlots = null → bez escapowania, jak w poprzedniej implementacji (escapował dopiero jsoup)
+        return PlaceholderEngine.parse(template, OfferTemplateCompiler.tokenSlots(), null).render(values::get);
+    }
+
+    private String createTinyMceTemplate() {
+        StringBuilder template = new StringBuilder("<h1>Oferta</h1>");
+        for (String name : CURLY_NAMES) {
+            template.append("<p><strong>").append(name).append(":</strong> {{").append(name).append("}}</p>\n");
+        }
+        template.append("<p>[[${client.address}]] / [[${client.telephoneNumber}]] / [[${project.projectName}]]</p>");
+        template.append("<p>[[${projectDate}]] [[${currentDate}]] [[${mainTotal}]] [[${#numbers.formatDecimal(mainTotal, 1, 2)}]]</p>");
+        return template.toString();
+    }
+
+    private Map<String, String> createValues(int tableRows) {
+        Map<String, String> values = new HashMap<>();
+        for (String name : CURLY_NAMES) {
+            values.put(name, "wartość " + name);
+        }
+        values.put("clientName", "Jan Kowalski");
+        values.put("clientFirstName", "Jan");
+        values.put("clientSurname", "Kowalski");
+        values.put("formattedDate", "01.02.2026");
+        values.put("mainTotal", "12345.67");
+        values.put("companyLogo", "<img src=\"/assets/logo.png\" alt=\"Logo\" style=\"max-width: 200px; height: auto;\" />");
+
+        StringBuilder table = new StringBuilder("<table>\n");
+        for (int i = 0; i < tableRows; i++) {
+            table.append("  <tr><td>").append(i + 1).append("</td><td>Dachówka ").append(i)
+                 .append("</td><td style=\"text-align: right;\">").append(String.format("%.2f", 10.0 + i)).append("</td></tr>\n");
+        }
+        table.append("</table>\n");
+        for (String name : CURLY_NAMES) {
+            if (name.endsWith("Table")) {
+                values.put(name, table.toString());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Poprzednia implementacja OfferPdfService.replacePlaceholdersDirectly (kolejne replace/replaceAll)
+     * Jedyna różnica: wyrażenia project.client.* / client.name / client.surname są dopasowywane
+     * (w oryginale kropka była escapowana podwójnie i te wyrażenia nigdy nie były podstawiane)
+     */
+    private static String legacyReplace(String html, Map<String, String> values) {
+        String result = html;
+        result = replacePlaceholder(result, "clientName", values.get("clientName"));
+        result = replaceThymeleafExpression(result, "project.client.name", values.get("clientFirstName"));
+        result = replaceThymeleafExpression(result, "project.client.surname", values.get("clientSurname"));
+        result = replaceThymeleafExpression(result, "client.name", values.get("clientFirstName"));
+        result = replaceThymeleafExpression(result, "client.surname", values.get("clientSurname"));
+        result = replacePlaceholder(result, "clientAddress", values.get("clientAddress"));
+        result = replaceThymeleafExpression(result, "client.address", values.get("clientAddress"));
+        result = replacePlaceholder(result, "clientPhone", values.get("clientPhone"));
+        result = replaceThymeleafExpression(result, "client.phone", values.get("clientPhone"));
+        result = replaceThymeleafExpression(result, "client.telephoneNumber", values.get("clientPhone"));
+        result = replacePlaceholder(result, "clientEmail", values.get("clientEmail"));
+        result = replaceThymeleafExpression(result, "client.email", values.get("clientEmail"));
+        result = replacePlaceholder(result, "projectName", values.get("projectName"));
+        result = replaceThymeleafExpression(result, "project.projectName", values.get("projectName"));
+        result = replacePlaceholder(result, "projectDate", values.get("projectDate"));
+        result = replacePlaceholder(result, "currentDate", values.get("currentDate"));
+        result = replaceThymeleafExpression(result, "formattedDate", values.get("formattedDate"));
+        result = replaceThymeleafExpression(result, "projectDate", values.get("projectDate"));
+        result = replaceThymeleafExpression(result, "currentDate", values.get("currentDate"));
+        for (String name : new String[]{"companyName", "companyAddress", "companyNIP", "companyPhone", "companyEmail",
+                                        "companyWebsite", "companyLogo",
+                                        "productsTable", "tilesTable", "guttersTable", "windowsTable", "accessoriesTable",
+                                        "tilesMainTable", "guttersMainTable", "accessoriesMainTable", "windowsMainTable",
+                                        "tilesOptionalTable", "guttersOptionalTable", "accessoriesOptionalTable", "windowsOptionalTable",
+                                        "totalPrice", "tilesPrice", "guttersPrice", "windowsPrice", "accessoriesPrice"}) {
+            result = replacePlaceholder(result, name, values.get(name));
+        }
+        String mainTotal = values.get("mainTotal");
+        for (String pattern : new String[]{
+            "\\[\\[\\$\\{#numbers\\.formatDecimal\\(mainTotal,\\s*0,\\s*2\\)\\}\\]\\]",
+            "\\[\\[\\$\\{#numbers\\.formatDecimal\\(mainTotal,\\s*1,\\s*2\\)\\}\\]\\]",
+            "\\[\\[\\$\\{mainTotal\\}\\]\\]"
+        }) {
+            result = result.replaceAll(pattern, java.util.regex.Matcher.quoteReplacement(mainTotal));
+        }
+        return replaceThymeleafExpression(result, "mainTotal", mainTotal);
+    }
+
+    private static String replaceThymeleafExpression(String html, String expression, String value) {
+        String escapedExpression = expression.replaceAll("([\\[\\](){}*+?.^$|\\\\])", "\\\\$1");
+        String pattern = "\\[\\[\\$\\{" + escapedExpression + "\\}\\]\\]";
+        return html.replaceAll(pattern, java.util.regex.Matcher.quoteReplacement(value));
+    }
+
+    private static String replacePlaceholder(String html, String placeholderName, String value) {
+        return html.replace("{{" + placeholderName + "}}", value);
+    }
+}
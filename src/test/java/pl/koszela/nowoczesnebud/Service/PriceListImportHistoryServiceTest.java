@@ -0,0 +1,185 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import pl.koszela.nowoczesnebud.DTO.ImportResponse;
+import pl.koszela.nowoczesnebud.Model.PriceListImport;
+import pl.koszela.nowoczesnebud.Model.PriceListImportStatus;
+import pl.koszela.nowoczesnebud.Model.Product;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+import pl.koszela.nowoczesnebud.Repository.ProductRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy deduplikacji importu cenników po SHA-256 zawartości pliku
+ */
+@SpringBootTest
+@ActiveProfiles("test-mysql")
+@Transactional
+public class PriceListImportHistoryServiceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceListImportHistoryServiceTest.class);
+
+    private static final String MANUFACTURER = "HASHTEST";
+    private static final String GROUP_NAME = "grupa sha";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private PriceListImportHistoryService priceListImportHistoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void testSha256_HexOf64Chars() {
+        logger.info("🧪 TEST: SHA-256 jako hex");
+
+        String hash = PriceListImportHistoryService.sha256("abc".getBytes());
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hash);
+    }
+
+    @Test
+    void testRoundTrip_ExportedFileIsUnchanged() throws IOException {
+        logger.info("🧪 TEST: Ponowny import pliku z eksportu bez zmian w grupie → UNCHANGED");
+
+        List<Product> products = productRepository.saveAll(createProducts(3));
+        MultipartFile exportedFile = extractSingleFile(productExportService.exportToExcelZip(products));
+
+        ImportResponse response = importFile(exportedFile);
+
+        assertEquals(PriceListImportStatus.UNCHANGED.name(), response.getFileResults().get(0).getStatus());
+        assertTrue(response.getAllProducts().isEmpty(), "Niezmieniony plik nie powinien być parsowany ani zapisany");
+        assertEquals(3, productRepository.findByCategory(ProductCategory.TILE).size());
+    }
+
+    @Test
+    void testSameFileTwice_SecondImportIsUnchanged() throws IOException {
+        logger.info("🧪 TEST: Ten sam plik dwa razy → IMPORTED, potem UNCHANGED");
+
+        List<Product> products = productRepository.saveAll(createProducts(5));
+        MultipartFile exportedFile = extractSingleFile(productExportService.exportToExcelZip(products));
+        // Grupa usunięta po eksporcie - stan grupy różni się od wpisu EXPORTED, więc plik musi zostać zaimportowany
+        productRepository.deleteAll();
+
+        ImportResponse first = importFile(exportedFile);
+        assertEquals(PriceListImportStatus.IMPORTED.name(), first.getFileResults().get(0).getStatus());
+        assertEquals(5, first.getAllProducts().size());
+        assertEquals(5, first.getFileResults().get(0).getProductsCount());
+
+        ImportResponse second = importFile(exportedFile);
+        assertEquals(PriceListImportStatus.UNCHANGED.name(), second.getFileResults().get(0).getStatus());
+        assertTrue(second.getAllProducts().isEmpty());
+
+        List<PriceListImport> history = priceListImportHistoryService.getHistory(
+            ProductCategory.TILE, MANUFACTURER, GROUP_NAME);
+        assertEquals(3, history.size(), "Historia: EXPORTED, IMPORTED, UNCHANGED");
+        assertEquals(PriceListImportStatus.UNCHANGED, history.get(0).getStatus());
+        assertEquals(history.get(0).getContentSha256(), history.get(1).getContentSha256());
+    }
+
+    @Test
+    void testRoundTrip_ManufacturerWithSpaceAndHyphen_MatchedOnExactGroup() throws IOException {
+        logger.info("🧪 TEST: Round-trip producenta ze spacją i myślnikiem (nazwa pliku z \"_\") → UNCHANGED");
+
+        String manufacturer = "HASH TEST-PL";
+        List<Product> products = createProducts(3);
+        products.forEach(product -> product.setManufacturer(manufacturer));
+        products = productRepository.saveAll(products);
+        MultipartFile exportedFile = extractSingleFile(productExportService.exportToExcelZip(products));
+        assertTrue(exportedFile.getOriginalFilename().startsWith("HASH_TEST_PL-"), "Producent w nazwie pliku z \"_\"");
+
+        // Grupa rozwiązana z nazwy pliku eksportu: producent w postaci z nazwy pliku
+        ImportResponse response = importFile(exportedFile, "HASH_TEST_PL");
+
+        assertEquals(PriceListImportStatus.UNCHANGED.name(), response.getFileResults().get(0).getStatus());
+        assertEquals(manufacturer, response.getFileResults().get(0).getManufacturer());
+        assertTrue(response.getAllProducts().isEmpty(), "Niezmieniony plik nie powinien być parsowany ani zapisany");
+        assertTrue(productRepository.findByCategoryAndManufacturer(ProductCategory.TILE, "HASH_TEST_PL").isEmpty(),
+            "Nie powinna powstać grupa z producentem z nazwy pliku");
+    }
+
+    @Test
+    void testExportTwice_KeepsOnlyLatestExportedEntry() throws IOException {
+        logger.info("🧪 TEST: Kolejne eksporty nie powiększają historii - jeden wpis EXPORTED na grupę");
+
+        List<Product> products = productRepository.saveAll(createProducts(3));
+        productExportService.exportToExcelZip(products);
+        productExportService.exportToExcelZip(products);
+
+        List<PriceListImport> history = priceListImportHistoryService.getHistory(
+            ProductCategory.TILE, MANUFACTURER, GROUP_NAME);
+        assertEquals(1, history.size(), "Na grupę powinien zostać tylko najnowszy eksport");
+        assertEquals(PriceListImportStatus.EXPORTED, history.get(0).getStatus());
+    }
+
+    private ImportResponse importFile(MultipartFile file) throws IOException {
+        return importFile(file, MANUFACTURER);
+    }
+
+    private ImportResponse importFile(MultipartFile file, String manufacturer) throws IOException {
+        String nameWithoutExt = file.getOriginalFilename().substring(0, file.getOriginalFilename().lastIndexOf('.'));
+        return productService.importPriceLists(
+            Collections.singletonList(file),
+            Collections.singletonList(nameWithoutExt),
+            Collections.singletonList(manufacturer),
+            Collections.singletonList(GROUP_NAME),
+            ProductCategory.TILE);
+    }
+
+    private MultipartFile extractSingleFile(byte[] zipBytes) throws IOException {
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zipBytes))) {
+            ZipEntry entry = zipInputStream.getNextEntry();
+            assertNotNull(entry, "ZIP powinien zawierać plik Excel");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            zipInputStream.transferTo(out);
+            return new MockMultipartFile("file", entry.getName(),
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", out.toByteArray());
+        }
+    }
+
+    private List<Product> createProducts(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setName("Dachówka SHA " + i);
+            product.setManufacturer(MANUFACTURER);
+            product.setGroupName(GROUP_NAME);
+            product.setCategory(ProductCategory.TILE);
+            product.setRetailPrice(40.0 + i);
+            product.setUnit("szt");
+            product.setQuantityConverter(1.0);
+            product.setDisplayOrder(i + 1);
+            products.add(product);
+        }
+        return products;
+    }
+}
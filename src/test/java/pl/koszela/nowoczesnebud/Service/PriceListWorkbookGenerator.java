@@ -0,0 +1,106 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.mock.web.MockMultipartFile;
+import pl.koszela.nowoczesnebud.Model.DiscountCalculationMethod;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Generator realistycznych cenników XLSX do testów wydajnościowych
+ * Format DOKŁADNIE taki sam jak eksport (ProductExportService) - czyli taki, jaki użytkownicy importują
+ *
+ * ⚡ SXSSFWorkbook (streaming) - cenniki 100k wierszy nie trzymają całego arkusza w pamięci
+ */
+class PriceListWorkbookGenerator {
+
+    static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private static final String[] TILE_HEADERS = {
+        "Lp", "Nazwa", "Cena katalogowa", "Jednostka", "Przelicznik", "Rabat podstawowy",
+        "Rabat dodatkowy", "Rabat promocyjny", "Skonto", "Sposób obliczania rabatu", "Typ produktu"
+    };
+
+    private static final String[] ACCESSORY_HEADERS = {
+        "Lp", "Nazwa", "Cena katalogowa", "Jednostka", "Przelicznik", "Rabat podstawowy",
+        "Rabat dodatkowy", "Rabat promocyjny", "Skonto", "Sposób obliczania rabatu", "Typ"
+    };
+
+    private static final String[] TILE_NAMES = {
+        "Dachówka podstawowa", "Dachówka krawędziowa lewa", "Dachówka krawędziowa prawa", "Gąsior początkowy",
+        "Gąsior końcowy", "Gąsior zaokrąglony", "Dachówka wentylacyjna", "Dachówka połówkowa", "Trójnik", "Czwórnik"
+    };
+
+    private static final String[] GUTTER_NAMES = {
+        "Rynna 125mm 3m", "Rynna 125mm 4m", "Hak doczołowy", "Narożnik wewnętrzny", "Narożnik zewnętrzny",
+        "Lej spustowy", "Rura spustowa 90mm 3m", "Kolano 67°", "Złączka rynny", "Denko rynny"
+    };
+
+    private static final String[] ACCESSORY_NAMES = {
+        "Klamra do dachówki", "Taśma kalenicowa", "Grzebień okapowy", "Membrana dachowa", "Łata drewniana",
+        "Kontrłata", "Wkręt farmerski", "Uchwyt łaty kalenicowej", "Kratka zabezpieczająca", "Ława kominiarska"
+    };
+
+    private static final String[] PRODUCT_TYPES = {"Standardowa", "Krawędziowa", "Gąsiorowa", "Wentylacyjna", ""};
+    private static final String[] UNITS = {"szt", "m2", "mb", "kpl"};
+
+    private final Random random;
+
+    PriceListWorkbookGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Utwórz cennik XLSX jako MultipartFile
+     *
+     * @param fileName Nazwa pliku (np. "CANTUS-czarna ang.xlsx")
+     * @param category Kategoria (wpływa na nagłówki i nazwy produktów)
+     * @param rows Liczba wierszy produktów
+     */
+    MockMultipartFile createXlsx(String fileName, ProductCategory category, int rows) throws IOException {
+        String[] headers = category == ProductCategory.ACCESSORY ? ACCESSORY_HEADERS : TILE_HEADERS;
+        String[] names = category == ProductCategory.GUTTER ? GUTTER_NAMES
+            : category == ProductCategory.ACCESSORY ? ACCESSORY_NAMES : TILE_NAMES;
+        DiscountCalculationMethod[] methods = DiscountCalculationMethod.values();
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(500);
+        try {
+            Sheet sheet = workbook.createSheet("Produkty");
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                headerRow.createCell(i).setCellValue(headers[i]);
+            }
+
+            for (int i = 0; i < rows; i++) {
+                Row row = sheet.createRow(i + 1);
+                int col = 0;
+                row.createCell(col++).setCellValue(i + 1);
+                // Unikalna nazwa w obrębie pliku (import pomija duplikaty name+manufacturer+groupName)
+                row.createCell(col++).setCellValue(names[i % names.length] + " " + (i / names.length + 1));
+                row.createCell(col++).setCellValue(Math.round((5 + random.nextDouble() * 495) * 100) / 100.0);
+                row.createCell(col++).setCellValue(UNITS[random.nextInt(UNITS.length)]);
+                row.createCell(col++).setCellValue(random.nextInt(10) == 0 ? 12.5 : 1.0);
+                row.createCell(col++).setCellValue(random.nextInt(40));
+                row.createCell(col++).setCellValue(random.nextInt(15));
+                row.createCell(col++).setCellValue(random.nextInt(10));
+                row.createCell(col++).setCellValue(random.nextInt(4));
+                row.createCell(col++).setCellValue(methods[random.nextInt(methods.length)].name());
+                Cell typeCell = row.createCell(col);
+                typeCell.setCellValue(PRODUCT_TYPES[random.nextInt(PRODUCT_TYPES.length)]);
+            }
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            workbook.write(outputStream);
+            return new MockMultipartFile("file", fileName, CONTENT_TYPE, outputStream.toByteArray());
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import pl.koszela.nowoczesnebud.DTO.ImportResponse;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 🚀 BENCHMARK IMPORTU CENNIKÓW (H2 w pamięci, profil "test")
+ *
+ * Generuje realistyczne cenniki XLSX (1k / 10k / 50k / 100k wierszy, 1-40 plików na żądanie)
+ * i mierzy dwa etapy:
+ * - parse  - ProductImportService (konwersja, mapowanie kolumn, Poiji, kalkulacje cen)
+ * - import - ProductService.importPriceLists (parse + walidacja + JDBC batch insert)
+ *
+ * Dla każdego przebiegu: rows/s, szczytowe zużycie heap, alokacja na wiersz.
+ * Wyniki zapisywane jako JSON do target/benchmarks (do porównania między buildami).
+ *
+ * ⚠️ Domyślnie WYŁĄCZONY (długi czas + duże zużycie pamięci). Uruchomienie:
+ *   mvn test -Dtest=ProductImportBenchmarkTest -Dbenchmark.import=true
+ * Pełna macierz (wymaga dużego heap, np. -DargLine=-Xmx8g):
+ *   -Dbenchmark.import.rows=1000,10000,50000,100000 -Dbenchmark.import.files=1,10,40
+ *   -Dbenchmark.import.maxRowsPerRequest=4000000
+ * Progi regresji (test kończy się błędem po zapisaniu wyników):
+ *   -Dbenchmark.import.minRowsPerSecond=5000 -Dbenchmark.import.maxBytesPerRow=200000
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark.import", matches = "true")
+public class ProductImportBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportBenchmarkTest.class);
+
+    private static final String[] MANUFACTURERS = {"CANTUS", "BRAAS", "CREATON", "RÖBEN", "KORAMIC", "TONDACH", "GERARD"};
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void benchmarkImport_GeneratedPriceLists() throws IOException {
+        List<Integer> rowsPerFileMatrix = intListProperty("benchmark.import.rows", "1000,10000");
+        List<Integer> filesMatrix = intListProperty("benchmark.import.files", "1,10");
+        long maxRowsPerRequest = Long.parseLong(System.getProperty("benchmark.import.maxRowsPerRequest", "200000"));
+        double minRowsPerSecond = Double.parseDouble(System.getProperty("benchmark.import.minRowsPerSecond", "0"));
+        double maxBytesPerRow = Double.parseDouble(System.getProperty("benchmark.import.maxBytesPerRow", "0"));
+        Path outputDir = Paths.get(System.getProperty("benchmark.import.output", "target/benchmarks"));
+
+        logger.info("🧪 TEST: Benchmark importu | wiersze/plik: {} | pliki/żądanie: {} | limit wierszy/żądanie: {}",
+                    rowsPerFileMatrix, filesMatrix, maxRowsPerRequest);
+
+        // Rozgrzewka JIT / Hibernate / Poiji - nie trafia do wyników
+        runScenario(500, 1, "warmup");
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<String> thresholdFailures = new ArrayList<>();
+
+        for (int rowsPerFile : rowsPerFileMatrix) {
+            for (int files : filesMatrix) {
+                long totalRows = (long) rowsPerFile * files;
+                if (totalRows > maxRowsPerRequest) {
+                    logger.info("⏭️ Pomijam {} plików × {} wierszy ({} > benchmark.import.maxRowsPerRequest)",
+                               files, rowsPerFile, totalRows);
+                    continue;
+                }
+
+                List<Map<String, Object>> scenarioResults = runScenario(rowsPerFile, files, "r" + rowsPerFile + "f" + files);
+                for (Map<String, Object> result : scenarioResults) {
+                    results.add(result);
+                    double rowsPerSecond = (double) result.get("rowsPerSecond");
+                    double bytesPerRow = (double) result.get("allocatedBytesPerRow");
+                    if (minRowsPerSecond > 0 && rowsPerSecond < minRowsPerSecond) {
+                        thresholdFailures.add(String.format("%s %d×%d: %.0f rows/s < %.0f",
+                            result.get("phase"), files, rowsPerFile, rowsPerSecond, minRowsPerSecond));
+                    }
+                    if (maxBytesPerRow > 0 && bytesPerRow > maxBytesPerRow) {
+                        thresholdFailures.add(String.format("%s %d×%d: %.0f B/wiersz > %.0f",
+                            result.get("phase"), files, rowsPerFile, bytesPerRow, maxBytesPerRow));
+                    }
+                }
+            }
+        }
+
+        Path resultFile = writeResults(outputDir, results);
+        logger.info("📊 Wyniki benchmarku zapisane: {}", resultFile.toAbsolutePath());
+
+        assertFalse(results.isEmpty(), "Benchmark powinien wykonać przynajmniej jeden przebieg");
+        assertTrue(thresholdFailures.isEmpty(), "Przekroczone progi wydajności: " + thresholdFailures);
+    }
+
+    /**
+     * Wygeneruj pliki i zmierz etap parse + pełny import (transakcja wycofywana po pomiarze)
+     */
+    private List<Map<String, Object>> runScenario(int rowsPerFile, int fileCount, String runId) throws IOException {
+        PriceListWorkbookGenerator generator = new PriceListWorkbookGenerator(rowsPerFile * 31L + fileCount);
+        List<MultipartFile> files = new ArrayList<>();
+        List<String> customNames = new ArrayList<>();
+        List<String> manufacturers = new ArrayList<>();
+        List<String> groupNames = new ArrayList<>();
+        long inputBytes = 0;
+
+        for (int i = 0; i < fileCount; i++) {
+            String manufacturer = MANUFACTURERS[i % MANUFACTURERS.length];
+            // Unikalna grupa per przebieg - deduplikacja SHA-256 ani duplikaty nazw nie pomijają plików
+            String groupName = "BENCH " + runId + " " + i;
+            MultipartFile file = generator.createXlsx(manufacturer + "-" + groupName + ".xlsx", ProductCategory.TILE, rowsPerFile);
+            inputBytes += file.getSize();
+            files.add(file);
+            customNames.add(manufacturer + "-" + groupName);
+            manufacturers.add(manufacturer);
+            groupNames.add(groupName);
+        }
+        long totalRows = (long) rowsPerFile * fileCount;
+
+        Measurement parse = measure(() -> {
+            int parsed = productImportService.importProductsWithCustomNames(
+                files, customNames, manufacturers, groupNames, ProductCategory.TILE).size();
+            assertEquals(totalRows, parsed, "Wszystkie wiersze powinny zostać sparsowane");
+        });
+
+        TransactionTemplate rollbackTemplate = new TransactionTemplate(transactionManager);
+        Measurement importMeasurement = measure(() -> rollbackTemplate.executeWithoutResult(status -> {
+            try {
+                ImportResponse response = productService.importPriceLists(
+                    files, customNames, manufacturers, groupNames, ProductCategory.TILE);
+                assertEquals(totalRows, response.getAllProducts().size(), "Wszystkie wiersze powinny zostać zapisane");
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                entityManager.clear();
+                status.setRollbackOnly();
+            }
+        }));
+
+        if ("warmup".equals(runId)) {
+            return new ArrayList<>();
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        results.add(toResult("parse", rowsPerFile, fileCount, inputBytes, parse));
+        Map<String, Object> importResult = toResult("import", rowsPerFile, fileCount, inputBytes, importMeasurement);
+        // Szacunkowa przepustowość samego zapisu (walidacja + batch insert) = import - parse
+        long insertMs = Math.max(1, importMeasurement.durationMs - parse.durationMs);
+        importResult.put("insertRowsPerSecond", totalRows * 1000.0 / insertMs);
+        results.add(importResult);
+
+        logger.info("⏱️ [PERFORMANCE] BENCHMARK {} plików × {} wierszy | parse: {}ms ({} rows/s) | import: {}ms ({} rows/s) | " +
+                    "peak heap: {} MB | alokacja: {} B/wiersz",
+                    fileCount, rowsPerFile,
+                    parse.durationMs, Math.round((double) results.get(0).get("rowsPerSecond")),
+                    importMeasurement.durationMs, Math.round((double) importResult.get("rowsPerSecond")),
+                    importMeasurement.peakHeapBytes / (1024 * 1024),
+                    Math.round((double) importResult.get("allocatedBytesPerRow")));
+        return results;
+    }
+
+    private Map<String, Object> toResult(String phase, int rowsPerFile, int fileCount, long inputBytes, Measurement measurement) {
+        long totalRows = (long) rowsPerFile * fileCount;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("phase", phase);
+        result.put("format", "xlsx");
+        result.put("rowsPerFile", rowsPerFile);
+        result.put("files", fileCount);
+        result.put("totalRows", totalRows);
+        result.put("inputBytes", inputBytes);
+        result.put("durationMs", measurement.durationMs);
+        result.put("rowsPerSecond", totalRows * 1000.0 / Math.max(1, measurement.durationMs));
+        result.put("peakHeapBytes", measurement.peakHeapBytes);
+        result.put("allocatedBytes", measurement.allocatedBytes);
+        result.put("allocatedBytesPerRow", (double) measurement.allocatedBytes / totalRows);
+        return result;
+    }
+
+    /**
+     * Zmierz czas, szczytowe zużycie heap (suma pul heap) i alokację wszystkich wątków
+     * ⚠️ Alokacja to przybliżenie - wątki zakończone w trakcie pomiaru nie są liczone
+     */
+    private Measurement measure(BenchmarkAction action) throws IOException {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .collect(Collectors.toList());
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        Map<Long, Long> allocatedBefore = allocatedBytesPerThread();
+
+        long start = System.nanoTime();
+        action.run();
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+
+        Map<Long, Long> allocatedAfter = allocatedBytesPerThread();
+        long allocated = 0;
+        for (Map.Entry<Long, Long> entry : allocatedAfter.entrySet()) {
+            allocated += entry.getValue() - allocatedBefore.getOrDefault(entry.getKey(), 0L);
+        }
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+        return new Measurement(durationMs, peakHeap, allocated);
+    }
+
+    private Map<Long, Long> allocatedBytesPerThread() {
+        Map<Long, Long> allocated = new HashMap<>();
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return allocated;
+        }
+        com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        long[] threadIds = sunThreadMXBean.getAllThreadIds();
+        long[] bytes = sunThreadMXBean.getThreadAllocatedBytes(threadIds);
+        for (int i = 0; i < threadIds.length; i++) {
+            if (bytes[i] >= 0) {
+                allocated.put(threadIds[i], bytes[i]);
+            }
+        }
+        return allocated;
+    }
+
+    private Path writeResults(Path outputDir, List<Map<String, Object>> results) throws IOException {
+        Files.createDirectories(outputDir);
+        Runtime runtime = Runtime.getRuntime();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("benchmark", "product-import");
+        report.put("timestamp", LocalDateTime.now().toString());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("availableProcessors", runtime.availableProcessors());
+        report.put("maxHeapBytes", runtime.maxMemory());
+        report.put("database", "h2");
+        report.put("results", results);
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path resultFile = outputDir.resolve("import-benchmark-" + timestamp + ".json");
+        objectMapper.writeValue(resultFile.toFile(), report);
+        // Stała nazwa dla CI (porównanie z poprzednim buildem)
+        objectMapper.writeValue(outputDir.resolve("import-benchmark-latest.json").toFile(), report);
+        return resultFile;
+    }
+
+    private static List<Integer> intListProperty(String name, String defaultValue) {
+        return Arrays.stream(System.getProperty(name, defaultValue).split(","))
+            .map(String::trim)
+            .filter(value -> !value.isEmpty())
+            .map(Integer::parseInt)
+            .collect(Collectors.toList());
+    }
+
+    @FunctionalInterface
+    private interface BenchmarkAction {
+        void run() throws IOException;
+    }
+
+    private static class Measurement {
+        private final long durationMs;
+        private final long peakHeapBytes;
+        private final long allocatedBytes;
+
+        Measurement(long durationMs, long peakHeapBytes, long allocatedBytes) {
+            this.durationMs = durationMs;
+            this.peakHeapBytes = peakHeapBytes;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package pl.koszela.nowoczesnebud.Service;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import pl.koszela.nowoczesnebud.DTO.ProductSearchHit;
+import pl.koszela.nowoczesnebud.Model.Product;
+import pl.koszela.nowoczesnebud.Model.ProductCategory;
+import pl.koszela.nowoczesnebud.Repository.ProductRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testy indeksu wyszukiwania produktów w pamięci (ProductSearchIndex)
+ */
+@SpringBootTest
+@ActiveProfiles("test-mysql")
+@Transactional
+public class ProductSearchIndexTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndexTest.class);
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private javax.persistence.EntityManager entityManager;
+
+    /**
+     * ✅ TEST: Wyszukiwanie bez polskich znaków, po fragmencie i mapperName; zmiany widoczne po odświeżeniu
+     */
+    @Test
+    void testSearch_PrefixSubstringDiacritics_AndIncrementalRefresh() {
+        logger.info("🧪 TEST: ProductSearchIndex - prefiks, fragment, polskie znaki, odświeżanie przyrostowe");
+
+        Product ridge = saveProduct(ProductCategory.TILE, "Gąsior ceramiczny Łukowy ZQX", "gasior-zqx");
+        Product tile = saveProduct(ProductCategory.TILE, "Dachówka podstawowa ZQX", "dachowka-zqx");
+        Product gutter = saveProduct(ProductCategory.GUTTER, "Rynna 125 ZQX", "rynna-zqx");
+        productRepository.flush();
+        productSearchIndex.refresh();
+
+        assertEquals(List.of(ridge.getId()), ids(productSearchIndex.search("GĄSIOR zqx", null, 20)),
+            "Wielkość liter i polskie znaki nie powinny mieć znaczenia");
+        assertEquals(List.of(ridge.getId()), ids(productSearchIndex.search("lukow zqx", null, 20)));
+        assertEquals(List.of(ridge.getId()), ids(productSearchIndex.search("ramicz zqx", null, 20)),
+            "Fragment w środku słowa powinien być znaleziony");
+        assertEquals(List.of(tile.getId()), ids(productSearchIndex.search("dachowka-zqx", null, 20)),
+            "Wyszukiwanie po mapperName");
+        assertEquals(List.of(gutter.getId()), ids(productSearchIndex.search("zqx", ProductCategory.GUTTER, 20)),
+            "Filtr kategorii");
+
+        // Zmiana nazwy i usunięcie widoczne po odświeżeniu przyrostowym
+        tile.setName("Gąsiorek ZQX");
+        productRepository.saveAndFlush(tile);
+        productRepository.delete(ridge);
+        productRepository.flush();
+        productSearchIndex.refresh();
+
+        assertEquals(List.of(tile.getId()), ids(productSearchIndex.search("gasior zqx", null, 20)));
+    }
+
+    /**
+     * ✅ TEST: Produkt zatwierdzony z updated_at starszym niż ostatnie odświeżenie (długa transakcja) - dociągnięty po id
+     */
+    @Test
+    void testRefresh_RowWithOldUpdatedAt_LoadedByIdComparison() {
+        logger.info("🧪 TEST: ProductSearchIndex - brakujące id dociągane mimo updated_at sprzed ostatniego odświeżenia");
+
+        productSearchIndex.refresh();
+        Product late = saveProduct(ProductCategory.TILE, "Kosz dachowy ZQW", "kosz-zqw");
+        productRepository.flush();
+        entityManager.createNativeQuery("UPDATE products SET updated_at = :old WHERE id = :id")
+            .setParameter("old", java.sql.Timestamp.valueOf("2000-01-01 00:00:00"))
+            .setParameter("id", late.getId())
+            .executeUpdate();
+        productSearchIndex.refresh();
+
+        assertEquals(List.of(late.getId()), ids(productSearchIndex.search("kosz zqw", null, 20)));
+    }
+
+    private Product saveProduct(ProductCategory category, String name, String mapperName) {
+        Product product = new Product();
+        product.setCategory(category);
+        product.setName(name);
+        product.setMapperName(mapperName);
+        product.setManufacturer("Search Manufacturer");
+        product.setGroupName("Search Group");
+        return productRepository.save(product);
+    }
+
+    private static List<Long> ids(List<ProductSearchHit> hits) {
+        return hits.stream().map(ProductSearchHit::getId).collect(Collectors.toList());
+    }
+}
@@ -8,8 +8,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
+import pl.koszela.nowoczesnebud.DTO.CatalogRenameResult;
 import pl.koszela.nowoczesnebud.DTO.CheckExistingGroupsRequest;
 import pl.koszela.nowoczesnebud.DTO.GroupAttributesRequest;
+import pl.koszela.nowoczesnebud.DTO.AttributeFacetResponse;
+import pl.koszela.nowoczesnebud.DTO.CatalogHierarchyResponse;
+import pl.koszela.nowoczesnebud.DTO.ProductPageRequest;
+import pl.koszela.nowoczesnebud.DTO.ProductPageResponse;
 import pl.koszela.nowoczesnebud.Model.Product;
 import pl.koszela.nowoczesnebud.Model.ProductCategory;
 import pl.koszela.nowoczesnebud.Model.GroupOption;
@@ -60,6 +65,9 @@ public class ProductServiceAdditionalMethodsTest {
     @Autowired
     private ProductGroupAttributesRepository productGroupAttributesRepository;
 
+    @Autowired
+    private CatalogPurgeService catalogPurgeService;
+
     @Autowired
     private javax.persistence.EntityManager entityManager;
 
@@ -142,7 +150,15 @@ public class ProductServiceAdditionalMethodsTest {
         String oldManufacturer = "Test Manufacturer";
         String newManufacturer = "Renamed Manufacturer";
 
-        List<Product> updated = productService.renameManufacturer(
+        pl.koszela.nowoczesnebud.Model.ProductGroupAttributes groupAttributes =
+            new pl.koszela.nowoczesnebud.Model.ProductGroupAttributes();
+        groupAttributes.setCategory(ProductCategory.TILE);
+        groupAttributes.setManufacturer(oldManufacturer);
+        groupAttributes.setGroupName("Test Group");
+        groupAttributes.setAttributes("{\"kolor\":[\"czerwony\"]}");
+        productGroupAttributesRepository.save(groupAttributes);
+
+        CatalogRenameResult result = productService.renameManufacturer(
             ProductCategory.TILE,
             oldManufacturer,
             newManufacturer
@@ -150,9 +166,12 @@ public class ProductServiceAdditionalMethodsTest {
 
         long duration = System.currentTimeMillis() - startTime;
         logger.info("⏱️ [PERFORMANCE] renameManufacturer: {}ms | zaktualizowano: {} produktów", 
-                   duration, updated.size());
+                   duration, result.getRenamedProducts());
 
-        assertNotNull(updated);
+        assertEquals(10, result.getRenamedProducts());
+        assertEquals(1, result.getRenamedGroupAttributes());
+        assertNotNull(result.getCatalogVersion());
+        List<Product> updated = productRepository.findByCategoryAndManufacturer(ProductCategory.TILE, newManufacturer);
         assertEquals(10, updated.size());
         updated.forEach(p -> {
             assertEquals(newManufacturer, p.getManufacturer());
@@ -163,6 +182,10 @@ public class ProductServiceAdditionalMethodsTest {
         List<Product> oldProducts = productRepository.findByCategoryAndManufacturer(
             ProductCategory.TILE, oldManufacturer);
         assertTrue(oldProducts.isEmpty());
+
+        // Atrybuty grupy przeniesione razem z produktami
+        assertTrue(productGroupAttributesRepository.findByCategoryAndManufacturerAndGroupName(
+            ProductCategory.TILE, newManufacturer, "Test Group").isPresent());
     }
 
     @Test
@@ -174,7 +197,7 @@ public class ProductServiceAdditionalMethodsTest {
         String oldGroupName = "Test Group";
         String newGroupName = "Renamed Group";
 
-        List<Product> updated = productService.renameGroup(
+        CatalogRenameResult result = productService.renameGroup(
             ProductCategory.TILE,
             manufacturer,
             oldGroupName,
@@ -183,9 +206,12 @@ public class ProductServiceAdditionalMethodsTest {
 
         long duration = System.currentTimeMillis() - startTime;
         logger.info("⏱️ [PERFORMANCE] renameGroup: {}ms | zaktualizowano: {} produktów", 
-                   duration, updated.size());
+                   duration, result.getRenamedProducts());
 
-        assertNotNull(updated);
+        assertEquals(10, result.getRenamedProducts());
+        List<Product> updated = productRepository.findByCategoryAndManufacturer(ProductCategory.TILE, manufacturer).stream()
+            .filter(p -> newGroupName.equals(p.getGroupName()))
+            .toList();
         assertEquals(10, updated.size());
         updated.forEach(p -> {
             assertEquals(manufacturer, p.getManufacturer());
@@ -201,6 +227,70 @@ public class ProductServiceAdditionalMethodsTest {
         assertTrue(oldProducts.isEmpty());
     }
 
+    @Test
+    void testRenameGroup_CollidingAttributes_Merged() {
+        logger.info("🧪 TEST: renameGroup - atrybuty grupy docelowej łączone, nie nadpisywane");
+
+        pl.koszela.nowoczesnebud.Model.ProductGroupAttributes source =
+            new pl.koszela.nowoczesnebud.Model.ProductGroupAttributes();
+        source.setCategory(ProductCategory.TILE);
+        source.setManufacturer("Test Manufacturer");
+        source.setGroupName("Test Group");
+        source.setAttributes("{\"kolor\":[\"czerwony\",\"czarny\"],\"kształt\":[\"płaska\"]}");
+        productGroupAttributesRepository.save(source);
+
+        pl.koszela.nowoczesnebud.Model.ProductGroupAttributes target =
+            new pl.koszela.nowoczesnebud.Model.ProductGroupAttributes();
+        target.setCategory(ProductCategory.TILE);
+        target.setManufacturer("Test Manufacturer");
+        target.setGroupName("Existing Group");
+        target.setAttributes("{\"kolor\":[\"czarny\"],\"materiał\":[\"beton\"]}");
+        productGroupAttributesRepository.save(target);
+
+        CatalogRenameResult result = productService.renameGroup(
+            ProductCategory.TILE, "Test Manufacturer", "Test Group", "Existing Group");
+
+        assertEquals(10, result.getRenamedProducts());
+        assertEquals(1, result.getRenamedGroupAttributes());
+        assertTrue(productGroupAttributesRepository.findByCategoryAndManufacturerAndGroupName(
+            ProductCategory.TILE, "Test Manufacturer", "Test Group").isEmpty());
+        String merged = productService.getGroupAttributes(ProductCategory.TILE, "Test Manufacturer", "Existing Group");
+        assertEquals("{\"kolor\":[\"czarny\",\"czerwony\"],\"materiał\":[\"beton\"],\"kształt\":[\"płaska\"]}", merged);
+    }
+
+    @Test
+    void testRenameGroup_OntoDeletedGroup_PurgesDeletedGroup() {
+        logger.info("🧪 TEST: renameGroup - grupa docelowa czeka na usunięcie (czyszczona od razu)");
+
+        Product deleted = new Product();
+        deleted.setName("Deleted Product");
+        deleted.setCategory(ProductCategory.TILE);
+        deleted.setManufacturer("Test Manufacturer");
+        deleted.setGroupName("Deleted Group");
+        deleted.setRetailPrice(100.0);
+        deleted.setPurchasePrice(80.0);
+        deleted.setIsMainOption(GroupOption.NONE);
+        deleted = productRepository.save(deleted);
+        productService.deleteAllByGroup(ProductCategory.TILE, "Test Manufacturer", "Deleted Group");
+
+        CatalogRenameResult result = productService.renameGroup(
+            ProductCategory.TILE, "Test Manufacturer", "Test Group", "Deleted Group");
+
+        assertEquals(10, result.getRenamedProducts());
+        assertEquals(10, productRepository.findByCategoryAndManufacturer(ProductCategory.TILE, "Test Manufacturer").stream()
+            .filter(p -> "Deleted Group".equals(p.getGroupName()))
+            .count(), "Przeniesione produkty nie mogą zostać ukryte przez znacznik usuniętej grupy");
+        assertEquals(0L, ((Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM products WHERE id = :id")
+            .setParameter("id", deleted.getId())
+            .getSingleResult()).longValue(), "Produkt usuniętej grupy powinien zostać fizycznie usunięty");
+        assertEquals(0L, ((Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM product_group_tombstones WHERE manufacturer = :manufacturer AND group_name = :groupName")
+            .setParameter("manufacturer", "Test Manufacturer")
+            .setParameter("groupName", "Deleted Group")
+            .getSingleResult()).longValue(), "Znacznik grupy docelowej powinien zostać usunięty");
+    }
+
     @Test
     void testDeleteAllByManufacturer_Correctness() {
         long startTime = System.currentTimeMillis();
@@ -593,6 +683,100 @@ public class ProductServiceAdditionalMethodsTest {
         assertEquals(2, finalProgress.getTotalGroups(), "Powinno być 2 grupy łącznie");
     }
 
+    @Test
+    void testDeleteMultipleGroupsWithProgress_CascadesGroupData() {
+        logger.info("🧪 TEST: deleteMultipleGroupsWithProgress - usuwanie danych zależnych od grupy");
+
+        String manufacturer = "Cascade Manufacturer";
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Product product = new Product();
+            product.setName("Cascade Product " + i);
+            product.setCategory(ProductCategory.TILE);
+            product.setManufacturer(manufacturer);
+            product.setGroupName(i < 3 ? "Deleted Group" : "Kept Group");
+            product.setRetailPrice(100.0 + i);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+
+        for (String groupName : new String[] {"Deleted Group", "Kept Group"}) {
+            pl.koszela.nowoczesnebud.Model.ProductGroupAttributes groupAttributes =
+                new pl.koszela.nowoczesnebud.Model.ProductGroupAttributes();
+            groupAttributes.setCategory(ProductCategory.TILE);
+            groupAttributes.setManufacturer(manufacturer);
+            groupAttributes.setGroupName(groupName);
+            groupAttributes.setAttributes("{\"kolor\":[\"czerwony\"]}");
+            productGroupAttributesRepository.save(groupAttributes);
+        }
+
+        // Zmiany draft projektu dla produktu z usuwanej i z pozostającej grupy
+        for (Product product : new Product[] {products.get(0), products.get(3)}) {
+            pl.koszela.nowoczesnebud.Model.ProjectDraftChange draft = new pl.koszela.nowoczesnebud.Model.ProjectDraftChange();
+            draft.setProjectId(Long.MAX_VALUE);
+            draft.setProductId(product.getId());
+            draft.setCategory(ProductCategory.TILE.name());
+            draft.setDraftQuantity(5.0);
+            entityManager.persist(draft);
+        }
+        entityManager.flush();
+
+        Map<String, String> deletedGroup = new HashMap<>();
+        deletedGroup.put("manufacturer", manufacturer);
+        deletedGroup.put("groupName", "Deleted Group");
+        List<ProductService.DeleteProgress> progressUpdates = new ArrayList<>();
+
+        productService.deleteMultipleGroupsWithProgress(ProductCategory.TILE, List.of(deletedGroup), progressUpdates::add);
+
+        // Soft delete: produkty grupy od razu niewidoczne, fizycznie usuwa je dopiero czyszczenie w tle
+        assertEquals(0, productRepository.findByCategory(ProductCategory.TILE).stream()
+                .filter(p -> manufacturer.equals(p.getManufacturer()) && "Deleted Group".equals(p.getGroupName()))
+                .count(), "Produkty usuniętej grupy powinny zniknąć z odczytów od razu");
+
+        // Grupa zaimportowana ponownie po usunięciu (nowe id) jest widoczna i nie jest czyszczona
+        Product reimported = new Product();
+        reimported.setName("Cascade Product reimported");
+        reimported.setCategory(ProductCategory.TILE);
+        reimported.setManufacturer(manufacturer);
+        reimported.setGroupName("Deleted Group");
+        reimported.setRetailPrice(100.0);
+        reimported = productRepository.saveAndFlush(reimported);
+        assertTrue(productRepository.findById(reimported.getId()).isPresent(), "Ponownie zaimportowany produkt powinien być widoczny");
+
+        int purgedProducts = catalogPurgeService.purgeDeletedGroups(Integer.MAX_VALUE);
+        assertEquals(3, purgedProducts, "Czyszczenie powinno usunąć produkty objęte znacznikiem");
+        entityManager.clear();
+        assertEquals(List.of(reimported.getId()), productRepository.findByCategory(ProductCategory.TILE).stream()
+                .filter(p -> manufacturer.equals(p.getManufacturer()) && "Deleted Group".equals(p.getGroupName()))
+                .map(Product::getId)
+                .collect(java.util.stream.Collectors.toList()),
+            "Po czyszczeniu powinien zostać tylko ponownie zaimportowany produkt");
+        assertEquals(0L, ((Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM product_group_tombstones WHERE manufacturer = :manufacturer")
+            .setParameter("manufacturer", manufacturer)
+            .getSingleResult()).longValue(), "Znacznik grupy powinien zostać usunięty po czyszczeniu");
+
+        assertTrue(productGroupAttributesRepository.findByCategoryAndManufacturerAndGroupName(
+            ProductCategory.TILE, manufacturer, "Deleted Group").isEmpty(), "Atrybuty usuniętej grupy powinny zostać usunięte");
+        assertTrue(productGroupAttributesRepository.findByCategoryAndManufacturerAndGroupName(
+            ProductCategory.TILE, manufacturer, "Kept Group").isPresent(), "Atrybuty innej grupy powinny zostać");
+
+        List<?> remainingDraftProductIds = entityManager.createQuery(
+                "SELECT d.productId FROM ProjectDraftChange d WHERE d.projectId = :projectId")
+            .setParameter("projectId", Long.MAX_VALUE)
+            .getResultList();
+        assertEquals(List.of(products.get(3).getId()), remainingDraftProductIds,
+            "Powinna zostać tylko zmiana draft produktu z pozostającej grupy");
+
+        // Postęp raportowany dla grupy z liczbą usuniętych produktów
+        assertTrue(progressUpdates.stream().anyMatch(progress ->
+                "processing".equals(progress.getStatus()) && progress.getProcessedGroups() == 1 && progress.getDeletedProducts() == 3),
+            "Powinien być status postępu dla usuniętej grupy");
+        ProductService.DeleteProgress finalProgress = progressUpdates.get(progressUpdates.size() - 1);
+        assertEquals("completed", finalProgress.getStatus());
+        assertEquals(3, finalProgress.getDeletedProducts());
+    }
+
     @Test
     void testDeleteMultipleGroupsWithProgress_Performance_ManyGroups() {
         long startTime = System.currentTimeMillis();
@@ -735,6 +919,169 @@ public class ProductServiceAdditionalMethodsTest {
         assertEquals(3240, finalProgress.getDeletedProducts(), "Powinno być usunięte 3240 produktów");
     }
 
+    @Test
+    void testGetProductsPage_KeysetFiltersAndProjection() {
+        logger.info("🧪 TEST: getProductsPage - stronicowanie keyset, filtry i projekcja pól");
+
+        // setUp: 10 produktów "Test Manufacturer" / "Test Group", displayOrder = 0 → kolejność po id
+        ProductPageRequest request = new ProductPageRequest();
+        request.setCategory(ProductCategory.TILE);
+        request.setManufacturer("Test Manufacturer");
+        request.setGroupName("Test Group");
+        request.setLimit(4);
+
+        List<Long> pagedIds = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            request.setCursor(cursor);
+            ProductPageResponse page = productService.getProductsPage(request);
+            pageSizes.add(page.getItems().size());
+            page.getItems().forEach(item -> pagedIds.add(((Product) item).getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(4, 4, 2), pageSizes);
+        assertEquals(testProducts.stream().map(Product::getId).sorted().toList(), pagedIds,
+            "Strony powinny zawierać wszystkie produkty po kolei, bez powtórzeń");
+
+        // Filtry: fragment nazwy + zakres ceny katalogowej (Product 5..9 → 150..190), projekcja pól
+        request.setCursor(null);
+        request.setLimit(100);
+        request.setName("product ");
+        request.setMinPrice(150.0);
+        request.setMaxPrice(180.0);
+        request.setFields(List.of("id", "name", "retailPrice"));
+        ProductPageResponse filtered = productService.getProductsPage(request);
+
+        assertEquals(4, filtered.getItems().size());
+        assertNull(filtered.getNextCursor());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> first = (Map<String, Object>) filtered.getItems().get(0);
+        assertEquals(List.of("id", "name", "retailPrice"), new ArrayList<>(first.keySet()));
+        assertEquals("Product 5", first.get("name"));
+
+        request.setFields(List.of("isManualPrice"));
+        assertThrows(IllegalArgumentException.class, () -> productService.getProductsPage(request),
+            "Pola spoza bazy (poza rabatami globalnymi) nie powinny być dozwolone w projekcji");
+    }
+
+    @Test
+    void testGetProductsPage_NullSortKeys_AllRowsOnce() {
+        logger.info("🧪 TEST: getProductsPage - NULL w kolumnach klucza (grupa, kolejność) jako najmniejsza wartość");
+
+        String[] groups = {null, null, "A Group", "A Group"};
+        Integer[] orders = {1, null, 0, null};
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < groups.length; i++) {
+            Product product = new Product();
+            product.setName("Null Key Product " + i);
+            product.setCategory(ProductCategory.TILE);
+            product.setManufacturer("Null Key Manufacturer");
+            product.setGroupName(groups[i]);
+            product.setDisplayOrder(orders[i]);
+            products.add(product);
+        }
+        products = productRepository.saveAll(products);
+
+        ProductPageRequest request = new ProductPageRequest();
+        request.setCategory(ProductCategory.TILE);
+        request.setManufacturer("Null Key Manufacturer");
+        request.setLimit(1);
+
+        List<Long> pagedIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            request.setCursor(cursor);
+            ProductPageResponse page = productService.getProductsPage(request);
+            page.getItems().forEach(item -> pagedIds.add(((Product) item).getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(products.get(1).getId(), products.get(0).getId(), products.get(3).getId(), products.get(2).getId()),
+            pagedIds, "Strony powinny zawierać każdy produkt raz, NULL przed wartościami");
+    }
+
+    @Test
+    void testGetCatalogHierarchy_CountsAndInvalidationOnWrites() {
+        logger.info("🧪 TEST: getCatalogHierarchy - drzewo producent → grupa z liczbami, odświeżane po zapisach");
+
+        CatalogHierarchyResponse.GroupNode group = findHierarchyGroup("Test Manufacturer", "Test Group");
+        assertNotNull(group, "Grupa z setUp powinna być w drzewie");
+        assertEquals(10, group.getProductCount());
+        assertTrue(productService.getManufacturers(ProductCategory.TILE).contains("Test Manufacturer"));
+        assertEquals(List.of("Test Group"), productService.getGroupNames(ProductCategory.TILE, "Test Manufacturer"));
+
+        // Zapis ORM (listener encji) - nowa grupa widoczna od razu
+        Product product = new Product();
+        product.setName("Hierarchy Product");
+        product.setCategory(ProductCategory.TILE);
+        product.setManufacturer("Test Manufacturer");
+        product.setGroupName("Hierarchy Group");
+        product.setProductType("Dachówka");
+        productRepository.saveAndFlush(product);
+
+        CatalogHierarchyResponse.GroupNode added = findHierarchyGroup("Test Manufacturer", "Hierarchy Group");
+        assertNotNull(added, "Nowa grupa powinna być w drzewie po zapisie produktu");
+        assertEquals(1, added.getProductCount());
+        assertEquals(Long.valueOf(1), added.getProductTypes().get("Dachówka"));
+        assertEquals(List.of("Hierarchy Group", "Test Group"),
+            productService.getGroupNames(ProductCategory.TILE, "Test Manufacturer"));
+
+        // Zapis JDBC (zmiana nazwy grupy) - stara nazwa znika z drzewa
+        productService.renameGroup(ProductCategory.TILE, "Test Manufacturer", "Test Group", "Renamed Hierarchy Group");
+        assertNull(findHierarchyGroup("Test Manufacturer", "Test Group"));
+        assertEquals(10, findHierarchyGroup("Test Manufacturer", "Renamed Hierarchy Group").getProductCount());
+    }
+
+    @Test
+    void testFilterGroupsByAttributes_FacetCounts() {
+        logger.info("🧪 TEST: filterGroupsByAttributes - filtr fasetowy (AND między kluczami, OR w kluczu) z liczbami");
+
+        saveFacetTestAttributes("Facet Manufacturer A", "Facet Group 1", Map.of("facet-kolor", List.of("czerwony"), "facet-kształt", List.of("płaska")));
+        saveFacetTestAttributes("Facet Manufacturer A", "Facet Group 2", Map.of("facet-kolor", List.of("czerwony", "brązowy"), "facet-kształt", List.of("karpiówka")));
+        saveFacetTestAttributes("Facet Manufacturer B", "Facet Group 3", Map.of("facet-kolor", List.of("czarny"), "facet-kształt", List.of("płaska")));
+
+        AttributeFacetResponse redAndFlat = productService.filterGroupsByAttributes(ProductCategory.TILE,
+            Map.of("facet-kolor", List.of("czerwony"), "facet-kształt", List.of("płaska")));
+        assertEquals(1, redAndFlat.getGroupCount());
+        assertEquals("Facet Group 1", redAndFlat.getGroups().get(0).getGroupName());
+
+        AttributeFacetResponse redOrBlack = productService.filterGroupsByAttributes(ProductCategory.TILE,
+            Map.of("facet-kolor", List.of("czerwony", "czarny")));
+        assertEquals(3, redOrBlack.getGroupCount());
+        assertEquals(Map.of("płaska", 2, "karpiówka", 1), redOrBlack.getFacets().get("facet-kształt"));
+
+        // Aktualizacja grupy zmienia indeks bez ponownego parsowania kategorii
+        saveFacetTestAttributes("Facet Manufacturer A", "Facet Group 1", Map.of("facet-kolor", List.of("zielony")));
+        entityManager.flush();
+        assertEquals(0, productService.filterGroupsByAttributes(ProductCategory.TILE,
+            Map.of("facet-kolor", List.of("czerwony"), "facet-kształt", List.of("płaska"))).getGroupCount());
+        assertTrue(productService.getAttributeSuggestions(ProductCategory.TILE).get("facet-kolor").contains("zielony"));
+    }
+
+    private void saveFacetTestAttributes(String manufacturer, String groupName, Map<String, List<String>> attributes) {
+        GroupAttributesRequest request = new GroupAttributesRequest();
+        request.setCategory(ProductCategory.TILE);
+        request.setManufacturer(manufacturer);
+        request.setGroupName(groupName);
+        request.setAttributes(attributes);
+        productService.saveGroupAttributes(request);
+    }
+
+    private CatalogHierarchyResponse.GroupNode findHierarchyGroup(String manufacturer, String groupName) {
+        for (CatalogHierarchyResponse.ManufacturerNode node : productService.getCatalogHierarchy(ProductCategory.TILE).getManufacturers()) {
+            if (manufacturer.equals(node.getManufacturer())) {
+                for (CatalogHierarchyResponse.GroupNode group : node.getGroups()) {
+                    if (groupName.equals(group.getGroupName())) {
+                        return group;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
     // ========== TESTY WYDAJNOŚCIOWE ==========
 
     @Test
@@ -794,7 +1141,7 @@ public class ProductServiceAdditionalMethodsTest {
         productRepository.saveAll(products);
 
         long operationStart = System.currentTimeMillis();
-        List<Product> updated = productService.renameManufacturer(
+        CatalogRenameResult result = productService.renameManufacturer(
             ProductCategory.TILE,
             "Old Manufacturer",
             "New Manufacturer"
@@ -803,10 +1150,10 @@ public class ProductServiceAdditionalMethodsTest {
 
         long duration = operationEnd - operationStart;
         logger.info("⏱️ [PERFORMANCE] renameManufacturer (500 produktów): {}ms ({}s) | zaktualizowano: {}", 
-                   duration, duration / 1000.0, updated.size());
+                   duration, duration / 1000.0, result.getRenamedProducts());
 
-        assertNotNull(updated);
-        assertEquals(500, updated.size());
+        assertEquals(500, result.getRenamedProducts());
+        assertEquals(500, productRepository.findByCategoryAndManufacturer(ProductCategory.TILE, "New Manufacturer").size());
         assertTrue(duration < 5000, "Operacja powinna zakończyć się w ciągu 5 sekund");
     }
 
@@ -878,16 +1225,16 @@ public class ProductServiceAdditionalMethodsTest {
     void testRenameManufacturer_NonExistentManufacturer() {
         logger.info("🧪 TEST BRZEGOWY: renameManufacturer - nieistniejący producent");
 
-        List<Product> updated = productService.renameManufacturer(
+        CatalogRenameResult result = productService.renameManufacturer(
             ProductCategory.TILE,
             "Non-existent Manufacturer",
             "New Manufacturer"
         );
 
-        logger.info("⏱️ [PERFORMANCE] renameManufacturer (non-existent): zaktualizowano: {}", updated.size());
+        logger.info("⏱️ [PERFORMANCE] renameManufacturer (non-existent): zaktualizowano: {}", result.getRenamedProducts());
 
-        assertNotNull(updated);
-        assertTrue(updated.isEmpty());
+        assertEquals(0, result.getRenamedProducts());
+        assertNull(result.getCatalogVersion());
     }
 
     @Test
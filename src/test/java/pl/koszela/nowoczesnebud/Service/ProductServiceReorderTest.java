@@ -12,7 +12,9 @@ import pl.koszela.nowoczesnebud.Model.Product;
 import pl.koszela.nowoczesnebud.Model.ProductCategory;
 import pl.koszela.nowoczesnebud.Repository.ProductRepository;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -91,7 +93,7 @@ class ProductServiceReorderTest {
             .findFirst()
             .orElseThrow();
         
-        assertEquals(1, movedProduct.getDisplayOrder(), "Produkt powinien być na pozycji 1");
+        assertEquals(1, updatedProducts.indexOf(movedProduct), "Produkt powinien być na pozycji 1");
         logger.info("✅ Produkt przesunięty z pozycji 2 na pozycję 1");
     }
 
@@ -117,7 +119,7 @@ class ProductServiceReorderTest {
             .findFirst()
             .orElseThrow();
         
-        assertEquals(3, movedProduct.getDisplayOrder(), "Produkt powinien być na pozycji 3");
+        assertEquals(3, updatedProducts.indexOf(movedProduct), "Produkt powinien być na pozycji 3");
         logger.info("✅ Produkt przesunięty z pozycji 2 na pozycję 3");
     }
 
@@ -189,13 +191,10 @@ class ProductServiceReorderTest {
             .findFirst()
             .orElseThrow();
         
-        assertEquals(1, movedProduct.getDisplayOrder(), "Produkt powinien być na pozycji 1");
+        assertEquals(1, updatedProducts.indexOf(movedProduct), "Produkt powinien być na pozycji 1");
         
-        // Sprawdź że wszystkie produkty mają poprawne displayOrder (0, 1, 2, 3, 4)
-        for (int i = 0; i < updatedProducts.size(); i++) {
-            assertEquals(i, updatedProducts.get(i).getDisplayOrder(), 
-                        "Produkt na pozycji " + i + " powinien mieć displayOrder = " + i);
-        }
+        // Sprawdź że displayOrder rosną ściśle wraz z pozycją (wartości mają odstępy, np. 0, 1024, 2048, ...)
+        assertStrictlyIncreasingDisplayOrder(updatedProducts);
         logger.info("✅ Produkt przesunięty na pozycję 1, wszystkie produkty mają poprawne displayOrder");
     }
 
@@ -241,7 +240,7 @@ class ProductServiceReorderTest {
         List<Product> updatedProducts = productService.getProductsByGroup(testCategory, testManufacturer, testGroupName);
         Product lastProduct = updatedProducts.get(updatedProducts.size() - 1);
         assertEquals(productToMove.getId(), lastProduct.getId(), "Produkt powinien być na ostatniej pozycji");
-        assertEquals(4, lastProduct.getDisplayOrder(), "DisplayOrder powinien być 4");
+        assertStrictlyIncreasingDisplayOrder(updatedProducts);
         logger.info("✅ Produkt przesunięty na ostatnią pozycję");
     }
 
@@ -405,7 +404,7 @@ class ProductServiceReorderTest {
             .findFirst()
             .orElseThrow();
         
-        assertEquals(1, movedProduct.getDisplayOrder(), "Produkt powinien być na pozycji 1");
+        assertEquals(1, updatedProducts.indexOf(movedProduct), "Produkt powinien być na pozycji 1");
         
         // Próba przesunięcia jeszcze raz powinna zwrócić false (już na pozycji 1, nie można wyżej)
         assertFalse(productService.moveProductUp(product.getId()), "Nie można przesunąć dalej w górę");
@@ -427,22 +426,15 @@ class ProductServiceReorderTest {
         productService.moveProductDown(products.get(1).getId());
         productService.swapProducts(products.get(0).getId(), products.get(4).getId());
         
-        // Sprawdź czy wszystkie produkty mają poprawne displayOrder (0, 1, 2, 3, 4)
+        // Sprawdź czy wszystkie produkty mają poprawne displayOrder
         List<Product> updatedProducts = productService.getProductsByGroup(testCategory, testManufacturer, testGroupName);
         
         assertEquals(5, updatedProducts.size(), "Powinno być 5 produktów");
         
-        // Sprawdź czy displayOrder są unikalne i ciągłe (0, 1, 2, 3, 4)
-        List<Integer> orders = updatedProducts.stream()
-            .map(p -> p.getDisplayOrder() != null ? p.getDisplayOrder() : 0)
-            .sorted()
-            .collect(Collectors.toList());
-        
-        for (int i = 0; i < orders.size(); i++) {
-            assertEquals(i, orders.get(i), "DisplayOrder powinien być ciągły: " + i);
-        }
+        // Sprawdź czy displayOrder są unikalne i rosnące (z odstępami, np. 0, 1024, 2048, ...)
+        assertStrictlyIncreasingDisplayOrder(updatedProducts);
         
-        logger.info("✅ Wszystkie produkty mają poprawne i ciągłe displayOrder");
+        logger.info("✅ Wszystkie produkty mają poprawne i unikalne displayOrder");
     }
 
     /**
@@ -464,5 +456,99 @@ class ProductServiceReorderTest {
         
         logger.info("✅ Produkt bez grupy - wyjątek został rzucony");
     }
-}
 
+    /**
+     * ✅ TEST 17: Przesunięcie w grupie z odstępami zmienia displayOrder tylko przesuwanego produktu
+     */
+    @Test
+    void testMoveProductToPosition_OnlyMovedRowChanges() {
+        logger.info("🧪 TEST 17: Przesunięcie w grupie z odstępami zmienia tylko jeden wiersz");
+        
+        List<Product> products = createTestProducts(5);
+        for (int i = 0; i < products.size(); i++) {
+            products.get(i).setDisplayOrder(i * ProductService.DISPLAY_ORDER_GAP);
+        }
+        productRepository.saveAll(products);
+        
+        Product productToMove = products.get(4);
+        assertTrue(productService.moveProductToPosition(productToMove.getId(), 1));
+        
+        List<Product> updatedProducts = productService.getProductsByGroup(testCategory, testManufacturer, testGroupName);
+        assertEquals(productToMove.getId(), updatedProducts.get(1).getId(), "Produkt powinien być na pozycji 1");
+        assertStrictlyIncreasingDisplayOrder(updatedProducts);
+        
+        // Pozostałe produkty zachowują swoje displayOrder
+        for (int i = 0; i < 4; i++) {
+            Product unchanged = productRepository.findById(products.get(i).getId()).orElseThrow();
+            assertEquals(i * ProductService.DISPLAY_ORDER_GAP, unchanged.getDisplayOrder(),
+                        "DisplayOrder produktu " + unchanged.getName() + " nie powinien się zmienić");
+        }
+        logger.info("✅ Zmieniony tylko displayOrder przesuwanego produktu: {}", updatedProducts.get(1).getDisplayOrder());
+    }
+
+    /**
+     * ✅ TEST 17b: Wielokrotne przeniesienie na początek grupy zmienia za każdym razem tylko jeden wiersz
+     */
+    @Test
+    void testMoveProductToPosition_RepeatedMoveToTop_OnlyMovedRowChanges() {
+        logger.info("🧪 TEST 17b: Wielokrotne przeniesienie na początek zmienia tylko jeden wiersz");
+        
+        List<Product> products = createTestProducts(5);
+        for (int i = 0; i < products.size(); i++) {
+            products.get(i).setDisplayOrder(i * ProductService.DISPLAY_ORDER_GAP);
+        }
+        productRepository.saveAll(products);
+        
+        for (int move = 0; move < 4; move++) {
+            List<Product> before = productService.getProductsByGroup(testCategory, testManufacturer, testGroupName);
+            Map<Long, Integer> ordersBefore = before.stream()
+                .collect(Collectors.toMap(Product::getId, Product::getDisplayOrder));
+            Long lastId = before.get(before.size() - 1).getId();
+            
+            assertTrue(productService.moveProductToPosition(lastId, 0));
+            
+            List<Product> after = productService.getProductsByGroup(testCategory, testManufacturer, testGroupName);
+            assertEquals(lastId, after.get(0).getId(), "Produkt powinien być na pozycji 0");
+            assertStrictlyIncreasingDisplayOrder(after);
+            List<Long> changedIds = after.stream()
+                .filter(p -> !p.getDisplayOrder().equals(ordersBefore.get(p.getId())))
+                .map(Product::getId)
+                .collect(Collectors.toList());
+            assertEquals(List.of(lastId), changedIds, "Przeniesienie " + (move + 1) + " powinno zmienić tylko jeden wiersz");
+        }
+        logger.info("✅ Każde przeniesienie na początek zmieniło jeden wiersz");
+    }
+
+    /**
+     * ✅ TEST 18: reorderProducts - kolejność z listy, displayOrder z odstępami
+     */
+    @Test
+    void testReorderProducts_AppliesOrderWithGaps() {
+        logger.info("🧪 TEST 18: reorderProducts - kolejność z listy, displayOrder z odstępami");
+        
+        List<Product> products = createTestProducts(4);
+        List<Long> newOrder = Arrays.asList(
+            products.get(3).getId(), products.get(1).getId(), products.get(0).getId(), products.get(2).getId());
+        
+        productService.reorderProducts(newOrder, testCategory, testManufacturer, testGroupName);
+        
+        List<Product> updatedProducts = productService.getProductsByGroup(testCategory, testManufacturer, testGroupName);
+        for (int i = 0; i < newOrder.size(); i++) {
+            assertEquals(newOrder.get(i), updatedProducts.get(i).getId(), "Zła kolejność na pozycji " + i);
+            assertEquals(i * ProductService.DISPLAY_ORDER_GAP, updatedProducts.get(i).getDisplayOrder());
+        }
+        logger.info("✅ Kolejność z listy zapisana z odstępami");
+    }
+
+    /**
+     * displayOrder w kolejności grupy muszą być unikalne i rosnące
+     */
+    private void assertStrictlyIncreasingDisplayOrder(List<Product> groupProducts) {
+        for (int i = 1; i < groupProducts.size(); i++) {
+            int previous = groupProducts.get(i - 1).getDisplayOrder() != null ? groupProducts.get(i - 1).getDisplayOrder() : 0;
+            int current = groupProducts.get(i).getDisplayOrder() != null ? groupProducts.get(i).getDisplayOrder() : 0;
+            assertTrue(current > previous,
+                      "DisplayOrder na pozycji " + i + " (" + current + ") powinien być większy niż na pozycji " + (i - 1) + " (" + previous + ")");
+        }
+    }
+}
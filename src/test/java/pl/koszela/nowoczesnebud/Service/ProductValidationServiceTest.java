@@ -376,6 +376,111 @@ public class ProductValidationServiceTest {
         assertTrue(endTime - startTime < 10000, "5000 produktów powinno być zwalidowanych w mniej niż 10s");
     }
 
+    @Test
+    void testValidateBatch_Performance_20000Products_Parallel() {
+        logger.info("🚀 TEST WYDAJNOŚCIOWY: validateBatch - 20000 produktów (równolegle)");
+        
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setCategory(ProductCategory.TILE);
+            product.setRetailPrice(100.0 + i);
+            product.setPurchasePrice(80.0 + i);
+            product.setSellingPrice(100.0 + i);
+            product.setBasicDiscount(i % 100 == 0 ? 60 : 10); // co setny produkt z ostrzeżeniem
+            products.add(product);
+        }
+        
+        long startTime = System.currentTimeMillis();
+        BatchValidationResult result = productValidationService.validateBatch(products, ProductValidationService.DEFAULT_MAX_ERRORS);
+        long endTime = System.currentTimeMillis();
+        
+        logger.info("⏱️ [PERFORMANCE] validateBatch - 20000 produktów: {}ms", endTime - startTime);
+        
+        assertTrue(result.isAllValid(), "Wszystkie produkty powinny być poprawne");
+        assertFalse(result.isAborted(), "Walidacja nie powinna być przerwana");
+        assertEquals(20000, result.getValidCount());
+        assertEquals(200, result.getWarningCount(), "Co setny produkt powinien mieć ostrzeżenie");
+        assertEquals(200, result.getAllWarnings().size());
+    }
+
+    @Test
+    void testValidateBatch_Parallel_FindsErrorsAtAnyPosition() {
+        logger.info("🧪 TEST: validateBatch - lista powyżej progu walidowana równolegle");
+        
+        int size = 2 * ProductValidationService.PARALLEL_THRESHOLD;
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setCategory(ProductCategory.TILE);
+            product.setRetailPrice(100.0);
+            product.setPurchasePrice(80.0);
+            // Błąd (strata) w pierwszym, środkowym i ostatnim produkcie
+            boolean loss = i == 0 || i == size / 2 || i == size - 1;
+            product.setSellingPrice(loss ? 70.0 : 100.0);
+            products.add(product);
+        }
+        
+        BatchValidationResult result = productValidationService
+            .validateBatch(products, ProductValidationService.DEFAULT_MAX_ERRORS);
+        
+        assertFalse(result.isAllValid());
+        assertFalse(result.isAborted(), "3 błędy nie przekraczają limitu");
+        assertEquals(3, result.getErrorCount());
+        assertEquals(size - 3, result.getValidCount());
+        assertTrue(result.getAllErrors().get(0).contains("'Product 0'"), "Błędy w kolejności produktów");
+    }
+
+    // ==========================================
+    // TESTY POPRAWNOŚCIOWE - validateBatch() z limitem błędów (fail fast)
+    // ==========================================
+
+    @Test
+    void testValidateBatch_FailFast_StopsAfterMaxErrors() {
+        logger.info("🧪 TEST: validateBatch - przerwanie po limicie błędów");
+        
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Product product = new Product();
+            product.setName("Invalid Product " + i);
+            product.setCategory(ProductCategory.TILE);
+            product.setRetailPrice(-1.0); // Błąd: ujemna cena katalogowa
+            products.add(product);
+        }
+        
+        BatchValidationResult result = productValidationService.validateBatch(products, 5);
+        
+        assertFalse(result.isAllValid());
+        assertTrue(result.isAborted(), "Walidacja powinna zostać przerwana po 5 błędach");
+        assertEquals(5, result.getErrorCount(), "Powinno być zebranych dokładnie 5 błędów");
+        assertEquals(95, result.getSkippedCount(), "Pozostałe produkty powinny zostać pominięte");
+        assertEquals(5, result.getAllErrors().size());
+        assertTrue(result.getAllErrors().get(0).contains("Cena katalogowa nie może być ujemna"));
+    }
+
+    @Test
+    void testValidateBatch_MessagesMatchSingleValidation() {
+        logger.info("🧪 TEST: validateBatch - komunikaty zgodne z validate()");
+        
+        Product product = new Product();
+        product.setName("Loss Product");
+        product.setCategory(ProductCategory.TILE);
+        product.setRetailPrice(100.0);
+        product.setPurchasePrice(80.0);
+        product.setSellingPrice(70.0);
+        product.setBasicDiscount(60);
+        
+        ValidationResult single = productValidationService.validate(product);
+        BatchValidationResult batch = productValidationService.validateBatch(List.of(product));
+        
+        assertEquals(single.getErrors(), batch.getAllErrors());
+        assertEquals(single.getWarnings(), batch.getAllWarnings());
+        assertEquals(1, batch.getResults().size());
+        assertEquals(single.getErrors(), batch.getResults().get(0).getErrors());
+    }
+
     @Test
     void testValidateBatch_EdgeCase_EmptyList() {
         logger.info("🧪 TEST: validateBatch - pusta lista");